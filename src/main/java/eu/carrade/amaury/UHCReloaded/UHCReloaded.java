@@ -33,6 +33,7 @@ package eu.carrade.amaury.UHCReloaded;
 
 import eu.carrade.amaury.UHCReloaded.borders.BorderManager;
 import eu.carrade.amaury.UHCReloaded.commands.UHCommandExecutor;
+import eu.carrade.amaury.UHCReloaded.game.GameJournal;
 import eu.carrade.amaury.UHCReloaded.game.UHGameManager;
 import eu.carrade.amaury.UHCReloaded.integration.UHDynmapIntegration;
 import eu.carrade.amaury.UHCReloaded.integration.UHProtocolLibIntegrationWrapper;
@@ -49,13 +50,17 @@ import eu.carrade.amaury.UHCReloaded.misc.OfflinePlayersLoader;
 import eu.carrade.amaury.UHCReloaded.misc.PlayerListHeaderFooterManager;
 import eu.carrade.amaury.UHCReloaded.misc.RulesManager;
 import eu.carrade.amaury.UHCReloaded.misc.RuntimeCommandsExecutor;
+import eu.carrade.amaury.UHCReloaded.misc.SurfaceCache;
 import eu.carrade.amaury.UHCReloaded.recipes.RecipesManager;
+import eu.carrade.amaury.UHCReloaded.rollback.RollbackManager;
 import eu.carrade.amaury.UHCReloaded.scoreboard.ScoreboardManager;
 import eu.carrade.amaury.UHCReloaded.spawns.SpawnsManager;
 import eu.carrade.amaury.UHCReloaded.spectators.SpectatorsManager;
 import eu.carrade.amaury.UHCReloaded.task.UpdateTimerTask;
+import eu.carrade.amaury.UHCReloaded.task.WorkScheduler;
 import eu.carrade.amaury.UHCReloaded.teams.TeamChatManager;
 import eu.carrade.amaury.UHCReloaded.teams.TeamManager;
+import eu.carrade.amaury.UHCReloaded.timeline.MatchTimeline;
 import eu.carrade.amaury.UHCReloaded.timers.TimerManager;
 import fr.zcraft.zlib.components.gui.Gui;
 import fr.zcraft.zlib.components.i18n.I;
@@ -75,6 +80,7 @@ public class UHCReloaded extends ZPlugin
     private TeamManager teamManager = null;
     private SpawnsManager spawnsManager = null;
     private UHGameManager gameManager = null;
+    private GameJournal gameJournal = null;
     private SpectatorsManager spectatorsManager = null;
     private ScoreboardManager scoreboardManager = null;
     private MOTDManager motdManager = null;
@@ -84,6 +90,10 @@ public class UHCReloaded extends ZPlugin
     private RecipesManager recipesManager = null;
     private TeamChatManager teamChatManager = null;
     private TimerManager timerManager = null;
+    private SurfaceCache surfaceCache = null;
+    private RollbackManager rollbackManager = null;
+    private MatchTimeline timeline = null;
+    private WorkScheduler workScheduler = null;
 
     private RuntimeCommandsExecutor runtimeCommandsExecutor = null;
 
@@ -128,9 +138,15 @@ public class UHCReloaded extends ZPlugin
         protocollibintegrationwrapper = new UHProtocolLibIntegrationWrapper(this);
 
 
+        workScheduler = new WorkScheduler(UHConfig.WORK_SCHEDULER.TICK_BUDGET.get());
+        surfaceCache = new SurfaceCache();
+        rollbackManager = new RollbackManager(this);
+        timeline = new MatchTimeline();
+
         spectatorsManager = SpectatorsManager.getInstance();
         teamManager = new TeamManager();
         gameManager = new UHGameManager(this);
+        gameJournal = new GameJournal(this);
         spawnsManager = new SpawnsManager(this);
         borderManager = new BorderManager(this);
         recipesManager = new RecipesManager(this);
@@ -158,6 +174,7 @@ public class UHCReloaded extends ZPlugin
         ZLib.registerEvents(new CraftingListener(this));
         ZLib.registerEvents(new SpawnsListener());
         ZLib.registerEvents(new BeforeGameListener());
+        ZLib.registerEvents(surfaceCache);
 
         // The freezer listener is registered by the freezer when it is needed.
 
@@ -166,22 +183,28 @@ public class UHCReloaded extends ZPlugin
 
         motdManager.updateMOTDBeforeStart();
 
-        // In case of reload
-        for (Player player : getServer().getOnlinePlayers())
-        {
-            gameManager.initPlayer(player);
-        }
-
         // Imports spawnpoints from the config.
         this.spawnsManager.importSpawnPointsFromConfig();
 
         // Imports teams from the config.
         this.teamManager.importTeamsFromConfig();
 
-        // Starts the task that updates the timers.
+        // Resumes the game interrupted by a crash or a restart, if any.
+        gameJournal.replay();
+
+        // In case of reload
+        if (!gameManager.isGameStarted())
+        {
+            for (Player player : getServer().getOnlinePlayers())
+            {
+                gameManager.initPlayer(player);
+            }
+        }
+
+        // Starts the task that ends the timers when they are up (checked every tick).
         // Started here, so a timer can be displayed before the start of the game
         // (example: countdown before the start).
-        new UpdateTimerTask().runTaskTimer(this, 20L, 20L);
+        new UpdateTimerTask().runTaskTimer(this, 1L, 1L);
 
         // Schedule commands
         runtimeCommandsExecutor.registerCommandsInScheduler(RuntimeCommandsExecutor.AFTER_SERVER_START);
@@ -189,6 +212,43 @@ public class UHCReloaded extends ZPlugin
         getLogger().info(I.t("Ultra Hardcore plugin loaded."));
     }
 
+    @Override
+    public void onDisable()
+    {
+        // Keeps the running game on the disk, to resume it on the next start.
+        if (gameJournal != null)
+        {
+            gameJournal.shutdown();
+        }
+
+        if (spawnsManager != null)
+        {
+            spawnsManager.cancelGeneration();
+        }
+
+        if (borderManager != null)
+        {
+            borderManager.cancelWallsGeneration();
+        }
+
+        if (rollbackManager != null)
+        {
+            rollbackManager.shutdown();
+        }
+
+        if (timeline != null)
+        {
+            timeline.shutdown();
+        }
+
+        if (workScheduler != null)
+        {
+            workScheduler.shutdown();
+        }
+
+        super.onDisable();
+    }
+
     /**
      * Returns the team manager.
      */
@@ -205,6 +265,14 @@ public class UHCReloaded extends ZPlugin
         return gameManager;
     }
 
+    /**
+     * Returns the game journal, used to resume a game after a crash.
+     */
+    public GameJournal getGameJournal()
+    {
+        return gameJournal;
+    }
+
     /**
      * @return the spectators manager.
      */
@@ -285,6 +353,38 @@ public class UHCReloaded extends ZPlugin
         return timerManager;
     }
 
+    /**
+     * Returns the cache of the surface of the terrain.
+     */
+    public SurfaceCache getSurfaceCache()
+    {
+        return surfaceCache;
+    }
+
+    /**
+     * Returns the manager of the edit sessions, used to roll back the edits made to the worlds.
+     */
+    public RollbackManager getRollbackManager()
+    {
+        return rollbackManager;
+    }
+
+    /**
+     * Returns the scheduler running the heavy jobs progressively, within a time budget each tick.
+     */
+    public WorkScheduler getWorkScheduler()
+    {
+        return workScheduler;
+    }
+
+    /**
+     * Returns the timeline of the match, scheduling the actions executed during the game.
+     */
+    public MatchTimeline getTimeline()
+    {
+        return timeline;
+    }
+
     /**
      * Returns the manager used to manage the commands executed after the start/the end of the
      * game (or any other moment using the generic API).
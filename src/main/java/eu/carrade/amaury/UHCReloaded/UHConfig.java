@@ -1,6 +1,7 @@
 package eu.carrade.amaury.UHCReloaded;
 
 import eu.carrade.amaury.UHCReloaded.borders.MapShape;
+import eu.carrade.amaury.UHCReloaded.borders.worldborders.CircularWorldBorder;
 import eu.carrade.amaury.UHCReloaded.game.Cage;
 import eu.carrade.amaury.UHCReloaded.teams.TeamManager;
 import eu.carrade.amaury.UHCReloaded.utils.UHSound;
@@ -61,6 +62,7 @@ public class UHConfig extends Configuration
             public final ConfigurationItem<Double> DAMAGES_BUFFER = item("damagesBuffer", 5d);
             public final ConfigurationItem<Double> DAMAGES_AMOUNT = item("damagesAmount", 0.2);
             public final ConfigurationItem<Integer> WARNING_DISTANCE = item("warningDistance", 5);
+            public final ConfigurationItem<CircularWorldBorder.OutsideAction> OUTSIDE_ACTION = item("outsideAction", CircularWorldBorder.OutsideAction.KNOCKBACK);
 
             public final ShrinkingSection SHRINKING = section("shrinking", ShrinkingSection.class);
 
@@ -150,6 +152,15 @@ public class UHConfig extends Configuration
         }
 
         public final ConfigurationItem<Boolean> KILLS = item("kills", true);
+
+        public final LeaderboardSection LEADERBOARD = section("leaderboard", LeaderboardSection.class);
+
+        static public class LeaderboardSection extends ConfigurationSection
+        {
+            public final ConfigurationItem<Boolean> DISPLAYED = item("displayed", false);
+            public final ConfigurationItem<Integer> SIZE = item("size", 3);
+        }
+
         public final ConfigurationItem<Boolean> TIMER = item("timer", true);
         public final ConfigurationItem<Boolean> FREEZE_STATUS = item("freezeStatus", true);
         public final ConfigurationItem<Boolean> HEALTH = item("health", true);
@@ -253,6 +264,21 @@ public class UHConfig extends Configuration
             }
         }
 
+        public final AdaptiveSection ADAPTIVE = section("adaptive", AdaptiveSection.class);
+
+        static public class AdaptiveSection extends ConfigurationSection
+        {
+            public final ConfigurationItem<Boolean> ENABLED = item("enabled", true);
+        }
+
+        public final PrewarmSection PREWARM = section("prewarm", PrewarmSection.class);
+
+        static public class PrewarmSection extends ConfigurationSection
+        {
+            public final ConfigurationItem<Boolean> ENABLED = item("enabled", true);
+            public final ConfigurationItem<Integer> RADIUS = item("radius", 2);
+        }
+
         public final SoundSection SOUND = section("sound", SoundSection.class);
 
         public final ConfigurationItem<Boolean> DISPLAY_TITLE = item("displayTitle", true);
@@ -502,6 +528,28 @@ public class UHConfig extends Configuration
         }
     }
 
+    static public final JournalSection JOURNAL = section("journal", JournalSection.class);
+
+    static public class JournalSection extends ConfigurationSection
+    {
+        public final ConfigurationItem<Boolean> ENABLED = item("enabled", true);
+        public final ConfigurationItem<Integer> SNAPSHOT_INTERVAL = item("snapshotInterval", 60);
+    }
+
+    static public final RollbackSection ROLLBACK = section("rollback", RollbackSection.class);
+
+    static public class RollbackSection extends ConfigurationSection
+    {
+        public final ConfigurationItem<Boolean> ENABLED = item("enabled", true);
+    }
+
+    static public final WorkSchedulerSection WORK_SCHEDULER = section("workScheduler", WorkSchedulerSection.class);
+
+    static public class WorkSchedulerSection extends ConfigurationSection
+    {
+        public final ConfigurationItem<Long> TICK_BUDGET = item("tickBudget", 20l);
+    }
+
     static public final DynmapSection DYNMAP = section("dynmap", DynmapSection.class);
 
     static public class DynmapSection extends ConfigurationSection
@@ -36,8 +36,10 @@ import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
 import eu.carrade.amaury.UHCReloaded.borders.exceptions.CannotGenerateWallsException;
 import eu.carrade.amaury.UHCReloaded.borders.generators.WallGenerator;
+import eu.carrade.amaury.UHCReloaded.borders.generators.WallsGenerationTask;
 import eu.carrade.amaury.UHCReloaded.borders.worldborders.WorldBorder;
 import eu.carrade.amaury.UHCReloaded.task.BorderWarningTask;
+import eu.carrade.amaury.UHCReloaded.timeline.TimelineAction;
 import eu.carrade.amaury.UHCReloaded.timers.UHTimer;
 import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
 import fr.zcraft.zlib.components.i18n.I;
@@ -55,6 +57,7 @@ import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.UUID;
 
 
 public class BorderManager
@@ -71,12 +74,17 @@ public class BorderManager
     private Integer warningSize = 0;
     private BukkitRunnable warningTask = null;
 
+    private WallsGenerationTask wallsGeneration = null;
+
     private Boolean warningFinalTimeEnabled = false;
     private String warningTimerName = null;
     private CommandSender warningSender = null;
 
     private MapShape mapShape = null;
 
+    private TimelineAction shrinkingAction = null;
+    private long shrinkingStartTick = -1L;
+
 
     public BorderManager(UHCReloaded plugin)
     {
@@ -158,8 +166,8 @@ public class BorderManager
      */
     public boolean isInsideBorder(Location location, double diameter)
     {
-        // The nether/end are not limited.
-        return !location.getWorld().getEnvironment().equals(Environment.NORMAL) || mapShape.getShape().isInsideBorder(location, diameter, location.getWorld().getSpawnLocation());
+        final Location center = location.getWorld().getSpawnLocation();
+        return isInsideBorder(location.getWorld(), location.getX(), location.getZ(), center.getX(), center.getZ(), (int) diameter);
     }
 
     /**
@@ -174,6 +182,25 @@ public class BorderManager
         return this.isInsideBorder(location, getCurrentBorderDiameter());
     }
 
+    /**
+     * Checks if a given point is inside the border with the given diameter, without allocating
+     * anything (to be used in loops, with the center retrieved once).
+     *
+     * @param world    The world of the point.
+     * @param x        The X coordinate of the point.
+     * @param z        The Z coordinate of the point.
+     * @param centerX  The X coordinate of the center of the border (the spawn point of the world).
+     * @param centerZ  The Z coordinate of the center of the border.
+     * @param diameter The diameter of the checked border.
+     *
+     * @return {@code true} if inside.
+     */
+    public boolean isInsideBorder(World world, double x, double z, double centerX, double centerZ, int diameter)
+    {
+        // The nether/end are not limited.
+        return world.getEnvironment() != Environment.NORMAL || mapShape.getShape().isInsideBorder(x, z, centerX, centerZ, diameter);
+    }
+
     /**
      * Returns the distance from the location to the border, if the location is outside this border.
      * If it is inside, or in another world, returns 0.
@@ -185,7 +212,12 @@ public class BorderManager
      */
     public double getDistanceToBorder(Location location, double diameter)
     {
-        return mapShape.getShape().getDistanceToBorder(location, diameter, location.getWorld().getSpawnLocation());
+        // The nether/end are not limited.
+        if (location.getWorld().getEnvironment() != Environment.NORMAL)
+            return -1;
+
+        final Location center = location.getWorld().getSpawnLocation();
+        return mapShape.getShape().getDistanceToBorder(location.getX(), location.getZ(), center.getX(), center.getZ(), (int) diameter);
     }
 
 
@@ -198,14 +230,21 @@ public class BorderManager
      */
     public Set<Player> getPlayersOutside(int diameter)
     {
-        HashSet<Player> playersOutside = new HashSet<Player>();
+        // If the border tracks the players itself, no need to check everyone.
+        final Set<Player> trackedPlayersOutside = border.getPlayersOutside(diameter);
+        if (trackedPlayersOutside != null)
+        {
+            trackedPlayersOutside.removeIf(player -> p.getGameManager().isPlayerDead(player));
+            return trackedPlayersOutside;
+        }
 
-        for (final Player player : p.getGameManager().getOnlineAlivePlayers())
+        // Else, the players are checked together from their positions sampled this tick.
+        final Set<Player> playersOutside = new HashSet<>();
+
+        for (final UUID id : p.getGameManager().getPlayerPositions().getOutside(mapShape.getShape(), diameter))
         {
-            if (!isInsideBorder(player.getLocation(), diameter))
-            {
-                playersOutside.add(player);
-            }
+            final Player player = p.getServer().getPlayer(id);
+            if (player != null) playersOutside.add(player);
         }
 
         return playersOutside;
@@ -257,6 +296,7 @@ public class BorderManager
         cancelWarning();
 
         this.warningSize = diameter;
+        border.setWatchedDiameter(diameter);
 
         if (timeLeft != 0)
         {
@@ -320,6 +360,8 @@ public class BorderManager
             catch (IllegalStateException ignored) {}
         }
 
+        border.setWatchedDiameter(-1);
+
         UHTimer timer = getWarningTimer();
         if (timer != null)
         {
@@ -340,8 +382,8 @@ public class BorderManager
      * Changes the current border diameter.
      * This also reconfigures the used world border.
      *
-     * If WorldBorder is installed, all players out of this new border will be teleported inside the new one.
-     * Else, nothing will happens.
+     * All players out of this new border will be sent inside the new one (teleported by the WorldBorder
+     * plugin, or pushed back by the vanilla or the plugin's circular border).
      *
      * @param diameter the new diameter.
      */
@@ -370,7 +412,7 @@ public class BorderManager
         else
         {
             to.sendMessage(I.t("{ci}There are {0} players outside the given border.", String.valueOf(playersOutside.size())));
-            for (Player player : getPlayersOutside(diameter))
+            for (Player player : playersOutside)
             {
                 double distance = getDistanceToBorder(player.getLocation(), diameter);
                 if (distance > 150)
@@ -392,11 +434,20 @@ public class BorderManager
     /**
      * Generates the walls in the given world, following the current border configuration.
      *
+     * <p>The walls are planned in the background and built progressively; the returned task can
+     * be used to follow the generation.</p>
+     *
      * @param world The world were the walls will be built in.
+     * @return The generation task, started.
      * @throws CannotGenerateWallsException
      */
-    public void generateWalls(World world) throws CannotGenerateWallsException
+    public WallsGenerationTask generateWalls(World world) throws CannotGenerateWallsException
     {
+        if (isGeneratingWalls())
+        {
+            throw new CannotGenerateWallsException("Cannot generate the walls: a generation is already running");
+        }
+
         Integer wallHeight = UHConfig.MAP.WALL.HEIGHT.get();
 
         Material wallBlockAir = UHConfig.MAP.WALL.BLOCK.REPLACE_AIR.get();
@@ -409,9 +460,59 @@ public class BorderManager
 
         WallGenerator generator = mapShape.getWallGeneratorInstance(wallBlockAir, wallBlockSolid);
         if (generator != null)
-            generator.build(world, getCurrentBorderDiameter(), wallHeight);
+            wallsGeneration = generator.build(world, getCurrentBorderDiameter(), wallHeight).start();
         else
             throw new CannotGenerateWallsException("Unable to load walls generator.");
+
+        return wallsGeneration;
+    }
+
+    /**
+     * @return The current (or last) walls generation, or {@code null} if the walls were never
+     * generated since the server started.
+     */
+    public WallsGenerationTask getWallsGeneration()
+    {
+        return wallsGeneration;
+    }
+
+    /**
+     * @return {@code true} if the walls are being generated.
+     */
+    public boolean isGeneratingWalls()
+    {
+        return wallsGeneration != null && wallsGeneration.isRunning();
+    }
+
+    /**
+     * Cancels the current walls generation, if any. The blocks already placed are kept.
+     */
+    public void cancelWallsGeneration()
+    {
+        if (wallsGeneration != null)
+            wallsGeneration.cancel();
+    }
+
+    /**
+     * Sends the progress of the current walls generation, with an estimation of the remaining
+     * time, to the given receiver. Nothing is sent if the walls are not being generated.
+     *
+     * @param to The receiver of the message.
+     */
+    public void sendWallsGenerationStatus(CommandSender to)
+    {
+        if (!isGeneratingWalls()) return;
+
+        final long eta = wallsGeneration.getEstimatedRemainingTime();
+
+        /// Progress of the walls generation in /uh border. {0} = percentage, {1} = blocks placed, {2} = total blocks.
+        to.sendMessage(I.t("{ci}Walls generation: {cc}{0}%{ci} ({1} of {2} blocks placed).", (int) (wallsGeneration.getProgress() * 100), wallsGeneration.getBlocksSet(), wallsGeneration.getTotalBlocks()));
+
+        if (eta >= 0)
+        {
+            /// Estimated remaining time of the walls generation in /uh border. {0} = time (minutes:seconds).
+            to.sendMessage(I.t("{ci}About {cc}{0}{ci} left.", String.format("%d:%02d", eta / 60, eta % 60)));
+        }
     }
 
     /**
@@ -421,16 +522,82 @@ public class BorderManager
     {
         if (BORDER_SHRINKING)
         {
-            RunTask.later(() -> {
-                Integer secondsPerBlock = (int) Math.rint(BORDER_SHRINKING_DURATION / (border.getDiameter() - BORDER_SHRINKING_FINAL_SIZE)) * 2;
+            scheduleBorderReduction(BORDER_SHRINKING_STARTS_AFTER * 20l);
+        }
+    }
+
+    /**
+     * Schedules the automatic border reduction.
+     *
+     * @param delay The delay before the beginning of the reduction, in ticks.
+     */
+    private void scheduleBorderReduction(long delay)
+    {
+        /// Name of the start of the border shrinking in /uh timeline.
+        shrinkingAction = p.getTimeline().schedule(I.t("Border shrinking"), delay, () -> {
+            Integer secondsPerBlock = (int) Math.rint(BORDER_SHRINKING_DURATION / (border.getDiameter() - BORDER_SHRINKING_FINAL_SIZE)) * 2;
+
+            shrinkingAction = null;
+            shrinkBorder(BORDER_SHRINKING_DURATION);
 
-                border.setDiameter(BORDER_SHRINKING_FINAL_SIZE, BORDER_SHRINKING_DURATION);
+            Titles.broadcastTitle(5, 30, 8, I.t("{red}Warning!"), I.t("{white}The border begins to shrink..."));
 
-                Titles.broadcastTitle(5, 30, 8, I.t("{red}Warning!"), I.t("{white}The border begins to shrink..."));
+            Bukkit.broadcastMessage(I.t("{red}{bold}The border begins to shrink..."));
+            Bukkit.broadcastMessage(I.t("{gray}It will shrink by one block every {0} second(s) until {1} blocks in diameter.", secondsPerBlock, BORDER_SHRINKING_FINAL_SIZE));
+        });
+    }
 
-                Bukkit.broadcastMessage(I.t("{red}{bold}The border begins to shrink..."));
-                Bukkit.broadcastMessage(I.t("{gray}It will shrink by one block every {0} second(s) until {1} blocks in diameter.", secondsPerBlock, BORDER_SHRINKING_FINAL_SIZE));
-            }, BORDER_SHRINKING_STARTS_AFTER * 20l);
+    /**
+     * Shrinks the border to its final size.
+     *
+     * @param duration The duration of the shrinking, in seconds.
+     */
+    private void shrinkBorder(long duration)
+    {
+        shrinkingStartTick = p.getTimeline().getCurrentTick() - (BORDER_SHRINKING_DURATION - duration) * 20L;
+        border.setDiameter(BORDER_SHRINKING_FINAL_SIZE, duration);
+    }
+
+    /**
+     * @return The number of ticks before the beginning of the automatic border reduction; -1 if
+     * it is not scheduled.
+     */
+    public long getBorderReductionDelay()
+    {
+        return shrinkingAction != null ? p.getTimeline().getRemainingTicks(shrinkingAction) : -1L;
+    }
+
+    /**
+     * @return The number of seconds before the end of the automatic border reduction; 0 if it is
+     * not running.
+     */
+    public long getBorderReductionTimeLeft()
+    {
+        if (shrinkingStartTick < 0) return 0L;
+
+        return Math.max(0L, BORDER_SHRINKING_DURATION - (p.getTimeline().getCurrentTick() - shrinkingStartTick) / 20L);
+    }
+
+    /**
+     * Restores the border of a resumed game, as it was when the game was interrupted.
+     *
+     * @param diameter The diameter of the border.
+     * @param reductionDelay The number of ticks before the beginning of the automatic reduction; -1
+     *                       if it was not scheduled.
+     * @param reductionTimeLeft The number of seconds before the end of the automatic reduction, if
+     *                          it was running; else 0.
+     */
+    public void resumeBorder(double diameter, long reductionDelay, long reductionTimeLeft)
+    {
+        border.setDiameter(diameter);
+
+        if (reductionDelay >= 0)
+        {
+            scheduleBorderReduction(reductionDelay);
+        }
+        else if (reductionTimeLeft > 0)
+        {
+            shrinkBorder(reductionTimeLeft);
         }
     }
 }
@@ -33,7 +33,6 @@ package eu.carrade.amaury.UHCReloaded.borders.generators;
 
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 
 
 public class CircularWallGenerator extends WallGenerator
@@ -44,14 +43,13 @@ public class CircularWallGenerator extends WallGenerator
     }
 
     /**
-     * Builds a wall in the world.
+     * Computes the columns of a circular wall.
      *
-     * @param world      The world the wall will be built in.
-     * @param diameter   The diameter of the wall.
-     * @param wallHeight The height of the wall.
+     * @param world    The world the wall will be built in.
+     * @param diameter The diameter of the wall.
      */
     @Override
-    public void build(World world, int diameter, int wallHeight)
+    protected void generateColumns(World world, int diameter)
     {
         // Only one quarter of the circle is explicitly set, the other parts are generated
         // following the first quarter.
@@ -65,86 +63,69 @@ public class CircularWallGenerator extends WallGenerator
         final int radius = (int) Math.floor(diameter / 2);
 
         final int xSpawn = world.getSpawnLocation().getBlockX();
-        final int ySpawn = world.getSpawnLocation().getBlockY();
         final int zSpawn = world.getSpawnLocation().getBlockZ();
 
         // First block.
-        Block currentBlock = world.getBlockAt(xSpawn + radius, ySpawn, zSpawn);
-
-        Block candidate1;
-        Block candidate2;
-        Block candidate3;
+        int currentX = xSpawn + radius;
+        int currentZ = zSpawn;
 
         // Infinite loop broken when the generation is done.
         while (true)
         {
 
-            // 1) the current point, the symmetries and the opposite point are built.
-            this.buildWallPoint(world, currentBlock.getX(), currentBlock.getZ(), wallHeight, diameter);
+            // 1) the current point, the symmetries and the opposite point are added.
+            this.addWallPoint(xSpawn, zSpawn, currentX, currentZ, diameter);
 
 
             // 2) the two candidates are found, except if the build is finished.
-            if (currentBlock.getX() == xSpawn)
+            if (currentX == xSpawn)
             {
                 // END
                 break;
             }
 
-            candidate1 = world.getBlockAt(currentBlock.getX() - 1, ySpawn, currentBlock.getZ());
-            candidate2 = world.getBlockAt(currentBlock.getX() - 1, ySpawn, currentBlock.getZ() + 1);
-            candidate3 = world.getBlockAt(currentBlock.getX(), ySpawn, currentBlock.getZ() + 1);
-
 
             // 3) The good block is selected
-            Double distanceCandidate1ToRef = Math.abs((candidate1.getLocation().distance(world.getSpawnLocation()) - radius));
-            Double distanceCandidate2ToRef = Math.abs((candidate2.getLocation().distance(world.getSpawnLocation()) - radius));
-            Double distanceCandidate3ToRef = Math.abs((candidate3.getLocation().distance(world.getSpawnLocation()) - radius));
+            final double distanceCandidate1ToRef = Math.abs(distance(xSpawn, zSpawn, currentX - 1, currentZ) - radius);
+            final double distanceCandidate2ToRef = Math.abs(distance(xSpawn, zSpawn, currentX - 1, currentZ + 1) - radius);
+            final double distanceCandidate3ToRef = Math.abs(distance(xSpawn, zSpawn, currentX, currentZ + 1) - radius);
 
             // The first is better
             if (distanceCandidate1ToRef < distanceCandidate2ToRef && distanceCandidate1ToRef < distanceCandidate3ToRef)
             {
-                currentBlock = candidate1;
+                currentX--;
             }
             // The second is better
             else if (distanceCandidate2ToRef < distanceCandidate1ToRef && distanceCandidate2ToRef < distanceCandidate3ToRef)
             {
-                currentBlock = candidate2;
+                currentX--;
+                currentZ++;
             }
             else
             {
-                currentBlock = candidate3;
+                currentZ++;
             }
         }
     }
 
 
     /**
-     * Builds 4 "towers" of the wall, from y=0 to y=wallHeight, at the given coordinates, and
-     * the symmetric points.
+     * Adds the 4 "towers" of the wall at the given coordinates and the symmetric points, with
+     * their bedrock at y=0.
      *
-     * @param world
+     * @param xSpawn
+     * @param zSpawn
      * @param x
      * @param z
-     * @param wallHeight
      * @param diameter
      */
-    private void buildWallPoint(World world, int x, int z, int wallHeight, int diameter)
+    private void addWallPoint(int xSpawn, int zSpawn, int x, int z, int diameter)
     {
         WallPosition positionOriginal;
         WallPosition positionSymmetricX;
         WallPosition positionSymmetricZ;
         WallPosition positionOpposite;
 
-        final int xSpawn = world.getSpawnLocation().getBlockX();
-        final int zSpawn = world.getSpawnLocation().getBlockZ();
-
-        // We generates first the bedrock at y=0
-        world.getBlockAt(x, 0, z).setType(Material.BEDROCK);
-        world.getBlockAt(x - 2 * (x - xSpawn), 0, z).setType(Material.BEDROCK);
-        world.getBlockAt(x, 0, z + 2 * (zSpawn - z)).setType(Material.BEDROCK);
-        world.getBlockAt(x - 2 * (x - xSpawn), 0, z + 2 * (zSpawn - z)).setType(Material.BEDROCK);
-
-
         // Following the way the wall is generated, the position of the original
         // "tower" can only be « SOUTH » or « EAST ».
         if (z > Math.floor(diameter / 2))
@@ -162,13 +143,15 @@ public class CircularWallGenerator extends WallGenerator
             positionOpposite = WallPosition.WEST;
         }
 
-        // The 4 towers are built.
-        for (int y = 1; y <= wallHeight; y++)
-        {
-            setBlock(world.getBlockAt(x, y, z), positionOriginal);
-            setBlock(world.getBlockAt(x - 2 * (x - xSpawn), y, z), positionSymmetricX);
-            setBlock(world.getBlockAt(x, y, z + 2 * (zSpawn - z)), positionSymmetricZ);
-            setBlock(world.getBlockAt(x - 2 * (x - xSpawn), y, z + 2 * (zSpawn - z)), positionOpposite);
-        }
+        // The 4 towers are added.
+        addColumn(x, z, 0, positionOriginal);
+        addColumn(x - 2 * (x - xSpawn), z, 0, positionSymmetricX);
+        addColumn(x, z + 2 * (zSpawn - z), 0, positionSymmetricZ);
+        addColumn(x - 2 * (x - xSpawn), z + 2 * (zSpawn - z), 0, positionOpposite);
+    }
+
+    private static double distance(int x1, int z1, int x2, int z2)
+    {
+        return Math.sqrt((x2 - x1) * (double) (x2 - x1) + (z2 - z1) * (double) (z2 - z1));
     }
 }
@@ -43,14 +43,13 @@ public class SquaredWallGenerator extends WallGenerator
     }
 
     /**
-     * Builds a wall in the world.
+     * Computes the columns of a squared wall.
      *
-     * @param world      The world the wall will be built in.
-     * @param diameter   The diameter of the wall.
-     * @param wallHeight The height of the wall.
+     * @param world    The world the wall will be built in.
+     * @param diameter The diameter of the wall.
      */
     @Override
-    public void build(World world, int diameter, int wallHeight)
+    protected void generateColumns(World world, int diameter)
     {
         final int halfDiameter = (int) Math.floor(diameter / 2);
 
@@ -61,26 +60,14 @@ public class SquaredWallGenerator extends WallGenerator
 
         for (int x = limitXInf; x <= limitXSup; x++)
         {
-            world.getBlockAt(x, 1, limitZInf).setType(Material.BEDROCK);
-            world.getBlockAt(x, 1, limitZSup).setType(Material.BEDROCK);
-
-            for (int y = 2; y <= wallHeight; y++)
-            {
-                setBlock(world.getBlockAt(x, y, limitZInf), WallPosition.NORTH);
-                setBlock(world.getBlockAt(x, y, limitZSup), WallPosition.SOUTH);
-            }
+            addColumn(x, limitZInf, 1, WallPosition.NORTH);
+            addColumn(x, limitZSup, 1, WallPosition.SOUTH);
         }
 
         for (int z = limitZInf + 1; z <= limitZSup - 1; z++)
         {
-            world.getBlockAt(limitXInf, 1, z).setType(Material.BEDROCK);
-            world.getBlockAt(limitXSup, 1, z).setType(Material.BEDROCK);
-
-            for (int y = 2; y <= wallHeight; y++)
-            {
-                setBlock(world.getBlockAt(limitXInf, y, z), WallPosition.WEST);
-                setBlock(world.getBlockAt(limitXSup, y, z), WallPosition.EAST);
-            }
+            addColumn(limitXInf, z, 1, WallPosition.WEST);
+            addColumn(limitXSup, z, 1, WallPosition.EAST);
         }
     }
 }
@@ -34,7 +34,11 @@ package eu.carrade.amaury.UHCReloaded.borders.generators;
 
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 
 public abstract class WallGenerator
@@ -42,7 +46,8 @@ public abstract class WallGenerator
     final private Material wallBlockAir;
     final private Material wallBlockSolid;
 
-    private int blocksSet = 0;
+    private final List<WallColumn> columns = new ArrayList<>();
+    private final Set<Long> columnsKeys = new HashSet<>();
 
     public WallGenerator(Material wallBlockAir, Material wallBlockSolid)
     {
@@ -52,46 +57,78 @@ public abstract class WallGenerator
 
 
     /**
-     * Builds a wall in the world.
+     * Prepares the generation of a wall in the world.
+     *
+     * <p>The returned task is not started; once started, the blocks are planned in the background
+     * and placed progressively.</p>
      *
      * @param world      The world the wall will be built in.
      * @param diameter   The diameter of the wall.
      * @param wallHeight The height of the wall.
+     *
+     * @return The generation task.
+     */
+    public WallsGenerationTask build(World world, int diameter, int wallHeight)
+    {
+        columns.clear();
+        columnsKeys.clear();
+
+        generateColumns(world, diameter);
+
+        return new WallsGenerationTask(this, world, new ArrayList<>(columns), wallHeight);
+    }
+
+    /**
+     * Computes the columns of the wall, calling {@link #addColumn(int, int, int, WallPosition)}
+     * for each one of them.
+     *
+     * <p>Only the geometry of the wall is computed here: the blocks of the world must not be
+     * accessed.</p>
+     *
+     * @param world    The world the wall will be built in.
+     * @param diameter The diameter of the wall.
+     */
+    protected abstract void generateColumns(World world, int diameter);
+
+    /**
+     * Adds a column to the wall: a bedrock block at the given height, and wall blocks from the
+     * block above it to the top of the wall.
+     *
+     * @param x        The X coordinate of the column.
+     * @param z        The Z coordinate of the column.
+     * @param bedrockY The height of the bedrock block.
+     * @param position The position of the current wall in the world.
      */
-    public abstract void build(World world, int diameter, int wallHeight);
+    protected void addColumn(int x, int z, int bedrockY, WallPosition position)
+    {
+        if (columnsKeys.add(((long) x << 32) | (z & 0xFFFFFFFFL)))
+            columns.add(new WallColumn(x, z, bedrockY, position));
+    }
 
 
     /**
-     * Sets a block according to his environment.
+     * Returns the block to place according to the block replaced and its environment.
      * If the block replaces a "air/tree" block, or if it is next to a transparent block, it needs to be a
      * "wall.block.replaceAir" block.
      * In all other cases, it needs to be a "wall.block.replaceSolid" one.
      *
-     * @param block The block to set.
-     * @param position The position of the current wall in the world
+     * @param replaced The type of the block replaced.
+     * @param inner    The type of the block next to it, inside the border.
+     *
+     * @return The type of the wall block.
      */
-    protected void setBlock(Block block, WallPosition position)
+    Material getWallMaterial(Material replaced, Material inner)
     {
-        // The block is a transparent block or a tree
-        if (isBlockTransparentOrNatural(block.getType()))
+        // The block is a transparent block or a tree, or
+        // we set the block according to the block near it inside the border.
+        if (isBlockTransparentOrNatural(replaced) || isBlockTransparentOrNatural(inner))
         {
-            block.setType(wallBlockAir);
+            return wallBlockAir;
         }
-        // We set the block according to the block near it inside the border.
         else
         {
-            final Material innerMaterial = getInnerBlock(block, position).getType();
-            if (isBlockTransparentOrNatural(innerMaterial))
-            {
-                block.setType(wallBlockAir);
-            }
-            else
-            {
-                block.setType(wallBlockSolid);
-            }
+            return wallBlockSolid;
         }
-
-        this.blocksSet++;
     }
 
     /**
@@ -152,38 +189,4 @@ public abstract class WallGenerator
                 return false;
         }
     }
-
-    /**
-     * Gets the block left to the given block inside the border.
-     *
-     * @param block The reference block.
-     * @param position The position of the wall currently build.
-     */
-    protected Block getInnerBlock(Block block, WallPosition position)
-    {
-        // Just for readability.
-        final World world = block.getWorld();
-        final int x = block.getX();
-        final int y = block.getY();
-        final int z = block.getZ();
-
-        switch (position)
-        {
-            case EAST:
-                return world.getBlockAt(x - 1, y, z);
-            case NORTH:
-                return world.getBlockAt(x, y, z + 1);
-            case SOUTH:
-                return world.getBlockAt(x, y, z - 1);
-            case WEST:
-                return world.getBlockAt(x + 1, y, z);
-            default: // wait what?
-                return null;
-        }
-    }
-
-    public int getBlocksSet()
-    {
-        return blocksSet;
-    }
 }
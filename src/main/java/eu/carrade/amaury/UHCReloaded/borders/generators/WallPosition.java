@@ -42,8 +42,34 @@ package eu.carrade.amaury.UHCReloaded.borders.generators;
  */
 public enum WallPosition
 {
-    NORTH,
-    SOUTH,
-    EAST,
-    WEST
+    NORTH(0, 1),
+    SOUTH(0, -1),
+    EAST(-1, 0),
+    WEST(1, 0);
+
+
+    private final int innerX;
+    private final int innerZ;
+
+    WallPosition(int innerX, int innerZ)
+    {
+        this.innerX = innerX;
+        this.innerZ = innerZ;
+    }
+
+    /**
+     * @return The X offset of the block inside the border, next to a block of this wall.
+     */
+    public int getInnerX()
+    {
+        return innerX;
+    }
+
+    /**
+     * @return The Z offset of the block inside the border, next to a block of this wall.
+     */
+    public int getInnerZ()
+    {
+        return innerZ;
+    }
 }
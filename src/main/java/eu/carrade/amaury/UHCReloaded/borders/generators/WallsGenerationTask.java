@@ -0,0 +1,548 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.borders.generators;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.misc.SurfaceCache;
+import eu.carrade.amaury.UHCReloaded.rollback.EditSession;
+import eu.carrade.amaury.UHCReloaded.task.ScheduledJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkPriority;
+import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import fr.zcraft.zlib.tools.Callback;
+import fr.zcraft.zlib.tools.PluginLogger;
+import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Generates the walls in two stages, without blocking the server.
+ *
+ * <ol>
+ *     <li>The wall is planned chunk by chunk on worker threads, from {@link ChunkSnapshot}s taken
+ *     by the main thread: for each block of each column, the replacement rules decide which
+ *     material is used.</li>
+ *     <li>The planned chunks are then built by the main thread, column by column, by the
+ *     {@linkplain eu.carrade.amaury.UHCReloaded.task.WorkScheduler work scheduler}.</li>
+ * </ol>
+ *
+ * <p>The replaced blocks are recorded in an edit session, so the walls can be rolled back.</p>
+ *
+ * <p>All the callbacks are called from the main thread.</p>
+ */
+public class WallsGenerationTask
+{
+    /**
+     * The interval between two progress callbacks, in ticks.
+     */
+    private static final int PROGRESS_INTERVAL = 100;
+
+    /**
+     * The maximal number of chunks planned ahead of the construction, to bound the memory used by
+     * the snapshots and the plans.
+     */
+    private static final int MAX_CHUNKS_AHEAD = 32;
+
+    /**
+     * The number of chunk snapshots kept by the main thread, as the blocks inside the border next
+     * to a column can be in the neighbour chunk.
+     */
+    private static final int SNAPSHOTS_CACHE_SIZE = 16;
+
+    private final WallGenerator generator;
+    private final World world;
+    private final int wallHeight;
+
+    private final Queue<ChunkColumns> chunksToPlan = new ArrayDeque<>();
+    private final Queue<ChunkPlan> plannedChunks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger chunksInProgress = new AtomicInteger(0);
+
+    private final Map<Long, ChunkSnapshot> snapshots = new LinkedHashMap<Long, ChunkSnapshot>(SNAPSHOTS_CACHE_SIZE, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ChunkSnapshot> eldest)
+        {
+            return size() > SNAPSHOTS_CACHE_SIZE;
+        }
+    };
+
+    private ChunkPlan currentPlan = null;
+    private int currentColumn = 0;
+
+    private Callback<WallsGenerationTask> onProgress = null;
+    private Callback<WallsGenerationTask> onSuccess = null;
+    private Callback<Exception> onFailure = null;
+
+    private EditSession editSession = null;
+    private ExecutorService planners = null;
+    private ScheduledJob builder = null;
+    private volatile boolean running = false;
+
+    private final int totalBlocks;
+    private int blocksSet = 0;
+    private long startTime = 0;
+    private int ticks = 0;
+
+
+    WallsGenerationTask(WallGenerator generator, World world, List<WallColumn> columns, int wallHeight)
+    {
+        this.generator = generator;
+        this.world = world;
+        this.wallHeight = Math.min(wallHeight, world.getMaxHeight() - 1);
+
+        // The columns are grouped by chunk, keeping the order of the wall so the neighbour
+        // chunks are snapshotted close in time.
+        final Map<Long, ChunkColumns> chunks = new LinkedHashMap<>();
+        int blocks = 0;
+
+        for (final WallColumn column : columns)
+        {
+            chunks.computeIfAbsent(chunkKey(column.x >> 4, column.z >> 4), key -> new ChunkColumns())
+                    .columns.add(column);
+
+            blocks += 1 + Math.max(0, this.wallHeight - column.bedrockY);
+        }
+
+        chunksToPlan.addAll(chunks.values());
+        totalBlocks = blocks;
+    }
+
+    /**
+     * Registers a callback called every few seconds while the generation runs.
+     *
+     * @param callback The callback. Argument: this task.
+     *
+     * @return Same instance for chaining.
+     */
+    public WallsGenerationTask whenProgresses(Callback<WallsGenerationTask> callback)
+    {
+        onProgress = callback;
+        return this;
+    }
+
+    /**
+     * Registers a callback called when the walls are built.
+     *
+     * @param callback The callback. Argument: this task.
+     *
+     * @return Same instance for chaining.
+     */
+    public WallsGenerationTask whenFinished(Callback<WallsGenerationTask> callback)
+    {
+        onSuccess = callback;
+        return this;
+    }
+
+    /**
+     * Registers a callback called if the walls cannot be built. The blocks already placed are
+     * kept.
+     *
+     * @param callback The callback. Argument: the error.
+     *
+     * @return Same instance for chaining.
+     */
+    public WallsGenerationTask whenFails(Callback<Exception> callback)
+    {
+        onFailure = callback;
+        return this;
+    }
+
+
+    /**
+     * Starts the generation.
+     *
+     * @return Same instance for chaining.
+     */
+    public WallsGenerationTask start()
+    {
+        if (running) return this;
+        running = true;
+
+        startTime = System.currentTimeMillis();
+        editSession = UHCReloaded.get().getRollbackManager().startSession("walls", world);
+
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final AtomicInteger threadsCount = new AtomicInteger(0);
+
+        planners = Executors.newFixedThreadPool(threads, runnable ->
+        {
+            final Thread thread = new Thread(runnable, "UHC walls planning #" + threadsCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        builder = UHCReloaded.get().getWorkScheduler().submit("walls generation", WorkPriority.LOW, new WorkJob()
+        {
+            @Override
+            public Status step()
+            {
+                if (currentPlan == null)
+                    currentPlan = plannedChunks.poll();
+
+                if (currentPlan != null)
+                {
+                    buildColumn(currentPlan, currentColumn++);
+
+                    if (currentColumn >= currentPlan.columns.size())
+                    {
+                        currentPlan = null;
+                        currentColumn = 0;
+                        chunksInProgress.decrementAndGet();
+                    }
+                }
+                else if (!chunksToPlan.isEmpty() && chunksInProgress.get() < MAX_CHUNKS_AHEAD)
+                {
+                    submitPlanning(chunksToPlan.poll());
+                }
+                else if (chunksToPlan.isEmpty() && chunksInProgress.get() == 0)
+                {
+                    return Status.DONE;
+                }
+                else
+                {
+                    // Waiting for the planners.
+                    return Status.WAIT;
+                }
+
+                return Status.CONTINUE;
+            }
+
+            @Override
+            public void tickEnded(long tickDuration, long timeSpent, int units)
+            {
+                if (++ticks % PROGRESS_INTERVAL == 0)
+                    UHUtils.callIfDefined(onProgress, WallsGenerationTask.this);
+            }
+
+            @Override
+            public void done()
+            {
+                stop();
+                UHUtils.callIfDefined(onSuccess, WallsGenerationTask.this);
+            }
+
+            @Override
+            public void failed(Throwable e)
+            {
+                stop();
+                UHUtils.callIfDefined(onFailure, e instanceof Exception ? (Exception) e : new RuntimeException(e));
+            }
+
+            @Override
+            public double getProgress()
+            {
+                return WallsGenerationTask.this.getProgress();
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Cancels the generation. The blocks already placed are kept (and can be rolled back), and no
+     * callback will be called.
+     */
+    public void cancel()
+    {
+        if (!running) return;
+        stop();
+    }
+
+    /**
+     * @return {@code true} if the generation is running.
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * @return The world the walls are built in.
+     */
+    public World getWorld()
+    {
+        return world;
+    }
+
+    /**
+     * @return The number of blocks placed so far.
+     */
+    public int getBlocksSet()
+    {
+        return blocksSet;
+    }
+
+    /**
+     * @return The number of blocks of the walls.
+     */
+    public int getTotalBlocks()
+    {
+        return totalBlocks;
+    }
+
+    /**
+     * @return The progress of the generation, between 0 and 1.
+     */
+    public double getProgress()
+    {
+        return totalBlocks == 0 ? 1 : (double) blocksSet / totalBlocks;
+    }
+
+    /**
+     * @return The time elapsed since the beginning of the generation, in seconds.
+     */
+    public long getElapsedTime()
+    {
+        return startTime == 0 ? 0 : (System.currentTimeMillis() - startTime) / 1000;
+    }
+
+    /**
+     * Estimates the remaining time from the speed observed so far.
+     *
+     * @return The estimated remaining time, in seconds, or -1 if not known yet.
+     */
+    public long getEstimatedRemainingTime()
+    {
+        if (blocksSet == 0) return -1;
+
+        final long elapsed = System.currentTimeMillis() - startTime;
+        return (long) (elapsed * ((double) (totalBlocks - blocksSet) / blocksSet)) / 1000;
+    }
+
+
+    /**
+     * Snapshots the chunks needed to plan the given chunk (from the main thread), and submits the
+     * planning to the workers.
+     */
+    private void submitPlanning(final ChunkColumns chunk)
+    {
+        final Map<Long, ChunkSnapshot> chunkSnapshots = new HashMap<>();
+
+        for (final WallColumn column : chunk.columns)
+        {
+            requireSnapshot(chunkSnapshots, column.x >> 4, column.z >> 4);
+            requireSnapshot(chunkSnapshots, (column.x + column.position.getInnerX()) >> 4, (column.z + column.position.getInnerZ()) >> 4);
+        }
+
+        chunksInProgress.incrementAndGet();
+
+        planners.execute(() ->
+        {
+            try
+            {
+                plannedChunks.add(plan(chunk, chunkSnapshots));
+            }
+            catch (RuntimeException e)
+            {
+                PluginLogger.error("Error while planning the walls", e);
+                RunTask.nextTick(() ->
+                {
+                    if (!running) return;
+
+                    stop();
+                    UHUtils.callIfDefined(onFailure, e);
+                });
+            }
+        });
+    }
+
+    private void requireSnapshot(Map<Long, ChunkSnapshot> chunkSnapshots, int chunkX, int chunkZ)
+    {
+        final long key = chunkKey(chunkX, chunkZ);
+        if (chunkSnapshots.containsKey(key)) return;
+
+        ChunkSnapshot snapshot = snapshots.get(key);
+        if (snapshot == null)
+        {
+            snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+            snapshots.put(key, snapshot);
+        }
+
+        chunkSnapshots.put(key, snapshot);
+    }
+
+    /**
+     * Plans the blocks of the columns of a chunk. Called from a worker thread.
+     */
+    @SuppressWarnings ("deprecation")
+    private ChunkPlan plan(ChunkColumns chunk, Map<Long, ChunkSnapshot> chunkSnapshots)
+    {
+        final List<Material[]> materials = new ArrayList<>(chunk.columns.size());
+        final List<int[]> originals = new ArrayList<>(chunk.columns.size());
+
+        for (final WallColumn column : chunk.columns)
+        {
+            final ChunkSnapshot snapshot = chunkSnapshots.get(chunkKey(column.x >> 4, column.z >> 4));
+
+            final int innerX = column.x + column.position.getInnerX();
+            final int innerZ = column.z + column.position.getInnerZ();
+            final ChunkSnapshot innerSnapshot = chunkSnapshots.get(chunkKey(innerX >> 4, innerZ >> 4));
+
+            final Material[] columnMaterials = new Material[Math.max(0, wallHeight - column.bedrockY)];
+
+            for (int i = 0; i < columnMaterials.length; i++)
+            {
+                final int y = column.bedrockY + 1 + i;
+
+                columnMaterials[i] = generator.getWallMaterial(
+                        getType(snapshot, column.x & 0xF, y, column.z & 0xF),
+                        getType(innerSnapshot, innerX & 0xF, y, innerZ & 0xF)
+                );
+            }
+
+            // The original blocks, recorded to be able to roll back the walls (bedrock included)
+            final int[] columnOriginals = new int[columnMaterials.length + 1];
+
+            for (int i = 0; i < columnOriginals.length; i++)
+            {
+                final int y = column.bedrockY + i;
+                if (y < 0 || y > 255) continue;
+
+                columnOriginals[i] = (snapshot.getBlockTypeId(column.x & 0xF, y, column.z & 0xF) << 4)
+                        | (snapshot.getBlockData(column.x & 0xF, y, column.z & 0xF) & 0xF);
+            }
+
+            materials.add(columnMaterials);
+            originals.add(columnOriginals);
+        }
+
+        return new ChunkPlan(chunk.columns, materials, originals);
+    }
+
+    /**
+     * Places the blocks of a planned column. Called from the main thread.
+     */
+    private void buildColumn(ChunkPlan plan, int index)
+    {
+        final WallColumn column = plan.columns.get(index);
+        final Material[] materials = plan.materials.get(index);
+
+        final int[] originals = plan.originals.get(index);
+
+        for (int i = 0; i < originals.length; i++)
+            editSession.record(column.x, column.bedrockY + i, column.z, originals[i] >> 4, (byte) (originals[i] & 0xF));
+
+        world.getBlockAt(column.x, column.bedrockY, column.z).setType(Material.BEDROCK, false);
+
+        for (int i = 0; i < materials.length; i++)
+            world.getBlockAt(column.x, column.bedrockY + 1 + i, column.z).setType(materials[i], false);
+
+        blocksSet += 1 + materials.length;
+
+        // The blocks are placed without events.
+        final SurfaceCache surfaceCache = UHCReloaded.get().getSurfaceCache();
+        if (surfaceCache != null) surfaceCache.invalidate(world, column.x, column.z);
+    }
+
+    private void stop()
+    {
+        running = false;
+
+        if (builder != null)
+        {
+            builder.cancel();
+            builder = null;
+        }
+
+        if (planners != null)
+        {
+            planners.shutdownNow();
+            planners = null;
+        }
+
+        if (editSession != null)
+        {
+            editSession.close();
+            editSession = null;
+        }
+
+        chunksToPlan.clear();
+        plannedChunks.clear();
+        snapshots.clear();
+        currentPlan = null;
+    }
+
+    @SuppressWarnings ("deprecation")
+    private static Material getType(ChunkSnapshot snapshot, int x, int y, int z)
+    {
+        if (y < 0 || y > 255) return Material.AIR;
+
+        final Material type = Material.getMaterial(snapshot.getBlockTypeId(x, y, z));
+        return type != null ? type : Material.AIR;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ)
+    {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * The columns of the wall in a chunk.
+     */
+    private static final class ChunkColumns
+    {
+        private final List<WallColumn> columns = new ArrayList<>();
+    }
+
+    /**
+     * The planned blocks of the columns of a chunk, and the original ones.
+     */
+    private static final class ChunkPlan
+    {
+        private final List<WallColumn> columns;
+        private final List<Material[]> materials;
+        private final List<int[]> originals;
+
+        private ChunkPlan(List<WallColumn> columns, List<Material[]> materials, List<int[]> originals)
+        {
+            this.columns = Collections.unmodifiableList(columns);
+            this.materials = materials;
+            this.originals = originals;
+        }
+    }
+}
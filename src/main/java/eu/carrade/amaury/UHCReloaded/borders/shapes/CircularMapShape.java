@@ -31,57 +31,86 @@
  */
 package eu.carrade.amaury.UHCReloaded.borders.shapes;
 
-import org.bukkit.Location;
-import org.bukkit.World;
-
-
 public class CircularMapShape implements MapShapeDescriptor
 {
     /**
-     * Returns true if the given location is inside the map.
+     * Returns true if the given point is inside the map.
      *
-     * @param location The location to check.
+     * @param x        The X coordinate of the point to check.
+     * @param z        The Z coordinate of the point to check.
+     * @param centerX  The X coordinate of the center of the map.
+     * @param centerZ  The Z coordinate of the center of the map.
      * @param diameter The diameter of the map.
-     * @param center   The center of the map.
      *
-     * @return {@code true} if the given location is inside the map.
+     * @return {@code true} if the given point is inside the map.
      */
     @Override
-    public boolean isInsideBorder(final Location location, final Double diameter, final Location center)
+    public boolean isInsideBorder(double x, double z, double centerX, double centerZ, int diameter)
     {
-        final Location centerRef = center.clone();
-        centerRef.setY(location.getY());
+        final double radius = Math.floor(diameter / 2.0);
+        final double dx = x - centerX;
+        final double dz = z - centerZ;
 
-        return (location.distance(centerRef) <= Math.floor(diameter / 2));
+        return dx * dx + dz * dz <= radius * radius;
     }
 
     /**
-     * Returns the distance between the given location and the border with this diameter.
+     * Checks if a batch of points are inside the map.
      *
-     * @param location The distance will be calculated between this location and the closest point of the border.
-     * @param diameter The diameter of the border.
-     * @param center   The center of the border.
+     * @param x        The X coordinates of the points to check.
+     * @param z        The Z coordinates of the points to check.
+     * @param count    The number of points to check (the arrays can be larger).
+     * @param centerX  The X coordinate of the center of the map.
+     * @param centerZ  The Z coordinate of the center of the map.
+     * @param diameter The diameter of the map.
+     * @param inside   Filled with the result for each point: {@code true} if inside the map.
      *
-     * @return The distance between the given {@code location} and the closest point of the border.<br />
-     * {@code -1} if the location is inside the border.
+     * @return The number of points inside the map.
      */
     @Override
-    public double getDistanceToBorder(final Location location, final Double diameter, final Location center)
+    public int isInsideBorder(double[] x, double[] z, int count, double centerX, double centerZ, int diameter, boolean[] inside)
     {
-        // The nether/end are not limited.
-        if (!location.getWorld().getEnvironment().equals(World.Environment.NORMAL))
+        final double radius = Math.floor(diameter / 2.0);
+        final double squaredRadius = radius * radius;
+
+        int insideCount = 0;
+
+        for (int i = 0; i < count; i++)
         {
-            return -1;
+            final double dx = x[i] - centerX;
+            final double dz = z[i] - centerZ;
+
+            inside[i] = dx * dx + dz * dz <= squaredRadius;
+            if (inside[i]) insideCount++;
         }
 
-        if (isInsideBorder(location, diameter, center))
+        return insideCount;
+    }
+
+    /**
+     * Returns the distance between the given point and the border with this diameter.
+     *
+     * @param x        The X coordinate of the point; the distance will be calculated between this
+     *                 point and the closest point of the border.
+     * @param z        The Z coordinate of the point.
+     * @param centerX  The X coordinate of the center of the border.
+     * @param centerZ  The Z coordinate of the center of the border.
+     * @param diameter The diameter of the border.
+     *
+     * @return The distance between the given point and the closest point of the border.<br />
+     * {@code -1} if the point is inside the border.
+     */
+    @Override
+    public double getDistanceToBorder(double x, double z, double centerX, double centerZ, int diameter)
+    {
+        if (isInsideBorder(x, z, centerX, centerZ, diameter))
         {
             return -1;
         }
 
-        final Location centerRef = center.clone();
-        centerRef.setY(location.getY());
+        final double dx = x - centerX;
+        final double dz = z - centerZ;
 
-        return (location.distance(centerRef) - Math.floor(diameter / 2));
+        return Math.sqrt(dx * dx + dz * dz) - Math.floor(diameter / 2.0);
     }
 }
@@ -32,13 +32,71 @@
 package eu.carrade.amaury.UHCReloaded.borders.shapes;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 
 
 /**
  * Represents a shape of the map.
+ *
+ * <p>The checks are implemented on primitive coordinates, so they can be used in hot loops
+ * without allocating anything; the {@link Location} versions are provided for convenience.</p>
  */
 public interface MapShapeDescriptor
 {
+    /**
+     * Returns true if the given point is inside the map.
+     *
+     * @param x        The X coordinate of the point to check.
+     * @param z        The Z coordinate of the point to check.
+     * @param centerX  The X coordinate of the center of the map.
+     * @param centerZ  The Z coordinate of the center of the map.
+     * @param diameter The diameter of the map.
+     *
+     * @return {@code true} if the given point is inside the map.
+     */
+    boolean isInsideBorder(double x, double z, double centerX, double centerZ, int diameter);
+
+    /**
+     * Returns the distance between the given point and the border with this diameter.
+     *
+     * @param x        The X coordinate of the point; the distance will be calculated between this
+     *                 point and the closest point of the border.
+     * @param z        The Z coordinate of the point.
+     * @param centerX  The X coordinate of the center of the border.
+     * @param centerZ  The Z coordinate of the center of the border.
+     * @param diameter The diameter of the border.
+     *
+     * @return The distance between the given point and the closest point of the border.<br />
+     *         {@code -1} if the point is inside the border.
+     */
+    double getDistanceToBorder(double x, double z, double centerX, double centerZ, int diameter);
+
+    /**
+     * Checks if a batch of points are inside the map.
+     *
+     * @param x        The X coordinates of the points to check.
+     * @param z        The Z coordinates of the points to check.
+     * @param count    The number of points to check (the arrays can be larger).
+     * @param centerX  The X coordinate of the center of the map.
+     * @param centerZ  The Z coordinate of the center of the map.
+     * @param diameter The diameter of the map.
+     * @param inside   Filled with the result for each point: {@code true} if inside the map.
+     *
+     * @return The number of points inside the map.
+     */
+    default int isInsideBorder(double[] x, double[] z, int count, double centerX, double centerZ, int diameter, boolean[] inside)
+    {
+        int insideCount = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            inside[i] = isInsideBorder(x[i], z[i], centerX, centerZ, diameter);
+            if (inside[i]) insideCount++;
+        }
+
+        return insideCount;
+    }
+
     /**
      * Returns true if the given location is inside the map.
      *
@@ -48,7 +106,10 @@ public interface MapShapeDescriptor
      *
      * @return {@code true} if the given location is inside the map.
      */
-    boolean isInsideBorder(final Location location, final Double diameter, final Location center);
+    default boolean isInsideBorder(final Location location, final Double diameter, final Location center)
+    {
+        return isInsideBorder(location.getX(), location.getZ(), center.getX(), center.getZ(), diameter.intValue());
+    }
 
     /**
      * Returns the distance between the given location and the border with this diameter.
@@ -60,5 +121,14 @@ public interface MapShapeDescriptor
      * @return The distance between the given {@code location} and the closest point of the border.<br />
      *         {@code -1} if the location is inside the border.
      */
-    double getDistanceToBorder(final Location location, final Double diameter, final Location center);
+    default double getDistanceToBorder(final Location location, final Double diameter, final Location center)
+    {
+        // The nether/end are not limited.
+        if (!location.getWorld().getEnvironment().equals(World.Environment.NORMAL))
+        {
+            return -1;
+        }
+
+        return getDistanceToBorder(location.getX(), location.getZ(), center.getX(), center.getZ(), diameter.intValue());
+    }
 }
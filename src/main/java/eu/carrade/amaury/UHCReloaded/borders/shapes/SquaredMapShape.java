@@ -31,104 +31,122 @@
  */
 package eu.carrade.amaury.UHCReloaded.borders.shapes;
 
-import org.bukkit.Location;
-import org.bukkit.World;
+import static org.bukkit.util.NumberConversions.floor;
 
 
 public class SquaredMapShape implements MapShapeDescriptor
 {
     /**
-     * Returns true if the given location is inside the map.
+     * Returns true if the given point is inside the map.
      *
-     * @param location The location to check.
+     * @param x        The X coordinate of the point to check.
+     * @param z        The Z coordinate of the point to check.
+     * @param centerX  The X coordinate of the center of the map.
+     * @param centerZ  The Z coordinate of the center of the map.
      * @param diameter The diameter of the map.
-     * @param center   The center of the map.
      *
-     * @return {@code true} if the given location is inside the map.
+     * @return {@code true} if the given point is inside the map.
      */
     @Override
-    public boolean isInsideBorder(final Location location, final Double diameter, final Location center)
+    public boolean isInsideBorder(double x, double z, double centerX, double centerZ, int diameter)
     {
-        final Integer halfMapSize = (int) Math.floor(diameter / 2);
-        final Integer x = location.getBlockX();
-        final Integer z = location.getBlockZ();
+        final int halfMapSize = (int) Math.floor(diameter / 2.0);
+        final int blockX = floor(x);
+        final int blockZ = floor(z);
 
-        final Integer limitXInf = center.clone().add(-halfMapSize, 0, 0).getBlockX();
-        final Integer limitXSup = center.clone().add(halfMapSize, 0, 0).getBlockX();
-        final Integer limitZInf = center.clone().add(0, 0, -halfMapSize).getBlockZ();
-        final Integer limitZSup = center.clone().add(0, 0, halfMapSize).getBlockZ();
-
-        return !(x < limitXInf || x > limitXSup || z < limitZInf || z > limitZSup);
+        return !(blockX < floor(centerX - halfMapSize) || blockX > floor(centerX + halfMapSize)
+                || blockZ < floor(centerZ - halfMapSize) || blockZ > floor(centerZ + halfMapSize));
     }
 
     /**
-     * Returns the distance between the given location and the border with this diameter.
+     * Checks if a batch of points are inside the map.
      *
-     * @param location The distance will be calculated between this location and the closest point of the border.
-     * @param diameter The diameter of the border.
-     * @param center   The center of the border.
+     * @param x        The X coordinates of the points to check.
+     * @param z        The Z coordinates of the points to check.
+     * @param count    The number of points to check (the arrays can be larger).
+     * @param centerX  The X coordinate of the center of the map.
+     * @param centerZ  The Z coordinate of the center of the map.
+     * @param diameter The diameter of the map.
+     * @param inside   Filled with the result for each point: {@code true} if inside the map.
      *
-     * @return The distance between the given {@code location} and the closest point of the border.<br />
-     * {@code -1} if the location is inside the border.
+     * @return The number of points inside the map.
      */
     @Override
-    public double getDistanceToBorder(final Location location, final Double diameter, final Location center)
+    public int isInsideBorder(double[] x, double[] z, int count, double centerX, double centerZ, int diameter, boolean[] inside)
     {
-        // The nether/end are not limited.
-        if (!location.getWorld().getEnvironment().equals(World.Environment.NORMAL))
+        final int halfMapSize = (int) Math.floor(diameter / 2.0);
+
+        final int limitXInf = floor(centerX - halfMapSize);
+        final int limitXSup = floor(centerX + halfMapSize);
+        final int limitZInf = floor(centerZ - halfMapSize);
+        final int limitZSup = floor(centerZ + halfMapSize);
+
+        int insideCount = 0;
+
+        for (int i = 0; i < count; i++)
         {
-            return -1;
+            final int blockX = floor(x[i]);
+            final int blockZ = floor(z[i]);
+
+            inside[i] = !(blockX < limitXInf || blockX > limitXSup || blockZ < limitZInf || blockZ > limitZSup);
+            if (inside[i]) insideCount++;
         }
 
-        if (isInsideBorder(location, diameter, center))
+        return insideCount;
+    }
+
+    /**
+     * Returns the distance between the given point and the border with this diameter.
+     *
+     * @param x        The X coordinate of the point; the distance will be calculated between this
+     *                 point and the closest point of the border.
+     * @param z        The Z coordinate of the point.
+     * @param centerX  The X coordinate of the center of the border.
+     * @param centerZ  The Z coordinate of the center of the border.
+     * @param diameter The diameter of the border.
+     *
+     * @return The distance between the given point and the closest point of the border.<br />
+     * {@code -1} if the point is inside the border.
+     */
+    @Override
+    public double getDistanceToBorder(double x, double z, double centerX, double centerZ, int diameter)
+    {
+        if (isInsideBorder(x, z, centerX, centerZ, diameter))
         {
             return -1;
         }
 
-        final Integer halfMapSize = (int) Math.floor(diameter / 2);
-        final Integer x = location.getBlockX();
-        final Integer z = location.getBlockZ();
+        final int halfMapSize = (int) Math.floor(diameter / 2.0);
+        final int blockX = floor(x);
+        final int blockZ = floor(z);
 
-        final Integer limitXInf = center.clone().add(-halfMapSize, 0, 0).getBlockX();
-        final Integer limitXSup = center.clone().add(halfMapSize, 0, 0).getBlockX();
-        final Integer limitZInf = center.clone().add(0, 0, -halfMapSize).getBlockZ();
-        final Integer limitZSup = center.clone().add(0, 0, halfMapSize).getBlockZ();
+        final int limitXInf = floor(centerX - halfMapSize);
+        final int limitXSup = floor(centerX + halfMapSize);
+        final int limitZInf = floor(centerZ - halfMapSize);
+        final int limitZSup = floor(centerZ + halfMapSize);
 
-        if (x > limitXSup && z < limitZSup && z > limitZInf)       // East of the border
+        if (blockX > limitXSup && blockZ <= limitZSup && blockZ >= limitZInf)       // East of the border
         {
-            return Math.abs(x - limitXSup);
+            return blockX - limitXSup;
         }
-        else if (x < limitXInf && z < limitZSup && z > limitZInf)  // West of the border
+        else if (blockX < limitXInf && blockZ <= limitZSup && blockZ >= limitZInf)  // West of the border
         {
-            return Math.abs(x - limitXInf);
+            return limitXInf - blockX;
         }
-        else if (z > limitZSup && x < limitXSup && x > limitXInf)  // South of the border
+        else if (blockZ > limitZSup && blockX <= limitXSup && blockX >= limitXInf)  // South of the border
         {
-            return Math.abs(z - limitZSup);
+            return blockZ - limitZSup;
         }
-        else if (z < limitZInf && x < limitXSup && x > limitXInf)  // North of the border
+        else if (blockZ < limitZInf && blockX <= limitXSup && blockX >= limitXInf)  // North of the border
         {
-            return Math.abs(z - limitZInf);
+            return limitZInf - blockZ;
         }
-        else if (x > limitXSup && z < limitZInf)  // North-East
+        else  // In a corner: distance to the closest corner
         {
-            return (int) location.distance(new Location(location.getWorld(), limitXSup, location.getBlockY(), limitZInf));
-        }
-        else if (x > limitXSup && z > limitZSup)  // South-East
-        {
-            return (int) location.distance(new Location(location.getWorld(), limitXSup, location.getBlockY(), limitZSup));
-        }
-        else if (x < limitXInf && z > limitZSup)  // South-West
-        {
-            return (int) location.distance(new Location(location.getWorld(), limitXInf, location.getBlockY(), limitZSup));
-        }
-        else if (x < limitXInf && z < limitZInf)  // North-West
-        {
-            return (int) location.distance(new Location(location.getWorld(), limitXInf, location.getBlockY(), limitZInf));
-        }
-        else
-        {
-            return -1; // Should never happen.
+            final double cornerX = blockX > limitXSup ? limitXSup : limitXInf;
+            final double cornerZ = blockZ > limitZSup ? limitZSup : limitZInf;
+
+            return (int) Math.sqrt((x - cornerX) * (x - cornerX) + (z - cornerZ) * (z - cornerZ));
         }
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.borders.worldborders;
+
+
+/**
+ * Interpolates the diameter of a border progressively resized.
+ *
+ * <p>The diameter is a pure function of the time elapsed since the start of the resizing,
+ * evaluated when requested: nothing has to run every tick to move the border. The time is
+ * measured with {@link System#nanoTime()}, so the resizing ends on time whatever the server lag,
+ * unless it is paused (the end is then delayed by the duration of the pause).</p>
+ *
+ * <p>The resizing is changed from the main thread only. Each change publishes a new immutable
+ * {@link Resize}, so the diameter can be read from any thread without seeing half a change.</p>
+ */
+public class BorderResizeMotor
+{
+    private volatile Resize resize = new Resize(0, 0, 0, 0, 0, false);
+
+
+    /**
+     * Sets the diameter immediately, stopping any resizing.
+     *
+     * @param diameter The new diameter.
+     */
+    public void set(double diameter)
+    {
+        resize = new Resize(diameter, diameter, 0, 0, 0, resize.paused);
+    }
+
+    /**
+     * Starts to resize the border progressively, from its current diameter.
+     *
+     * @param diameter The final diameter.
+     * @param seconds  The duration of the resizing, in seconds. If zero or negative, the diameter
+     *                 is set immediately.
+     */
+    public void resize(double diameter, long seconds)
+    {
+        if (seconds <= 0)
+        {
+            set(diameter);
+            return;
+        }
+
+        final Resize current = resize;
+        resize = new Resize(current.getDiameter(), diameter, seconds * 1_000_000_000L, 0, System.nanoTime(), current.paused);
+    }
+
+    /**
+     * @return The current diameter.
+     */
+    public double getDiameter()
+    {
+        return resize.getDiameter();
+    }
+
+    /**
+     * @return The diameter at the end of the resizing (or the current diameter if the border is
+     * not resizing).
+     */
+    public double getTargetDiameter()
+    {
+        return resize.endDiameter;
+    }
+
+    /**
+     * @return {@code true} if the border is being resized (even if paused).
+     */
+    public boolean isResizing()
+    {
+        return resize.isResizing();
+    }
+
+    /**
+     * @return The speed of the resizing, in blocks of diameter per second (always positive), or 0
+     * if the border is not moving (not resizing, or paused).
+     */
+    public double getSpeed()
+    {
+        final Resize current = resize;
+
+        if (current.paused || !current.isResizing()) return 0;
+        return Math.abs(current.endDiameter - current.startDiameter) / (current.duration / 1_000_000_000d);
+    }
+
+    /**
+     * @return The time left before the end of the resizing, in seconds; 0 if not resizing.
+     */
+    public long getRemainingTime()
+    {
+        final Resize current = resize;
+
+        if (!current.isResizing()) return 0;
+        return (long) Math.ceil((current.duration - current.getElapsed()) / 1_000_000_000d);
+    }
+
+    /**
+     * Pauses or resumes the resizing. The time spent paused is not counted, and the end of the
+     * resizing is delayed accordingly.
+     *
+     * @param paused {@code true} to pause.
+     */
+    public void setPaused(boolean paused)
+    {
+        final Resize current = resize;
+        if (paused == current.paused) return;
+
+        final long now = System.nanoTime();
+
+        if (paused)
+            resize = new Resize(current.startDiameter, current.endDiameter, current.duration, current.elapsedBeforePause + (now - current.runningSince), current.runningSince, true);
+        else
+            resize = new Resize(current.startDiameter, current.endDiameter, current.duration, current.elapsedBeforePause, now, false);
+    }
+
+    /**
+     * @return {@code true} if the resizing is paused.
+     */
+    public boolean isPaused()
+    {
+        return resize.paused;
+    }
+
+
+    /**
+     * A resizing of the border, never modified once published.
+     */
+    private static final class Resize
+    {
+        private final double startDiameter;
+        private final double endDiameter;
+
+        // All in nanoseconds; a duration of 0 means the border is not resizing.
+        private final long duration;
+        private final long elapsedBeforePause;
+        private final long runningSince;
+
+        private final boolean paused;
+
+        private Resize(double startDiameter, double endDiameter, long duration, long elapsedBeforePause, long runningSince, boolean paused)
+        {
+            this.startDiameter = startDiameter;
+            this.endDiameter = endDiameter;
+            this.duration = duration;
+            this.elapsedBeforePause = elapsedBeforePause;
+            this.runningSince = runningSince;
+            this.paused = paused;
+        }
+
+        private double getDiameter()
+        {
+            if (duration == 0) return endDiameter;
+
+            final long elapsed = getElapsed();
+
+            // Once over, the resizing stays at its final diameter: nothing has to be cleaned up.
+            if (elapsed >= duration) return endDiameter;
+
+            return startDiameter + (endDiameter - startDiameter) * ((double) elapsed / duration);
+        }
+
+        private boolean isResizing()
+        {
+            return duration != 0 && getElapsed() < duration;
+        }
+
+        private long getElapsed()
+        {
+            return paused ? elapsedBeforePause : elapsedBeforePause + (System.nanoTime() - runningSince);
+        }
+    }
+}
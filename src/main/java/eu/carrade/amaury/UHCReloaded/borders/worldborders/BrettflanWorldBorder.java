@@ -52,15 +52,25 @@ import org.bukkit.scheduler.BukkitTask;
  *     <li>{@link #setWarningDistance(int)};</li>
  *     <li>{@link #setWarningTime(int)}.</li>
  * </ul>
+ *
+ * <p>When the border is progressively resized, its size is interpolated (see {@link
+ * BorderResizeMotor}) and sent to the WorldBorder plugin once per second.</p>
  */
 public class BrettflanWorldBorder extends WorldBorder
 {
+    /**
+     * While the border is resized, its size is sent to the WorldBorder plugin at most once every
+     * this number of ticks, as each update makes it check everyone again.
+     */
+    private static final long PUSH_INTERVAL = 20L;
+
     private World world;
     private BorderData border;
 
-    private Double diameter = 0d;
+    private final BorderResizeMotor motor = new BorderResizeMotor();
 
-    private BukkitTask slowReductionTask = null;
+    private BukkitTask pushTask = null;
+    private int pushedRadius = -1;
 
 
     public BrettflanWorldBorder(World world)
@@ -95,69 +105,69 @@ public class BrettflanWorldBorder extends WorldBorder
     @Override
     public double getDiameter()
     {
-        // If squared, the size is not changed
-        if (!border.getShape())
-            return diameter;
+        // If squared, or while resizing, the size is not changed
+        if (!border.getShape() || motor.isResizing())
+            return motor.getDiameter();
 
 
         Double realDiameter = (double) (border.getRadiusX() * 2);
 
         // Returns the stored diameter, except if it was changed
-        // manually with /wb (see #setDiameterInternal(Double) for
-        // details).
-        if (realDiameter - diameter >= 8)
-            diameter = realDiameter;
-
-        return diameter;
+        // manually with /wb (see #pushDiameter() for details).
+        // Not stored back, as this may be called outside of the main thread.
+        final double storedDiameter = motor.getDiameter();
+        return realDiameter - storedDiameter >= 8 ? realDiameter : storedDiameter;
     }
 
     @Override
     public void setDiameter(double diameter)
     {
-        setDiameterInternal(diameter);
+        stopPushTask();
 
-        if (slowReductionTask != null)
-        {
-            slowReductionTask.cancel();
-            slowReductionTask = null;
-        }
+        motor.set(diameter);
+
+        pushedRadius = -1; // Always sent, in case it was changed using /wb
+        pushDiameter();
     }
 
+    /**
+     * @param diameter The new diameter of the border.
+     * @param time     The seconds used to change the size from the old size to the new one.
+     */
     @Override
     public void setDiameter(final double diameter, final long time)
     {
-        // The behavior of the vanilla reduction is emulated.
-        final double currentDiameter = getDiameter();
+        stopPushTask();
 
-        final long ticksPerBlockRemoved = (int) Math.rint(time / (currentDiameter - diameter)) * 20L;
-        final long movement = (diameter >= currentDiameter) ? 1 : -1;
+        // Starts from the diameter possibly changed with /wb.
+        if (!motor.isResizing()) motor.set(getDiameter());
 
-        if (slowReductionTask != null)
-        {
-            slowReductionTask.cancel();
-            slowReductionTask = null;
-        }
+        motor.resize(diameter, time);
+        pushDiameter();
 
-        slowReductionTask = RunTask.timer(() -> {
-            double newDiameter = getDiameter() + movement;
+        if (motor.isResizing())
+        {
+            pushTask = RunTask.timer(() -> {
+                pushDiameter();
 
-            // If the final size is achieved, we set the exact requested size and we stop here.
-            // Calling setDiameter cancels this task.
-            if ((movement < 0 && newDiameter <= diameter) || (movement > 0 && newDiameter >= diameter))
-            {
-                setDiameter(diameter);
-            }
-            else
-            {
-                setDiameterInternal(newDiameter);
-            }
-        }, ticksPerBlockRemoved, ticksPerBlockRemoved);
+                // The exact final size was pushed.
+                if (!motor.isResizing())
+                    stopPushTask();
+            }, PUSH_INTERVAL, PUSH_INTERVAL);
+        }
     }
 
-    private void setDiameterInternal(double diameter)
+    @Override
+    public void setResizePaused(boolean paused)
     {
-        this.diameter = diameter;
+        motor.setPaused(paused);
+    }
 
+    /**
+     * Sends the current size to the WorldBorder plugin, if it changed.
+     */
+    private void pushDiameter()
+    {
         // If the wall is circular, the diameter used to check must be bigger to avoid false positives
         // if a player is in an angle of the circular wall. The original diameter set is stored and
         // returned by the getDiameter value (except if the diameter was changed using /wb), for nicer
@@ -165,7 +175,22 @@ public class BrettflanWorldBorder extends WorldBorder
         // “+3” ? Experimental.
         int offset = (getShape() == MapShape.CIRCULAR) ? 3 : 0;
 
-        border.setRadius((int) Math.floor((diameter + offset) / 2));
+        final int radius = (int) Math.floor((motor.getDiameter() + offset) / 2);
+
+        if (radius != pushedRadius)
+        {
+            border.setRadius(radius);
+            pushedRadius = radius;
+        }
+    }
+
+    private void stopPushTask()
+    {
+        if (pushTask != null)
+        {
+            pushTask.cancel();
+            pushTask = null;
+        }
     }
 
     @Override
@@ -221,5 +246,6 @@ public class BrettflanWorldBorder extends WorldBorder
     public void setShape(MapShape shape)
     {
         border.setShape(shape == MapShape.CIRCULAR);
+        pushedRadius = -1;
     }
 }
@@ -0,0 +1,530 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.borders.worldborders;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.UHConfig;
+import eu.carrade.amaury.UHCReloaded.borders.MapShape;
+import fr.zcraft.zlib.core.ZLib;
+import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * A circular world border enforced by the plugin itself, used when a circular border is
+ * requested without the WorldBorder plugin.
+ *
+ * <p>The players outside are pushed back inside (knocked back or teleported, following the
+ * configuration) and damaged like with the vanilla border. To avoid checking everyone every tick,
+ * each player is checked again after the minimal number of ticks needed to reach the border (or
+ * the watched diameter, see {@link #setWatchedDiameter(double)}) at the maximal speed of a player:
+ * the players far inside are rarely checked, and the ones close to the edge are checked every
+ * tick.</p>
+ *
+ * <p>This border is always circular, so {@link #setShape(MapShape)} does nothing and {@link
+ * #getShape()} always returns {@link MapShape#CIRCULAR}.</p>
+ */
+public class CircularWorldBorder extends WorldBorder implements Listener
+{
+    /**
+     * The maximal distance a player can travel in one tick, in blocks (sprinting on ice, horses…).
+     * Overestimated on purpose: a player must never cross a line between two checks.
+     */
+    private static final double MAX_PLAYER_SPEED = 1.0;
+
+    /**
+     * The maximal interval between two checks of the same player, in ticks.
+     */
+    private static final int MAX_CHECK_INTERVAL = 100;
+
+    /**
+     * The size of the checks wheel; must be greater than {@link #MAX_CHECK_INTERVAL}.
+     */
+    private static final int WHEEL_SIZE = 128;
+
+    /**
+     * Above this distance outside the border, the players are teleported back even if the
+     * knockback is used (e.g. after a sudden reduction of the border).
+     */
+    private static final double KNOCKBACK_MAX_DISTANCE = 3.0;
+    private static final double KNOCKBACK_STRENGTH = 0.6;
+
+    /**
+     * How far inside the border the players are teleported back.
+     */
+    private static final double TELEPORT_MARGIN = 2.0;
+
+    private final World world;
+
+    private double centerX = 0;
+    private double centerZ = 0;
+
+    private final BorderResizeMotor motor = new BorderResizeMotor();
+
+    private double damageBuffer = 5;
+    private double damageAmount = 0.2;
+    private int warningTime = 0;
+    private int warningDistance = 0;
+
+    private OutsideAction outsideAction = OutsideAction.KNOCKBACK;
+
+    private double watchedDiameter = -1;
+
+    private BukkitTask checksTask = null;
+    private int currentTick = 0;
+
+    // The players to check, by tick (modulo the wheel size).
+    private final List<List<UUID>> checksWheel = new ArrayList<>(WHEEL_SIZE);
+    private final Map<UUID, TrackedPlayer> trackedPlayers = new HashMap<>();
+
+    private final Location locationBuffer = new Location(null, 0, 0, 0);
+
+
+    public CircularWorldBorder(World world)
+    {
+        this.world = world;
+
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            checksWheel.add(new ArrayList<>());
+    }
+
+    @Override
+    public void init()
+    {
+        if (UHConfig.MAP.BORDER.isDefined())
+        {
+            setDamageBuffer(UHConfig.MAP.BORDER.DAMAGES_BUFFER.get());
+            setDamageAmount(UHConfig.MAP.BORDER.DAMAGES_AMOUNT.get());
+            setWarningDistance(UHConfig.MAP.BORDER.WARNING_DISTANCE.get());
+
+            if (UHConfig.MAP.BORDER.OUTSIDE_ACTION.get() != null)
+                outsideAction = UHConfig.MAP.BORDER.OUTSIDE_ACTION.get();
+        }
+
+        if (checksTask == null)
+        {
+            ZLib.registerEvents(this);
+
+            for (final Player player : Bukkit.getOnlinePlayers())
+                scheduleCheck(player.getUniqueId(), 1);
+
+            checksTask = RunTask.timer(this::runChecks, 1L, 1L);
+        }
+    }
+
+    @Override
+    public World getWorld()
+    {
+        return world;
+    }
+
+    @Override
+    public double getDiameter()
+    {
+        return motor.getDiameter();
+    }
+
+    @Override
+    public void setDiameter(double diameter)
+    {
+        motor.set(diameter);
+        checkEveryone();
+    }
+
+    /**
+     * @param diameter The new diameter of the border.
+     * @param time     The seconds used to change the size from the old size to the new one.
+     */
+    @Override
+    public void setDiameter(double diameter, long time)
+    {
+        motor.resize(diameter, time);
+
+        // The players close to the border have to be checked with the new speed of the edge.
+        checkEveryone();
+    }
+
+    @Override
+    public void setResizePaused(boolean paused)
+    {
+        motor.setPaused(paused);
+        checkEveryone();
+    }
+
+    @Override
+    public Location getCenter()
+    {
+        return new Location(world, centerX, 0, centerZ);
+    }
+
+    @Override
+    public void setCenter(double x, double z)
+    {
+        this.centerX = x;
+        this.centerZ = z;
+
+        checkEveryone();
+    }
+
+    @Override
+    public void setCenter(Location center)
+    {
+        setCenter(center.getX(), center.getZ());
+    }
+
+    @Override
+    public double getDamageBuffer()
+    {
+        return damageBuffer;
+    }
+
+    @Override
+    public void setDamageBuffer(double distance)
+    {
+        this.damageBuffer = distance;
+    }
+
+    @Override
+    public double getDamageAmount()
+    {
+        return damageAmount;
+    }
+
+    @Override
+    public void setDamageAmount(double damageAmount)
+    {
+        this.damageAmount = damageAmount;
+    }
+
+    @Override
+    public int getWarningTime()
+    {
+        return warningTime;
+    }
+
+    @Override
+    public void setWarningTime(int seconds)
+    {
+        this.warningTime = seconds;
+    }
+
+    @Override
+    public int getWarningDistance()
+    {
+        return warningDistance;
+    }
+
+    @Override
+    public void setWarningDistance(int blocks)
+    {
+        this.warningDistance = blocks;
+    }
+
+    @Override
+    public MapShape getShape()
+    {
+        return MapShape.CIRCULAR;
+    }
+
+    @Override
+    public void setShape(MapShape shape) {}
+
+    /**
+     * @return The action applied to the players outside the border.
+     */
+    public OutsideAction getOutsideAction()
+    {
+        return outsideAction;
+    }
+
+    /**
+     * @param outsideAction The action applied to the players outside the border.
+     */
+    public void setOutsideAction(OutsideAction outsideAction)
+    {
+        this.outsideAction = outsideAction;
+    }
+
+    @Override
+    public void setWatchedDiameter(double diameter)
+    {
+        this.watchedDiameter = diameter;
+
+        // The players close to the new line have to be checked soon.
+        checkEveryone();
+    }
+
+    @Override
+    public Set<Player> getPlayersOutside(double diameter)
+    {
+        // The checks intervals guarantee that nobody crossed these lines since the last check.
+        if ((int) diameter != (int) watchedDiameter && (motor.isResizing() || (int) diameter != (int) motor.getDiameter()))
+            return null;
+
+        final double radius = Math.floor(((int) diameter) / 2.0);
+        final Set<Player> playersOutside = new HashSet<>();
+
+        for (final Map.Entry<UUID, TrackedPlayer> entry : trackedPlayers.entrySet())
+        {
+            final TrackedPlayer tracked = entry.getValue();
+            if (!tracked.inWorld || tracked.distanceToCenter <= radius) continue;
+
+            final Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null) playersOutside.add(player);
+        }
+
+        return playersOutside;
+    }
+
+
+    /**
+     * Checks the players scheduled for this tick.
+     */
+    private void runChecks()
+    {
+        currentTick++;
+
+        final List<UUID> checks = checksWheel.get(currentTick % WHEEL_SIZE);
+        if (checks.isEmpty()) return;
+
+        final double currentDiameter = getDiameter();
+        final double radius = currentDiameter / 2;
+
+        // When the border moves, the players are approached faster.
+        final double edgeSpeed = motor.getSpeed() / 2 / 20;
+        final double watchedRadius = watchedDiameter >= 0 ? Math.floor(((int) watchedDiameter) / 2.0) : -1;
+
+        // The checks can reschedule players, but never in the same bucket.
+        for (int i = 0; i < checks.size(); i++)
+        {
+            final UUID id = checks.get(i);
+            final TrackedPlayer tracked = trackedPlayers.get(id);
+
+            // Stale entry: the player was rescheduled or left.
+            if (tracked == null || tracked.scheduledTick != currentTick) continue;
+
+            final Player player = Bukkit.getPlayer(id);
+            if (player == null)
+            {
+                trackedPlayers.remove(id);
+                continue;
+            }
+
+            scheduleCheck(id, check(player, tracked, radius, edgeSpeed, watchedRadius));
+        }
+
+        checks.clear();
+    }
+
+    /**
+     * Checks a player against the border, and pushes them back if needed.
+     *
+     * @return The number of ticks before the next check of this player.
+     */
+    private int check(Player player, TrackedPlayer tracked, double radius, double edgeSpeed, double watchedRadius)
+    {
+        player.getLocation(locationBuffer);
+
+        tracked.inWorld = world.equals(locationBuffer.getWorld());
+
+        if (!tracked.inWorld)
+            return MAX_CHECK_INTERVAL;
+
+        final double dx = locationBuffer.getX() - centerX;
+        final double dz = locationBuffer.getZ() - centerZ;
+        final double distanceToCenter = Math.sqrt(dx * dx + dz * dz);
+
+        tracked.distanceToCenter = distanceToCenter;
+
+        final double distanceToEdge = radius - distanceToCenter;
+
+        if (distanceToEdge < 0 && !player.isDead() && player.getGameMode() != GameMode.SPECTATOR)
+        {
+            pushBack(player, dx, dz, distanceToCenter, radius);
+
+            final double beyondBuffer = -distanceToEdge - damageBuffer;
+            if (beyondBuffer > 0 && damageAmount > 0 && currentTick - tracked.lastDamageTick >= 20)
+            {
+                player.damage(Math.max(1, Math.floor(beyondBuffer)) * damageAmount);
+                tracked.lastDamageTick = currentTick;
+            }
+
+            return 1;
+        }
+
+        double closestLine = Math.abs(distanceToEdge);
+        if (watchedRadius >= 0)
+            closestLine = Math.min(closestLine, Math.abs(watchedRadius - distanceToCenter));
+
+        return (int) Math.max(1, Math.min(MAX_CHECK_INTERVAL, Math.floor(closestLine / (MAX_PLAYER_SPEED + edgeSpeed))));
+    }
+
+    /**
+     * Sends a player outside the border back inside.
+     */
+    private void pushBack(Player player, double dx, double dz, double distanceToCenter, double radius)
+    {
+        final Entity target = player.isInsideVehicle() ? player.getVehicle() : player;
+
+        if (outsideAction == OutsideAction.KNOCKBACK && distanceToCenter - radius <= KNOCKBACK_MAX_DISTANCE)
+        {
+            target.setVelocity(new Vector(-dx / distanceToCenter * KNOCKBACK_STRENGTH, 0.2, -dz / distanceToCenter * KNOCKBACK_STRENGTH));
+            return;
+        }
+
+        final double teleportRadius = Math.max(0, radius - TELEPORT_MARGIN);
+
+        final Location destination = locationBuffer.clone();
+        destination.setX(centerX + dx / distanceToCenter * teleportRadius);
+        destination.setZ(centerZ + dz / distanceToCenter * teleportRadius);
+        destination.setY(UHCReloaded.get().getSurfaceCache().getHighestBlockYAt(world, destination.getBlockX(), destination.getBlockZ()));
+
+        if (player.isInsideVehicle())
+            player.leaveVehicle();
+
+        player.teleport(destination);
+        player.setFallDistance(0);
+    }
+
+    /**
+     * Schedules the next check of a player.
+     *
+     * @param id    The player's UUID.
+     * @param delay The delay before the check, in ticks (at least 1).
+     */
+    private void scheduleCheck(UUID id, int delay)
+    {
+        TrackedPlayer tracked = trackedPlayers.get(id);
+        if (tracked == null)
+        {
+            tracked = new TrackedPlayer();
+            trackedPlayers.put(id, tracked);
+        }
+
+        final int tick = currentTick + Math.max(1, Math.min(delay, WHEEL_SIZE - 1));
+
+        // Already checked earlier: the previous entry is kept.
+        if (tracked.scheduledTick > currentTick && tracked.scheduledTick <= tick) return;
+
+        tracked.scheduledTick = tick;
+        checksWheel.get(tick % WHEEL_SIZE).add(id);
+    }
+
+    /**
+     * Checks all the players on the next tick, e.g. after a change of the border.
+     */
+    private void checkEveryone()
+    {
+        for (final UUID id : new ArrayList<>(trackedPlayers.keySet()))
+            scheduleCheck(id, 1);
+    }
+
+
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent ev)
+    {
+        scheduleCheck(ev.getPlayer().getUniqueId(), 1);
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent ev)
+    {
+        trackedPlayers.remove(ev.getPlayer().getUniqueId());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent ev)
+    {
+        scheduleCheck(ev.getPlayer().getUniqueId(), 1);
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent ev)
+    {
+        scheduleCheck(ev.getPlayer().getUniqueId(), 1);
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent ev)
+    {
+        scheduleCheck(ev.getPlayer().getUniqueId(), 1);
+    }
+
+
+    /**
+     * What is done to the players outside the border.
+     */
+    public enum OutsideAction
+    {
+        /**
+         * The players are pushed back inside; if they are too far outside, they are teleported.
+         */
+        KNOCKBACK,
+
+        /**
+         * The players are teleported back inside, close to the border.
+         */
+        TELEPORT
+    }
+
+    private static class TrackedPlayer
+    {
+        private int scheduledTick = 0;
+        private int lastDamageTick = -20;
+
+        private boolean inWorld = false;
+        private double distanceToCenter = 0;
+    }
+}
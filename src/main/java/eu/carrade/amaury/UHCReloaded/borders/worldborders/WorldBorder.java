@@ -35,6 +35,9 @@ import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.borders.MapShape;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Set;
 
 
 /**
@@ -67,10 +70,18 @@ public abstract class WorldBorder
 
     /**
      * @param diameter The new diameter of the border.
-     * @param time     The ticks used to change the size from the old size to the new one.
+     * @param time     The seconds used to change the size from the old size to the new one.
      */
     public abstract void setDiameter(double diameter, long time);
 
+    /**
+     * Pauses or resumes the progressive resizing of the border started with {@link
+     * #setDiameter(double, long)}, if supported. Does nothing by default.
+     *
+     * @param paused {@code true} to pause the resizing.
+     */
+    public void setResizePaused(boolean paused) {}
+
     /**
      * @return The center of the border.
      */
@@ -145,6 +156,31 @@ public abstract class WorldBorder
      */
     public abstract void setShape(MapShape shape);
 
+    /**
+     * Tells the border about another diameter the players are checked against (typically the
+     * future border of the warnings), for borders tracking the players themselves.
+     *
+     * @param diameter The diameter; a negative value stops watching.
+     * @see #getPlayersOutside(double)
+     */
+    public void setWatchedDiameter(double diameter) {}
+
+    /**
+     * Returns the players outside a border of the given diameter, from the border's own tracking
+     * of the players.
+     *
+     * <p>Only available for borders tracking the players, for the current diameter or the watched
+     * one.</p>
+     *
+     * @param diameter The diameter of the checked border.
+     * @return The players of the bordered world outside it, or {@code null} if this border cannot
+     * tell; the players have to be checked by the caller then.
+     */
+    public Set<Player> getPlayersOutside(double diameter)
+    {
+        return null;
+    }
+
 
     /**
      * Returns a new instance of a WorldBorder proxy using the requested types.
@@ -157,7 +193,7 @@ public abstract class WorldBorder
     public static WorldBorder getInstance(World world, String motor, MapShape shape)
     {
         // For circular shapes, the vanilla motor cannot be used.
-        // Without the WorldBorder plugin, a fake world border is used (i.e., no border control).
+        // Without the WorldBorder plugin, the border is enforced by the plugin itself.
         if (shape == MapShape.CIRCULAR)
         {
             if (UHCReloaded.get().getWorldBorderIntegration().isWBIntegrationEnabled())
@@ -166,7 +202,7 @@ public abstract class WorldBorder
             }
             else
             {
-                return new FakeWorldBorder(world);
+                return new CircularWorldBorder(world);
             }
         }
         else
@@ -45,6 +45,7 @@ import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHInfosCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHKillCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHLoadPlayersCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHResurrectCommand;
+import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHRollbackCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHRulesCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHShiftCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHSpawnsCommand;
@@ -54,7 +55,9 @@ import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHTPBackCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHTPCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHTPSpawnCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHTeamCommand;
+import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHTimelineCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHTimersCommand;
+import eu.carrade.amaury.UHCReloaded.commands.commands.uh.UHTopCommand;
 import eu.carrade.amaury.UHCReloaded.commands.core.AbstractCommand;
 import eu.carrade.amaury.UHCReloaded.commands.core.annotations.Command;
 import eu.carrade.amaury.UHCReloaded.commands.core.exceptions.CannotExecuteCommandException;
@@ -80,6 +83,8 @@ public class UHRootCommand extends AbstractCommand
         registerSubCommand(new UHBorderCommand(p));
         registerSubCommand(new UHSpectatorsCommand(p));
         registerSubCommand(new UHGenerateWallsCommand(p));
+        registerSubCommand(new UHRollbackCommand(p));
+        registerSubCommand(new UHTimelineCommand(p));
 
         // Bugs
         registerSubCommand(new UHHealCommand(p));
@@ -97,6 +102,7 @@ public class UHRootCommand extends AbstractCommand
         registerSubCommand(new UHTimersCommand(p));
         registerSubCommand(new UHTPCommand(p));
         registerSubCommand(new UHInfosCommand(p));
+        registerSubCommand(new UHTopCommand(p));
         registerSubCommand(new UHRulesCommand(p));
         registerSubCommand(new UHLoadPlayersCommand());
         registerSubCommand(new UHAboutCommand(p));
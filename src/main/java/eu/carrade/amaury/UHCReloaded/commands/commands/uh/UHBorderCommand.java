@@ -36,6 +36,7 @@ import eu.carrade.amaury.UHCReloaded.commands.commands.categories.Category;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.border.UHBorderCheckCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.border.UHBorderGetCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.border.UHBorderSetCommand;
+import eu.carrade.amaury.UHCReloaded.commands.commands.uh.border.UHBorderWallsCommand;
 import eu.carrade.amaury.UHCReloaded.commands.commands.uh.border.UHBorderWarningCommand;
 import eu.carrade.amaury.UHCReloaded.commands.core.AbstractCommand;
 import eu.carrade.amaury.UHCReloaded.commands.core.annotations.Command;
@@ -49,10 +50,10 @@ import java.util.List;
 
 /**
  * This command manages borders (gets current, checks if players are out, sets a new size, warns players
- * about the future size).
+ * about the future size, follows the walls generation).
  *
  * Usage: /uh border (doc)
- * Usage: /uh border <get|set [force]|warning|check>
+ * Usage: /uh border <get|set [force]|warning|check|walls [cancel]>
  */
 @Command (name = "border")
 public class UHBorderCommand extends AbstractCommand
@@ -63,6 +64,7 @@ public class UHBorderCommand extends AbstractCommand
         registerSubCommand(new UHBorderSetCommand(p));
         registerSubCommand(new UHBorderWarningCommand(p));
         registerSubCommand(new UHBorderCheckCommand(p));
+        registerSubCommand(new UHBorderWallsCommand(p));
     }
 
     @Override
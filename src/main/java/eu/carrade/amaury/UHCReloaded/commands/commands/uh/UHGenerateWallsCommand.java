@@ -72,7 +72,11 @@ public class UHGenerateWallsCommand extends AbstractCommand
     @Override
     public void run(CommandSender sender, String[] args) throws CannotExecuteCommandException
     {
-        sender.sendMessage(I.t("{cst}Generating the walls..."));
+        if (p.getBorderManager().isGeneratingWalls())
+        {
+            sender.sendMessage(I.t("{ce}The walls are already being generated. Use {cc}/uh border walls cancel{ce} to stop the generation."));
+            return;
+        }
 
         final World world;
 
@@ -90,10 +94,14 @@ public class UHGenerateWallsCommand extends AbstractCommand
             sender.sendMessage(I.t("{ci}From the console, generating the walls of the default world, {0}", world.getName()));
         }
 
+        sender.sendMessage(I.t("{cst}Generating the walls..."));
+
         try
         {
-            p.getBorderManager().generateWalls(world);
-
+            p.getBorderManager().generateWalls(world)
+                    .whenProgresses(task -> p.getBorderManager().sendWallsGenerationStatus(sender))
+                    .whenFinished(task -> sender.sendMessage(I.t("{cst}Generation done.")))
+                    .whenFails(e -> sender.sendMessage(I.t("{ce}An error occurred, see console for details.")));
         }
         catch (CannotGenerateWallsException e)
         {
@@ -108,7 +116,7 @@ public class UHGenerateWallsCommand extends AbstractCommand
             return;
         }
 
-        sender.sendMessage(I.t("{cst}Generation done."));
+        sender.sendMessage(I.t("{ci}The walls are built in the background. Use {cc}/uh border walls{ci} to follow the generation."));
     }
 
     /**
@@ -118,7 +118,7 @@ public class UHHealAllCommand extends AbstractCommand
             }
 
             player.setHealth(health);
-            UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(player.getUniqueId()).updateHealth(health);
+            UHCReloaded.get().getScoreboardManager().updateHealthScore(player);
         }
     }
 
@@ -122,7 +122,7 @@ public class UHHealCommand extends AbstractCommand
         }
 
         player.setHealth(health);
-        UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(player.getUniqueId()).updateHealth(health);
+        UHCReloaded.get().getScoreboardManager().updateHealthScore(player);
     }
 
     @Override
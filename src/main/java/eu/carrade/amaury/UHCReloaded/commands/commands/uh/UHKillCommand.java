@@ -83,6 +83,7 @@ public class UHKillCommand extends AbstractCommand
             if (player.isOnline())
             {
                 ((Player) player).setHealth(0);
+                p.getScoreboardManager().updateHealthScore((Player) player);
             }
             else
             {
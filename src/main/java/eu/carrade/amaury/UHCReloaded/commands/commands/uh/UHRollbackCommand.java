@@ -0,0 +1,179 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.commands.commands.uh;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.commands.commands.categories.Category;
+import eu.carrade.amaury.UHCReloaded.commands.core.AbstractCommand;
+import eu.carrade.amaury.UHCReloaded.commands.core.annotations.Command;
+import eu.carrade.amaury.UHCReloaded.commands.core.exceptions.CannotExecuteCommandException;
+import eu.carrade.amaury.UHCReloaded.commands.core.utils.CommandUtils;
+import eu.carrade.amaury.UHCReloaded.rollback.RollbackManager;
+import eu.carrade.amaury.UHCReloaded.rollback.RollbackTask;
+import fr.zcraft.zlib.components.i18n.I;
+import org.bukkit.command.CommandSender;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+
+/**
+ * This command rolls back the edits made to the world by the plugin (walls, cages, banners).
+ *
+ * Usage: /uh rollback [session|cancel]
+ *  - without argument: lists the edit sessions that can be rolled back.
+ *  - session: rolls back the given edit session.
+ *  - cancel: stops the current rollback.
+ */
+@Command (name = "rollback")
+public class UHRollbackCommand extends AbstractCommand
+{
+    private UHCReloaded p;
+
+    public UHRollbackCommand(UHCReloaded plugin)
+    {
+        p = plugin;
+    }
+
+    @Override
+    public void run(CommandSender sender, String[] args) throws CannotExecuteCommandException
+    {
+        final RollbackManager manager = p.getRollbackManager();
+
+        // /uh rollback
+        if (args.length == 0)
+        {
+            final List<RollbackManager.StoredSession> sessions = manager.getSessions();
+
+            if (sessions.isEmpty())
+            {
+                sender.sendMessage(I.t("{ci}There is no edit to roll back."));
+                return;
+            }
+
+            sender.sendMessage(I.tn("{ci}{0} edit session can be rolled back:", "{ci}{0} edit sessions can be rolled back:", sessions.size()));
+
+            for (RollbackManager.StoredSession session : sessions)
+            {
+                /// An edit session in /uh rollback. {0} = identifier, {1} = world, {2} = date, {3} = approximate number of blocks.
+                sender.sendMessage(I.t("{lightpurple} - {cc}{0}{ci} in {1}, {2} (about {3} blocks)", session.getId(), session.getWorldName(), DateFormat.getDateTimeInstance().format(new Date(session.getDate())), session.getSize() / 4));
+            }
+
+            sender.sendMessage(I.t("{ci}Use {cc}/uh rollback <session>{ci} to restore the original blocks."));
+        }
+
+        // /uh rollback cancel
+        else if (args[0].equalsIgnoreCase("cancel"))
+        {
+            if (!manager.isRollingBack())
+            {
+                sender.sendMessage(I.t("{ce}There is no rollback running."));
+                return;
+            }
+
+            manager.getCurrentRollback().cancel();
+            sender.sendMessage(I.t("{cs}Rollback cancelled. The session was kept, so it can be rolled back again later."));
+        }
+
+        // /uh rollback <session>
+        else
+        {
+            final RollbackTask task;
+
+            try
+            {
+                task = manager.rollback(args[0]);
+            }
+            catch (IllegalStateException e)
+            {
+                sender.sendMessage(I.t("{ce}Cannot roll back this session now: {0}.", e.getMessage()));
+                return;
+            }
+
+            if (task == null)
+            {
+                sender.sendMessage(I.t("{ce}There is no edit session named {0}.", args[0]));
+                return;
+            }
+
+            sender.sendMessage(I.t("{cst}Rolling back {0}...", args[0]));
+
+            task.whenProgresses(rollback -> sender.sendMessage(I.t("{ci}{0} of {1} blocks restored.", rollback.getBlocksRestored(), rollback.getTotalBlocks())))
+                .whenFinished(rollback -> sender.sendMessage(I.t("{cs}{0} blocks restored in {1} seconds.", rollback.getBlocksRestored(), String.format("%.1f", rollback.getElapsedTime() / 1000.0))))
+                .whenFails(e -> sender.sendMessage(I.t("{ce}Unable to roll back this session: {0}", e.getMessage())));
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String[] args)
+    {
+        if (args.length == 1)
+        {
+            final List<String> suggestions = new ArrayList<>();
+            suggestions.add("cancel");
+
+            for (RollbackManager.StoredSession session : p.getRollbackManager().getSessions())
+                suggestions.add(session.getId());
+
+            return CommandUtils.getAutocompleteSuggestions(args[0], suggestions);
+        }
+
+        return null;
+    }
+
+    @Override
+    public List<String> help(CommandSender sender)
+    {
+        return Arrays.asList(
+                I.t("{aqua}------ Rollback commands ------"),
+                I.t("{cc}/uh rollback{ci}: lists the edits (walls, cages, banners) that can be rolled back."),
+                I.t("{cc}/uh rollback <session>{ci}: restores the blocks replaced by the given edit session."),
+                I.t("{cc}/uh rollback cancel{ci}: stops the current rollback.")
+        );
+    }
+
+    @Override
+    public List<String> onListHelp(CommandSender sender)
+    {
+        return Collections.singletonList(I.t("{cc}/uh rollback {ci}: rolls back the edits made to the map (walls, cages, banners). Execute /uh rollback for details."));
+    }
+
+    @Override
+    public String getCategory()
+    {
+        return Category.GAME.getTitle();
+    }
+}
@@ -37,6 +37,7 @@ import eu.carrade.amaury.UHCReloaded.commands.core.AbstractCommand;
 import eu.carrade.amaury.UHCReloaded.commands.core.annotations.Command;
 import eu.carrade.amaury.UHCReloaded.commands.core.exceptions.CannotExecuteCommandException;
 import eu.carrade.amaury.UHCReloaded.commands.core.utils.CommandUtils;
+import eu.carrade.amaury.UHCReloaded.game.UHGameManager;
 import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
 import fr.zcraft.zlib.components.i18n.I;
 import org.bukkit.command.CommandSender;
@@ -96,7 +97,10 @@ public class UHStartCommand extends AbstractCommand
         }
         catch (IllegalStateException e)
         {
-            sender.sendMessage(I.t("{ce}The game is already started! Reload or restart the server to restart the game."));
+            if (e.getMessage().equals(UHGameManager.START_ERROR_IN_PROGRESS))
+                sender.sendMessage(I.t("{ce}The game is already starting. Please wait while the players are teleported."));
+            else
+                sender.sendMessage(I.t("{ce}The game is already started! Reload or restart the server to restart the game."));
         }
         catch (Exception e)
         {
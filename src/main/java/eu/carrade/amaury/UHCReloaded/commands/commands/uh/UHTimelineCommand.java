@@ -0,0 +1,241 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.commands.commands.uh;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.commands.commands.categories.Category;
+import eu.carrade.amaury.UHCReloaded.commands.core.AbstractCommand;
+import eu.carrade.amaury.UHCReloaded.commands.core.annotations.Command;
+import eu.carrade.amaury.UHCReloaded.commands.core.exceptions.CannotExecuteCommandException;
+import eu.carrade.amaury.UHCReloaded.commands.core.utils.CommandUtils;
+import eu.carrade.amaury.UHCReloaded.timeline.MatchTimeline;
+import eu.carrade.amaury.UHCReloaded.timeline.TimelineAction;
+import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import fr.zcraft.zlib.components.i18n.I;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * This command inspects and edits the timeline of the match.
+ *
+ * Usage: /uh timeline [pause|resume|cancel <id>|set <id> <time>|delay <id> <time>]
+ *  - without argument: lists the scheduled actions.
+ *  - pause/resume: pauses or resumes the whole timeline.
+ *  - cancel: cancels the given action.
+ *  - set: executes the given action after the given time, from now.
+ *  - delay: delays the given action by the given time (prefixed by "-" to advance it).
+ */
+@Command (name = "timeline")
+public class UHTimelineCommand extends AbstractCommand
+{
+    private UHCReloaded p;
+
+    public UHTimelineCommand(UHCReloaded plugin)
+    {
+        p = plugin;
+    }
+
+    @Override
+    public void run(CommandSender sender, String[] args) throws CannotExecuteCommandException
+    {
+        final MatchTimeline timeline = p.getTimeline();
+
+        // /uh timeline
+        if (args.length == 0)
+        {
+            final List<TimelineAction> actions = timeline.getActions();
+
+            if (actions.isEmpty())
+            {
+                sender.sendMessage(I.t("{ci}Nothing is scheduled in the timeline."));
+            }
+            else
+            {
+                sender.sendMessage(I.tn("{ci}{0} action scheduled:", "{ci}{0} actions scheduled:", actions.size()));
+
+                for (TimelineAction action : actions)
+                {
+                    if (action.isRepeating())
+                    {
+                        /// A repeated action in /uh timeline. {0} = identifier, {1} = name, {2} = time before the next execution.
+                        sender.sendMessage(I.t("{lightpurple} - {cc}#{0} {ci}{1}, next in {cc}{2}{ci} (repeated)", action.getId(), action.getName(), formatTicks(timeline.getRemainingTicks(action))));
+                    }
+                    else
+                    {
+                        /// An action in /uh timeline. {0} = identifier, {1} = name, {2} = time before the execution.
+                        sender.sendMessage(I.t("{lightpurple} - {cc}#{0} {ci}{1} in {cc}{2}", action.getId(), action.getName(), formatTicks(timeline.getRemainingTicks(action))));
+                    }
+                }
+            }
+
+            if (timeline.isPaused())
+            {
+                sender.sendMessage(I.t("{ci}The timeline is {cc}paused{ci}."));
+            }
+        }
+
+        // /uh timeline pause|resume
+        else if (args[0].equalsIgnoreCase("pause") || args[0].equalsIgnoreCase("resume"))
+        {
+            final boolean pause = args[0].equalsIgnoreCase("pause");
+
+            timeline.setPaused(pause);
+            sender.sendMessage(pause ? I.t("{cs}The timeline is paused.") : I.t("{cs}The timeline is resumed."));
+        }
+
+        // /uh timeline cancel|set|delay <id> ...
+        else if (args[0].equalsIgnoreCase("cancel") || args[0].equalsIgnoreCase("set") || args[0].equalsIgnoreCase("delay"))
+        {
+            if (args.length < 2 || (!args[0].equalsIgnoreCase("cancel") && args.length < 3))
+            {
+                throw new CannotExecuteCommandException(CannotExecuteCommandException.Reason.BAD_USE, this);
+            }
+
+            final TimelineAction action;
+            try
+            {
+                action = timeline.getAction(Integer.parseInt(args[1].replace("#", "")));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new CannotExecuteCommandException(CannotExecuteCommandException.Reason.BAD_USE, this);
+            }
+
+            if (action == null)
+            {
+                sender.sendMessage(I.t("{ce}There is no scheduled action with the identifier {0}.", args[1]));
+                return;
+            }
+
+            if (args[0].equalsIgnoreCase("cancel"))
+            {
+                timeline.cancel(action);
+                sender.sendMessage(I.t("{cs}{0} cancelled.", action.getName()));
+                return;
+            }
+
+            final boolean advance = args[2].startsWith("-");
+            final long ticks;
+
+            try
+            {
+                ticks = UHUtils.string2Time(advance ? args[2].substring(1) : args[2]) * 20L;
+            }
+            catch (IllegalArgumentException e)
+            {
+                sender.sendMessage(I.t("{ce}The time must be formatted as mm, mm:ss or hh:mm:ss."));
+                return;
+            }
+
+            final long delay;
+
+            if (args[0].equalsIgnoreCase("set"))
+                delay = ticks;
+            else
+                delay = timeline.getRemainingTicks(action) + (advance ? -ticks : ticks);
+
+            timeline.reschedule(action, delay);
+            sender.sendMessage(I.t("{cs}{0} rescheduled in {1}.", action.getName(), formatTicks(timeline.getRemainingTicks(action))));
+        }
+
+        else
+        {
+            throw new CannotExecuteCommandException(CannotExecuteCommandException.Reason.BAD_USE, this);
+        }
+    }
+
+    /**
+     * @param ticks A duration in ticks.
+     * @return The duration, formatted as "m:ss" or "h:mm:ss".
+     */
+    private static String formatTicks(long ticks)
+    {
+        final long seconds = (ticks + 19) / 20;
+
+        if (seconds >= 3600)
+            return String.format("%d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+        else
+            return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String[] args)
+    {
+        if (args.length == 1)
+        {
+            return CommandUtils.getAutocompleteSuggestions(args[0], Arrays.asList("pause", "resume", "cancel", "set", "delay"));
+        }
+
+        else if (args.length == 2 && !args[0].equalsIgnoreCase("pause") && !args[0].equalsIgnoreCase("resume"))
+        {
+            final List<String> suggestions = new ArrayList<>();
+
+            for (TimelineAction action : p.getTimeline().getActions())
+                suggestions.add(String.valueOf(action.getId()));
+
+            return CommandUtils.getAutocompleteSuggestions(args[1], suggestions);
+        }
+
+        return null;
+    }
+
+    @Override
+    public List<String> help(CommandSender sender)
+    {
+        return Arrays.asList(
+                I.t("{aqua}------ Timeline commands ------"),
+                I.t("{cc}/uh timeline{ci}: lists the actions scheduled during the match (grace period, PvP, border, commands...)."),
+                I.t("{cc}/uh timeline pause|resume{ci}: pauses or resumes the whole timeline (also done by the global freeze)."),
+                I.t("{cc}/uh timeline cancel <id>{ci}: cancels the given action."),
+                I.t("{cc}/uh timeline set <id> <time>{ci}: executes the given action after the given time, from now."),
+                I.t("{cc}/uh timeline delay <id> <time>{ci}: delays the given action by the given time; prefix the time by {cc}-{ci} to advance it instead."),
+                I.t("{ci}Times are formatted as {cc}mm{ci}, {cc}mm:ss{ci} or {cc}hh:mm:ss{ci}.")
+        );
+    }
+
+    @Override
+    public List<String> onListHelp(CommandSender sender)
+    {
+        return Collections.singletonList(I.t("{cc}/uh timeline {ci}: inspects and edits the actions scheduled during the match. Execute /uh timeline for details."));
+    }
+
+    @Override
+    public String getCategory()
+    {
+        return Category.GAME.getTitle();
+    }
+}
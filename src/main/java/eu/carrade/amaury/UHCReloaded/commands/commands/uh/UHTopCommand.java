@@ -0,0 +1,162 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.commands.commands.uh;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.commands.commands.categories.Category;
+import eu.carrade.amaury.UHCReloaded.commands.core.AbstractCommand;
+import eu.carrade.amaury.UHCReloaded.commands.core.annotations.Command;
+import eu.carrade.amaury.UHCReloaded.commands.core.exceptions.CannotExecuteCommandException;
+import eu.carrade.amaury.UHCReloaded.commands.core.utils.CommandUtils;
+import eu.carrade.amaury.UHCReloaded.game.Leaderboard;
+import fr.zcraft.zlib.components.i18n.I;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+
+@Command (name = "top")
+public class UHTopCommand extends AbstractCommand
+{
+    private UHCReloaded p;
+
+    public UHTopCommand(UHCReloaded plugin)
+    {
+        p = plugin;
+    }
+
+    @Override
+    public void run(CommandSender sender, String[] args) throws CannotExecuteCommandException
+    {
+        final boolean damages;
+
+        if (args.length == 0 || args[0].equalsIgnoreCase("kills"))
+            damages = false;
+        else if (args[0].equalsIgnoreCase("damages"))
+            damages = true;
+        else
+            throw new CannotExecuteCommandException(CannotExecuteCommandException.Reason.BAD_USE, this);
+
+        if (!p.getGameManager().isGameStarted())
+        {
+            sender.sendMessage(I.t("{ci}The game is not started."));
+            return;
+        }
+
+        final Leaderboard leaderboard = damages ? p.getGameManager().getDamagesLeaderboard() : p.getGameManager().getKillsLeaderboard();
+        final List<Leaderboard.Entry> top = leaderboard.getTop();
+        final UUID self = sender instanceof Player ? ((Player) sender).getUniqueId() : null;
+
+        CommandUtils.displaySeparator(sender);
+
+        if (damages)
+            /// Header of /uh top damages
+            sender.sendMessage(I.t("{ci}Players who dealt the most damages"));
+        else
+            /// Header of /uh top kills
+            sender.sendMessage(I.t("{ci}Players who killed the most players"));
+
+        if (top.isEmpty())
+        {
+            /// Displayed in /uh top if nobody is ranked yet.
+            sender.sendMessage(I.t("{gray}{italic}Nobody yet."));
+        }
+
+        boolean selfRanked = false;
+        int rank = 1;
+
+        for (final Leaderboard.Entry entry : top)
+        {
+            final boolean isSelf = entry.getPlayer().equals(self);
+            final String name = (isSelf ? ChatColor.YELLOW : ChatColor.WHITE) + p.getScoreboardManager().getSidebarPlayerCache(entry.getPlayer()).getPlayerName();
+
+            sender.sendMessage(format(rank++, name, entry.getScore(), damages));
+            selfRanked |= isSelf;
+        }
+
+        if (self != null && !selfRanked)
+        {
+            final double score = leaderboard.getScore(self);
+
+            if (damages)
+                /// Own score in /uh top damages, if not in the top. {0} = damages dealt, in hearts.
+                sender.sendMessage(I.t("{gray}You: {white}{0} hearts", String.format("%.1f", score / 2)));
+            else
+                /// Own score in /uh top kills, if not in the top. {0} = kills count.
+                sender.sendMessage(I.tn("{gray}You: {white}{0} kill", "{gray}You: {white}{0} kills", (int) score, (int) score));
+        }
+
+        CommandUtils.displaySeparator(sender);
+    }
+
+    private String format(int rank, String name, double score, boolean damages)
+    {
+        if (damages)
+            /// Line of /uh top damages. {0} = rank, {1} = player name (and color), {2} = damages dealt, in hearts.
+            return I.t("{gray}{0}. {1} {gray}- {white}{2} hearts", rank, name, String.format("%.1f", score / 2));
+        else
+            /// Line of /uh top kills. {0} = rank, {1} = player name (and color), {2} = kills count.
+            return I.tn("{gray}{0}. {1} {gray}- {white}{2} kill", "{gray}{0}. {1} {gray}- {white}{2} kills", (int) score, rank, name, (int) score);
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String[] args)
+    {
+        if (args.length == 1)
+            return CommandUtils.getAutocompleteSuggestions(args[0], Arrays.asList("kills", "damages"));
+
+        return null;
+    }
+
+    @Override
+    public List<String> help(CommandSender sender)
+    {
+        return null;
+    }
+
+    @Override
+    public List<String> onListHelp(CommandSender sender)
+    {
+        return Collections.singletonList(I.t("{cc}/uh top [kills|damages] {ci}: displays the players who killed the most players, or dealt the most damages."));
+    }
+
+    @Override
+    public String getCategory()
+    {
+        return Category.MISC.getTitle();
+    }
+}
@@ -63,6 +63,8 @@ public class UHBorderGetCommand extends AbstractCommand
         {
             sender.sendMessage(I.t("{ci}The current map size is {0}×{0}.", p.getBorderManager().getCurrentBorderDiameter()));
         }
+
+        p.getBorderManager().sendWallsGenerationStatus(sender);
     }
 
     @Override
@@ -0,0 +1,97 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.commands.commands.uh.border;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.commands.core.AbstractCommand;
+import eu.carrade.amaury.UHCReloaded.commands.core.annotations.Command;
+import eu.carrade.amaury.UHCReloaded.commands.core.exceptions.CannotExecuteCommandException;
+import eu.carrade.amaury.UHCReloaded.commands.core.utils.CommandUtils;
+import fr.zcraft.zlib.components.i18n.I;
+import org.bukkit.command.CommandSender;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+@Command (name = "walls")
+public class UHBorderWallsCommand extends AbstractCommand
+{
+    private final UHCReloaded p;
+
+    public UHBorderWallsCommand(UHCReloaded p)
+    {
+        this.p = p;
+    }
+
+    @Override
+    public void run(CommandSender sender, String[] args) throws CannotExecuteCommandException
+    {
+        if (!p.getBorderManager().isGeneratingWalls())
+        {
+            sender.sendMessage(I.t("{ci}The walls are not being generated. Use {cc}/uh generatewalls{ci} to generate them."));
+        }
+        else if (args.length > 0 && args[0].equalsIgnoreCase("cancel"))
+        { // /uh border walls cancel
+            p.getBorderManager().cancelWallsGeneration();
+            sender.sendMessage(I.t("{cs}Walls generation cancelled. The blocks already placed were kept."));
+        }
+        else
+        { // /uh border walls
+            p.getBorderManager().sendWallsGenerationStatus(sender);
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(CommandSender sender, String[] args)
+    {
+        if (args.length == 1)
+        {
+            return CommandUtils.getAutocompleteSuggestions(args[0], Collections.singletonList("cancel"));
+        }
+
+        else return null;
+    }
+
+    @Override
+    public List<String> help(CommandSender sender)
+    {
+        return null;
+    }
+
+    @Override
+    public List<String> onListHelp(CommandSender sender)
+    {
+        return Arrays.asList(I.t("{cc}/uh border walls{ci}: displays the progress of the walls generation."), I.t("{cc}/uh border walls cancel{ci}: cancels the walls generation."));
+    }
+}
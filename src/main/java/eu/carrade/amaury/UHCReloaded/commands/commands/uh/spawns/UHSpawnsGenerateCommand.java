@@ -38,7 +38,7 @@ import eu.carrade.amaury.UHCReloaded.commands.core.exceptions.CannotExecuteComma
 import eu.carrade.amaury.UHCReloaded.commands.core.utils.CommandUtils;
 import eu.carrade.amaury.UHCReloaded.spawns.Generator;
 import eu.carrade.amaury.UHCReloaded.spawns.exceptions.CannotGenerateSpawnPointsException;
-import eu.carrade.amaury.UHCReloaded.spawns.exceptions.UnknownGeneratorException;
+import eu.carrade.amaury.UHCReloaded.spawns.generators.SpawnPointsGenerator;
 import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
 import fr.zcraft.zlib.components.i18n.I;
 import org.bukkit.World;
@@ -195,24 +195,35 @@ public class UHSpawnsGenerateCommand extends AbstractCommand
         }
 
 
-        try
-        {
-            p.getSpawnsManager().generateSpawnPoints(generationMethod, world, spawnsCount, size, distanceMinBetweenTwoPoints, xCenter, zCenter);
+        final Generator generator = Generator.fromString(generationMethod);
+        final SpawnPointsGenerator generatorInstance = generator != null ? generator.getInstance() : null;
 
-        }
-        catch (UnknownGeneratorException e)
+        if (generatorInstance == null)
         {
             sender.sendMessage(I.t("{ce}The generation method “{0}” is not (yet?) supported.", generationMethod));
             return;
-
         }
-        catch (CannotGenerateSpawnPointsException e)
+
+        if (p.getSpawnsManager().isGenerating())
         {
-            sender.sendMessage(I.t("{ce}You asked for the impossible: there are too many spawn points on a too small surface. Decrease the spawn count or the minimal distance between two points."));
+            sender.sendMessage(I.t("{ce}Some spawn points are already being generated. Please wait until the end of this generation."));
             return;
         }
 
-        sender.sendMessage(I.t("{cs}Successfully generated the asked spawn points."));
+        sender.sendMessage(I.t("{ci}Generating the spawn points..."));
+
+        p.getSpawnsManager()
+                .generateSpawnPointsAsync(generatorInstance, world, spawnsCount, size, distanceMinBetweenTwoPoints, xCenter, zCenter,
+                        spawnPoints -> sender.sendMessage(I.t("{cs}Successfully generated the asked spawn points."))
+                )
+                .whenProgresses(generation -> sender.sendMessage(I.t("{gray}Generating the spawn points... {0} chunks loaded, {1} spots checked.", generation.getChunksLoaded(), generation.getSpotsEvaluated())))
+                .whenFails(e ->
+                {
+                    if (e instanceof CannotGenerateSpawnPointsException)
+                        sender.sendMessage(I.t("{ce}You asked for the impossible: there are too many spawn points on a too small surface. Decrease the spawn count or the minimal distance between two points."));
+                    else
+                        sender.sendMessage(I.t("{ce}An error occurred, see console for details."));
+                });
     }
 
     /**
@@ -263,11 +274,12 @@ public class UHSpawnsGenerateCommand extends AbstractCommand
     {
         return Arrays.asList(
                 I.t("{aqua}Command"),
-                I.t("{cc}/uh spawns generate <circular|grid|random> [size] [distanceMin] [count] [xCenter] [zCenter] [world]"),
+                I.t("{cc}/uh spawns generate <circular|grid|random|poisson> [size] [distanceMin] [count] [xCenter] [zCenter] [world]"),
                 I.t("{aqua}Shapes"),
                 I.t(" - {cc}random{ci}: generates random spawn points on the map, with a minimal distance between them."),
                 I.t(" - {cc}grid{ci}: generates the spawn points on concentric squares, with a constant distance between two generated points."),
                 I.t(" - {cc}circular{ci}: generates the spawn points on concentric circles, with a minimal distance between two generated points. In each circle, the angle (and the distance) between two spawn points is constant."),
+                I.t(" - {cc}poisson{ci}: generates random spawn points evenly spread on the whole map, with a minimal distance between them."),
                 I.t("{aqua}Arguments"),
                 I.t(" - {cc}size{ci}: the size of the region where the spawn points will be generated. Squared or circular, following the shape of the map. Default: map' size."),
                 I.t(" - {cc}distanceMin{ci}: the minimal distance between two spawn points. Default: 250 blocks."),
@@ -0,0 +1,285 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Keeps track of the alive players and teams.
+ *
+ * <p>Everything is updated incrementally on deaths, resurrections, joins and quits, so the
+ * counters and views exposed here never require a scan of the whole game. The modifications
+ * must be done from the main thread; the players-related reads are safe from any thread.</p>
+ */
+public class AliveRoster
+{
+    /**
+     * The alive players.
+     */
+    private final Set<UUID> alivePlayers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The alive and online players.
+     */
+    private final Map<UUID, Player> onlineAlivePlayers = new ConcurrentHashMap<>();
+
+    /**
+     * The team each alive player was counted in.
+     */
+    private final Map<UUID, UHTeam> playersTeams = new ConcurrentHashMap<>();
+
+    /**
+     * The number of alive players in each alive team. A team is removed when this reaches zero,
+     * so the key set is the set of the alive teams.
+     * <p>
+     * Identity-based, as the teams are hashed by name, and may be renamed during the game.
+     */
+    private final Map<UHTeam, Integer> aliveMembersPerTeam = new IdentityHashMap<>();
+
+    private volatile int alivePlayersCount = 0;
+    private volatile int aliveTeamsCount = 0;
+
+    private final Set<OfflinePlayer> alivePlayersView = new AlivePlayersView();
+    private final Collection<Player> onlineAlivePlayersView = Collections.unmodifiableCollection(onlineAlivePlayers.values());
+    private final Set<UHTeam> aliveTeamsView = Collections.unmodifiableSet(aliveMembersPerTeam.keySet());
+
+
+    /**
+     * Registers a player as alive.
+     *
+     * @param id The UUID of the player.
+     * @param team The team of the player, or {@code null} if the player is not in a team.
+     * @param onlinePlayer The player, if online; {@code null} else.
+     *
+     * @return {@code true} if the player was not already alive.
+     */
+    public boolean add(UUID id, UHTeam team, Player onlinePlayer)
+    {
+        if (!alivePlayers.add(id))
+            return false;
+
+        if (team != null)
+        {
+            playersTeams.put(id, team);
+            aliveMembersPerTeam.merge(team, 1, Integer::sum);
+        }
+
+        if (onlinePlayer != null && onlinePlayer.isOnline())
+            onlineAlivePlayers.put(id, onlinePlayer);
+
+        updateCounters();
+        return true;
+    }
+
+    /**
+     * Registers a player as dead.
+     *
+     * @param id The UUID of the player.
+     * @return {@code true} if the player was alive.
+     */
+    public boolean remove(UUID id)
+    {
+        if (!alivePlayers.remove(id))
+            return false;
+
+        final UHTeam team = playersTeams.remove(id);
+        if (team != null)
+        {
+            aliveMembersPerTeam.computeIfPresent(team, (t, count) -> count > 1 ? count - 1 : null);
+        }
+
+        onlineAlivePlayers.remove(id);
+
+        updateCounters();
+        return true;
+    }
+
+    /**
+     * Updates the online state of a player, if alive.
+     *
+     * @param player The player who joined or left.
+     * @param online {@code true} if the player joined.
+     */
+    public void updateOnlineState(Player player, boolean online)
+    {
+        final UUID id = player.getUniqueId();
+
+        if (online && alivePlayers.contains(id))
+            onlineAlivePlayers.put(id, player);
+        else
+            onlineAlivePlayers.remove(id);
+    }
+
+    /**
+     * Forgets everything.
+     */
+    public void clear()
+    {
+        alivePlayers.clear();
+        onlineAlivePlayers.clear();
+        playersTeams.clear();
+        aliveMembersPerTeam.clear();
+
+        updateCounters();
+    }
+
+    private void updateCounters()
+    {
+        alivePlayersCount = alivePlayers.size();
+        aliveTeamsCount = aliveMembersPerTeam.size();
+    }
+
+
+    /**
+     * @param id The UUID of a player.
+     * @return {@code true} if this player is alive.
+     */
+    public boolean isAlive(UUID id)
+    {
+        return alivePlayers.contains(id);
+    }
+
+    /**
+     * @return a read-only view of the UUIDs of the alive players.
+     */
+    public Set<UUID> getAlivePlayersUUID()
+    {
+        return Collections.unmodifiableSet(alivePlayers);
+    }
+
+    /**
+     * @return a read-only view of the alive players.
+     */
+    public Set<OfflinePlayer> getAlivePlayers()
+    {
+        return alivePlayersView;
+    }
+
+    /**
+     * @return a read-only view of the alive and online players.
+     */
+    public Collection<Player> getOnlineAlivePlayers()
+    {
+        return onlineAlivePlayersView;
+    }
+
+    /**
+     * @return a read-only view of the alive teams. Main thread only.
+     */
+    public Set<UHTeam> getAliveTeams()
+    {
+        return aliveTeamsView;
+    }
+
+    /**
+     * @param team A team.
+     * @return the number of alive players in this team.
+     */
+    public int getAliveMembersCount(UHTeam team)
+    {
+        final Integer count = aliveMembersPerTeam.get(team);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * @return the number of alive players.
+     */
+    public int getAlivePlayersCount()
+    {
+        return alivePlayersCount;
+    }
+
+    /**
+     * @return the number of alive teams.
+     */
+    public int getAliveTeamsCount()
+    {
+        return aliveTeamsCount;
+    }
+
+
+    /**
+     * A read-only view of the alive players, as {@link OfflinePlayer}s, backed by the UUIDs set.
+     */
+    private class AlivePlayersView extends AbstractSet<OfflinePlayer>
+    {
+        @Override
+        public Iterator<OfflinePlayer> iterator()
+        {
+            final Iterator<UUID> ids = alivePlayers.iterator();
+
+            return new Iterator<OfflinePlayer>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return ids.hasNext();
+                }
+
+                @Override
+                public OfflinePlayer next()
+                {
+                    final UUID id = ids.next();
+                    final Player online = onlineAlivePlayers.get(id);
+
+                    return online != null ? online : Bukkit.getOfflinePlayer(id);
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return o instanceof OfflinePlayer && alivePlayers.contains(((OfflinePlayer) o).getUniqueId());
+        }
+
+        @Override
+        public int size()
+        {
+            return alivePlayers.size();
+        }
+    }
+}
@@ -31,21 +31,35 @@
  */
 package eu.carrade.amaury.UHCReloaded.game;
 
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
+import eu.carrade.amaury.UHCReloaded.rollback.EditSession;
+import eu.carrade.amaury.UHCReloaded.task.WorkJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkPriority;
 import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
 import eu.carrade.amaury.UHCReloaded.utils.ColorsUtils;
+import fr.zcraft.zlib.tools.PluginLogger;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.material.MaterialData;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
 
 
 public class Cage
 {
+    /**
+     * The number of blocks restored in one unit of work, when the cages are destroyed all at once.
+     */
+    private static final int RESTORATION_BATCH_SIZE = 64;
+
     private final Location baseLocation;
 
     private Material material = Material.BARRIER;
@@ -58,7 +72,13 @@ public class Cage
     private int internalHeight = 3;
 
     private boolean built = false;
-    private Map<Location, SimpleBlock> blocksBuilt = new HashMap<>();
+
+    /**
+     * The template of the built cage, and the original blocks, in the same order.
+     */
+    private CageTemplate template = null;
+    private int[] originalTypes = null;
+    private byte[] originalData = null;
 
 
     /**
@@ -132,141 +152,183 @@ public class Cage
     }
 
     /**
-     * Sets a block (and remembers the old one to clean up things after).
-     *
-     * @param location The location
-     * @param material The block material
-     */
-    private void setBlock(final Location location, final Material material)
-    {
-        setBlock(location, material, null);
-    }
-
-    /**
-     * Sets a block (and remembers the old one to clean up things after).
+     * Builds the cage.
      *
-     * @param location The location
-     * @param material The block material
-     * @param data     The block data value (as byte)
+     * <p>The blocks are written without physics updates, and the original ones are stored to be
+     * restored when the cage is destroyed.</p>
      */
-    private void setBlock(final Location location, final Material material, final byte data)
+    public void build()
     {
-        setBlock(location, material, new MaterialData(material, data));
+        build(null);
     }
 
     /**
-     * Sets a block (and remembers the old one to clean up things after).
+     * Builds the cage, recording the original blocks in the given edit session too, so the cage
+     * can be rolled back even if it is never destroyed (e.g. after a crash).
      *
-     * @param location The location
-     * @param material The block material
-     * @param data     The block data value (as {@link MaterialData})
+     * @param editSession The edit session; {@code null} to record nothing.
      */
-    private void setBlock(final Location location, final Material material, final MaterialData data)
-    {
-        final Block block = location.getBlock();
-
-        if (!blocksBuilt.containsKey(location))
-            blocksBuilt.put(location, new SimpleBlock(block.getType(), block.getState().getData().clone()));
-
-        block.setType(material);
-        if (data != null) block.setData(data.getData());
-    }
-
-
-    /**
-     * Builds the cage.
-     */
-    public void build()
+    @SuppressWarnings ("deprecation")
+    public void build(EditSession editSession)
     {
         if (built) return;
 
-        final int externalRadius = radius + 1;
-        final int xMin = baseLocation.getBlockX() - externalRadius;
-        final int xMax = baseLocation.getBlockX() + externalRadius;
-        final int zMin = baseLocation.getBlockZ() - externalRadius;
-        final int zMax = baseLocation.getBlockZ() + externalRadius;
+        template = CageTemplate.get(radius, internalHeight, buildCeiling, visibleWalls);
 
         final World world = baseLocation.getWorld();
+        final int baseX = baseLocation.getBlockX();
+        final int baseY = baseLocation.getBlockY();
+        final int baseZ = baseLocation.getBlockZ();
 
+        final byte data = materialData != null ? materialData.getData() : 0;
+        final int[] partsTypes = new int[4];
+        final byte[] partsData = new byte[4];
 
-        // Builds the base barrier square under any cage, to support falling blocks and to avoid players falling
-        // through the blocks when teleported
+        partsTypes[CageTemplate.BASE] = Material.BARRIER.getId();
+        partsTypes[CageTemplate.GROUND] = material.getId();
+        partsData[CageTemplate.GROUND] = data;
 
-        for (int x = xMin; x <= xMax; x++)
-            for (int z = zMin; z <= zMax; z++)
-                setBlock(new Location(world, x, baseLocation.getBlockY() - 2, z), Material.BARRIER);
+        partsTypes[CageTemplate.WALL] = visibleWalls ? material.getId() : Material.BARRIER.getId();
+        partsData[CageTemplate.WALL] = visibleWalls ? data : 0;
 
+        partsTypes[CageTemplate.CEILING] = buildCeiling ? material.getId() : Material.BARRIER.getId();
+        partsData[CageTemplate.CEILING] = buildCeiling ? data : 0;
 
-        // Builds the ground
-
-        for (int x = xMin + 1; x <= xMax - 1; x++)
-            for (int z = zMin + 1; z <= zMax - 1; z++)
-                setBlock(new Location(world, x, baseLocation.getBlockY() - 1, z), material, materialData);
+        originalTypes = new int[template.size];
+        originalData = new byte[template.size];
 
+        for (int i = 0; i < template.size; i++)
+        {
+            final Block block = world.getBlockAt(baseX + template.dx[i], baseY + template.dy[i], baseZ + template.dz[i]);
 
-        // Builds the walls
+            originalTypes[i] = block.getTypeId();
+            originalData[i] = block.getData();
 
-        final Material wallsMaterial = visibleWalls ? material : Material.BARRIER;
-        final MaterialData wallsMaterialData = visibleWalls ? materialData : null;
+            if (editSession != null)
+                editSession.record(block.getX(), block.getY(), block.getZ(), originalTypes[i], originalData[i]);
 
-        for (int x = xMin; x <= xMax; x++)
-        {
-            for (int y = baseLocation.getBlockY() - 1; y < baseLocation.getBlockY() + internalHeight; y++)
-            {
-                setBlock(new Location(world, x, y, zMin), wallsMaterial, wallsMaterialData);
-                setBlock(new Location(world, x, y, zMax), wallsMaterial, wallsMaterialData);
-            }
-        }
-
-        for (int z = zMin; z <= zMax; z++)
-        {
-            for (int y = baseLocation.getBlockY() - 1; y < baseLocation.getBlockY() + internalHeight; y++)
-            {
-                setBlock(new Location(world, xMin, y, z), wallsMaterial, wallsMaterialData);
-                setBlock(new Location(world, xMax, y, z), wallsMaterial, wallsMaterialData);
-            }
+            final byte part = template.part[i];
+            block.setTypeIdAndData(partsTypes[part], partsData[part], false);
         }
 
+        invalidateSurface();
+        built = true;
+    }
 
-        // Builds the ceiling
+    /**
+     * Destroys the cage, restoring the original blocks.
+     */
+    public void destroy()
+    {
+        if (!built) return;
 
-        final Material ceilingMaterial = buildCeiling ? material : Material.BARRIER;
-        final MaterialData ceilingMaterialData = buildCeiling ? materialData : null;
+        restore(0, template.size);
+        built = false;
+    }
 
-        int xMinCeiling = xMin, xMaxCeiling = xMax, zMinCeiling = zMin, zMaxCeiling = zMax;
+    /**
+     * Restores a range of the original blocks.
+     *
+     * @param from The index of the first block to restore (inclusive).
+     * @param to   The index of the last block to restore (exclusive).
+     */
+    @SuppressWarnings ("deprecation")
+    private void restore(int from, int to)
+    {
+        final World world = baseLocation.getWorld();
+        final int baseX = baseLocation.getBlockX();
+        final int baseY = baseLocation.getBlockY();
+        final int baseZ = baseLocation.getBlockZ();
 
-        if (buildCeiling && !visibleWalls)
+        for (int i = from; i < to; i++)
         {
-            xMinCeiling++;
-            xMaxCeiling--;
-            zMinCeiling++;
-            zMaxCeiling--;
+            world.getBlockAt(baseX + template.dx[i], baseY + template.dy[i], baseZ + template.dz[i])
+                    .setTypeIdAndData(originalTypes[i], originalData[i], false);
         }
 
-        for (int x = xMinCeiling; x <= xMaxCeiling; x++)
-            for (int z = zMinCeiling; z <= zMaxCeiling; z++)
-                setBlock(new Location(world, x, baseLocation.getBlockY() + internalHeight, z), ceilingMaterial, ceilingMaterialData);
+        invalidateSurface();
+    }
 
-        built = true;
+    /**
+     * The blocks are written without events, so the cached surface has to be updated manually.
+     */
+    private void invalidateSurface()
+    {
+        final int externalRadius = radius + 1;
+
+        UHCReloaded.get().getSurfaceCache().invalidate(
+                baseLocation.getWorld(),
+                baseLocation.getBlockX() - externalRadius, baseLocation.getBlockZ() - externalRadius,
+                baseLocation.getBlockX() + externalRadius, baseLocation.getBlockZ() + externalRadius
+        );
     }
 
     /**
-     * Destroys the cage.
+     * Destroys the given cages over multiple ticks, restoring the blocks in small batches through
+     * the work scheduler.
+     *
+     * @param cages    The cages to destroy. The same cage can be present multiple times.
+     * @param callback Called when all the cages are destroyed; may be {@code null}.
      */
-    public void destroy()
+    static void destroyAll(final Collection<Cage> cages, final Runnable callback)
     {
-        for (Map.Entry<Location, SimpleBlock> entry : blocksBuilt.entrySet())
-        {
-            final Block block = entry.getKey().getBlock();
-            final SimpleBlock originalBlock = entry.getValue();
+        final Queue<Cage> queue = new ArrayDeque<>();
+        final Set<Cage> seen = Collections.newSetFromMap(new IdentityHashMap<>());
 
-            block.setType(originalBlock.material);
+        for (final Cage cage : cages)
+            if (cage != null && cage.built && seen.add(cage))
+                queue.add(cage);
 
-            if (originalBlock.data != null)
-                block.getState().setData(originalBlock.data);
+        if (queue.isEmpty())
+        {
+            if (callback != null) callback.run();
+            return;
         }
 
-        built = false;
+        UHCReloaded.get().getWorkScheduler().submit("cages destruction", WorkPriority.NORMAL, new WorkJob()
+        {
+            private final int total = queue.size();
+            private int restored = 0;
+
+            @Override
+            public Status step()
+            {
+                final Cage cage = queue.peek();
+                final int to = Math.min(restored + RESTORATION_BATCH_SIZE, cage.template.size);
+
+                cage.restore(restored, to);
+                restored = to;
+
+                if (restored >= cage.template.size)
+                {
+                    cage.built = false;
+                    queue.poll();
+                    restored = 0;
+                }
+
+                return queue.isEmpty() ? Status.DONE : Status.CONTINUE;
+            }
+
+            @Override
+            public void done()
+            {
+                if (callback != null) callback.run();
+            }
+
+            @Override
+            public void failed(Throwable e)
+            {
+                // The callback is not called: the cages left are still recorded in their
+                // sessions, so they can be rolled back.
+                PluginLogger.warning("{0} cage(s) could not be destroyed; use /uh rollback to remove them.", queue.size());
+            }
+
+            @Override
+            public double getProgress()
+            {
+                return 1 - (double) queue.size() / total;
+            }
+        });
     }
 
 
@@ -362,20 +424,4 @@ public class Cage
          */
         CUSTOM
     }
-
-    /**
-     * A block + data value (storage class used to restore old blocks when the
-     * cage is destroyed).
-     */
-    private class SimpleBlock
-    {
-        public Material material;
-        public MaterialData data;
-
-        public SimpleBlock(Material material, MaterialData data)
-        {
-            this.material = material;
-            this.data = data;
-        }
-    }
 }
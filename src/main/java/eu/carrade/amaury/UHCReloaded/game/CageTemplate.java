@@ -0,0 +1,151 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * The shape of a cage: the offsets of all its blocks relative to the cage base location, and the
+ * part of the cage each one belongs to.
+ *
+ * <p>Templates are immutable and shared by all the cages with the same dimensions and options.</p>
+ */
+final class CageTemplate
+{
+    static final byte BASE = 0;
+    static final byte GROUND = 1;
+    static final byte WALL = 2;
+    static final byte CEILING = 3;
+
+    private static final Map<String, CageTemplate> templates = new ConcurrentHashMap<>();
+
+    final int size;
+    final int[] dx;
+    final int[] dy;
+    final int[] dz;
+    final byte[] part;
+
+
+    private CageTemplate(List<int[]> blocks)
+    {
+        size = blocks.size();
+        dx = new int[size];
+        dy = new int[size];
+        dz = new int[size];
+        part = new byte[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            final int[] block = blocks.get(i);
+            dx[i] = block[0];
+            dy[i] = block[1];
+            dz[i] = block[2];
+            part[i] = (byte) block[3];
+        }
+    }
+
+    /**
+     * Returns the template for the given cage options, computing it if needed.
+     *
+     * @param radius         The internal square radius of the cage.
+     * @param internalHeight The height of the open space inside the cage.
+     * @param buildCeiling   {@code true} if the ceiling is built with the cage material.
+     * @param visibleWalls   {@code true} if the walls are built with the cage material.
+     *
+     * @return The template.
+     */
+    static CageTemplate get(int radius, int internalHeight, boolean buildCeiling, boolean visibleWalls)
+    {
+        return templates.computeIfAbsent(
+                radius + ":" + internalHeight + ":" + buildCeiling + ":" + visibleWalls,
+                key -> compute(radius, internalHeight, buildCeiling, visibleWalls)
+        );
+    }
+
+    private static CageTemplate compute(int radius, int internalHeight, boolean buildCeiling, boolean visibleWalls)
+    {
+        final List<int[]> blocks = new ArrayList<>();
+        final Set<Long> offsets = new HashSet<>();
+
+        final int externalRadius = radius + 1;
+
+        // The base barrier square under any cage, to support falling blocks and to avoid players falling
+        // through the blocks when teleported
+        for (int x = -externalRadius; x <= externalRadius; x++)
+            for (int z = -externalRadius; z <= externalRadius; z++)
+                add(blocks, offsets, x, -2, z, BASE);
+
+        // The ground
+        for (int x = -externalRadius + 1; x <= externalRadius - 1; x++)
+            for (int z = -externalRadius + 1; z <= externalRadius - 1; z++)
+                add(blocks, offsets, x, -1, z, GROUND);
+
+        // The walls
+        for (int y = -1; y < internalHeight; y++)
+        {
+            for (int x = -externalRadius; x <= externalRadius; x++)
+            {
+                add(blocks, offsets, x, y, -externalRadius, WALL);
+                add(blocks, offsets, x, y, externalRadius, WALL);
+            }
+
+            for (int z = -externalRadius + 1; z <= externalRadius - 1; z++)
+            {
+                add(blocks, offsets, -externalRadius, y, z, WALL);
+                add(blocks, offsets, externalRadius, y, z, WALL);
+            }
+        }
+
+        // The ceiling
+        final int ceilingRadius = buildCeiling && !visibleWalls ? externalRadius - 1 : externalRadius;
+
+        for (int x = -ceilingRadius; x <= ceilingRadius; x++)
+            for (int z = -ceilingRadius; z <= ceilingRadius; z++)
+                add(blocks, offsets, x, internalHeight, z, CEILING);
+
+        return new CageTemplate(blocks);
+    }
+
+    private static void add(List<int[]> blocks, Set<Long> offsets, int x, int y, int z, byte part)
+    {
+        final long offset = ((long) (x & 0xFFFFF) << 40) | ((long) (y & 0xFFFFF) << 20) | (z & 0xFFFFF);
+
+        if (offsets.add(offset))
+            blocks.add(new int[] {x, y, z, part});
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.UHConfig;
+import eu.carrade.amaury.UHCReloaded.borders.BorderManager;
+import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
+import eu.carrade.amaury.UHCReloaded.timers.UHTimer;
+import fr.zcraft.zlib.tools.PluginLogger;
+import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.Location;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+
+/**
+ * Journals the state of the running game on the disk, so the game can be resumed after a crash or
+ * a restart of the server.
+ *
+ * <p>The mutations of the game (deaths, resurrections, kills, episodes...) are appended to the
+ * journal as they happen; the journal is periodically compacted into a full snapshot of the game.
+ * The records are encoded on the main thread, and written from another thread.</p>
+ */
+public class GameJournal
+{
+    private static final String FILE_NAME = "game-journal.dat";
+
+    /**
+     * Records larger than that are considered corrupted.
+     */
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+
+    private final UHCReloaded p;
+    private final File file;
+
+    private JournalWriter writer = null;
+    private BukkitTask compactionTask = null;
+
+
+    public GameJournal(UHCReloaded plugin)
+    {
+        this.p = plugin;
+        this.file = new File(plugin.getDataFolder(), FILE_NAME);
+    }
+
+    /**
+     * @return {@code true} if the running game is currently journaled.
+     */
+    public boolean isOpen()
+    {
+        return writer != null;
+    }
+
+    /**
+     * Starts to journal the running game, from a full snapshot of its state.
+     *
+     * Nothing is done if the journal is disabled in the configuration, or already open.
+     */
+    public void open()
+    {
+        if (!UHConfig.JOURNAL.ENABLED.get() || writer != null)
+            return;
+
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs())
+        {
+            PluginLogger.warning("Unable to create the directory of the game journal; the game will not be journaled.");
+            return;
+        }
+
+        writer = new JournalWriter(file);
+        writer.start();
+
+        compact();
+
+        final long interval = Math.max(UHConfig.JOURNAL.SNAPSHOT_INTERVAL.get(), 5) * 20L;
+        compactionTask = RunTask.timer(this::compact, interval, interval);
+    }
+
+    /**
+     * Replaces the content of the journal with a full snapshot of the game.
+     */
+    public void compact()
+    {
+        if (writer != null)
+            writer.rewrite(snapshot());
+    }
+
+    /**
+     * Stops to journal the game.
+     *
+     * @param discard {@code true} to delete the journal (the game ended and will never be resumed).
+     */
+    public void close(boolean discard)
+    {
+        if (writer == null)
+            return;
+
+        if (compactionTask != null)
+        {
+            compactionTask.cancel();
+            compactionTask = null;
+        }
+
+        writer.close(discard);
+        writer = null;
+    }
+
+    /**
+     * Saves a last snapshot and closes the journal, keeping it on the disk to resume the game
+     * later. Called when the plugin is disabled.
+     */
+    public void shutdown()
+    {
+        compact();
+        close(false);
+    }
+
+
+    /**
+     * Reads the journal left by a previous run of the server, and resumes the game stored inside,
+     * if any.
+     *
+     * @return {@code true} if a game was resumed.
+     */
+    public boolean replay()
+    {
+        if (!UHConfig.JOURNAL.ENABLED.get() || !file.exists())
+            return false;
+
+        final JournalState state = new JournalState();
+        int records = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            final CRC32 crc = new CRC32();
+
+            while (true)
+            {
+                final int length;
+                final byte[] record;
+                final int checksum;
+
+                try
+                {
+                    length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE)
+                    {
+                        PluginLogger.warning("The game journal is corrupted after {0} records; the remaining records are ignored.", records);
+                        break;
+                    }
+
+                    record = new byte[length];
+                    in.readFully(record);
+                    checksum = in.readInt();
+                }
+                catch (EOFException e)
+                {
+                    // End of the journal, or record truncated by a crash.
+                    break;
+                }
+
+                crc.reset();
+                crc.update(record, 0, length);
+
+                if ((int) crc.getValue() != checksum)
+                {
+                    PluginLogger.warning("The game journal is corrupted after {0} records; the remaining records are ignored.", records);
+                    break;
+                }
+
+                final JournalRecordType type = JournalRecordType.fromId(record[0]);
+                if (type != null)
+                {
+                    state.apply(type, new DataInputStream(new ByteArrayInputStream(record, 1, length - 1)));
+                }
+
+                records++;
+            }
+        }
+        catch (IOException e)
+        {
+            PluginLogger.error("Unable to read the game journal; the previous game cannot be resumed.", e);
+            return false;
+        }
+
+        if (!state.started)
+            return false;
+
+        p.getGameManager().resume(state);
+
+        PluginLogger.info("Resumed the previous game from the journal ({0} records, {1} players alive).", records, state.alivePlayers.size());
+
+        open();
+        return true;
+    }
+
+
+    /* ** Records ** */
+
+    /**
+     * Records the death of a player.
+     *
+     * @param player The player.
+     */
+    public void recordDeath(UUID player)
+    {
+        append(JournalRecordType.DEAD, out -> JournalState.writeUUID(out, player));
+    }
+
+    /**
+     * Records the resurrection of a player.
+     *
+     * @param player The player.
+     */
+    public void recordResurrection(UUID player)
+    {
+        append(JournalRecordType.ALIVE, out -> JournalState.writeUUID(out, player));
+    }
+
+    /**
+     * Records the death location of a player.
+     *
+     * @param player The player.
+     * @param location The location of the death.
+     */
+    public void recordDeathLocation(UUID player, Location location)
+    {
+        append(JournalRecordType.DEATH_LOCATION, out ->
+        {
+            JournalState.writeUUID(out, player);
+            JournalState.writeLocation(out, location);
+        });
+    }
+
+    /**
+     * Records a new episode.
+     *
+     * @param episode The new episode.
+     * @param elapsedGameTime The time elapsed since the beginning of the game, in milliseconds.
+     */
+    public void recordEpisode(int episode, long elapsedGameTime)
+    {
+        append(JournalRecordType.EPISODE, out ->
+        {
+            out.writeInt(episode);
+            out.writeLong(elapsedGameTime);
+        });
+    }
+
+    /**
+     * Records a kill.
+     *
+     * @param killer The killer.
+     * @param victim The killed player.
+     */
+    public void recordKill(UUID killer, UUID victim)
+    {
+        append(JournalRecordType.KILL, out ->
+        {
+            JournalState.writeUUID(out, killer);
+            JournalState.writeUUID(out, victim);
+        });
+    }
+
+    /**
+     * Records the cancellation of the kill of a player, resurrected.
+     *
+     * @param victim The resurrected player.
+     */
+    public void recordKillCancelled(UUID victim)
+    {
+        append(JournalRecordType.KILL_CANCELLED, out -> JournalState.writeUUID(out, victim));
+    }
+
+
+    private void append(JournalRecordType type, RecordContent content)
+    {
+        if (writer != null)
+            writer.append(encode(type, content));
+    }
+
+    /**
+     * Builds the records describing the whole state of the running game.
+     *
+     * @return The records.
+     */
+    private List<byte[]> snapshot()
+    {
+        final UHGameManager gm = p.getGameManager();
+        final List<byte[]> records = new ArrayList<>();
+
+        records.add(encode(JournalRecordType.GAME_START, out -> out.writeBoolean(gm.isGameWithTeams())));
+        records.add(encode(JournalRecordType.EPISODE, out ->
+        {
+            out.writeInt(gm.getEpisode());
+            out.writeLong(gm.getElapsedGameTime());
+        }));
+
+        final UHTimer mainTimer = p.getTimerManager().getMainTimer();
+        records.add(encode(JournalRecordType.CLOCK, out ->
+        {
+            out.writeLong(gm.getElapsedGameTime());
+            out.writeLong(mainTimer != null ? mainTimer.getElapsed() : 0L);
+        }));
+
+        for (final UHTimer timer : p.getTimerManager().getTimers())
+        {
+            records.add(encode(JournalRecordType.TIMER, out ->
+            {
+                out.writeUTF(timer.getName());
+                out.writeInt(timer.getDuration());
+                out.writeBoolean(timer.isRunning());
+                out.writeLong(timer.getElapsed());
+                out.writeBoolean(timer.isPaused());
+                out.writeBoolean(timer.isDisplayed());
+            }));
+        }
+
+        final BorderManager borders = p.getBorderManager();
+        records.add(encode(JournalRecordType.BORDER, out ->
+        {
+            out.writeDouble(borders.getBorderProxy().getDiameter());
+            out.writeLong(borders.getBorderReductionDelay());
+            out.writeLong(borders.getBorderReductionTimeLeft());
+        }));
+
+        for (final UHTeam team : p.getTeamManager().getTeams())
+        {
+            records.add(encode(JournalRecordType.TEAM, out ->
+            {
+                out.writeUTF(team.getName());
+                out.writeUTF(team.getColor() != null ? team.getColor().name() : "");
+
+                final List<UUID> members = new ArrayList<>(team.getPlayersUUID());
+                out.writeInt(members.size());
+                for (UUID member : members)
+                    JournalState.writeUUID(out, member);
+            }));
+
+            final Teleporter teleporter = gm.getTeleporter();
+            if (teleporter != null)
+            {
+                for (final UUID member : team.getPlayersUUID())
+                {
+                    if (teleporter.hasSpawnForPlayer(member))
+                    {
+                        records.add(encode(JournalRecordType.SPAWN, out ->
+                        {
+                            JournalState.writeUUID(out, member);
+                            JournalState.writeLocation(out, teleporter.getSpawnForPlayer(member));
+                        }));
+                    }
+                }
+            }
+        }
+
+        for (final UUID alive : gm.getAliveRoster().getAlivePlayersUUID())
+            records.add(encode(JournalRecordType.ALIVE, out -> JournalState.writeUUID(out, alive)));
+
+        for (final Map.Entry<UUID, Location> death : gm.getDeathLocations().entrySet())
+        {
+            records.add(encode(JournalRecordType.DEATH_LOCATION, out ->
+            {
+                JournalState.writeUUID(out, death.getKey());
+                JournalState.writeLocation(out, death.getValue());
+            }));
+        }
+
+        for (final KillRecord kill : gm.getKillLedger().getRecords())
+        {
+            if (kill.isCancelled()) continue;
+
+            records.add(encode(JournalRecordType.KILL, out ->
+            {
+                JournalState.writeUUID(out, kill.getKiller());
+                JournalState.writeUUID(out, kill.getVictim());
+            }));
+        }
+
+        for (final Leaderboard.Entry damages : gm.getDamagesLeaderboard().getRanking())
+        {
+            records.add(encode(JournalRecordType.DAMAGES, out ->
+            {
+                JournalState.writeUUID(out, damages.getPlayer());
+                out.writeDouble(damages.getScore());
+            }));
+        }
+
+        return records;
+    }
+
+    private static byte[] encode(JournalRecordType type, RecordContent content)
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(40);
+
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(type.getId());
+            content.write(out);
+        }
+        catch (IOException e)
+        {
+            // Cannot happen with an in-memory stream.
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * Writes the content of a record.
+     */
+    private interface RecordContent
+    {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
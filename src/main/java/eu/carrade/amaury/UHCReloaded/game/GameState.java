@@ -0,0 +1,190 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * An immutable snapshot of the state of the game.
+ *
+ * <p>The snapshots are built on the main thread, each time the state of the game changes, and
+ * published through {@link UHGameManager#getState()}. They can be read from any thread without
+ * locking: an asynchronous task should read the current snapshot once, and use it for the whole
+ * work, to get a consistent view of the game.</p>
+ */
+public final class GameState
+{
+    /**
+     * The state before any game, published when the plugin is loaded.
+     */
+    static final GameState INITIAL = new GameState(0L, false, false, false, false, true, false, 0, Collections.<UUID>emptySet(), 0);
+
+    private final long version;
+
+    private final boolean started;
+    private final boolean finished;
+    private final boolean startInProgress;
+    private final boolean slowStartInProgress;
+    private final boolean withTeams;
+    private final boolean takingDamage;
+    private final int episode;
+
+    private final Set<UUID> alivePlayers;
+    private final int aliveTeamsCount;
+
+
+    GameState(long version, boolean started, boolean finished, boolean startInProgress, boolean slowStartInProgress, boolean withTeams, boolean takingDamage, int episode, Set<UUID> alivePlayers, int aliveTeamsCount)
+    {
+        this.version = version;
+        this.started = started;
+        this.finished = finished;
+        this.startInProgress = startInProgress;
+        this.slowStartInProgress = slowStartInProgress;
+        this.withTeams = withTeams;
+        this.takingDamage = takingDamage;
+        this.episode = episode;
+        this.alivePlayers = Collections.unmodifiableSet(new HashSet<>(alivePlayers));
+        this.aliveTeamsCount = aliveTeamsCount;
+    }
+
+    /**
+     * @return The version of this snapshot. Each published snapshot has a version greater than the
+     * previous one, so a consumer can skip its work if the version didn't change.
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * @return {@code true} if the game was started.
+     */
+    public boolean isStarted()
+    {
+        return started;
+    }
+
+    /**
+     * @return {@code true} if the game is finished.
+     */
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    /**
+     * @return {@code true} if the game is started and not finished.
+     */
+    public boolean isRunning()
+    {
+        return started && !finished;
+    }
+
+    /**
+     * @return {@code true} if the players are being prepared and teleported, at the start of the
+     * game.
+     */
+    public boolean isStartInProgress()
+    {
+        return startInProgress;
+    }
+
+    /**
+     * @return {@code true} if a slow start is in progress.
+     */
+    public boolean isSlowStartInProgress()
+    {
+        return slowStartInProgress;
+    }
+
+    /**
+     * @return {@code true} if the game is played with teams, {@code false} for a solo game.
+     */
+    public boolean isWithTeams()
+    {
+        return withTeams;
+    }
+
+    /**
+     * @return {@code true} if the players are taking damages (i.e. the grace period is over).
+     */
+    public boolean isTakingDamage()
+    {
+        return takingDamage;
+    }
+
+    /**
+     * @return The current episode.
+     */
+    public int getEpisode()
+    {
+        return episode;
+    }
+
+    /**
+     * @return An unmodifiable set of the UUIDs of the alive players.
+     */
+    public Set<UUID> getAlivePlayers()
+    {
+        return alivePlayers;
+    }
+
+    /**
+     * @param player The UUID of a player.
+     *
+     * @return {@code true} if this player is dead (or not playing).
+     */
+    public boolean isPlayerDead(UUID player)
+    {
+        return !alivePlayers.contains(player);
+    }
+
+    /**
+     * @return The number of alive players.
+     */
+    public int getAlivePlayersCount()
+    {
+        return alivePlayers.size();
+    }
+
+    /**
+     * @return The number of alive teams.
+     */
+    public int getAliveTeamsCount()
+    {
+        return aliveTeamsCount;
+    }
+}
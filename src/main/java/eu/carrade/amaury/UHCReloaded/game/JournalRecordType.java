@@ -0,0 +1,138 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+
+/**
+ * The types of the records stored in the {@link GameJournal}.
+ *
+ * The identifiers are written on the disk: never change or reuse them.
+ */
+enum JournalRecordType
+{
+    /**
+     * Starts a snapshot of the game. Payload: with teams (boolean).
+     */
+    GAME_START(1),
+
+    /**
+     * A team. Payload: name (UTF), color name or empty string (UTF), members count (int), members (UUIDs).
+     */
+    TEAM(2),
+
+    /**
+     * A player is alive. Payload: the player (UUID).
+     */
+    ALIVE(3),
+
+    /**
+     * A player died. Payload: the player (UUID).
+     */
+    DEAD(4),
+
+    /**
+     * The death location of a player. Payload: the player (UUID), the location.
+     */
+    DEATH_LOCATION(5),
+
+    /**
+     * The episode changed. Payload: the episode (int), the elapsed game time in milliseconds (long).
+     */
+    EPISODE(6),
+
+    /**
+     * The game clocks. Payload: the elapsed game time (long), the elapsed time in the current episode (long), in milliseconds.
+     */
+    CLOCK(7),
+
+    /**
+     * A player was killed by another. Payload: the killer (UUID), the victim (UUID).
+     */
+    KILL(8),
+
+    /**
+     * A kill was cancelled, because the victim was resurrected. Payload: the victim (UUID).
+     */
+    KILL_CANCELLED(9),
+
+    /**
+     * The spawn point of a player. Payload: the player (UUID), the location.
+     */
+    SPAWN(10),
+
+    /**
+     * A custom timer. Payload: name (UTF), duration in seconds (int), running (boolean), elapsed
+     * time in milliseconds (long), paused (boolean), displayed (boolean).
+     */
+    TIMER(11),
+
+    /**
+     * The world border. Payload: diameter (double), ticks before the automatic reduction or -1
+     * (long), seconds left in the running automatic reduction or 0 (long).
+     */
+    BORDER(12),
+
+    /**
+     * The damages dealt by a player to the other players. Payload: the player (UUID), the damages
+     * in half-hearts (double). Only written in the snapshots, best player first.
+     */
+    DAMAGES(13);
+
+
+    private final byte id;
+
+    JournalRecordType(int id)
+    {
+        this.id = (byte) id;
+    }
+
+    /**
+     * @return the identifier of this record type, as written on the disk.
+     */
+    byte getId()
+    {
+        return id;
+    }
+
+    /**
+     * @param id An identifier read on the disk.
+     * @return The record type with this identifier, or {@code null} if unknown.
+     */
+    static JournalRecordType fromId(byte id)
+    {
+        for (JournalRecordType type : values())
+            if (type.id == id)
+                return type;
+
+        return null;
+    }
+}
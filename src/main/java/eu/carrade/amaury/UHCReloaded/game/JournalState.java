@@ -0,0 +1,265 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import eu.carrade.amaury.UHCReloaded.teams.TeamColor;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * The state of a game, as rebuilt from the {@link GameJournal} records.
+ */
+class JournalState
+{
+    boolean started = false;
+    boolean withTeams = true;
+
+    int episode = 0;
+    long elapsedGameTime = 0L;
+    long elapsedEpisodeTime = 0L;
+
+    final Map<String, JournalTeam> teams = new LinkedHashMap<>();
+    final Set<UUID> alivePlayers = new HashSet<>();
+    final Map<UUID, Location> deathLocations = new HashMap<>();
+    final Map<UUID, Location> spawnPoints = new HashMap<>();
+
+    /**
+     * Victim → killer.
+     */
+    final Map<UUID, UUID> killers = new HashMap<>();
+
+    final Map<String, JournalTimer> timers = new LinkedHashMap<>();
+
+    /**
+     * Player → damages dealt, best player first.
+     */
+    final Map<UUID, Double> damages = new LinkedHashMap<>();
+
+    double borderDiameter = -1D;
+    long borderReductionDelay = -1L;
+    long borderReductionTimeLeft = 0L;
+
+
+    /**
+     * Applies a record to this state.
+     *
+     * @param type The type of the record.
+     * @param in The content of the record, after the type.
+     *
+     * @throws IOException if the record is malformed.
+     */
+    void apply(JournalRecordType type, DataInput in) throws IOException
+    {
+        switch (type)
+        {
+            case GAME_START:
+                started = true;
+                withTeams = in.readBoolean();
+
+                episode = 0;
+                elapsedGameTime = 0L;
+                elapsedEpisodeTime = 0L;
+
+                teams.clear();
+                alivePlayers.clear();
+                deathLocations.clear();
+                spawnPoints.clear();
+                killers.clear();
+                timers.clear();
+                damages.clear();
+
+                borderDiameter = -1D;
+                borderReductionDelay = -1L;
+                borderReductionTimeLeft = 0L;
+                break;
+
+            case TEAM:
+                final JournalTeam team = new JournalTeam(in.readUTF());
+
+                final String colorName = in.readUTF();
+                team.color = colorName.isEmpty() ? null : TeamColor.fromString(colorName);
+
+                final int membersCount = in.readInt();
+                for (int i = 0; i < membersCount; i++)
+                    team.members.add(readUUID(in));
+
+                teams.put(team.name, team);
+                break;
+
+            case ALIVE:
+                alivePlayers.add(readUUID(in));
+                break;
+
+            case DEAD:
+                alivePlayers.remove(readUUID(in));
+                break;
+
+            case DEATH_LOCATION:
+                final UUID dead = readUUID(in);
+                final Location deathLocation = readLocation(in);
+
+                if (deathLocation != null)
+                    deathLocations.put(dead, deathLocation);
+                break;
+
+            case EPISODE:
+                episode = in.readInt();
+                elapsedGameTime = in.readLong();
+                elapsedEpisodeTime = 0L;
+                break;
+
+            case CLOCK:
+                elapsedGameTime = in.readLong();
+                elapsedEpisodeTime = in.readLong();
+                break;
+
+            case KILL:
+                final UUID killer = readUUID(in);
+                killers.put(readUUID(in), killer);
+                break;
+
+            case KILL_CANCELLED:
+                killers.remove(readUUID(in));
+                break;
+
+            case SPAWN:
+                final UUID player = readUUID(in);
+                final Location spawn = readLocation(in);
+
+                if (spawn != null)
+                    spawnPoints.put(player, spawn);
+                break;
+
+            case TIMER:
+                final JournalTimer timer = new JournalTimer(in.readUTF());
+
+                timer.duration = in.readInt();
+                timer.running = in.readBoolean();
+                timer.elapsed = in.readLong();
+                timer.paused = in.readBoolean();
+                timer.displayed = in.readBoolean();
+
+                timers.put(timer.name, timer);
+                break;
+
+            case BORDER:
+                borderDiameter = in.readDouble();
+                borderReductionDelay = in.readLong();
+                borderReductionTimeLeft = in.readLong();
+                break;
+
+            case DAMAGES:
+                final UUID damager = readUUID(in);
+                damages.put(damager, in.readDouble());
+                break;
+        }
+    }
+
+
+    static void writeUUID(DataOutput out, UUID id) throws IOException
+    {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    static UUID readUUID(DataInput in) throws IOException
+    {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    static void writeLocation(DataOutput out, Location location) throws IOException
+    {
+        out.writeUTF(location.getWorld() != null ? location.getWorld().getName() : "");
+        out.writeDouble(location.getX());
+        out.writeDouble(location.getY());
+        out.writeDouble(location.getZ());
+    }
+
+    /**
+     * @return The location, or {@code null} if its world no longer exists.
+     */
+    static Location readLocation(DataInput in) throws IOException
+    {
+        final World world = Bukkit.getWorld(in.readUTF());
+        final double x = in.readDouble();
+        final double y = in.readDouble();
+        final double z = in.readDouble();
+
+        return world != null ? new Location(world, x, y, z) : null;
+    }
+
+
+    /**
+     * A team, as stored in the journal.
+     */
+    static class JournalTeam
+    {
+        final String name;
+        TeamColor color = null;
+        final Set<UUID> members = new HashSet<>();
+
+        JournalTeam(String name)
+        {
+            this.name = name;
+        }
+    }
+
+    /**
+     * A custom timer, as stored in the journal.
+     */
+    static class JournalTimer
+    {
+        final String name;
+        int duration = 0;
+        boolean running = false;
+        long elapsed = 0L;
+        boolean paused = false;
+        boolean displayed = false;
+
+        JournalTimer(String name)
+        {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import fr.zcraft.zlib.tools.PluginLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+
+/**
+ * Writes the records of the {@link GameJournal} on the disk, from a dedicated thread.
+ *
+ * <p>Each record is stored as its length (int), its content, and a CRC32 checksum of the content
+ * (int), so a record partially written during a crash is detected and ignored when the journal is
+ * read back.</p>
+ *
+ * <p>The records queued while the disk is busy are written together, with a single fsync.</p>
+ */
+class JournalWriter implements Runnable
+{
+    private final File file;
+    private final File temporaryFile;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+
+    private FileOutputStream fileStream = null;
+    private DataOutputStream out = null;
+
+    private final CRC32 crc = new CRC32();
+
+
+    JournalWriter(File file)
+    {
+        this.file = file;
+        this.temporaryFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        this.thread = new Thread(this, "UHC game journal writer");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    void start()
+    {
+        thread.start();
+    }
+
+    /**
+     * Queues a record, to be appended to the journal.
+     *
+     * Ignored if the writer stopped on an error.
+     *
+     * @param record The record.
+     */
+    void append(byte[] record)
+    {
+        if (thread.isAlive())
+            queue.offer(record);
+    }
+
+    /**
+     * Queues a compaction: the journal will be replaced by the given records.
+     *
+     * @param records The records describing the whole state of the game.
+     */
+    void rewrite(List<byte[]> records)
+    {
+        if (thread.isAlive())
+            queue.offer(new Rewrite(records));
+    }
+
+    /**
+     * Writes everything queued, closes the journal and stops the writer thread.
+     *
+     * Blocks until the journal is closed (or a few seconds at most).
+     *
+     * @param delete If {@code true}, the journal file will be deleted.
+     */
+    void close(boolean delete)
+    {
+        // The writer stopped on an error.
+        if (!thread.isAlive())
+        {
+            if (delete) file.delete();
+            return;
+        }
+
+        queue.offer(new Close(delete));
+
+        try
+        {
+            thread.join(5000L);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    @Override
+    public void run()
+    {
+        final List<Object> batch = new ArrayList<>();
+
+        try
+        {
+            openForAppend();
+
+            while (true)
+            {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+
+                for (Object item : batch)
+                {
+                    if (item instanceof byte[])
+                    {
+                        writeRecord(out, (byte[]) item);
+                    }
+                    else if (item instanceof Rewrite)
+                    {
+                        compact(((Rewrite) item).records);
+                    }
+                    else if (item instanceof Close)
+                    {
+                        sync();
+                        out.close();
+
+                        if (((Close) item).delete && !file.delete())
+                            PluginLogger.warning("Unable to delete the game journal {0}", file.getAbsolutePath());
+
+                        return;
+                    }
+                }
+
+                sync();
+                batch.clear();
+            }
+        }
+        catch (IOException e)
+        {
+            PluginLogger.error("Unable to write the game journal; the game will not be resumable after a crash.", e);
+            closeQuietly();
+        }
+        catch (InterruptedException e)
+        {
+            closeQuietly();
+        }
+    }
+
+    private void openForAppend() throws IOException
+    {
+        fileStream = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileStream));
+    }
+
+    private void sync() throws IOException
+    {
+        out.flush();
+        fileStream.getChannel().force(false);
+    }
+
+    private void writeRecord(DataOutputStream stream, byte[] record) throws IOException
+    {
+        crc.reset();
+        crc.update(record, 0, record.length);
+
+        stream.writeInt(record.length);
+        stream.write(record);
+        stream.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes the given records in a temporary file, then atomically replaces the journal with it.
+     */
+    private void compact(List<byte[]> records) throws IOException
+    {
+        final FileOutputStream temporaryStream = new FileOutputStream(temporaryFile, false);
+
+        try (DataOutputStream temporaryOut = new DataOutputStream(new BufferedOutputStream(temporaryStream)))
+        {
+            for (byte[] record : records)
+                writeRecord(temporaryOut, record);
+
+            temporaryOut.flush();
+            temporaryStream.getChannel().force(false);
+        }
+
+        sync();
+        out.close();
+
+        try
+        {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        openForAppend();
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            if (out != null) out.close();
+        }
+        catch (IOException ignored) {}
+    }
+
+
+    /**
+     * Queued to replace the journal content.
+     */
+    private static final class Rewrite
+    {
+        private final List<byte[]> records;
+
+        private Rewrite(List<byte[]> records)
+        {
+            this.records = records;
+        }
+    }
+
+    /**
+     * Queued to close the journal.
+     */
+    private static final class Close
+    {
+        private final boolean delete;
+
+        private Close(boolean delete)
+        {
+            this.delete = delete;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import org.bukkit.Material;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * The kills of the game.
+ *
+ * <p>The kills are appended to a list, never modified but to be marked as cancelled when the
+ * victim is resurrected. They are indexed by killer and by victim, so the kills count of a player,
+ * the killer of a player and the cancellation of a kill never require a scan.</p>
+ *
+ * <p>The modifications must be done from the main thread. The kills counts and the killers can be
+ * read from any thread; the records, from the main thread only.</p>
+ */
+public class KillLedger
+{
+    /**
+     * All the kills of the game, in order, including the cancelled ones.
+     */
+    private final List<KillRecord> records = new ArrayList<>();
+
+    /**
+     * The kills of each killer, in order, including the cancelled ones.
+     */
+    private final Map<UUID, List<KillRecord>> killsByKiller = new HashMap<>();
+
+    /**
+     * The current (not cancelled) kill of each victim.
+     */
+    private final Map<UUID, KillRecord> killByVictim = new ConcurrentHashMap<>();
+
+    /**
+     * The number of current kills of each killer.
+     */
+    private final Map<UUID, Integer> killsCount = new ConcurrentHashMap<>();
+
+    private final List<KillRecord> recordsView = Collections.unmodifiableList(records);
+
+
+    /**
+     * Records a kill.
+     *
+     * <p>If the victim was already killed (without being resurrected since), the previous kill is
+     * cancelled.</p>
+     *
+     * @param killer The killer.
+     * @param victim The killed player.
+     * @param tick The game tick of the kill, or {@code -1} if unknown.
+     * @param cause The cause of the last damage taken by the victim, or {@code null} if unknown.
+     * @param weapon The item held by the killer, or {@code null} if unknown.
+     *
+     * @return The record of the kill.
+     */
+    public KillRecord record(UUID killer, UUID victim, long tick, DamageCause cause, Material weapon)
+    {
+        cancel(victim);
+
+        final KillRecord kill = new KillRecord(killer, victim, tick, cause, weapon);
+
+        records.add(kill);
+        killsByKiller.computeIfAbsent(killer, id -> new ArrayList<>()).add(kill);
+        killByVictim.put(victim, kill);
+        killsCount.merge(killer, 1, Integer::sum);
+
+        return kill;
+    }
+
+    /**
+     * Cancels the kill of a player, e.g. because he was resurrected.
+     *
+     * @param victim The killed player.
+     *
+     * @return {@code true} if the player was killed by someone.
+     */
+    public boolean cancel(UUID victim)
+    {
+        final KillRecord kill = killByVictim.remove(victim);
+        if (kill == null) return false;
+
+        kill.cancel();
+        killsCount.computeIfPresent(kill.getKiller(), (killer, count) -> count > 1 ? count - 1 : null);
+
+        return true;
+    }
+
+    /**
+     * Forgets all the kills, e.g. when a new game starts.
+     */
+    public void clear()
+    {
+        records.clear();
+        killsByKiller.clear();
+        killByVictim.clear();
+        killsCount.clear();
+    }
+
+    /**
+     * @param killer A player.
+     * @return The number of players killed by this player, resurrected ones excluded.
+     */
+    public int getKillsCount(UUID killer)
+    {
+        return killsCount.getOrDefault(killer, 0);
+    }
+
+    /**
+     * @param victim A player.
+     * @return The current kill of this player, or {@code null} if he was not killed by a player
+     * (or resurrected since).
+     */
+    public KillRecord getKill(UUID victim)
+    {
+        return killByVictim.get(victim);
+    }
+
+    /**
+     * @param victim A player.
+     * @return The killer of this player, or {@code null} if he was not killed by a player (or
+     * resurrected since).
+     */
+    public UUID getKiller(UUID victim)
+    {
+        final KillRecord kill = killByVictim.get(victim);
+        return kill != null ? kill.getKiller() : null;
+    }
+
+    /**
+     * @param killer A player.
+     * @return The kills of this player, in order, including the cancelled ones.
+     */
+    public List<KillRecord> getKills(UUID killer)
+    {
+        final List<KillRecord> kills = killsByKiller.get(killer);
+        return kills != null ? Collections.unmodifiableList(kills) : Collections.<KillRecord>emptyList();
+    }
+
+    /**
+     * @return The current kills count of each killer. Read-only view.
+     */
+    public Map<UUID, Integer> getKillsCounts()
+    {
+        return Collections.unmodifiableMap(killsCount);
+    }
+
+    /**
+     * @return All the kills of the game, in order, including the cancelled ones. Read-only view.
+     */
+    public List<KillRecord> getRecords()
+    {
+        return recordsView;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import org.bukkit.Material;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+import java.util.UUID;
+
+
+/**
+ * A kill, as recorded in the {@link KillLedger}.
+ */
+public class KillRecord
+{
+    private final UUID killer;
+    private final UUID victim;
+    private final long tick;
+    private final DamageCause cause;
+    private final Material weapon;
+
+    private volatile boolean cancelled = false;
+
+
+    KillRecord(UUID killer, UUID victim, long tick, DamageCause cause, Material weapon)
+    {
+        this.killer = killer;
+        this.victim = victim;
+        this.tick = tick;
+        this.cause = cause;
+        this.weapon = weapon;
+    }
+
+    /**
+     * @return The killer.
+     */
+    public UUID getKiller()
+    {
+        return killer;
+    }
+
+    /**
+     * @return The killed player.
+     */
+    public UUID getVictim()
+    {
+        return victim;
+    }
+
+    /**
+     * @return The game tick of the kill (the number of ticks elapsed since the beginning of the
+     * game), or {@code -1} if unknown (kills restored from the journal).
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+
+    /**
+     * @return The cause of the last damage taken by the victim, or {@code null} if unknown.
+     */
+    public DamageCause getCause()
+    {
+        return cause;
+    }
+
+    /**
+     * @return The item held by the killer, or {@code null} if unknown. {@link Material#AIR} if the
+     * killer was bare-handed.
+     */
+    public Material getWeapon()
+    {
+        return weapon;
+    }
+
+    /**
+     * @return {@code true} if this kill was cancelled, because the victim was resurrected.
+     */
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    void cancel()
+    {
+        cancelled = true;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+
+/**
+ * A ranking of the players by a score (kills, damages dealt...), maintained incrementally.
+ *
+ * <p>The players are kept in a sorted tree, indexed by player, so an update costs
+ * {@code O(log n)}. The {@link #TOP_SIZE} best players are published in an immutable list, rebuilt
+ * only when an update changes it, so reading the top is {@code O(K)} and can be done from any
+ * thread.</p>
+ *
+ * <p>The players are ranked by descending score; the player who reached a score first is ranked
+ * first. Players with a score of zero are not ranked.</p>
+ *
+ * <p>The modifications must be done from the main thread.</p>
+ */
+public class Leaderboard
+{
+    /**
+     * The number of best players published.
+     */
+    public static final int TOP_SIZE = 10;
+
+    private final NavigableSet<Entry> ranking = new TreeSet<>();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private long sequence = 0L;
+
+    private volatile List<Entry> top = Collections.emptyList();
+    private volatile long version = 0L;
+
+
+    /**
+     * Adds something to the score of a player.
+     *
+     * @param player The player.
+     * @param delta The amount to add.
+     */
+    public void add(UUID player, double delta)
+    {
+        set(player, getScore(player) + delta);
+    }
+
+    /**
+     * Updates the score of a player.
+     *
+     * @param player The player.
+     * @param score The new score.
+     */
+    public void set(UUID player, double score)
+    {
+        final Entry previous = entries.get(player);
+        if (previous != null)
+        {
+            if (previous.score == score) return;
+            ranking.remove(previous);
+        }
+        else if (score <= 0)
+        {
+            return;
+        }
+
+        final List<Entry> published = top;
+        boolean topChanged = previous != null && published.contains(previous);
+
+        if (score > 0)
+        {
+            final Entry entry = new Entry(player, score, sequence++);
+
+            ranking.add(entry);
+            entries.put(player, entry);
+
+            topChanged |= published.size() < TOP_SIZE || entry.compareTo(published.get(published.size() - 1)) < 0;
+        }
+        else
+        {
+            entries.remove(player);
+        }
+
+        if (topChanged) publishTop();
+    }
+
+    /**
+     * Removes all the players from the ranking.
+     */
+    public void clear()
+    {
+        ranking.clear();
+        entries.clear();
+
+        publishTop();
+    }
+
+    /**
+     * @param player A player.
+     * @return The score of this player.
+     */
+    public double getScore(UUID player)
+    {
+        final Entry entry = entries.get(player);
+        return entry != null ? entry.score : 0;
+    }
+
+    /**
+     * @return All the ranked players, best first. Unmodifiable, and to be read from the main
+     * thread.
+     */
+    public Collection<Entry> getRanking()
+    {
+        return Collections.unmodifiableCollection(ranking);
+    }
+
+    /**
+     * @return The {@link #TOP_SIZE} (at most) best players, best first. Immutable.
+     */
+    public List<Entry> getTop()
+    {
+        return top;
+    }
+
+    /**
+     * @param size The number of players to return.
+     * @return The {@code size} (at most {@link #TOP_SIZE}) best players, best first. Immutable.
+     */
+    public List<Entry> getTop(int size)
+    {
+        final List<Entry> top = this.top;
+        return size < top.size() ? top.subList(0, Math.max(size, 0)) : top;
+    }
+
+    /**
+     * @return A number increased each time the best players change.
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    private void publishTop()
+    {
+        final List<Entry> newTop = new ArrayList<>(TOP_SIZE);
+        final Iterator<Entry> iterator = ranking.iterator();
+
+        while (newTop.size() < TOP_SIZE && iterator.hasNext())
+            newTop.add(iterator.next());
+
+        top = Collections.unmodifiableList(newTop);
+        version++;
+    }
+
+
+    /**
+     * The score of a player, at some time. Immutable.
+     */
+    public static final class Entry implements Comparable<Entry>
+    {
+        private final UUID player;
+        private final double score;
+        private final long sequence;
+
+        private Entry(UUID player, double score, long sequence)
+        {
+            this.player = player;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+        public UUID getPlayer()
+        {
+            return player;
+        }
+
+        public double getScore()
+        {
+            return score;
+        }
+
+        @Override
+        public int compareTo(Entry other)
+        {
+            if (score != other.score) return score > other.score ? -1 : 1;
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
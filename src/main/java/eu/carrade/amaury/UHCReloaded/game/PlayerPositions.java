@@ -0,0 +1,442 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import eu.carrade.amaury.UHCReloaded.borders.shapes.MapShapeDescriptor;
+import eu.carrade.amaury.UHCReloaded.teams.TeamManager;
+import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.World.Environment;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+
+/**
+ * The positions of the players, sampled at once on the main thread, and indexed in a spatial hash
+ * of 32×32 blocks columns.
+ *
+ * <p>A snapshot is immutable, so it can be queried from any thread. The players are identified
+ * by their index in the snapshot (see {@link #indexOf(UUID)}); these indexes are only valid for
+ * the snapshot they come from.</p>
+ *
+ * <p>The players are stored sorted by world, then by cell, so the players of a cell (and of a
+ * world) are contiguous.</p>
+ */
+public final class PlayerPositions
+{
+    private static final int CELL_SHIFT = 5;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    public static final PlayerPositions EMPTY = sample(Collections.<Player>emptyList(), null);
+
+    private final UUID[] players;
+    private final Map<UUID, Integer> indexes;
+
+    private final int[] world;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+
+    /**
+     * The team of each player, as an identifier only valid in this snapshot; {@code -1} if the
+     * player is not in a team.
+     */
+    private final int[] team;
+
+    private final World[] worlds;
+    private final boolean[] bordered;
+    private final double[] centerX;
+    private final double[] centerZ;
+    private final int[] worldStarts;
+    private final int[] minCellX;
+    private final int[] maxCellX;
+    private final int[] minCellZ;
+    private final int[] maxCellZ;
+
+    private final long[] cellKeys;
+    private final int[] cellStarts;
+
+
+    private PlayerPositions(int size, int worldsCount, int cellsCount)
+    {
+        players = new UUID[size];
+        indexes = new HashMap<>(size * 2);
+
+        world = new int[size];
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+        team = new int[size];
+
+        worlds = new World[worldsCount];
+        bordered = new boolean[worldsCount];
+        centerX = new double[worldsCount];
+        centerZ = new double[worldsCount];
+        worldStarts = new int[worldsCount + 1];
+        minCellX = new int[worldsCount];
+        maxCellX = new int[worldsCount];
+        minCellZ = new int[worldsCount];
+        maxCellZ = new int[worldsCount];
+
+        cellKeys = new long[cellsCount];
+        cellStarts = new int[cellsCount + 1];
+    }
+
+    /**
+     * Samples the positions of the given players. Must be called from the main thread.
+     *
+     * @param onlinePlayers The players to sample.
+     * @param teams The team manager, to retrieve the teams of the players.
+     *
+     * @return The snapshot.
+     */
+    public static PlayerPositions sample(Collection<Player> onlinePlayers, TeamManager teams)
+    {
+        final int size = onlinePlayers.size();
+        final Location location = new Location(null, 0, 0, 0);
+
+        final List<World> sampledWorlds = new ArrayList<>(2);
+        final Map<UHTeam, Integer> teamsIds = new IdentityHashMap<>();
+
+        final UUID[] sampledPlayers = new UUID[size];
+        final int[] sampledWorld = new int[size];
+        final double[] sampledX = new double[size];
+        final double[] sampledY = new double[size];
+        final double[] sampledZ = new double[size];
+        final int[] sampledTeam = new int[size];
+
+        int count = 0;
+        for (final Player player : onlinePlayers)
+        {
+            if (count == size) break;
+
+            player.getLocation(location);
+
+            int worldIndex = sampledWorlds.indexOf(location.getWorld());
+            if (worldIndex < 0)
+            {
+                worldIndex = sampledWorlds.size();
+                sampledWorlds.add(location.getWorld());
+            }
+
+            final UHTeam playerTeam = teams.getTeamForPlayer(player.getUniqueId());
+
+            sampledPlayers[count] = player.getUniqueId();
+            sampledWorld[count] = worldIndex;
+            sampledX[count] = location.getX();
+            sampledY[count] = location.getY();
+            sampledZ[count] = location.getZ();
+            sampledTeam[count] = playerTeam != null ? teamsIds.computeIfAbsent(playerTeam, t -> teamsIds.size()) : -1;
+
+            count++;
+        }
+
+        // The bordered worlds come first, so the batch border checks of the main world can use
+        // the arrays directly.
+        final int[] rank = new int[sampledWorlds.size()];
+        int ranked = 0;
+
+        for (int w = 0; w < sampledWorlds.size(); w++)
+            if (sampledWorlds.get(w).getEnvironment() == Environment.NORMAL) rank[w] = ranked++;
+        for (int w = 0; w < sampledWorlds.size(); w++)
+            if (sampledWorlds.get(w).getEnvironment() != Environment.NORMAL) rank[w] = ranked++;
+
+        final long[] keys = new long[count];
+        for (int i = 0; i < count; i++)
+            keys[i] = cellKey(rank[sampledWorld[i]], cell(sampledX[i]), cell(sampledZ[i]));
+
+        final long[] sortedKeys = Arrays.copyOf(keys, count);
+        Arrays.sort(sortedKeys);
+
+        int cellsCount = 0;
+        for (int i = 0; i < count; i++)
+            if (i == 0 || sortedKeys[i] != sortedKeys[i - 1]) cellsCount++;
+
+        final PlayerPositions positions = new PlayerPositions(count, sampledWorlds.size(), cellsCount);
+
+        int cellIndex = -1;
+        for (int i = 0; i < count; i++)
+        {
+            if (i == 0 || sortedKeys[i] != sortedKeys[i - 1])
+            {
+                positions.cellKeys[++cellIndex] = sortedKeys[i];
+                positions.cellStarts[cellIndex] = i;
+            }
+        }
+        positions.cellStarts[cellsCount] = count;
+
+        for (int w = 0; w < sampledWorlds.size(); w++)
+        {
+            final World sampledWorldInstance = sampledWorlds.get(w);
+            final Location center = sampledWorldInstance.getSpawnLocation();
+
+            positions.worlds[rank[w]] = sampledWorldInstance;
+            positions.bordered[rank[w]] = sampledWorldInstance.getEnvironment() == Environment.NORMAL;
+            positions.centerX[rank[w]] = center.getX();
+            positions.centerZ[rank[w]] = center.getZ();
+            positions.minCellX[rank[w]] = Integer.MAX_VALUE;
+            positions.maxCellX[rank[w]] = Integer.MIN_VALUE;
+            positions.minCellZ[rank[w]] = Integer.MAX_VALUE;
+            positions.maxCellZ[rank[w]] = Integer.MIN_VALUE;
+        }
+
+        // Each player is placed in its cell, in the sampling order.
+        final int[] filled = new int[cellsCount];
+
+        for (int i = 0; i < count; i++)
+        {
+            final int cell = Arrays.binarySearch(positions.cellKeys, keys[i]);
+            final int index = positions.cellStarts[cell] + filled[cell]++;
+            final int w = rank[sampledWorld[i]];
+
+            positions.players[index] = sampledPlayers[i];
+            positions.indexes.put(sampledPlayers[i], index);
+            positions.world[index] = w;
+            positions.x[index] = sampledX[i];
+            positions.y[index] = sampledY[i];
+            positions.z[index] = sampledZ[i];
+            positions.team[index] = sampledTeam[i];
+
+            positions.worldStarts[w + 1]++;
+            positions.minCellX[w] = Math.min(positions.minCellX[w], cell(sampledX[i]));
+            positions.maxCellX[w] = Math.max(positions.maxCellX[w], cell(sampledX[i]));
+            positions.minCellZ[w] = Math.min(positions.minCellZ[w], cell(sampledZ[i]));
+            positions.maxCellZ[w] = Math.max(positions.maxCellZ[w], cell(sampledZ[i]));
+        }
+
+        for (int w = 0; w < sampledWorlds.size(); w++)
+            positions.worldStarts[w + 1] += positions.worldStarts[w];
+
+        return positions;
+    }
+
+
+    /**
+     * @return The number of players in this snapshot.
+     */
+    public int size()
+    {
+        return players.length;
+    }
+
+    /**
+     * @param player A player.
+     * @return The index of this player in this snapshot, or {@code -1} if this player was not
+     * sampled.
+     */
+    public int indexOf(UUID player)
+    {
+        final Integer index = indexes.get(player);
+        return index != null ? index : -1;
+    }
+
+    public UUID getPlayer(int index)
+    {
+        return players[index];
+    }
+
+    public World getWorld(int index)
+    {
+        return worlds[world[index]];
+    }
+
+    public double getX(int index)
+    {
+        return x[index];
+    }
+
+    public double getY(int index)
+    {
+        return y[index];
+    }
+
+    public double getZ(int index)
+    {
+        return z[index];
+    }
+
+    /**
+     * @param index A player.
+     * @return A new location, with the sampled position of this player.
+     */
+    public Location getLocation(int index)
+    {
+        return new Location(getWorld(index), x[index], y[index], z[index]);
+    }
+
+    /**
+     * @return {@code true} if both players are in the same team. Players without team are never
+     * in the same team.
+     */
+    public boolean inSameTeam(int index, int other)
+    {
+        return team[index] >= 0 && team[index] == team[other];
+    }
+
+    /**
+     * @return The squared distance between these players, or {@link Double#POSITIVE_INFINITY} if
+     * they are not in the same world.
+     */
+    public double getDistanceSquared(int index, int other)
+    {
+        if (world[index] != world[other]) return Double.POSITIVE_INFINITY;
+
+        final double dx = x[index] - x[other];
+        final double dy = y[index] - y[other];
+        final double dz = z[index] - z[other];
+
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Returns the nearest enemy of a player, i.e. the nearest player of the same world not in the
+     * same team.
+     *
+     * <p>The cells are checked in rings around the player, stopping as soon as the next ring
+     * cannot contain someone closer.</p>
+     *
+     * @param index The player.
+     * @return The index of the nearest enemy, or {@code -1} if there is no enemy in this world.
+     */
+    public int getNearestEnemy(int index)
+    {
+        final int w = world[index];
+        final int cellX = cell(x[index]);
+        final int cellZ = cell(z[index]);
+
+        final int maxRing = Math.max(
+                Math.max(cellX - minCellX[w], maxCellX[w] - cellX),
+                Math.max(cellZ - minCellZ[w], maxCellZ[w] - cellZ)
+        );
+
+        // With sparse players, a scan of the world is cheaper than the rings.
+        if ((long) (2 * maxRing + 1) * (2 * maxRing + 1) > worldStarts[w + 1] - worldStarts[w])
+            return getNearestEnemy(index, worldStarts[w], worldStarts[w + 1], -1);
+
+        int nearest = -1;
+
+        for (int ring = 0; ring <= maxRing; ring++)
+        {
+            // The players of this ring are at least (ring - 1) cells away.
+            if (nearest >= 0 && getDistanceSquared(index, nearest) <= square((ring - 1) * CELL_SIZE)) break;
+
+            for (int dx = -ring; dx <= ring; dx++)
+            {
+                final boolean edge = dx == -ring || dx == ring;
+
+                for (int dz = -ring; dz <= ring; dz += edge ? 1 : 2 * ring)
+                {
+                    final int cell = Arrays.binarySearch(cellKeys, cellKey(w, cellX + dx, cellZ + dz));
+                    if (cell >= 0) nearest = getNearestEnemy(index, cellStarts[cell], cellStarts[cell + 1], nearest);
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    private int getNearestEnemy(int index, int from, int to, int nearest)
+    {
+        double nearestDistance = nearest >= 0 ? getDistanceSquared(index, nearest) : Double.POSITIVE_INFINITY;
+
+        for (int other = from; other < to; other++)
+        {
+            if (other == index || inSameTeam(index, other)) continue;
+
+            final double distance = getDistanceSquared(index, other);
+            if (distance < nearestDistance)
+            {
+                nearest = other;
+                nearestDistance = distance;
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Returns the players outside a border of the given shape and diameter, centered on the spawn
+     * point of each world. The nether and the end are not bordered.
+     *
+     * @param shape The shape of the border.
+     * @param diameter The diameter of the border.
+     *
+     * @return The players outside.
+     */
+    public List<UUID> getOutside(MapShapeDescriptor shape, int diameter)
+    {
+        final List<UUID> outside = new ArrayList<>();
+
+        for (int w = 0; w < worlds.length && bordered[w]; w++)
+        {
+            final int from = worldStarts[w];
+            final int count = worldStarts[w + 1] - from;
+
+            final double[] worldX = from == 0 ? x : Arrays.copyOfRange(x, from, from + count);
+            final double[] worldZ = from == 0 ? z : Arrays.copyOfRange(z, from, from + count);
+            final boolean[] inside = new boolean[count];
+
+            shape.isInsideBorder(worldX, worldZ, count, centerX[w], centerZ[w], diameter, inside);
+
+            for (int i = 0; i < count; i++)
+                if (!inside[i]) outside.add(players[from + i]);
+        }
+
+        return outside;
+    }
+
+
+    private static int cell(double coordinate)
+    {
+        return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+    private static long cellKey(int world, int cellX, int cellZ)
+    {
+        return ((long) world << 48) | ((cellX & 0xFFFFFFL) << 24) | (cellZ & 0xFFFFFFL);
+    }
+
+    private static double square(double value)
+    {
+        return value * value;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.task.ScheduledJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkPriority;
+import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import fr.zcraft.zlib.core.ZLib;
+import fr.zcraft.zlib.tools.Callback;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+
+/**
+ * Loads the chunks around the spawn points before the teleportation, and keeps them loaded until
+ * they are released.
+ *
+ * <p>The chunks are loaded (and generated if needed) over multiple ticks, by the work scheduler,
+ * so the teleportation wave only hits already-loaded chunks.</p>
+ */
+public class SpawnChunksPrewarmer implements Listener
+{
+    private final Map<World, Set<Long>> heldChunks = new HashMap<>();
+    private final Queue<PendingChunk> pendingChunks = new ArrayDeque<>();
+    private final int total;
+
+    private Callback<Integer> onProgress = null;
+    private Callback<Integer> onFinished = null;
+
+    private ScheduledJob task = null;
+    private int loaded = 0;
+    private boolean holding = false;
+
+
+    /**
+     * @param spawns The spawn points.
+     * @param radius The radius, in chunks, of the square of chunks loaded around each spawn point.
+     */
+    public SpawnChunksPrewarmer(Collection<Location> spawns, int radius)
+    {
+        for (final Location spawn : spawns)
+        {
+            if (spawn == null || spawn.getWorld() == null) continue;
+
+            final World world = spawn.getWorld();
+            final Set<Long> worldChunks = heldChunks.computeIfAbsent(world, w -> new HashSet<>());
+
+            final int spawnChunkX = spawn.getBlockX() >> 4;
+            final int spawnChunkZ = spawn.getBlockZ() >> 4;
+
+            for (int x = spawnChunkX - radius; x <= spawnChunkX + radius; x++)
+            {
+                for (int z = spawnChunkZ - radius; z <= spawnChunkZ + radius; z++)
+                {
+                    if (worldChunks.add(chunkKey(x, z)))
+                        pendingChunks.add(new PendingChunk(world, x, z));
+                }
+            }
+        }
+
+        total = pendingChunks.size();
+    }
+
+    /**
+     * Registers a callback called after each tick of loading.
+     *
+     * @param callback The callback. Argument: the number of chunks loaded so far.
+     *
+     * @return Same instance for chaining.
+     */
+    public SpawnChunksPrewarmer whenProgresses(Callback<Integer> callback)
+    {
+        onProgress = callback;
+        return this;
+    }
+
+    /**
+     * Registers a callback called when every chunk is loaded.
+     *
+     * @param callback The callback. Argument: the number of chunks loaded.
+     *
+     * @return Same instance for chaining.
+     */
+    public SpawnChunksPrewarmer whenFinished(Callback<Integer> callback)
+    {
+        onFinished = callback;
+        return this;
+    }
+
+    /**
+     * Starts loading the chunks. From now on, they are kept loaded until {@link #release()} is
+     * called.
+     */
+    public void start()
+    {
+        if (task != null || holding) return;
+
+        holding = true;
+        ZLib.registerEvents(this);
+
+        task = UHCReloaded.get().getWorkScheduler().submit("spawn chunks loading", WorkPriority.HIGH, new WorkJob()
+        {
+            @Override
+            public Status step()
+            {
+                final PendingChunk chunk = pendingChunks.poll();
+
+                if (chunk != null)
+                {
+                    if (!chunk.world.isChunkLoaded(chunk.x, chunk.z))
+                        chunk.world.loadChunk(chunk.x, chunk.z, true);
+
+                    loaded++;
+                }
+
+                return pendingChunks.isEmpty() ? Status.DONE : Status.CONTINUE;
+            }
+
+            @Override
+            public void tickEnded(long tickDuration, long timeSpent, int units)
+            {
+                UHUtils.callIfDefined(onProgress, loaded);
+            }
+
+            @Override
+            public void done()
+            {
+                task = null;
+                UHUtils.callIfDefined(onFinished, loaded);
+            }
+
+            @Override
+            public void failed(Throwable e)
+            {
+                // The pre-loading is only there to smooth the teleportation, which can run without it.
+                task = null;
+                pendingChunks.clear();
+                UHUtils.callIfDefined(onFinished, loaded);
+            }
+
+            @Override
+            public double getProgress()
+            {
+                return total > 0 ? (double) loaded / total : 1;
+            }
+        });
+    }
+
+    /**
+     * Stops keeping the chunks loaded. They will be unloaded by the server when no longer used.
+     */
+    public void release()
+    {
+        if (task != null)
+        {
+            task.cancel();
+            task = null;
+        }
+
+        pendingChunks.clear();
+        heldChunks.clear();
+
+        if (holding)
+        {
+            ZLib.unregisterEvents(this);
+            holding = false;
+        }
+    }
+
+    /**
+     * @return The number of chunks to load.
+     */
+    public int getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * @return The number of chunks already loaded.
+     */
+    public int getLoaded()
+    {
+        return loaded;
+    }
+
+    /**
+     * @return {@code true} if all the chunks are loaded.
+     */
+    public boolean isFinished()
+    {
+        return holding && pendingChunks.isEmpty();
+    }
+
+
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onChunkUnload(ChunkUnloadEvent ev)
+    {
+        final Set<Long> worldChunks = heldChunks.get(ev.getWorld());
+
+        if (worldChunks != null && worldChunks.contains(chunkKey(ev.getChunk().getX(), ev.getChunk().getZ())))
+            ev.setCancelled(true);
+    }
+
+
+    private static long chunkKey(int x, int z)
+    {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    private static final class PendingChunk
+    {
+        private final World world;
+        private final int x;
+        private final int z;
+
+        private PendingChunk(World world, int x, int z)
+        {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+        }
+    }
+}
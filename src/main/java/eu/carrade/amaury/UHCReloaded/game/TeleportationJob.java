@@ -0,0 +1,142 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+import eu.carrade.amaury.UHCReloaded.task.WorkJob;
+import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import fr.zcraft.zlib.tools.Callback;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * Teleports the players one by one, as many of them each tick as the {@linkplain
+ * eu.carrade.amaury.UHCReloaded.task.WorkScheduler work scheduler} allows.
+ *
+ * <p>The scheduler adapts its budget to the server load, and runs at least one unit of each job
+ * each tick, so the process always ends.</p>
+ *
+ * @see Teleporter
+ */
+class TeleportationJob implements WorkJob
+{
+    private final Teleporter teleporter;
+    private final Queue<UUID> teleportationQueue;
+    private final int total;
+
+    private final Callback<UUID> onTeleportation;
+    private final Callback<UUID> onTeleportationSuccessful;
+    private final Callback<UUID> onTeleportationFailed;
+    private final Callback<Set<UUID>> onTeleportationProcessFinished;
+    private final Callback<Exception> onTeleportationProcessFailed;
+
+    private final Set<UUID> failed = new HashSet<>();
+    private final TeleportationStatistics statistics;
+
+    private boolean started = false;
+
+
+    public TeleportationJob(Teleporter teleporter, Set<UUID> playersToTeleport, TeleportationStatistics statistics, Callback<UUID> onTeleportation, Callback<UUID> onTeleportationSuccessful, Callback<UUID> onTeleportationFailed, Callback<Set<UUID>> onTeleportationProcessFinished, Callback<Exception> onTeleportationProcessFailed)
+    {
+        this.teleporter = teleporter;
+        this.statistics = statistics;
+        this.onTeleportation = onTeleportation;
+        this.onTeleportationSuccessful = onTeleportationSuccessful;
+        this.onTeleportationFailed = onTeleportationFailed;
+        this.onTeleportationProcessFinished = onTeleportationProcessFinished;
+        this.onTeleportationProcessFailed = onTeleportationProcessFailed;
+
+        this.teleportationQueue = new ArrayDeque<>(playersToTeleport);
+        this.total = teleportationQueue.size();
+    }
+
+    @Override
+    public Status step()
+    {
+        if (!started)
+        {
+            statistics.start();
+            started = true;
+        }
+
+        final UUID player = teleportationQueue.poll();
+        if (player == null) return Status.DONE;
+
+        UHUtils.callIfDefined(onTeleportation, player);
+
+        if (teleporter.teleportPlayer(player, false))
+        {
+            statistics.recordPlayer(true);
+            UHUtils.callIfDefined(onTeleportationSuccessful, player);
+        }
+        else
+        {
+            statistics.recordPlayer(false);
+            UHUtils.callIfDefined(onTeleportationFailed, player);
+            failed.add(player);
+        }
+
+        return teleportationQueue.isEmpty() ? Status.DONE : Status.CONTINUE;
+    }
+
+    @Override
+    public void tickEnded(long tickDuration, long timeSpent, int units)
+    {
+        statistics.recordTick(tickDuration, timeSpent, units);
+    }
+
+    @Override
+    public void done()
+    {
+        statistics.end();
+        UHUtils.callIfDefined(onTeleportationProcessFinished, failed);
+    }
+
+    @Override
+    public void failed(Throwable e)
+    {
+        statistics.end();
+        teleportationQueue.clear();
+
+        UHUtils.callIfDefined(onTeleportationProcessFailed, e instanceof Exception ? (Exception) e : new RuntimeException(e));
+    }
+
+    @Override
+    public double getProgress()
+    {
+        return total > 0 ? 1 - (double) teleportationQueue.size() / total : 1;
+    }
+}
@@ -57,10 +57,12 @@ class TeleportationRunnable extends BukkitRunnable
     private final Callback<Set<UUID>> onTeleportationProcessFinished;
 
     private final Set<UUID> failed = new HashSet<>();
+    private final TeleportationStatistics statistics;
 
-    public TeleportationRunnable(Teleporter teleporter, Set<UUID> playersToTeleport, Callback<UUID> onTeleportation, Callback<UUID> onTeleportationSuccessful, Callback<UUID> onTeleportationFailed, Callback<Set<UUID>> onTeleportationProcessFinished)
+    public TeleportationRunnable(Teleporter teleporter, Set<UUID> playersToTeleport, TeleportationStatistics statistics, Callback<UUID> onTeleportation, Callback<UUID> onTeleportationSuccessful, Callback<UUID> onTeleportationFailed, Callback<Set<UUID>> onTeleportationProcessFinished)
     {
         this.teleporter = teleporter;
+        this.statistics = statistics;
         this.onTeleportation = onTeleportation;
         this.onTeleportationSuccessful = onTeleportationSuccessful;
         this.onTeleportationFailed = onTeleportationFailed;
@@ -72,13 +74,21 @@ class TeleportationRunnable extends BukkitRunnable
     @Override
     public void run()
     {
+        final long start = System.nanoTime();
+        if (statistics.getTicks() == 0) statistics.start();
+
         try
         {
             UUID player = teleportationQueue.remove();
 
             UHUtils.callIfDefined(onTeleportation, player);
 
-            if (teleporter.teleportPlayer(player, false))
+            final boolean success = teleporter.teleportPlayer(player, false);
+
+            statistics.recordPlayer(success);
+            statistics.recordTick(0L, System.nanoTime() - start, 1);
+
+            if (success)
             {
                 UHUtils.callIfDefined(onTeleportationSuccessful, player);
             }
@@ -90,6 +100,7 @@ class TeleportationRunnable extends BukkitRunnable
         }
         catch (NoSuchElementException e) // Queue empty
         {
+            statistics.end();
             UHUtils.callIfDefined(onTeleportationProcessFinished, failed);
             cancel();
         }
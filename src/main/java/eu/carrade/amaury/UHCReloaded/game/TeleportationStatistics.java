@@ -0,0 +1,219 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.game;
+
+/**
+ * Statistics about a teleportation process started by {@link Teleporter#startTeleportationProcess(Boolean)}.
+ *
+ * <p>Updated from the main thread while the process runs.</p>
+ */
+public class TeleportationStatistics
+{
+    /**
+     * A tick lasting longer than that (in nanoseconds) is counted as a stall.
+     */
+    static final long STALL_THRESHOLD = 100_000_000L;
+
+    private final int total;
+
+    private int teleported = 0;
+    private int failed = 0;
+    private int ticks = 0;
+    private int stalledTicks = 0;
+    private int maxPlayersPerTick = 0;
+
+    private long startTime = 0L;
+    private long endTime = 0L;
+    private long workTime = 0L;
+    private long longestTick = 0L;
+    private long longestWork = 0L;
+
+
+    TeleportationStatistics(int total)
+    {
+        this.total = total;
+    }
+
+    void start()
+    {
+        startTime = System.nanoTime();
+    }
+
+    void end()
+    {
+        endTime = System.nanoTime();
+    }
+
+    void recordPlayer(boolean success)
+    {
+        if (success) teleported++;
+        else failed++;
+    }
+
+    /**
+     * Records a tick of the process.
+     *
+     * @param tickDuration The duration of the whole server tick before this one, in nanoseconds,
+     *                     or 0 if unknown.
+     * @param work         The time spent teleporting players in this tick, in nanoseconds.
+     * @param players      The number of players processed in this tick.
+     */
+    void recordTick(long tickDuration, long work, int players)
+    {
+        ticks++;
+        workTime += work;
+
+        longestTick = Math.max(longestTick, tickDuration);
+        longestWork = Math.max(longestWork, work);
+        maxPlayersPerTick = Math.max(maxPlayersPerTick, players);
+
+        if (tickDuration > STALL_THRESHOLD)
+            stalledTicks++;
+    }
+
+
+    /**
+     * @return The number of players to teleport.
+     */
+    public int getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * @return The number of players teleported successfully.
+     */
+    public int getTeleported()
+    {
+        return teleported;
+    }
+
+    /**
+     * @return The number of players who couldn't be teleported.
+     */
+    public int getFailed()
+    {
+        return failed;
+    }
+
+    /**
+     * @return The number of players still waiting to be teleported.
+     */
+    public int getRemaining()
+    {
+        return total - teleported - failed;
+    }
+
+    /**
+     * @return {@code true} if the process is finished.
+     */
+    public boolean isFinished()
+    {
+        return endTime != 0L;
+    }
+
+    /**
+     * @return The number of ticks the process ran during.
+     */
+    public int getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * @return The number of ticks during which the server stalled (took more than 100 ms).
+     */
+    public int getStalledTicks()
+    {
+        return stalledTicks;
+    }
+
+    /**
+     * @return The maximal number of players processed in a single tick.
+     */
+    public int getMaxPlayersPerTick()
+    {
+        return maxPlayersPerTick;
+    }
+
+    /**
+     * @return The duration of the longest tick observed during the process, in milliseconds.
+     */
+    public double getLongestTick()
+    {
+        return longestTick / 1_000_000D;
+    }
+
+    /**
+     * @return The longest time spent teleporting players in a single tick, in milliseconds.
+     */
+    public double getLongestWork()
+    {
+        return longestWork / 1_000_000D;
+    }
+
+    /**
+     * @return The total time spent teleporting players, in milliseconds.
+     */
+    public double getWorkTime()
+    {
+        return workTime / 1_000_000D;
+    }
+
+    /**
+     * @return The time elapsed since the beginning of the process (until its end if finished), in
+     * milliseconds.
+     */
+    public double getElapsedTime()
+    {
+        if (startTime == 0L) return 0D;
+        return ((isFinished() ? endTime : System.nanoTime()) - startTime) / 1_000_000D;
+    }
+
+    /**
+     * @return The number of players processed per second since the beginning of the process.
+     */
+    public double getThroughput()
+    {
+        final double elapsed = getElapsedTime();
+        return elapsed > 0 ? (teleported + failed) * 1000D / elapsed : 0D;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+                "%d/%d players teleported (%d failed) in %.0f ms over %d ticks; %.1f players/s, up to %d players per tick; longest tick %.1f ms, %d stalled ticks.",
+                teleported, total, failed, getElapsedTime(), ticks, getThroughput(), maxPlayersPerTick, getLongestTick(), stalledTicks
+        );
+    }
+}
@@ -31,12 +31,17 @@
  */
 package eu.carrade.amaury.UHCReloaded.game;
 
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
+import eu.carrade.amaury.UHCReloaded.rollback.EditSession;
+import eu.carrade.amaury.UHCReloaded.task.WorkPriority;
 import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
 import fr.zcraft.zlib.tools.Callback;
+import fr.zcraft.zlib.tools.PluginLogger;
 import fr.zcraft.zlib.tools.runners.RunTask;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 
 import java.util.HashMap;
@@ -61,6 +66,11 @@ public class Teleporter
      */
     private final Map<UUID, Cage> cages = new HashMap<>();
 
+    /**
+     * The edit sessions recording the blocks replaced by the cages, by world.
+     */
+    private final Map<UUID, EditSession> cagesEditSessions = new HashMap<>();
+
 
     /**
      * Called when a player is teleported, during the teleportation process.
@@ -87,6 +97,17 @@ public class Teleporter
      */
     private Callback<Set<UUID>> onTeleportationProcessFinished = null;
 
+    /**
+     * Called when the teleportation process started by {@link #startTeleportationProcess(Boolean)}
+     * is stopped by an error. The finished callback is not called in this case.
+     */
+    private Callback<Exception> onTeleportationProcessFailed = null;
+
+    /**
+     * The statistics of the last teleportation process.
+     */
+    private TeleportationStatistics statistics = null;
+
 
     /**
      * Saves the spawn point of a player.
@@ -173,12 +194,22 @@ public class Teleporter
             return false;
 
         else if (teleportOnGround)
-            spawn = spawn.getWorld().getHighestBlockAt(spawn).getLocation().add(0, 2, 0);
+            spawn = UHCReloaded.get().getSurfaceCache()
+                    .getHighestBlockAt(spawn.getWorld(), spawn.getBlockX(), spawn.getBlockZ())
+                    .getLocation().add(0, 2, 0);
 
         if (!teleportOnGround)
         {
             final Cage cage = cages.get(playerUUID);
-            if (cage != null) cage.build();
+            if (cage != null)
+            {
+                final World world = spawn.getWorld();
+
+                cage.build(cagesEditSessions.computeIfAbsent(
+                        world.getUID(),
+                        uid -> UHCReloaded.get().getRollbackManager().startSession("cages", world)
+                ));
+            }
         }
 
         player.teleport(spawn);
@@ -242,6 +273,31 @@ public class Teleporter
         return this;
     }
 
+    /**
+     * Registers a callback called if the teleportation process (started with {@link
+     * #startTeleportationProcess(Boolean)}) is stopped by an error. The players not teleported yet
+     * are left where they are.
+     *
+     * @param callback The callback. Argument: the error (already logged).
+     *
+     * @return Same instance for chaining.
+     */
+    public Teleporter whenTeleportationProcessFails(Callback<Exception> callback)
+    {
+        onTeleportationProcessFailed = callback;
+        return this;
+    }
+
+
+    /**
+     * @return The statistics of the last teleportation process started by {@link
+     * #startTeleportationProcess(Boolean)}, or {@code null} if no process was started.
+     */
+    public TeleportationStatistics getStatistics()
+    {
+        return statistics;
+    }
+
 
     /**
      * Teleports the players.
@@ -251,9 +307,40 @@ public class Teleporter
      */
     public void startTeleportationProcess(Boolean slowMode)
     {
+        statistics = new TeleportationStatistics(spawnPoints.size());
+
+        // Adaptive mode: as many players as the work scheduler allows are teleported each tick.
+        if (!slowMode && UHConfig.START.ADAPTIVE.ENABLED.get())
+        {
+            final Callback<Set<UUID>> onFinished = onTeleportationProcessFinished;
+            final TeleportationStatistics processStatistics = statistics;
+
+            UHCReloaded.get().getWorkScheduler().submit(
+                "teleportation",
+                WorkPriority.HIGH,
+                new TeleportationJob(
+                        this,
+                        spawnPoints.keySet(),
+                        processStatistics,
+                        onTeleportation,
+                        onTeleportationSuccessful,
+                        onTeleportationFailed,
+                        fails ->
+                        {
+                            PluginLogger.info("Teleportation process finished: {0}", processStatistics);
+                            UHUtils.callIfDefined(onFinished, fails);
+                        },
+                        onTeleportationProcessFailed
+                )
+            );
+        }
+
         // Fast mode: we loop on the spawn points and teleport everyone. Bim.
-        if (!slowMode)
+        else if (!slowMode)
         {
+            statistics.start();
+            final long start = System.nanoTime();
+
             Set<UUID> fails = new HashSet<>();
 
             for (UUID playerUUID : spawnPoints.keySet())
@@ -262,15 +349,20 @@ public class Teleporter
 
                 if (teleportPlayer(playerUUID, false))
                 {
+                    statistics.recordPlayer(true);
                     UHUtils.callIfDefined(onTeleportationSuccessful, playerUUID);
                 }
                 else
                 {
+                    statistics.recordPlayer(false);
                     UHUtils.callIfDefined(onTeleportationFailed, playerUUID);
                     fails.add(playerUUID);
                 }
             }
 
+            statistics.recordTick(0L, System.nanoTime() - start, spawnPoints.size());
+            statistics.end();
+
             UHUtils.callIfDefined(onTeleportationProcessFinished, fails);
         }
 
@@ -281,6 +373,7 @@ public class Teleporter
                 new TeleportationRunnable(
                         this,
                         spawnPoints.keySet(),
+                        statistics,
                         onTeleportation,
                         onTeleportationSuccessful,
                         onTeleportationFailed,
@@ -294,10 +387,18 @@ public class Teleporter
 
     /**
      * Cleanups the cages left by the teleportation process, to be executed when the game really starts.
+     *
+     * <p>The cages are destroyed over a few ticks, by the work scheduler. Once they are all
+     * destroyed, their edit sessions are discarded, as there is nothing left to roll back.</p>
      */
     public void cleanup()
     {
-        for (final Cage nicolas : cages.values()) // sorry
-            nicolas.destroy();
+        cagesEditSessions.values().forEach(EditSession::close);
+
+        Cage.destroyAll(cages.values(), () ->
+        {
+            cagesEditSessions.values().forEach(EditSession::discard);
+            cagesEditSessions.clear();
+        });
     }
 }
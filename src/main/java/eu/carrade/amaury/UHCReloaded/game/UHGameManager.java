@@ -59,25 +59,27 @@ import org.bukkit.ChatColor;
 import org.bukkit.Difficulty;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.potion.PotionEffect;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 
 public class UHGameManager
@@ -101,18 +103,20 @@ public class UHGameManager
     private Boolean mobsOnSurface = false;
 
     private Set<String> players = new HashSet<>(); // Will be converted to UUID when a built-in API for name->UUID conversion will be available
-    private Set<UUID> alivePlayers = new HashSet<>();
-    private Set<UHTeam> aliveTeams = new HashSet<>();
+    private final AliveRoster roster = new AliveRoster();
+    private final KillLedger kills = new KillLedger();
+    private final Leaderboard killsLeaderboard = new Leaderboard();
+    private final Leaderboard damagesLeaderboard = new Leaderboard();
     private Set<UUID> spectators = new HashSet<>();
     private Map<UUID, Location> deathLocations = new HashMap<>();
 
     private Set<String> deadPlayersToBeResurrected = new HashSet<>(); // Same
 
-    private Integer alivePlayersCount = 0;
-    private Integer aliveTeamsCount = 0;
-
     private Boolean gameWithTeams = true;
 
+    // Set from the start until the last player is teleported.
+    private Boolean startInProgress = false;
+
     // Used for the slow start.
     private Boolean slowStartInProgress = false;
     private Boolean slowStartTPFinished = false;
@@ -120,11 +124,17 @@ public class UHGameManager
     private Boolean gameStarted = false;
     private Boolean gameFinished = false;
     private Integer episode = 0;
+    private long gameStartTime = 0L;
+
+    private volatile GameState state = GameState.INITIAL;
+    private volatile PlayerPositions positions = PlayerPositions.EMPTY;
 
     private Teleporter teleporter = null;
+    private SpawnChunksPrewarmer spawnChunksPrewarmer = null;
 
     // Used to send a contextual error message in UHCommandManager, using only one exception,
     // by checking the message. (Used in this.finishGame().)
+    public final static String START_ERROR_IN_PROGRESS = "Unable to start the game: the game is already starting";
     public final static String FINISH_ERROR_NOT_STARTED = "Unable to finish the game: the game is not started";
     public final static String FINISH_ERROR_NOT_FINISHED = "Unable to finish the game: the game is not finished";
 
@@ -152,6 +162,8 @@ public class UHGameManager
         START_GIVE_BANNER        = UHConfig.TEAMS_OPTIONS.BANNER.GIVE.GIVE_IN_HOTBAR.get();
         START_PLACE_BANNER_SPAWN = UHConfig.TEAMS_OPTIONS.BANNER.GIVE.PLACE_ON_SPAWN.get();
         START_PLACE_BANNER_HEAD  = UHConfig.TEAMS_OPTIONS.BANNER.GIVE.GIVE_IN_HEAD.get();
+
+        RunTask.timer(this::samplePositions, 1L, 1L);
     }
 
     /**
@@ -194,10 +206,8 @@ public class UHGameManager
 
         p.getScoreboardManager().setScoreboardForPlayer(player);
 
-        // Used to update the "health" objective, to avoid a null one.
-        // Launched later because else, the health is constantly set to 20,
-        // and this prevents the health score to be updated.
-        Bukkit.getScheduler().runTaskLater(p, () -> p.getScoreboardManager().updateHealthScore(player), 20L);
+        // The health was reset.
+        p.getScoreboardManager().updateHealthScore(player);
 
         // Disable the spectator mode if the game is not started.
         p.getSpectatorsManager().setSpectating(player, false);
@@ -235,7 +245,8 @@ public class UHGameManager
      * @param ignoreTeams If true, the players will be teleported in individual teleportation spots,
      *                    just like without teams, even with teams.
      *
-     * @throws IllegalStateException if the game is running.
+     * @throws IllegalStateException if the game is running, or already starting (with the
+     *                               {@link #START_ERROR_IN_PROGRESS} message).
      */
     public void start(final CommandSender sender, final Boolean slow, Boolean ignoreTeams) throws IllegalStateException
     {
@@ -244,13 +255,18 @@ public class UHGameManager
             throw new IllegalStateException("The game is currently running!");
         }
 
+        if (startInProgress)
+        {
+            throw new IllegalStateException(START_ERROR_IN_PROGRESS);
+        }
+
 
         /* ** Initialization of the teams ** */
 
-        alivePlayers.clear();
-        aliveTeams.clear();
-        alivePlayersCount = 0;
-        aliveTeamsCount = 0;
+        roster.clear();
+        kills.clear();
+        killsLeaderboard.clear();
+        damagesLeaderboard.clear();
 
         // Stores the teams created on-the-fly, to unregister them if something bad happens.
         final Set<UHTeam> onTheFlyTeams = new HashSet<>();
@@ -300,24 +316,21 @@ public class UHGameManager
         /* ** Initialization of the players ** */
 
         tm.getTeams().forEach(
-                team -> team.getPlayers().stream()
-                            .map(OfflinePlayer::getUniqueId)
+                team -> team.getPlayersUUID().stream()
                             .filter(player -> !spectators.contains(player))
-                            .forEach(player -> alivePlayers.add(player))
+                            .forEach(player -> roster.add(player, team, p.getServer().getPlayer(player)))
         );
 
-        updateAliveCache();
-
 
         /* ** Spawns check ** */
 
-        Integer spawnsNeeded = ignoreTeams ? alivePlayersCount : aliveTeamsCount;
+        Integer spawnsNeeded = ignoreTeams ? roster.getAlivePlayersCount() : roster.getAliveTeamsCount();
 
         if (p.getSpawnsManager().getSpawnPoints().size() < spawnsNeeded)
         {
             if (sender instanceof Player) sender.sendMessage("");
             sender.sendMessage(I.t("{ce}Unable to start the game: not enough teleportation spots."));
-            sender.sendMessage(I.t("{ci}You can use {cc}/uh spawns generate <random|circular|grid>{ci} to generate the missing spawns automatically."));
+            sender.sendMessage(I.t("{ci}You can use {cc}/uh spawns generate <random|poisson|circular|grid>{ci} to generate the missing spawns automatically."));
 
             /// In the sentence: "Or click here to generate the spawns randomly."
             RawMessage.send(sender, new RawText(I.t("Or"))
@@ -336,8 +349,7 @@ public class UHGameManager
             // We clears the teams created on-the-fly
             onTheFlyTeams.forEach(team -> tm.removeTeam(team, true));
 
-            aliveTeamsCount = 0;
-            alivePlayersCount = 0;
+            roster.clear();
 
             return;
         }
@@ -345,7 +357,10 @@ public class UHGameManager
 
         /* ** MOTD (now the game WILL start) ** */
 
+        startInProgress = true;
+
         p.getMOTDManager().updateMOTDDuringStart();
+        publishState();
 
 
         /* ** Removes the teams action bar (if any) ** */
@@ -407,6 +422,7 @@ public class UHGameManager
         {
             slowStartInProgress = true;
             slowStartTPFinished = false;
+            publishState();
 
             // The players are frozen during the start (if cages are not used).
             if (!UHConfig.START.SLOW.CAGES.ENABLED.get())
@@ -418,7 +434,7 @@ public class UHGameManager
             teleporter.whenTeleportationOccurs(new Callback<UUID>()
             {
                 private int teleported = 0;
-                private final int total = alivePlayersCount;
+                private final int total = roster.getAlivePlayersCount();
 
                 @Override
                 public void call(UUID uuid)
@@ -437,6 +453,11 @@ public class UHGameManager
                 }
             });
         }
+        else
+        {
+            // The players teleported first are held in place until the last ones are teleported.
+            p.getFreezer().setGlobalFreezeState(true, false);
+        }
 
         teleporter
                 .whenTeleportationSuccesses(uuid ->
@@ -472,6 +493,9 @@ public class UHGameManager
 
                 .whenTeleportationEnds(uuids ->
                 {
+                    startInProgress = false;
+                    publishState();
+
                     if (slow)
                     {
                         slowStartTPFinished = true;
@@ -495,6 +519,9 @@ public class UHGameManager
                     }
                     else
                     {
+                        // Everyone landed: the freeze is removed.
+                        p.getFreezer().setGlobalFreezeState(false, false);
+
                         startEnvironment();
                         startTimer();
                         scheduleDamages();
@@ -503,7 +530,72 @@ public class UHGameManager
                     }
                 })
 
-                .startTeleportationProcess(slow);
+                .whenTeleportationProcessFails(e ->
+                {
+                    // The start is aborted; the players already teleported stay where they are.
+                    startInProgress = false;
+                    p.getFreezer().setGlobalFreezeState(false, false);
+
+                    releaseSpawnChunks();
+                    teleporter.cleanup();
+
+                    publishState();
+                    p.getMOTDManager().updateMOTDBeforeStart();
+
+                    sender.sendMessage(I.t("{ce}The teleportation failed and the game was not started, see console for details."));
+                });
+
+
+        /* ** Chunks pre-loading (the teleportation starts when the spawns are loaded) ** */
+
+        if (UHConfig.START.PREWARM.ENABLED.get())
+        {
+            final Set<Location> spawns = new HashSet<>();
+            for (UUID player : roster.getAlivePlayersUUID())
+                if (teleporter.hasSpawnForPlayer(player))
+                    spawns.add(teleporter.getSpawnForPlayer(player));
+
+            releaseSpawnChunks();
+            spawnChunksPrewarmer = new SpawnChunksPrewarmer(spawns, UHConfig.START.PREWARM.RADIUS.get());
+
+            final int total = spawnChunksPrewarmer.getTotal();
+            final long startTime = System.currentTimeMillis();
+
+            sender.sendMessage(I.t("{gray}Loading {0} chunks around the spawn points...", total));
+
+            spawnChunksPrewarmer
+                    .whenProgresses(loaded ->
+                    {
+                        /// Displayed in the action bar while the chunks around the spawn points are loaded, before the teleportation.
+                        final String message = I.t("{lightpurple}Preparing the spawns... {gray}({0}%)", total > 0 ? loaded * 100 / total : 100);
+                        Bukkit.getOnlinePlayers().forEach(player -> ActionBar.sendPermanentMessage(player, message));
+                    })
+                    .whenFinished(loaded ->
+                    {
+                        Bukkit.getOnlinePlayers().forEach(ActionBar::removeMessage);
+                        sender.sendMessage(I.t("{gray}{0} chunks loaded in {1} seconds.", loaded, String.format("%.1f", (System.currentTimeMillis() - startTime) / 1000D)));
+
+                        teleporter.startTeleportationProcess(slow);
+                    })
+                    .start();
+        }
+        else
+        {
+            teleporter.startTeleportationProcess(slow);
+        }
+    }
+
+    /**
+     * Stops keeping the chunks around the spawn points loaded, if they were pre-loaded before the
+     * teleportation.
+     */
+    private void releaseSpawnChunks()
+    {
+        if (spawnChunksPrewarmer != null)
+        {
+            spawnChunksPrewarmer.release();
+            spawnChunksPrewarmer = null;
+        }
     }
 
     /**
@@ -532,9 +624,7 @@ public class UHGameManager
             p.getFreezer().setGlobalFreezeState(false, false);
 
             // The fly is removed to everyone
-            p.getServer().getOnlinePlayers().stream()
-             .filter(player -> alivePlayers.contains(player.getUniqueId()))
-             .forEach(player ->
+            roster.getOnlineAlivePlayers().forEach(player ->
                 {
                     player.setFlying(false);
                     player.setAllowFlight(false);
@@ -556,6 +646,7 @@ public class UHGameManager
         finalizeStart();
 
         slowStartInProgress = false;
+        publishState();
     }
 
     /**
@@ -584,10 +675,22 @@ public class UHGameManager
      * Launches the timer by launching the task that updates the scoreboard every second.
      */
     private void startTimer()
+    {
+        startTimer(0L);
+    }
+
+    /**
+     * Launches the timer by launching the task that updates the scoreboard every second.
+     *
+     * @param elapsed The time already elapsed in the current episode, in milliseconds (non-zero
+     *                when a game is resumed).
+     */
+    private void startTimer(long elapsed)
     {
         if (UHConfig.EPISODES.ENABLED.get())
         {
             this.episode = 1;
+            publishState();
 
             // An empty string is used for the name of the main timer, because
             // such a name can't be used by players.
@@ -596,7 +699,7 @@ public class UHGameManager
 
             p.getTimerManager().registerMainTimer(mainTimer);
 
-            mainTimer.start();
+            mainTimer.start(elapsed);
         }
     }
 
@@ -604,31 +707,63 @@ public class UHGameManager
      * Enables the damages 30 seconds (600 ticks) later, the PvP after if needed, and the mobs spawns.
      */
     private void scheduleDamages()
+    {
+        scheduleDamages(0L);
+    }
+
+    /**
+     * Enables the damages, the PvP and the mobs spawns at the end of their respective periods.
+     *
+     * @param elapsed The time already elapsed since the beginning of the game, in ticks (non-zero
+     *                when a game is resumed). The periods already over are applied immediately.
+     */
+    private void scheduleDamages(long elapsed)
     {
         // When the grace period is over, damages are enabled.
-        RunTask.later(() -> {
-            damagesEnabled = true;
+        if (elapsed < GRACE_PERIOD)
+        {
+            /// Name of the end of the grace period in /uh timeline.
+            p.getTimeline().schedule(I.t("End of the grace period"), GRACE_PERIOD - elapsed, () -> {
+                damagesEnabled = true;
+                publishState();
+                releaseSpawnChunks();
 
-            if (UHConfig.START.BROADCAST_GRACE_END.get())
-            {
-                Bukkit.broadcastMessage(I.t("{red}{bold}Warning!{white} The grace period ended, you are now vulnerable."));
-            }
-        }, GRACE_PERIOD);
+                if (UHConfig.START.BROADCAST_GRACE_END.get())
+                {
+                    Bukkit.broadcastMessage(I.t("{red}{bold}Warning!{white} The grace period ended, you are now vulnerable."));
+                }
+            });
+        }
+        else
+        {
+            damagesEnabled = true;
+            publishState();
+            releaseSpawnChunks();
+        }
 
         // When the peace period is over, PVP is enabled
-        if (PEACE_PERIOD > 0)
+        if (PEACE_PERIOD > elapsed)
         {
             Bukkit.getWorlds().forEach(world -> world.setPVP(false));
 
-            RunTask.later(() ->
+            /// Name of the activation of the PvP in /uh timeline.
+            p.getTimeline().schedule(I.t("PvP enabled"), PEACE_PERIOD - elapsed, () ->
             {
                 Bukkit.getWorlds().forEach(world -> world.setPVP(true));
                 Bukkit.broadcastMessage(I.t("{red}{bold}Warning!{white} PvP is now enabled."));
-            }, PEACE_PERIOD);
+            });
         }
 
         // Allows mobs to spawn on the surface after the mobs-free period
-        RunTask.later(() -> mobsOnSurface = true, SURFACE_MOBS_FREE_PERIOD);
+        if (elapsed < SURFACE_MOBS_FREE_PERIOD)
+        {
+            /// Name of the end of the mobs-free period in /uh timeline.
+            p.getTimeline().schedule(I.t("Mobs on the surface"), SURFACE_MOBS_FREE_PERIOD - elapsed, () -> mobsOnSurface = true);
+        }
+        else
+        {
+            mobsOnSurface = true;
+        }
     }
 
     /**
@@ -641,11 +776,13 @@ public class UHGameManager
         // Team chat - 20 seconds after
         if (isGameWithTeams())
         {
-            Bukkit.getScheduler().runTaskLater(p, () -> getOnlineAlivePlayers().forEach(ProTips.USE_T_COMMAND::sendTo), 400L);
+            /// Name of a ProTip sent after the start of the game, in /uh timeline.
+            p.getTimeline().schedule(I.t("ProTip: team chat"), 400L, () -> getOnlineAlivePlayers().forEach(ProTips.USE_T_COMMAND::sendTo));
         }
 
         // Invincibility - 5 seconds after
-        Bukkit.getScheduler().runTaskLater(p, () -> getOnlineAlivePlayers().forEach(ProTips.STARTUP_INVINCIBILITY::sendTo), 100L);
+        /// Name of a ProTip sent after the start of the game, in /uh timeline.
+        p.getTimeline().schedule(I.t("ProTip: invincibility"), 100L, () -> getOnlineAlivePlayers().forEach(ProTips.STARTUP_INVINCIBILITY::sendTo));
     }
 
     /**
@@ -660,13 +797,13 @@ public class UHGameManager
 
         gameStarted = true;
         gameFinished = false;
+        gameStartTime = System.currentTimeMillis();
 
-        updateAliveCache();
+        publishState();
+        p.getMOTDManager().updateMOTDDuringGame();
 
         // Survival gamemode for everyone
-        p.getServer().getOnlinePlayers().stream()
-         .filter(player -> alivePlayers.contains(player.getUniqueId()))
-         .forEach(player ->
+        roster.getOnlineAlivePlayers().forEach(player ->
             {
                 player.setGameMode(GameMode.SURVIVAL);
                 resetPlayer(player);
@@ -675,6 +812,86 @@ public class UHGameManager
 
         // Fires the event
         p.getServer().getPluginManager().callEvent(new UHGameStartsEvent());
+
+        // From now on, the game can be resumed after a crash
+        p.getGameJournal().open();
+    }
+
+    /**
+     * Resumes a game interrupted by a crash or a restart of the server, from its journaled state.
+     *
+     * The players are neither teleported nor reset, and the start event is not fired again.
+     *
+     * @param state The state of the game, read from the journal.
+     */
+    void resume(JournalState state)
+    {
+        tm.reset(true);
+        roster.clear();
+        kills.clear();
+        killsLeaderboard.clear();
+        damagesLeaderboard.clear();
+        deathLocations.clear();
+
+        gameWithTeams = state.withTeams;
+
+        for (JournalState.JournalTeam journaledTeam : state.teams.values())
+        {
+            final UHTeam team = tm.addTeam(new UHTeam(journaledTeam.name, journaledTeam.color));
+            journaledTeam.members.forEach(id -> team.addPlayer(p.getServer().getOfflinePlayer(id), true));
+        }
+
+        state.alivePlayers.forEach(id -> roster.add(id, tm.getTeamForPlayer(id), p.getServer().getPlayer(id)));
+        deathLocations.putAll(state.deathLocations);
+
+        teleporter = new Teleporter();
+        state.spawnPoints.forEach(teleporter::setSpawnForPlayer);
+
+        state.killers.forEach((victim, killer) -> kills.record(killer, victim, -1L, null, null));
+        kills.getKillsCounts().forEach(killsLeaderboard::set);
+
+        // Restored in the ranking order, so the ties stay ordered the same way.
+        state.damages.forEach(damagesLeaderboard::set);
+
+        startEnvironment();
+        startTimer(state.elapsedEpisodeTime);
+        scheduleDamages(state.elapsedGameTime / 50L);
+
+        for (JournalState.JournalTimer journaledTimer : state.timers.values())
+        {
+            UHTimer timer = p.getTimerManager().getTimer(journaledTimer.name);
+            if (timer == null)
+            {
+                timer = new UHTimer(journaledTimer.name);
+                p.getTimerManager().registerTimer(timer);
+            }
+
+            timer.setDuration(journaledTimer.duration);
+            timer.setDisplayed(journaledTimer.displayed);
+
+            if (journaledTimer.running)
+            {
+                timer.start(journaledTimer.elapsed);
+                if (journaledTimer.paused) timer.setPaused(true);
+            }
+        }
+
+        if (state.borderDiameter > 0)
+        {
+            p.getBorderManager().resumeBorder(state.borderDiameter, state.borderReductionDelay, state.borderReductionTimeLeft);
+        }
+
+        episode = state.episode;
+        gameStartTime = System.currentTimeMillis() - state.elapsedGameTime;
+
+        startInProgress = false;
+        slowStartInProgress = false;
+        slowStartTPFinished = false;
+        gameStarted = true;
+        gameFinished = false;
+
+        publishState();
+        p.getMOTDManager().updateMOTDDuringGame();
     }
 
     /**
@@ -692,6 +909,17 @@ public class UHGameManager
         player.setExp(0L);
         player.setLevel(0);
         player.closeInventory();
+
+        // The health was reset.
+        p.getScoreboardManager().updateHealthScore(player);
+    }
+
+    /**
+     * @return true if the players are being prepared and teleported, at the start of the game.
+     */
+    public boolean isStartInProgress()
+    {
+        return startInProgress;
     }
 
     /**
@@ -703,23 +931,27 @@ public class UHGameManager
     }
 
     /**
-     * Updates the cached values of the alive players and teams.
+     * Recomputes the alive teams from the current teams of the alive players.
+     *
+     * <p>The alive players and teams are kept up-to-date incrementally; this is only needed if
+     * alive players were moved between teams during the game.</p>
      */
     public void updateAliveCache()
     {
-        // Alive teams
-        aliveTeams.clear();
-        for (UHTeam t : tm.getTeams())
-        {
-            for (UUID pid : t.getPlayersUUID())
-            {
-                if (!this.isPlayerDead(pid)) aliveTeams.add(t);
-            }
-        }
+        final Set<UUID> alive = new HashSet<>(roster.getAlivePlayersUUID());
+
+        roster.clear();
+        alive.forEach(id -> roster.add(id, tm.getTeamForPlayer(id), p.getServer().getPlayer(id)));
+
+        onAliveRosterUpdated();
+    }
 
-        // Counters
-        this.alivePlayersCount = alivePlayers.size();
-        this.aliveTeamsCount = aliveTeams.size();
+    /**
+     * Updates what depends on the number of alive players or teams.
+     */
+    private void onAliveRosterUpdated()
+    {
+        publishState();
 
         if (isGameRunning())
             p.getMOTDManager().updateMOTDDuringGame();
@@ -745,6 +977,9 @@ public class UHGameManager
         if (UHConfig.EPISODES.ENABLED.get())
         {
             this.episode++;
+            publishState();
+
+            p.getGameJournal().recordEpisode(episode, getElapsedGameTime());
 
             final EpisodeChangedCause cause;
             if (shifter == null || shifter.equals("")) cause = EpisodeChangedCause.FINISHED;
@@ -812,14 +1047,21 @@ public class UHGameManager
      */
     public boolean resurrectPlayerOnlineTask(Player player)
     {
-        if (alivePlayers.contains(player.getUniqueId()))
+        // Player registered as alive
+        if (!roster.add(player.getUniqueId(), tm.getTeamForPlayer(player), player))
         {
             return false;
         }
 
-        // Player registered as alive
-        alivePlayers.add(player.getUniqueId());
-        updateAliveCache();
+        onAliveRosterUpdated();
+        p.getGameJournal().recordResurrection(player.getUniqueId());
+
+        final UUID killer = kills.getKiller(player.getUniqueId());
+        if (kills.cancel(player.getUniqueId()))
+        {
+            killsLeaderboard.set(killer, kills.getKillsCount(killer));
+            p.getGameJournal().recordKillCancelled(player.getUniqueId());
+        }
 
         // This method can be used to add a player after the game start.
         players.add(player.getName());
@@ -862,6 +1104,7 @@ public class UHGameManager
     public void addDeathLocation(Player player, Location location)
     {
         deathLocations.put(player.getUniqueId(), location);
+        p.getGameJournal().recordDeathLocation(player.getUniqueId(), location);
     }
 
     /**
@@ -891,6 +1134,16 @@ public class UHGameManager
         return null;
     }
 
+    /**
+     * This method returns all the stored death locations.
+     *
+     * @return A read-only view of the death locations, per player.
+     */
+    public Map<UUID, Location> getDeathLocations()
+    {
+        return Collections.unmodifiableMap(deathLocations);
+    }
+
     /**
      * This method returns true if a death location is stored for the given player.
      *
@@ -985,6 +1238,37 @@ public class UHGameManager
     public void setGameFinished(boolean finished)
     {
         gameFinished = finished;
+        publishState();
+
+        // A finished game will never be resumed.
+        if (finished)
+            p.getGameJournal().close(true);
+    }
+
+    /**
+     * Returns the last published snapshot of the state of the game.
+     *
+     * <p>Unlike the other getters of this manager, this can be called from any thread: use it from
+     * the asynchronous tasks and events.</p>
+     *
+     * @return The current state of the game.
+     */
+    public GameState getState()
+    {
+        return state;
+    }
+
+    /**
+     * Publishes a new snapshot of the state of the game, to be read by the asynchronous consumers.
+     * Must be called from the main thread, after any change of the state.
+     */
+    private void publishState()
+    {
+        state = new GameState(
+                state.getVersion() + 1,
+                gameStarted, gameFinished, startInProgress, slowStartInProgress, gameWithTeams, damagesEnabled, episode,
+                roster.getAlivePlayersUUID(), roster.getAliveTeamsCount()
+        );
     }
 
     /**
@@ -1018,7 +1302,7 @@ public class UHGameManager
      */
     public boolean isPlayerDead(Player player)
     {
-        return !alivePlayers.contains(player.getUniqueId());
+        return !roster.isAlive(player.getUniqueId());
     }
 
     /**
@@ -1030,7 +1314,42 @@ public class UHGameManager
      */
     public boolean isPlayerDead(UUID player)
     {
-        return !alivePlayers.contains(player);
+        return !roster.isAlive(player);
+    }
+
+    /**
+     * Records the kill of a player, if he was killed by another player.
+     *
+     * @param victim The killed player.
+     */
+    public void addKill(Player victim)
+    {
+        final Player killer = victim.getKiller();
+        if (killer == null) return;
+
+        final EntityDamageEvent lastDamage = victim.getLastDamageCause();
+        final ItemStack weapon = killer.getItemInHand();
+
+        kills.record(
+                killer.getUniqueId(), victim.getUniqueId(), getElapsedGameTime() / 50L,
+                lastDamage != null ? lastDamage.getCause() : null,
+                weapon != null ? weapon.getType() : Material.AIR
+        );
+
+        killsLeaderboard.set(killer.getUniqueId(), kills.getKillsCount(killer.getUniqueId()));
+        p.getGameJournal().recordKill(killer.getUniqueId(), victim.getUniqueId());
+    }
+
+    /**
+     * Records damages dealt by a player to another one.
+     *
+     * @param damager The player who dealt the damages.
+     * @param damages The damages really dealt, in half-hearts.
+     */
+    public void addDamages(Player damager, double damages)
+    {
+        if (damages > 0)
+            damagesLeaderboard.add(damager.getUniqueId(), damages);
     }
 
     /**
@@ -1040,8 +1359,7 @@ public class UHGameManager
      */
     public void addDead(Player player)
     {
-        alivePlayers.remove(player.getUniqueId());
-        updateAliveCache();
+        addDead(player.getUniqueId());
     }
 
     /**
@@ -1051,8 +1369,11 @@ public class UHGameManager
      */
     public void addDead(UUID player)
     {
-        alivePlayers.remove(player);
-        updateAliveCache();
+        if (roster.remove(player))
+        {
+            onAliveRosterUpdated();
+            p.getGameJournal().recordDeath(player);
+        }
     }
 
 
@@ -1111,6 +1432,16 @@ public class UHGameManager
             {
                 p.getServer().broadcastMessage(I.t("{darkgreen}{obfuscated}--{green} Congratulations to {0} for his victory! {darkgreen}{obfuscated}--", winnerTeam.getName()));
             }
+
+            final List<Leaderboard.Entry> bestKillers = killsLeaderboard.getTop(1);
+
+            if (!bestKillers.isEmpty())
+            {
+                final int bestKillsCount = (int) bestKillers.get(0).getScore();
+
+                /// The best killer of the game, broadcasted with the winners. {0} = player name, {1} = kills count.
+                p.getServer().broadcastMessage(I.tn("{darkgreen}{obfuscated}--{green} Best killer: {0}, with {1} kill. {darkgreen}{obfuscated}--", "{darkgreen}{obfuscated}--{green} Best killer: {0}, with {1} kills. {darkgreen}{obfuscated}--", bestKillsCount, p.getServer().getOfflinePlayer(bestKillers.get(0).getPlayer()).getName(), bestKillsCount));
+            }
         }
 
         if (UHConfig.FINISH.TITLE.get())
@@ -1138,7 +1469,8 @@ public class UHGameManager
 
         if (UHConfig.FINISH.FIREWORKS.ENABLED.get())
         {
-            new FireworksOnWinnersTask(listWinners).runTaskTimer(p, 0L, 15L);
+            /// Name of the fireworks launched on the winners, in /uh timeline.
+            p.getTimeline().schedule(I.t("Fireworks on the winners"), 1L, 15L, UHConfig.FINISH.FIREWORKS.DURATION.get() * 20L, new FireworksOnWinnersTask(listWinners));
         }
     }
 
@@ -1153,39 +1485,95 @@ public class UHGameManager
     }
 
     /**
-     * Returns a list of the currently alive teams.
+     * Returns the currently alive teams.
      *
-     * @return The set.
+     * @return A read-only view of the alive teams.
      */
     public Set<UHTeam> getAliveTeams()
     {
-        return aliveTeams;
+        return roster.getAliveTeams();
     }
 
     /**
-     * Returns a list of the currently alive players.
+     * Returns the currently alive players.
      *
-     * @return The set.
+     * @return A read-only view of the alive players.
      */
     public Set<OfflinePlayer> getAlivePlayers()
     {
-        return alivePlayers.stream()
-                .map(id -> p.getServer().getOfflinePlayer(id))
-                .collect(Collectors.toCollection(HashSet::new));
+        return roster.getAlivePlayers();
+    }
+
+    /**
+     * Returns the currently alive and online players.
+     *
+     * @return A read-only view of the alive and online players.
+     */
+    public Collection<Player> getOnlineAlivePlayers()
+    {
+        return roster.getOnlineAlivePlayers();
+    }
+
+    /**
+     * Returns the roster of the alive players and teams, kept up-to-date during the game.
+     *
+     * @return The roster.
+     */
+    public AliveRoster getAliveRoster()
+    {
+        return roster;
+    }
+
+    /**
+     * Samples the positions of the alive and online players, once per tick, so the subsystems
+     * needing them (possibly asynchronously) share the same snapshot.
+     */
+    private void samplePositions()
+    {
+        final Collection<Player> players = roster.getOnlineAlivePlayers();
+        positions = players.isEmpty() ? PlayerPositions.EMPTY : PlayerPositions.sample(players, tm);
+    }
+
+    /**
+     * Returns the positions of the alive and online players, sampled at the beginning of the
+     * current tick. Can be called from any thread.
+     *
+     * @return The positions.
+     */
+    public PlayerPositions getPlayerPositions()
+    {
+        return positions;
     }
 
     /**
-     * Returns a list of the currently alive and online players.
+     * Returns the ledger of the kills of the game, kept up-to-date during the game.
      *
-     * @return The list.
+     * @return The ledger.
      */
-    public HashSet<Player> getOnlineAlivePlayers()
+    public KillLedger getKillLedger()
     {
-        return alivePlayers.stream()
-                .map(id -> p.getServer().getPlayer(id))
-                .filter(Objects::nonNull)
-                .filter(Player::isOnline)
-                .collect(Collectors.toCollection(HashSet::new));
+        return kills;
+    }
+
+    /**
+     * Returns the players who killed the most players, kept up-to-date during the game.
+     *
+     * @return The leaderboard (score = kills).
+     */
+    public Leaderboard getKillsLeaderboard()
+    {
+        return killsLeaderboard;
+    }
+
+    /**
+     * Returns the players who dealt the most damages to the players of the other teams, kept
+     * up-to-date during the game.
+     *
+     * @return The leaderboard (score = damages dealt, in half-hearts).
+     */
+    public Leaderboard getDamagesLeaderboard()
+    {
+        return damagesLeaderboard;
     }
 
     /**
@@ -1209,7 +1597,7 @@ public class UHGameManager
      */
     public Integer getAlivePlayersCount()
     {
-        return alivePlayersCount;
+        return roster.getAlivePlayersCount();
     }
 
     /**
@@ -1217,7 +1605,7 @@ public class UHGameManager
      */
     public Integer getAliveTeamsCount()
     {
-        return aliveTeamsCount;
+        return roster.getAliveTeamsCount();
     }
 
     /**
@@ -1228,6 +1616,15 @@ public class UHGameManager
         return episode;
     }
 
+    /**
+     * @return the time elapsed since the beginning of the game, in milliseconds; 0 if the game is
+     * not started.
+     */
+    public long getElapsedGameTime()
+    {
+        return gameStarted ? System.currentTimeMillis() - gameStartTime : 0L;
+    }
+
 
     /**
      * @return the teleporter instance used to start the game, containing the spawn points of each
@@ -153,7 +153,16 @@ public class TeamEditGUI extends TeamActionGUI
     {
         Gui.open(getPlayer(), new PromptGui(name ->
         {
-            if (!name.trim().isEmpty()) team.setName(name);
+            if (name.trim().isEmpty()) return;
+
+            try
+            {
+                team.setName(name);
+            }
+            catch (IllegalArgumentException e)
+            {
+                getPlayer().sendMessage(I.t("{ce}This team already exists."));
+            }
         }, team.getName()), this);
     }
 
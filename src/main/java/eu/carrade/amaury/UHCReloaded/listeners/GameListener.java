@@ -43,8 +43,10 @@ import eu.carrade.amaury.UHCReloaded.events.UHGameStartsEvent;
 import eu.carrade.amaury.UHCReloaded.events.UHPlayerDeathEvent;
 import eu.carrade.amaury.UHCReloaded.events.UHPlayerResurrectedEvent;
 import eu.carrade.amaury.UHCReloaded.events.UHTeamDeathEvent;
+import eu.carrade.amaury.UHCReloaded.game.KillRecord;
 import eu.carrade.amaury.UHCReloaded.misc.RuntimeCommandsExecutor;
 import eu.carrade.amaury.UHCReloaded.protips.ProTips;
+import eu.carrade.amaury.UHCReloaded.rollback.EditSession;
 import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
 import eu.carrade.amaury.UHCReloaded.utils.UHSound;
 import fr.zcraft.zlib.components.i18n.I;
@@ -57,15 +59,18 @@ import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.SkullType;
+import org.bukkit.World;
 import org.bukkit.block.Banner;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.FoodLevelChangeEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
@@ -74,6 +79,7 @@ import org.bukkit.event.player.PlayerAchievementAwardedEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent.Result;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerStatisticIncrementEvent;
 import org.bukkit.event.server.ServerListPingEvent;
@@ -82,8 +88,10 @@ import org.bukkit.inventory.meta.BannerMeta;
 import org.bukkit.inventory.meta.SkullMeta;
 
 import java.net.URISyntaxException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -130,6 +138,9 @@ public class GameListener implements Listener
             return;
         }
 
+        // Records the kill before the event, so the listeners can read it from the ledger.
+        p.getGameManager().addKill(ev.getEntity());
+
         p.getServer().getPluginManager().callEvent(new UHPlayerDeathEvent(ev.getEntity(), ev));
 
         // Plays sound.
@@ -199,18 +210,7 @@ public class GameListener implements Listener
         final UHTeam team = p.getTeamManager().getTeamForPlayer(ev.getEntity());
         if (team != null)
         {
-            boolean isAliveTeam = false;
-
-            for (UUID playerID : team.getPlayersUUID())
-            {
-                if (!p.getGameManager().isPlayerDead(playerID))
-                {
-                    isAliveTeam = true;
-                    break;
-                }
-            }
-
-            if (!isAliveTeam)
+            if (p.getGameManager().getAliveRoster().getAliveMembersCount(team) == 0)
             {
                 p.getServer().getPluginManager().callEvent(new UHTeamDeathEvent(team));
 
@@ -232,9 +232,19 @@ public class GameListener implements Listener
         String dmFormat = ChatColor.translateAlternateColorCodes('&', UHConfig.DEATH.MESSAGES.DEATH_MESSAGES_FORMAT.get());
         String deathMessage = dmFormat + ev.getDeathMessage();
         deathMessage = deathMessage.replace(ev.getEntity().getName(), ev.getEntity().getDisplayName() + dmFormat);
-        if (ev.getEntity().getKiller() != null)
+
+        final KillRecord kill = p.getGameManager().getKillLedger().getKill(ev.getEntity().getUniqueId());
+        final Player killer = kill != null ? p.getServer().getPlayer(kill.getKiller()) : null;
+        if (killer != null)
         {
-            deathMessage = deathMessage.replace(ev.getEntity().getKiller().getName(), ev.getEntity().getKiller().getDisplayName() + dmFormat);
+            deathMessage = deathMessage.replace(killer.getName(), killer.getDisplayName() + dmFormat);
+
+            final int killsCount = p.getGameManager().getKillLedger().getKillsCount(killer.getUniqueId());
+            if (killsCount > 1)
+            {
+                /// Appended to the death message when the killer killed more than one player. {0} = kills count.
+                deathMessage += " " + I.t("({0} kills)", killsCount);
+            }
         }
         ev.setDeathMessage(deathMessage);
 
@@ -306,6 +316,35 @@ public class GameListener implements Listener
         }
     }
 
+    /**
+     * Used to rank the players by damages dealt to the players of the other teams.
+     *
+     * @param ev
+     */
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerDamagedByPlayer(final EntityDamageByEntityEvent ev)
+    {
+        if (!(ev.getEntity() instanceof Player) || !p.getGameManager().isGameRunning()) return;
+
+        final Player damager;
+
+        if (ev.getDamager() instanceof Player)
+            damager = (Player) ev.getDamager();
+        else if (ev.getDamager() instanceof Projectile && ((Projectile) ev.getDamager()).getShooter() instanceof Player)
+            damager = (Player) ((Projectile) ev.getDamager()).getShooter();
+        else
+            return;
+
+        final Player victim = (Player) ev.getEntity();
+        if (damager.equals(victim) || p.getGameManager().isPlayerDead(damager) || p.getGameManager().isPlayerDead(victim)) return;
+
+        // Damages between teammates are not ranked.
+        if (p.getTeamManager().inSameTeam(damager, victim)) return;
+
+        // Only the health really lost counts.
+        p.getGameManager().addDamages(damager, Math.min(ev.getFinalDamage(), victim.getHealth()));
+    }
+
 
     /**
      * Used to prevent the food level from dropping if the game has not started.
@@ -372,9 +411,11 @@ public class GameListener implements Listener
     @EventHandler (priority = EventPriority.HIGHEST)
     public void onPlayerJoin(final PlayerJoinEvent ev)
     {
+        p.getGameManager().getAliveRoster().updateOnlineState(ev.getPlayer(), true);
+
         if (!this.p.getGameManager().isGameStarted())
         {
-            if (!p.getGameManager().isSlowStartInProgress())
+            if (!p.getGameManager().isSlowStartInProgress() && !p.getGameManager().isStartInProgress())
             {
                 // Initialization of the player (teleportation, life, health objective score...).
                 p.getGameManager().initPlayer(ev.getPlayer());
@@ -470,12 +511,21 @@ public class GameListener implements Listener
 
         // If the player is a new one, the game is started, and the option is set to true...
         if (p.getGameManager().isGameRunning() && UHConfig.SPECTATOR_MODE_WHEN_NEW_PLAYER_JOIN_AFTER_START.get()
-                && !p.getGameManager().getAlivePlayers().contains(ev.getPlayer()))
+                && p.getGameManager().isPlayerDead(ev.getPlayer()))
         {
             p.getSpectatorsManager().setSpectating(ev.getPlayer(), true);
         }
     }
 
+    /**
+     * Used to keep the list of the online alive players up-to-date.
+     */
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onPlayerQuit(final PlayerQuitEvent ev)
+    {
+        p.getGameManager().getAliveRoster().updateOnlineState(ev.getPlayer(), false);
+    }
+
     /**
      * Used to disable the achievements before the game.
      */
@@ -553,15 +603,12 @@ public class GameListener implements Listener
 
     /**
      * Used to:
-     *  - update the internal list of running timers;
      *  - shift the episode if the main timer is up (and restart this main timer);
      *  - hide an other timer when it is up.
      */
     @EventHandler
     public void onTimerEnds(final TimerEndsEvent ev)
     {
-        p.getTimerManager().updateStartedTimersList();
-
         if (ev.getTimer().equals(p.getTimerManager().getMainTimer()))
         {
             // If this timer is the main one, we shifts an episode.
@@ -581,15 +628,11 @@ public class GameListener implements Listener
     }
 
     /**
-     * Used to:
-     *  - update the internal list of running timers;
-     *  - display a timer when it is started.
+     * Used to display a timer when it is started.
      */
     @EventHandler
     public void onTimerStarts(final TimerStartsEvent ev)
     {
-        p.getTimerManager().updateStartedTimersList();
-
         if (!ev.getTimer().equals(p.getTimerManager().getMainTimer()))
         {
             ev.getTimer().setDisplayed(true);
@@ -684,6 +727,9 @@ public class GameListener implements Listener
         {
             RunTask.later(() ->
             {
+                // The blocks replaced by the banners are recorded, by world.
+                final Map<World, EditSession> editSessions = new HashMap<>();
+
                 for (UHTeam team : p.getTeamManager().getTeams())
                 {
                     if (!team.isEmpty())
@@ -699,12 +745,17 @@ public class GameListener implements Listener
 
                             if (p.getGameManager().START_PLACE_BANNER_SPAWN)
                             {
-                                final Block place = player.getWorld().getHighestBlockAt(player.getLocation());
+                                final Location location = player.getLocation();
+                                final Block place = p.getSurfaceCache().getHighestBlockAt(location.getWorld(), location.getBlockX(), location.getBlockZ());
                                 final Block under = place.getRelative(BlockFace.DOWN);
 
                                 // We don't want a stack of banners
                                 if (under.getType() != Material.STANDING_BANNER)
                                 {
+                                    final EditSession editSession = editSessions.computeIfAbsent(place.getWorld(), world -> p.getRollbackManager().startSession("banners", world));
+                                    editSession.record(under);
+                                    editSession.record(place);
+
                                     if (!under.getType().isSolid())
                                         under.setType(Material.WOOD);
 
@@ -717,11 +768,15 @@ public class GameListener implements Listener
                                     bannerBlock.setPatterns(bannerMeta.getPatterns());
 
                                     bannerBlock.update();
+
+                                    p.getSurfaceCache().invalidate(place.getWorld(), place.getX(), place.getZ());
                                 }
                             }
                         }
                     }
                 }
+
+                editSessions.values().forEach(EditSession::close);
             }, 5L);
         }
     }
@@ -34,6 +34,7 @@ package eu.carrade.amaury.UHCReloaded.listeners;
 
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
+import eu.carrade.amaury.UHCReloaded.game.PlayerPositions;
 import eu.carrade.amaury.UHCReloaded.task.CancelBrewTask;
 import fr.zcraft.zlib.components.i18n.I;
 import fr.zcraft.zlib.tools.runners.RunTask;
@@ -313,30 +314,11 @@ public class GameplayListener implements Listener
                 return;
             }
 
-            Player nearest = null;
-            Double distance = 99999D;
-            for (Player player2 : p.getGameManager().getOnlineAlivePlayers())
-            {
-                try
-                {
-                    Double calc = player1.getLocation().distanceSquared(player2.getLocation());
-
-                    if (calc > 1 && calc < distance)
-                    {
-                        distance = calc;
-                        if (!player2.getUniqueId().equals(player1.getUniqueId()) && !p.getTeamManager().inSameTeam(player1, player2))
-                        {
-                            nearest = player2.getPlayer();
-                        }
-                    }
-                }
-                catch (Exception ignored)
-                {
-
-                }
-            }
+            final PlayerPositions positions = p.getGameManager().getPlayerPositions();
+            final int index = positions.indexOf(player1.getUniqueId());
+            final int nearest = index >= 0 ? positions.getNearestEnemy(index) : -1;
 
-            if (nearest == null)
+            if (nearest < 0)
             {
                 /// Error message if a player tries to use his pointing compass without a player nearby.
                 player1.sendMessage(I.t("{gray}{italic}Only silence answers your request."));
@@ -347,7 +329,7 @@ public class GameplayListener implements Listener
 
             /// Success message when a player uses his pointing compass.
             player1.sendMessage(I.t("{gray}The compass now points to the closest player."));
-            player1.setCompassTarget(nearest.getLocation());
+            player1.setCompassTarget(positions.getLocation(nearest));
 
             player1.playSound(player1.getLocation(), Sound.ENDERMAN_TELEPORT, 1F, 1F);
         }
@@ -34,7 +34,6 @@ package eu.carrade.amaury.UHCReloaded.listeners;
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
 import org.bukkit.Location;
-import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Ghast;
@@ -118,75 +117,11 @@ public class SpawnsListener implements Listener
         {
             // We check the blocs above the entity to see if we only find surface blocks.
             final Location spawnLocation = ev.getLocation();
-            final World world = spawnLocation.getWorld();
-            final int highestBlockY = world.getHighestBlockYAt(spawnLocation);
-
-            final int x = spawnLocation.getBlockX();
-            final int z = spawnLocation.getBlockZ();
-
-            boolean surface = true;
-
-            for (int y = spawnLocation.getBlockY(); y <= highestBlockY; y++)
-            {
-                switch (world.getBlockAt(x, y, z).getType())
-                {
-                    // Air
-                    case AIR:
-
-                    // Trees
-                    case LOG:
-                    case LOG_2:
-                    case LEAVES:
-                    case LEAVES_2:
-                    case HUGE_MUSHROOM_1:
-                    case HUGE_MUSHROOM_2:
-
-                    // Vegetation
-                    case DEAD_BUSH:
-                    case CROPS:
-                    case GRASS:
-                    case LONG_GRASS:
-                    case DOUBLE_PLANT:
-                    case YELLOW_FLOWER:
-                    case VINE:
-                    case SUGAR_CANE_BLOCK:
-                    case BROWN_MUSHROOM:
-                    case RED_MUSHROOM:
-
-                    // Nature
-                    case SNOW:
-
-                    // Igloos
-                    case SNOW_BLOCK:
-
-                    // Villages
-                    case WOOD:
-                    case WOOD_STAIRS:
-                    case SANDSTONE_STAIRS:
-                    case BOOKSHELF:
-
-                    // Redstone
-                    case REDSTONE_WIRE:
-                    case REDSTONE_COMPARATOR:
-                    case REDSTONE_COMPARATOR_OFF:
-                    case REDSTONE_COMPARATOR_ON:
-                    case REDSTONE_TORCH_OFF:
-                    case REDSTONE_TORCH_ON:
-
-                    // Other blocs frequently used on surface on custom maps
-                    case TORCH:
-                    case RAILS:
-                    case ACTIVATOR_RAIL:
-                    case DETECTOR_RAIL:
-                    case POWERED_RAIL:
-                        break;
-
-                    default:
-                        surface = false;
-                }
-
-                if (!surface) break;
-            }
+
+            final boolean surface = UHCReloaded.get().getSurfaceCache().isSurface(
+                    spawnLocation.getWorld(),
+                    spawnLocation.getBlockX(), spawnLocation.getBlockY(), spawnLocation.getBlockZ()
+            );
 
             if (surface) ev.setCancelled(true);
         }
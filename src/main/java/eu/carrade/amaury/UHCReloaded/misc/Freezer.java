@@ -119,6 +119,10 @@ public class Freezer
 
             // Freezes the timers.
             p.getTimerManager().pauseAllRunning(true);
+
+            // And the border shrinking and the timeline of the match.
+            p.getBorderManager().getBorderProxy().setResizePaused(true);
+            p.getTimeline().setPaused(true);
         }
 
         else
@@ -137,6 +141,9 @@ public class Freezer
 
             // Unfreezes the timers.
             p.getTimerManager().pauseAllRunning(false);
+
+            p.getBorderManager().getBorderProxy().setResizePaused(false);
+            p.getTimeline().setPaused(false);
         }
 
         updateListenerRegistration();
@@ -34,6 +34,7 @@ package eu.carrade.amaury.UHCReloaded.misc;
 
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
+import eu.carrade.amaury.UHCReloaded.game.GameState;
 import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
 import fr.zcraft.zlib.components.i18n.I;
 import org.bukkit.ChatColor;
@@ -46,7 +47,8 @@ public class MOTDManager
     private boolean enabled;
     private String matchName = "";
 
-    private String currentMOTD;
+    // Read from the server list pings, which are handled outside of the main thread.
+    private volatile String currentMOTD;
 
     public MOTDManager(UHCReloaded plugin)
     {
@@ -110,15 +112,17 @@ public class MOTDManager
     {
         if (enabled)
         {
-            if (!p.getGameManager().isGameWithTeams())
+            final GameState state = p.getGameManager().getState();
+
+            if (!state.isWithTeams())
             {
                 /// Solo game running MOTD. {0} = players alive count.
-                currentMOTD = matchName + I.tn("Game running! {0} player alive.", "Game running! {0} players alive.", p.getGameManager().getAlivePlayersCount(), p.getGameManager().getAlivePlayersCount());
+                currentMOTD = matchName + I.tn("Game running! {0} player alive.", "Game running! {0} players alive.", state.getAlivePlayersCount(), state.getAlivePlayersCount());
             }
             else
             {
                 /// Teams game running MOTD. {0} = players alive count. {1} = teams alive count. Plural based on players count.
-                currentMOTD = matchName + I.tn("Game running! {0} player alive in {1} team.", "Game running! {0} players alive in {1} teams.", p.getGameManager().getAlivePlayersCount(), p.getGameManager().getAlivePlayersCount(), p.getGameManager().getAliveTeamsCount());
+                currentMOTD = matchName + I.tn("Game running! {0} player alive in {1} team.", "Game running! {0} players alive in {1} teams.", state.getAlivePlayersCount(), state.getAlivePlayersCount(), state.getAliveTeamsCount());
             }
         }
     }
@@ -33,14 +33,20 @@ package eu.carrade.amaury.UHCReloaded.misc;
 
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
+import eu.carrade.amaury.UHCReloaded.game.Leaderboard;
 import fr.zcraft.zlib.components.i18n.I;
+import fr.zcraft.zlib.tools.runners.RunTask;
 import fr.zcraft.zlib.tools.text.ListHeaderFooter;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 
+import java.util.List;
+
 
 public class PlayerListHeaderFooterManager
 {
+    private static final int LEADERBOARDS_SIZE = 3;
+
     private final String WAITING_HEADER_PATTERN;
     private final String WAITING_FOOTER_PATTERN;
     private final String IN_GAME_HEADER_PATTERN;
@@ -49,6 +55,8 @@ public class PlayerListHeaderFooterManager
     private String currentHeader = "";
     private String currentFooter = "";
 
+    private long displayedLeaderboardsVersion = -1L;
+
 
     public PlayerListHeaderFooterManager()
     {
@@ -58,6 +66,11 @@ public class PlayerListHeaderFooterManager
         IN_GAME_FOOTER_PATTERN = UHConfig.PLAYERS_LIST.IN_GAME_TIME.FOOTER.get();
 
         updateHeadersFooters();
+
+        // The leaderboards change between the other updates (e.g. on damages): they are checked
+        // every second, if displayed.
+        if ((IN_GAME_HEADER_PATTERN + IN_GAME_FOOTER_PATTERN).contains("Leaderboard}"))
+            RunTask.timer(this::updateLeaderboards, 20L, 20L);
     }
 
 
@@ -67,6 +80,17 @@ public class PlayerListHeaderFooterManager
         send();
     }
 
+    private void updateLeaderboards()
+    {
+        if (!UHCReloaded.get().getGameManager().isGameStarted()) return;
+
+        final long version = UHCReloaded.get().getGameManager().getKillsLeaderboard().getVersion()
+                + UHCReloaded.get().getGameManager().getDamagesLeaderboard().getVersion();
+
+        if (version != displayedLeaderboardsVersion)
+            updateHeadersFooters();
+    }
+
     public void sendTo(Player player)
     {
         if (!currentHeader.isEmpty() || !currentFooter.isEmpty())
@@ -76,6 +100,9 @@ public class PlayerListHeaderFooterManager
 
     private void computeHeadersFooter()
     {
+        displayedLeaderboardsVersion = UHCReloaded.get().getGameManager().getKillsLeaderboard().getVersion()
+                + UHCReloaded.get().getGameManager().getDamagesLeaderboard().getVersion();
+
         if (UHCReloaded.get().getGameManager().isGameStarted())
         {
             currentHeader = computeText(IN_GAME_HEADER_PATTERN);
@@ -102,6 +129,8 @@ public class PlayerListHeaderFooterManager
      * - {episodeNumber}: contains the raw episode number (e.g. “2”).
      * - {playersCount}: contains the raw alive players count (e.g. “18”).
      * - {teamsCount}: contains the raw alive teams count (e.g. “6”).
+     * - {killsLeaderboard}: contains the three players who killed the most players.
+     * - {damagesLeaderboard}: contains the three players who dealt the most damages.
      *
      * @param raw The raw text.
      * @return The text, with tags replaced.
@@ -121,9 +150,39 @@ public class PlayerListHeaderFooterManager
                 .replace("{episodeNumber}", String.valueOf(UHCReloaded.get().getGameManager().getEpisode()))
                 .replace("{playersCount}", String.valueOf(UHCReloaded.get().getGameManager().getAlivePlayersCount()))
                 .replace("{teamsCount}", String.valueOf(UHCReloaded.get().getGameManager().getAliveTeamsCount()))
+
+                .replace("{killsLeaderboard}", raw.contains("{killsLeaderboard}") ? leaderboardToString(UHCReloaded.get().getGameManager().getKillsLeaderboard(), false) : "")
+                .replace("{damagesLeaderboard}", raw.contains("{damagesLeaderboard}") ? leaderboardToString(UHCReloaded.get().getGameManager().getDamagesLeaderboard(), true) : "")
                 ;
     }
 
+    /**
+     * @param leaderboard The leaderboard.
+     * @param damages {@code true} if the scores are damages, in half-hearts; else, kills.
+     * @return The best players of the leaderboard, on one line.
+     */
+    private String leaderboardToString(Leaderboard leaderboard, boolean damages)
+    {
+        final List<Leaderboard.Entry> top = leaderboard.getTop(LEADERBOARDS_SIZE);
+        final StringBuilder builder = new StringBuilder();
+
+        for (final Leaderboard.Entry entry : top)
+        {
+            if (builder.length() > 0) builder.append(", ");
+
+            final String name = UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(entry.getPlayer()).getPlayerName();
+
+            if (damages)
+                /// Player in the damages leaderboard in the player list ({damagesLeaderboard} replacement). {0} = player name, {1} = damages dealt, in hearts.
+                builder.append(I.t("{0} ({1}\u2764)", name, String.format("%.1f", entry.getScore() / 2)));
+            else
+                /// Player in the kills leaderboard in the player list ({killsLeaderboard} replacement). {0} = player name, {1} = kills count.
+                builder.append(I.t("{0} ({1})", name, (int) entry.getScore()));
+        }
+
+        return builder.toString();
+    }
+
     private void send()
     {
         if (!currentHeader.isEmpty() || !currentFooter.isEmpty())
@@ -34,7 +34,7 @@ package eu.carrade.amaury.UHCReloaded.misc;
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.task.ScheduledCommandsExecutorTask;
 import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
-import fr.zcraft.zlib.tools.runners.RunTask;
+import fr.zcraft.zlib.components.i18n.I;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -89,7 +89,7 @@ public class RuntimeCommandsExecutor
     }
 
     /**
-     * Register the commands registered under the given key in the Bukkit' scheduler.
+     * Register the commands registered under the given key in the match timeline.
      * <p>
      * Delays are from the execution of this method.
      *
@@ -97,24 +97,27 @@ public class RuntimeCommandsExecutor
      */
     public void registerCommandsInScheduler(String key)
     {
-        registerCommandsInScheduler(scheduled.get(key));
+        registerCommandsInScheduler(key, scheduled.get(key));
     }
 
     /**
-     * Register the given commands in the Bukkit' scheduler.
+     * Register the given commands in the match timeline.
      *
      * Delays are from the execution of this method.
+     * @param key The key the commands are registered under, used to name them in the timeline.
      * @param scheduledCommands
      */
-    private void registerCommandsInScheduler(Map<Integer, HashSet<String>> scheduledCommands)
+    private void registerCommandsInScheduler(String key, Map<Integer, HashSet<String>> scheduledCommands)
     {
         if (scheduledCommands != null)
         {
             for (Entry<Integer, HashSet<String>> scheduledCommandsStack : scheduledCommands.entrySet())
             {
-                RunTask.later(
-                        new ScheduledCommandsExecutorTask(scheduledCommandsStack.getValue()),
-                        scheduledCommandsStack.getKey() * 20L
+                /// Name of scheduled commands in /uh timeline. {0} = number of commands, {1} = internal key (e.g. "internal.game-start").
+                p.getTimeline().schedule(
+                        I.tn("{0} command ({1})", "{0} commands ({1})", scheduledCommandsStack.getValue().size(), key),
+                        scheduledCommandsStack.getKey() * 20L,
+                        new ScheduledCommandsExecutorTask(scheduledCommandsStack.getValue())
                 );
             }
         }
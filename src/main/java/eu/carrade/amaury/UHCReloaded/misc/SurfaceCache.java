@@ -0,0 +1,486 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.misc;
+
+import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * Caches the classification of the surface of the terrain, column by column.
+ *
+ * <p>Each column is scanned once, the first time it is needed, and the result is kept until a
+ * block changes in this column (placed, broken, burnt, grown, moved by a piston, filled by a
+ * bucket...), or until its chunk is unloaded.</p>
+ *
+ * <p>Must only be used from the main thread.</p>
+ */
+public class SurfaceCache implements Listener
+{
+    /**
+     * The blocks commonly found at the surface, above the ground: a mob spawning under these blocks
+     * only still spawns at the surface.
+     */
+    private static final Set<Material> SURFACE_MATERIALS = EnumSet.of(
+            // Air
+            Material.AIR,
+
+            // Trees
+            Material.LOG, Material.LOG_2, Material.LEAVES, Material.LEAVES_2,
+            Material.HUGE_MUSHROOM_1, Material.HUGE_MUSHROOM_2,
+
+            // Vegetation
+            Material.DEAD_BUSH, Material.CROPS, Material.GRASS, Material.LONG_GRASS, Material.DOUBLE_PLANT,
+            Material.YELLOW_FLOWER, Material.VINE, Material.SUGAR_CANE_BLOCK, Material.BROWN_MUSHROOM,
+            Material.RED_MUSHROOM,
+
+            // Nature
+            Material.SNOW,
+
+            // Igloos
+            Material.SNOW_BLOCK,
+
+            // Villages
+            Material.WOOD, Material.WOOD_STAIRS, Material.SANDSTONE_STAIRS, Material.BOOKSHELF,
+
+            // Redstone
+            Material.REDSTONE_WIRE, Material.REDSTONE_COMPARATOR, Material.REDSTONE_COMPARATOR_OFF,
+            Material.REDSTONE_COMPARATOR_ON, Material.REDSTONE_TORCH_OFF, Material.REDSTONE_TORCH_ON,
+
+            // Other blocs frequently used on surface on custom maps
+            Material.TORCH, Material.RAILS, Material.ACTIVATOR_RAIL, Material.DETECTOR_RAIL, Material.POWERED_RAIL
+    );
+
+    private static final byte FLAG_SAFE = 1;
+    private static final byte FLAG_WATER = 1 << 1;
+    private static final byte FLAG_LAVA = 1 << 2;
+
+    private final Map<UUID, Map<Long, ChunkColumns>> worlds = new HashMap<>();
+
+
+    /**
+     * Returns the Y coordinate of the highest block of the column, following the same rules as
+     * {@link World#getHighestBlockYAt(int, int)} (i.e. the first free block above the ground).
+     *
+     * @param world The world.
+     * @param x     The X coordinate of the column.
+     * @param z     The Z coordinate of the column.
+     *
+     * @return The Y coordinate.
+     */
+    public int getHighestBlockYAt(World world, int x, int z)
+    {
+        final ChunkColumns columns = getColumns(world, x, z);
+        return columns.highestBlock[columns.index(world, x, z)];
+    }
+
+    /**
+     * Returns the highest block of the column, following the same rules as {@link
+     * World#getHighestBlockAt(int, int)}.
+     *
+     * @param world The world.
+     * @param x     The X coordinate of the column.
+     * @param z     The Z coordinate of the column.
+     *
+     * @return The block.
+     */
+    public Block getHighestBlockAt(World world, int x, int z)
+    {
+        return world.getBlockAt(x, getHighestBlockYAt(world, x, z), z);
+    }
+
+    /**
+     * Checks if a location is at the surface, i.e. if there are only surface blocks (air,
+     * vegetation, trees...) between it and the sky.
+     *
+     * @param world The world.
+     * @param x     The X coordinate.
+     * @param y     The Y coordinate.
+     * @param z     The Z coordinate.
+     *
+     * @return {@code true} if at the surface.
+     */
+    public boolean isSurface(World world, int x, int y, int z)
+    {
+        final ChunkColumns columns = getColumns(world, x, z);
+        return y >= columns.surfaceFloor[columns.index(world, x, z)];
+    }
+
+    /**
+     * @param world The world.
+     * @param x     The X coordinate of the column.
+     * @param z     The Z coordinate of the column.
+     *
+     * @return {@code true} if the highest block of the column is a safe spot (see {@link
+     * UHUtils#isSafeSpot(org.bukkit.Location)}).
+     */
+    public boolean isSafeSurface(World world, int x, int z)
+    {
+        return hasFlag(world, x, z, FLAG_SAFE);
+    }
+
+    /**
+     * @param world The world.
+     * @param x     The X coordinate of the column.
+     * @param z     The Z coordinate of the column.
+     *
+     * @return {@code true} if the ground of this column (the block under the highest one) is
+     * water.
+     */
+    public boolean isAboveWater(World world, int x, int z)
+    {
+        return hasFlag(world, x, z, FLAG_WATER);
+    }
+
+    /**
+     * @param world The world.
+     * @param x     The X coordinate of the column.
+     * @param z     The Z coordinate of the column.
+     *
+     * @return {@code true} if the ground of this column (the block under the highest one) is
+     * lava.
+     */
+    public boolean isAboveLava(World world, int x, int z)
+    {
+        return hasFlag(world, x, z, FLAG_LAVA);
+    }
+
+
+    /**
+     * Forgets what is known about a column; it will be scanned again when needed.
+     *
+     * @param world The world.
+     * @param x     The X coordinate of the column.
+     * @param z     The Z coordinate of the column.
+     */
+    public void invalidate(World world, int x, int z)
+    {
+        final Map<Long, ChunkColumns> chunks = worlds.get(world.getUID());
+        if (chunks == null) return;
+
+        final ChunkColumns columns = chunks.get(chunkKey(x >> 4, z >> 4));
+        if (columns != null) columns.invalidate(x & 0xF, z & 0xF);
+    }
+
+    /**
+     * Forgets what is known about all the columns in a rectangular area.
+     *
+     * <p>Must be called when blocks are changed without events (e.g. directly by the plugin).</p>
+     *
+     * @param world The world.
+     * @param minX  The lowest X coordinate of the area (inclusive).
+     * @param minZ  The lowest Z coordinate of the area (inclusive).
+     * @param maxX  The highest X coordinate of the area (inclusive).
+     * @param maxZ  The highest Z coordinate of the area (inclusive).
+     */
+    public void invalidate(World world, int minX, int minZ, int maxX, int maxZ)
+    {
+        final Map<Long, ChunkColumns> chunks = worlds.get(world.getUID());
+        if (chunks == null) return;
+
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++)
+        {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++)
+            {
+                final ChunkColumns columns = chunks.get(chunkKey(chunkX, chunkZ));
+                if (columns == null) continue;
+
+                final int fromX = Math.max(minX, chunkX << 4), toX = Math.min(maxX, (chunkX << 4) + 15);
+                final int fromZ = Math.max(minZ, chunkZ << 4), toZ = Math.min(maxZ, (chunkZ << 4) + 15);
+
+                for (int x = fromX; x <= toX; x++)
+                    for (int z = fromZ; z <= toZ; z++)
+                        columns.invalidate(x & 0xF, z & 0xF);
+            }
+        }
+    }
+
+    /**
+     * Forgets everything.
+     */
+    public void clear()
+    {
+        worlds.clear();
+    }
+
+
+    private boolean hasFlag(World world, int x, int z, byte flag)
+    {
+        final ChunkColumns columns = getColumns(world, x, z);
+        return (columns.flags[columns.index(world, x, z)] & flag) != 0;
+    }
+
+    private ChunkColumns getColumns(World world, int x, int z)
+    {
+        return worlds
+                .computeIfAbsent(world.getUID(), uid -> new HashMap<>())
+                .computeIfAbsent(chunkKey(x >> 4, z >> 4), key -> new ChunkColumns());
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ)
+    {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPhysics(BlockPhysicsEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLiquidFlow(BlockFromToEvent ev)
+    {
+        invalidate(ev.getToBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent ev)
+    {
+        invalidate(ev.blockList());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockSpread(BlockSpreadEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockGrow(BlockGrowEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent ev)
+    {
+        ev.getBlocks().forEach(state -> invalidate(state.getWorld(), state.getX(), state.getZ()));
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent ev)
+    {
+        invalidate(ev.getBlock());
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent ev)
+    {
+        // The moved blocks, their new place, and the piston head.
+        invalidate(ev.getBlock().getRelative(ev.getDirection()));
+        ev.getBlocks().forEach(block ->
+        {
+            invalidate(block);
+            invalidate(block.getRelative(ev.getDirection()));
+        });
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent ev)
+    {
+        // Both sides of the moved blocks, as the direction of the movement depends on the version.
+        invalidate(ev.getBlock().getRelative(ev.getDirection()));
+        invalidate(ev.getBlock().getRelative(ev.getDirection().getOppositeFace()));
+        ev.getBlocks().forEach(block ->
+        {
+            invalidate(block);
+            invalidate(block.getRelative(ev.getDirection()));
+            invalidate(block.getRelative(ev.getDirection().getOppositeFace()));
+        });
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent ev)
+    {
+        invalidate(ev.getBlockClicked().getRelative(ev.getBlockFace()));
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent ev)
+    {
+        invalidate(ev.getBlockClicked());
+        invalidate(ev.getBlockClicked().getRelative(ev.getBlockFace()));
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChunkUnload(ChunkUnloadEvent ev)
+    {
+        final Map<Long, ChunkColumns> chunks = worlds.get(ev.getWorld().getUID());
+        if (chunks != null) chunks.remove(chunkKey(ev.getChunk().getX(), ev.getChunk().getZ()));
+    }
+
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent ev)
+    {
+        worlds.remove(ev.getWorld().getUID());
+    }
+
+    private void invalidate(Block block)
+    {
+        invalidate(block.getWorld(), block.getX(), block.getZ());
+    }
+
+    private void invalidate(List<Block> blocks)
+    {
+        blocks.forEach(this::invalidate);
+    }
+
+
+    /**
+     * The data of the 16×16 columns of a chunk, in primitive arrays indexed by {@code (z << 4) | x}.
+     */
+    private static final class ChunkColumns
+    {
+        private final short[] highestBlock = new short[256];
+        private final short[] surfaceFloor = new short[256];
+        private final byte[] flags = new byte[256];
+
+        /**
+         * The columns up-to-date; one bit per column.
+         */
+        private final long[] valid = new long[4];
+
+        /**
+         * Returns the index of a column in the arrays, scanning it if needed.
+         */
+        private int index(World world, int x, int z)
+        {
+            final int index = ((z & 0xF) << 4) | (x & 0xF);
+
+            if ((valid[index >> 6] & (1L << (index & 63))) == 0)
+            {
+                scan(world, x, z, index);
+                valid[index >> 6] |= 1L << (index & 63);
+            }
+
+            return index;
+        }
+
+        private void invalidate(int x, int z)
+        {
+            final int index = (z << 4) | x;
+            valid[index >> 6] &= ~(1L << (index & 63));
+        }
+
+        private void scan(World world, int x, int z, int index)
+        {
+            final int highest = world.getHighestBlockYAt(x, z);
+
+            final Material center = world.getBlockAt(x, highest, z).getType();
+            final Material above = world.getBlockAt(x, highest + 1, z).getType();
+            final Material below = highest > 0 ? world.getBlockAt(x, highest - 1, z).getType() : Material.AIR;
+
+            byte columnFlags = 0;
+            if (UHUtils.isSafeSpot(center, above, below)) columnFlags |= FLAG_SAFE;
+            if (below == Material.WATER || below == Material.STATIONARY_WATER) columnFlags |= FLAG_WATER;
+            if (below == Material.LAVA || below == Material.STATIONARY_LAVA) columnFlags |= FLAG_LAVA;
+
+            // The lowest Y from which there are only surface blocks up to the sky
+            int floor = highest;
+            while (floor >= 0 && SURFACE_MATERIALS.contains(world.getBlockAt(x, floor, z).getType()))
+                floor--;
+
+            highestBlock[index] = (short) highest;
+            surfaceFloor[index] = (short) (floor + 1);
+            flags[index] = columnFlags;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.rollback;
+
+import fr.zcraft.zlib.tools.PluginLogger;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Records the original blocks of the world before they are edited by the plugin, so the edits can
+ * be rolled back later, even after a restart.
+ *
+ * <p>The original blocks are buffered by chunk section (16×16×16 blocks), each one packed in an
+ * {@code int} with its position in the section, its ID and its data. The buffered sections are
+ * appended to the session file from a background thread regularly.</p>
+ *
+ * <p>The same block can be recorded multiple times: the records are undone from the last to the
+ * first one, so the oldest original block is always the one restored.</p>
+ *
+ * <p>Must be used from the main thread.</p>
+ */
+public class EditSession
+{
+    static final int MAGIC = 0x55484552; // "UHER"
+    static final byte VERSION = 1;
+
+    /**
+     * The number of buffered records triggering a write of the buffer.
+     */
+    private static final int FLUSH_THRESHOLD = 16384;
+
+    private final RollbackManager manager;
+    private final String id;
+    private final World world;
+    private final File file;
+
+    private final Map<Long, Section> buffer = new HashMap<>();
+    private int buffered = 0;
+    private int recorded = 0;
+
+    private ExecutorService writer = null;
+    private DataOutputStream out = null;
+    private boolean open = false;
+
+
+    EditSession(RollbackManager manager, String id, World world, File file)
+    {
+        this.manager = manager;
+        this.id = id;
+        this.world = world;
+        this.file = file;
+    }
+
+    /**
+     * Opens the session file and writes its header.
+     *
+     * @param description A description of the edits.
+     *
+     * @throws IOException If the file cannot be created.
+     */
+    void open(String description) throws IOException
+    {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(world.getUID().getMostSignificantBits());
+        out.writeLong(world.getUID().getLeastSignificantBits());
+        out.writeUTF(world.getName());
+        out.writeUTF(description);
+        out.writeLong(System.currentTimeMillis());
+
+        writer = Executors.newSingleThreadExecutor(runnable ->
+        {
+            final Thread thread = new Thread(runnable, "UHC edit session writer (" + id + ")");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        open = true;
+    }
+
+    /**
+     * Records the current state of a block, before it is edited.
+     *
+     * @param block The block. Must be in the world of this session.
+     */
+    @SuppressWarnings ("deprecation")
+    public void record(Block block)
+    {
+        if (!open) return;
+
+        record(block.getX(), block.getY(), block.getZ(), block.getTypeId(), block.getData());
+    }
+
+    /**
+     * Records the state of a block, before it is edited, when it is already known (e.g. from a
+     * chunk snapshot).
+     *
+     * @param x    The X coordinate of the block.
+     * @param y    The Y coordinate of the block.
+     * @param z    The Z coordinate of the block.
+     * @param id   The ID of the original block.
+     * @param data The data of the original block.
+     */
+    public void record(int x, int y, int z, int id, byte data)
+    {
+        if (!open || y < 0 || y > 255) return;
+
+        final long key = sectionKey(x >> 4, y >> 4, z >> 4);
+
+        Section section = buffer.get(key);
+        if (section == null)
+        {
+            section = new Section(x >> 4, y >> 4, z >> 4);
+            buffer.put(key, section);
+        }
+
+        final int index = ((y & 0xF) << 8) | ((z & 0xF) << 4) | (x & 0xF);
+        if (section.add(index, id, data))
+        {
+            buffered++;
+            recorded++;
+        }
+
+        if (buffered >= FLUSH_THRESHOLD)
+            flush();
+    }
+
+    /**
+     * Writes the buffered records to the disk, in the background.
+     */
+    public void flush()
+    {
+        if (!open || buffer.isEmpty()) return;
+
+        final Section[] sections = buffer.values().toArray(new Section[buffer.size()]);
+        buffer.clear();
+        buffered = 0;
+
+        writer.execute(() ->
+        {
+            try
+            {
+                for (final Section section : sections)
+                {
+                    out.writeInt(section.x);
+                    out.writeInt(section.z);
+                    out.writeByte(section.y);
+                    out.writeInt(section.size);
+
+                    for (int i = 0; i < section.size; i++)
+                        out.writeInt(section.records[i]);
+                }
+
+                out.flush();
+            }
+            catch (IOException e)
+            {
+                PluginLogger.error("Unable to write the edit session {0}; it will not be possible to roll it back entirely.", e, id);
+            }
+        });
+    }
+
+    /**
+     * Writes the remaining records and closes the session. The session can then be rolled back.
+     */
+    public void close()
+    {
+        if (!open) return;
+
+        flush();
+        open = false;
+
+        writer.execute(() ->
+        {
+            try
+            {
+                out.close();
+            }
+            catch (IOException e)
+            {
+                PluginLogger.error("Unable to close the edit session {0}", e, id);
+            }
+        });
+
+        writer.shutdown();
+
+        manager.sessionClosed(this);
+    }
+
+    /**
+     * Closes the session and deletes its file, e.g. when the edits were undone by other means.
+     */
+    public void discard()
+    {
+        close();
+        awaitWritten(5, TimeUnit.SECONDS);
+
+        if (file.exists() && !file.delete())
+            PluginLogger.warning("Unable to delete the edit session {0}", file.getAbsolutePath());
+    }
+
+    /**
+     * Waits until the records of a closed session are written on the disk.
+     *
+     * @param timeout The maximal time to wait.
+     * @param unit    The unit of the timeout.
+     *
+     * @return {@code true} if everything was written.
+     */
+    boolean awaitWritten(long timeout, TimeUnit unit)
+    {
+        if (writer == null) return true;
+
+        try
+        {
+            return writer.awaitTermination(timeout, unit);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return The identifier of this session.
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return The world edited.
+     */
+    public World getWorld()
+    {
+        return world;
+    }
+
+    /**
+     * @return The number of blocks recorded so far.
+     */
+    public int getRecorded()
+    {
+        return recorded;
+    }
+
+    /**
+     * @return {@code true} if the session is still recording.
+     */
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    File getFile()
+    {
+        return file;
+    }
+
+    private static long sectionKey(int sectionX, int sectionY, int sectionZ)
+    {
+        return ((long) sectionX << 36) | ((long) (sectionZ & 0xFFFFFFF) << 8) | (sectionY & 0xFF);
+    }
+
+    /**
+     * Packs a record.
+     *
+     * @param index The index of the block in the section ({@code y << 8 | z << 4 | x}).
+     * @param id    The ID of the original block (12 bits).
+     * @param data  The data of the original block (4 bits).
+     *
+     * @return The record.
+     */
+    static int pack(int index, int id, byte data)
+    {
+        return (index << 16) | ((id & 0xFFF) << 4) | (data & 0xF);
+    }
+
+
+    /**
+     * The records buffered for a chunk section.
+     */
+    private static final class Section
+    {
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private int[] records = new int[64];
+        private int size = 0;
+
+        /**
+         * The blocks of the section already recorded in this buffer, one bit per block.
+         */
+        private final long[] recorded = new long[64];
+
+        private Section(int x, int y, int z)
+        {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private boolean add(int index, int id, byte data)
+        {
+            if ((recorded[index >> 6] & (1L << (index & 63))) != 0)
+                return false;
+
+            recorded[index >> 6] |= 1L << (index & 63);
+
+            if (size == records.length)
+                records = Arrays.copyOf(records, Math.min(4096, size * 2));
+
+            records[size++] = pack(index, id, data);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.rollback;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.UHConfig;
+import fr.zcraft.zlib.tools.PluginLogger;
+import org.bukkit.World;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Manages the edit sessions, recording the blocks edited by the plugin (walls, cages, banners...),
+ * and their rollback.
+ */
+public class RollbackManager
+{
+    private static final String FILE_EXTENSION = ".edits";
+
+    private final File directory;
+    private final boolean enabled;
+
+    private final Set<EditSession> openSessions = new HashSet<>();
+    private RollbackTask currentRollback = null;
+
+
+    public RollbackManager(UHCReloaded plugin)
+    {
+        directory = new File(plugin.getDataFolder(), "rollback");
+        enabled = UHConfig.ROLLBACK.ENABLED.get();
+    }
+
+    /**
+     * Starts a new edit session. The returned session must be closed when the edits are done.
+     *
+     * <p>If the rollback is disabled, or if the session file cannot be created, the session
+     * returned records nothing.</p>
+     *
+     * @param kind  The kind of edits (e.g. "walls"), used as a prefix of the session identifier.
+     * @param world The world edited.
+     *
+     * @return The session.
+     */
+    public EditSession startSession(String kind, World world)
+    {
+        final String baseId = kind + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+
+        String id = baseId;
+        for (int i = 2; new File(directory, id + FILE_EXTENSION).exists(); i++)
+            id = baseId + "-" + i;
+
+        final EditSession session = new EditSession(this, id, world, new File(directory, id + FILE_EXTENSION));
+
+        if (!enabled) return session;
+
+        if (!directory.exists() && !directory.mkdirs())
+        {
+            PluginLogger.warning("Unable to create the directory {0}; the edits will not be recorded.", directory.getAbsolutePath());
+            return session;
+        }
+
+        try
+        {
+            session.open(kind);
+            openSessions.add(session);
+        }
+        catch (IOException e)
+        {
+            PluginLogger.error("Unable to create the edit session {0}; the edits will not be recorded.", e, id);
+        }
+
+        return session;
+    }
+
+    void sessionClosed(EditSession session)
+    {
+        openSessions.remove(session);
+    }
+
+    /**
+     * @return The closed edit sessions stored on the disk, that can be rolled back, from the oldest
+     * to the newest.
+     */
+    public List<StoredSession> getSessions()
+    {
+        final List<StoredSession> sessions = new ArrayList<>();
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+
+        if (files == null) return sessions;
+
+        for (final File file : files)
+        {
+            final String id = file.getName().substring(0, file.getName().length() - FILE_EXTENSION.length());
+            if (isOpen(id)) continue;
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+            {
+                sessions.add(readHeader(id, file, in));
+            }
+            catch (IOException e)
+            {
+                PluginLogger.warning("Invalid edit session file {0}, skipping.", file.getName());
+            }
+        }
+
+        Collections.sort(sessions, (a, b) -> Long.compare(a.date, b.date));
+        return sessions;
+    }
+
+    /**
+     * Rolls back an edit session: the original blocks are restored progressively, and the session
+     * is then deleted.
+     *
+     * @param id The identifier of the session.
+     *
+     * @return The rollback task, started; {@code null} if there is no such session.
+     * @throws IllegalStateException If a rollback is already running, or if the session is still
+     *                               recording.
+     */
+    public RollbackTask rollback(String id)
+    {
+        if (isRollingBack())
+            throw new IllegalStateException("A rollback is already running");
+
+        if (isOpen(id))
+            throw new IllegalStateException("The edit session " + id + " is still recording");
+
+        final File file = new File(directory, id + FILE_EXTENSION);
+        if (!file.isFile()) return null;
+
+        currentRollback = new RollbackTask(id, file);
+        currentRollback.start();
+
+        return currentRollback;
+    }
+
+    /**
+     * @return The current (or last) rollback, or {@code null} if nothing was rolled back since the
+     * server started.
+     */
+    public RollbackTask getCurrentRollback()
+    {
+        return currentRollback;
+    }
+
+    /**
+     * @return {@code true} if a rollback is running.
+     */
+    public boolean isRollingBack()
+    {
+        return currentRollback != null && currentRollback.isRunning();
+    }
+
+    /**
+     * Closes all the sessions still recording, waits for their records to be written, and stops
+     * the current rollback, if any.
+     */
+    public void shutdown()
+    {
+        final List<EditSession> sessions = new ArrayList<>(openSessions);
+
+        sessions.forEach(EditSession::close);
+
+        // The writers are daemon threads: the records still queued would be lost with the server.
+        for (final EditSession session : sessions)
+            if (!session.awaitWritten(10, TimeUnit.SECONDS))
+                PluginLogger.warning("The edit session {0} was not entirely written; it may not be possible to roll it back entirely.", session.getId());
+
+        if (currentRollback != null)
+            currentRollback.cancel();
+    }
+
+    private boolean isOpen(String id)
+    {
+        for (final EditSession session : openSessions)
+            if (session.getId().equals(id))
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Reads the header of a session file.
+     *
+     * @throws IOException If the header is invalid or cannot be read.
+     */
+    static StoredSession readHeader(String id, File file, DataInputStream in) throws IOException
+    {
+        if (in.readInt() != EditSession.MAGIC || in.readByte() != EditSession.VERSION)
+            throw new IOException("Not an edit session file");
+
+        final UUID worldUID = new UUID(in.readLong(), in.readLong());
+        final String worldName = in.readUTF();
+        final String description = in.readUTF();
+        final long date = in.readLong();
+
+        return new StoredSession(id, worldUID, worldName, description, date, file.length());
+    }
+
+
+    /**
+     * An edit session stored on the disk.
+     */
+    public static final class StoredSession
+    {
+        private final String id;
+        private final UUID worldUID;
+        private final String worldName;
+        private final String description;
+        private final long date;
+        private final long size;
+
+        private StoredSession(String id, UUID worldUID, String worldName, String description, long date, long size)
+        {
+            this.id = id;
+            this.worldUID = worldUID;
+            this.worldName = worldName;
+            this.description = description;
+            this.date = date;
+            this.size = size;
+        }
+
+        public String getId()
+        {
+            return id;
+        }
+
+        public UUID getWorldUID()
+        {
+            return worldUID;
+        }
+
+        public String getWorldName()
+        {
+            return worldName;
+        }
+
+        public String getDescription()
+        {
+            return description;
+        }
+
+        /**
+         * @return The creation date of the session, as a timestamp in milliseconds.
+         */
+        public long getDate()
+        {
+            return date;
+        }
+
+        /**
+         * @return The size of the session file, in bytes (about four bytes per block).
+         */
+        public long getSize()
+        {
+            return size;
+        }
+    }
+}
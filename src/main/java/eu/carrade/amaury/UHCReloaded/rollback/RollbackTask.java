@@ -0,0 +1,389 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.rollback;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.misc.SurfaceCache;
+import eu.carrade.amaury.UHCReloaded.task.ScheduledJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkPriority;
+import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import fr.zcraft.zlib.tools.Callback;
+import fr.zcraft.zlib.tools.PluginLogger;
+import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Rolls back an edit session.
+ *
+ * <p>The session file is read on a worker thread; the original blocks are then restored by the
+ * main thread, from the last record to the first one, by the {@linkplain
+ * eu.carrade.amaury.UHCReloaded.task.WorkScheduler work scheduler}.</p>
+ *
+ * <p>All the callbacks are called from the main thread.</p>
+ */
+public class RollbackTask
+{
+    /**
+     * The interval between two progress callbacks, in ticks.
+     */
+    private static final int PROGRESS_INTERVAL = 40;
+
+    /**
+     * The maximal number of blocks restored in one unit of work.
+     */
+    private static final int BLOCKS_PER_UNIT = 512;
+
+    private final String id;
+    private final File file;
+
+    private Callback<RollbackTask> onProgress = null;
+    private Callback<RollbackTask> onSuccess = null;
+    private Callback<Exception> onFailure = null;
+
+    private World world = null;
+    private List<SectionRecords> sections = null;
+
+    private int currentSection;
+    private int currentRecord;
+
+    private ScheduledJob restorer = null;
+    private volatile boolean running = false;
+
+    private int totalBlocks = 0;
+    private int blocksRestored = 0;
+    private long startTime = 0;
+    private int ticks = 0;
+
+
+    RollbackTask(String id, File file)
+    {
+        this.id = id;
+        this.file = file;
+    }
+
+    /**
+     * Registers a callback called every two seconds while the rollback runs.
+     *
+     * @param callback The callback. Argument: this task.
+     *
+     * @return Same instance for chaining.
+     */
+    public RollbackTask whenProgresses(Callback<RollbackTask> callback)
+    {
+        onProgress = callback;
+        return this;
+    }
+
+    /**
+     * Registers a callback called when all the blocks are restored.
+     *
+     * @param callback The callback. Argument: this task.
+     *
+     * @return Same instance for chaining.
+     */
+    public RollbackTask whenFinished(Callback<RollbackTask> callback)
+    {
+        onSuccess = callback;
+        return this;
+    }
+
+    /**
+     * Registers a callback called if the session cannot be rolled back.
+     *
+     * @param callback The callback. Argument: the error.
+     *
+     * @return Same instance for chaining.
+     */
+    public RollbackTask whenFails(Callback<Exception> callback)
+    {
+        onFailure = callback;
+        return this;
+    }
+
+
+    void start()
+    {
+        if (running) return;
+        running = true;
+
+        startTime = System.currentTimeMillis();
+
+        final Thread reader = new Thread(() ->
+        {
+            try
+            {
+                final RollbackManager.StoredSession session;
+                final List<SectionRecords> records = new ArrayList<>();
+                int blocks = 0;
+
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+                {
+                    session = RollbackManager.readHeader(id, file, in);
+
+                    while (true)
+                    {
+                        final SectionRecords section;
+
+                        try
+                        {
+                            section = new SectionRecords(in.readInt(), in.readInt(), in.readByte());
+
+                            final int count = in.readInt();
+                            section.records = new int[count];
+
+                            for (int i = 0; i < count; i++)
+                                section.records[i] = in.readInt();
+                        }
+                        catch (EOFException e)
+                        {
+                            // End of the file, or last records truncated by a crash
+                            break;
+                        }
+
+                        records.add(section);
+                        blocks += section.records.length;
+                    }
+                }
+
+                final int totalBlocksRead = blocks;
+                RunTask.nextTick(() -> startRestoration(session, records, totalBlocksRead));
+            }
+            catch (IOException e)
+            {
+                PluginLogger.error("Unable to read the edit session {0}", e, id);
+                RunTask.nextTick(() -> fail(e));
+            }
+        }, "UHC rollback reader (" + id + ")");
+
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void startRestoration(RollbackManager.StoredSession session, List<SectionRecords> records, int blocks)
+    {
+        if (!running) return; // Cancelled
+
+        world = Bukkit.getWorld(session.getWorldUID());
+        if (world == null) world = Bukkit.getWorld(session.getWorldName());
+
+        if (world == null)
+        {
+            fail(new IllegalStateException("The world " + session.getWorldName() + " is not loaded"));
+            return;
+        }
+
+        sections = records;
+        totalBlocks = blocks;
+
+        // The records are undone from the last one.
+        currentSection = sections.size() - 1;
+        currentRecord = currentSection >= 0 ? sections.get(currentSection).records.length - 1 : -1;
+
+        restorer = UHCReloaded.get().getWorkScheduler().submit("rollback of " + id, WorkPriority.LOW, new WorkJob()
+        {
+            @Override
+            public Status step()
+            {
+                if (currentSection >= 0)
+                    restoreNextBlocks();
+
+                return currentSection >= 0 ? Status.CONTINUE : Status.DONE;
+            }
+
+            @Override
+            public void tickEnded(long tickDuration, long timeSpent, int units)
+            {
+                if (currentSection >= 0 && ++ticks % PROGRESS_INTERVAL == 0)
+                    UHUtils.callIfDefined(onProgress, RollbackTask.this);
+            }
+
+            @Override
+            public void done()
+            {
+                stop();
+
+                if (!file.delete())
+                    PluginLogger.warning("Unable to delete the edit session {0} after its rollback", file.getAbsolutePath());
+
+                UHUtils.callIfDefined(onSuccess, RollbackTask.this);
+            }
+
+            @Override
+            public void failed(Throwable e)
+            {
+                fail(e instanceof Exception ? (Exception) e : new RuntimeException(e));
+            }
+
+            @Override
+            public double getProgress()
+            {
+                return totalBlocks > 0 ? (double) blocksRestored / totalBlocks : 1;
+            }
+        });
+    }
+
+    /**
+     * Restores the next blocks of the current section, moving to the previous section once this
+     * one is fully restored.
+     */
+    @SuppressWarnings ("deprecation")
+    private void restoreNextBlocks()
+    {
+        final SectionRecords section = sections.get(currentSection);
+
+        final int baseX = section.x << 4;
+        final int baseY = section.y << 4;
+        final int baseZ = section.z << 4;
+
+        for (int restored = 0; currentRecord >= 0 && restored < BLOCKS_PER_UNIT; currentRecord--, restored++)
+        {
+            final int record = section.records[currentRecord];
+            final int index = record >>> 16;
+
+            world.getBlockAt(baseX + (index & 0xF), baseY + (index >> 8), baseZ + ((index >> 4) & 0xF))
+                    .setTypeIdAndData((record >> 4) & 0xFFF, (byte) (record & 0xF), false);
+
+            blocksRestored++;
+        }
+
+        // The blocks are restored without events.
+        final SurfaceCache surfaceCache = UHCReloaded.get().getSurfaceCache();
+        if (surfaceCache != null) surfaceCache.invalidate(world, baseX, baseZ, baseX + 15, baseZ + 15);
+
+        if (currentRecord >= 0) return;
+
+        sections.set(currentSection, null);
+
+        currentSection--;
+        currentRecord = currentSection >= 0 ? sections.get(currentSection).records.length - 1 : -1;
+    }
+
+    /**
+     * Stops the rollback. The blocks already restored are kept, and the session too, so the
+     * rollback can be restarted later.
+     */
+    public void cancel()
+    {
+        if (!running) return;
+        stop();
+    }
+
+    /**
+     * @return {@code true} if the rollback is running.
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * @return The identifier of the session rolled back.
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return The number of blocks restored so far.
+     */
+    public int getBlocksRestored()
+    {
+        return blocksRestored;
+    }
+
+    /**
+     * @return The number of blocks to restore (0 while the session is read).
+     */
+    public int getTotalBlocks()
+    {
+        return totalBlocks;
+    }
+
+    /**
+     * @return The time elapsed since the beginning of the rollback, in milliseconds.
+     */
+    public long getElapsedTime()
+    {
+        return System.currentTimeMillis() - startTime;
+    }
+
+
+    private void fail(Exception e)
+    {
+        if (!running) return;
+
+        stop();
+        UHUtils.callIfDefined(onFailure, e);
+    }
+
+    private void stop()
+    {
+        running = false;
+
+        if (restorer != null)
+        {
+            restorer.cancel();
+            restorer = null;
+        }
+
+        sections = null;
+    }
+
+
+    private static final class SectionRecords
+    {
+        private final int x;
+        private final int z;
+        private final int y;
+        private int[] records;
+
+        private SectionRecords(int x, int z, int y)
+        {
+            this.x = x;
+            this.z = z;
+            this.y = y;
+        }
+    }
+}
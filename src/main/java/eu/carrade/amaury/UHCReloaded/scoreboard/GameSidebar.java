@@ -35,6 +35,9 @@ import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
 import eu.carrade.amaury.UHCReloaded.borders.MapShape;
 import eu.carrade.amaury.UHCReloaded.borders.worldborders.WorldBorder;
+import eu.carrade.amaury.UHCReloaded.game.GameState;
+import eu.carrade.amaury.UHCReloaded.game.Leaderboard;
+import eu.carrade.amaury.UHCReloaded.game.PlayerPositions;
 import eu.carrade.amaury.UHCReloaded.game.UHGameManager;
 import eu.carrade.amaury.UHCReloaded.misc.Freezer;
 import eu.carrade.amaury.UHCReloaded.teams.UHTeam;
@@ -49,8 +52,12 @@ import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class GameSidebar extends Sidebar
@@ -64,6 +71,8 @@ public class GameSidebar extends Sidebar
     private final boolean TEAMS_IN_SIDEBAR;
     private final boolean BORDER_IN_SIDEBAR;
     private final boolean KILLS_IN_SIDEBAR;
+    private final boolean LEADERBOARD_IN_SIDEBAR;
+    private final int     LEADERBOARD_SIZE;
     private final boolean TIMER_IN_SIDEBAR;
     private final boolean FREEZE_STATUS_IN_SIDEBAR;
 
@@ -84,9 +93,39 @@ public class GameSidebar extends Sidebar
     private final String HEART = "\u2764";
 
     private final String sidebarTitle;
-    private final List<String> sidebarTop = new ArrayList<>();
-    private final List<String> sidebarBorder = new ArrayList<>();
-    private final List<String> sidebarTimers = new ArrayList<>();
+
+    private final SidebarSection sidebarTop = new SidebarSection();
+    private final SidebarSection sidebarBorder = new SidebarSection();
+    private final SidebarSection sidebarLeaderboard = new SidebarSection();
+    private final SidebarSection sidebarTimers = new SidebarSection();
+
+    private long renderedStateVersion = -1L;
+    private int renderedOnlinePlayers = -1;
+    private int renderedBorderDiameter = -1;
+    private MapShape renderedBorderShape = null;
+    private long renderedLeaderboardVersion = -1L;
+
+    /**
+     * The content last sent to each player, with what it was built from.
+     */
+    private final Map<UUID, ViewerContent> viewers = new ConcurrentHashMap<>();
+
+    /**
+     * The members of each team, rendered once per team and shared by its players.
+     */
+    private final Map<UHTeam, TeamRoster> rosters = new ConcurrentHashMap<>();
+    private volatile long refresh = 0L;
+
+    /**
+     * The state of the game this sidebar is rendered with, read once per refresh so every line
+     * is consistent.
+     */
+    private volatile GameState state;
+
+    /**
+     * The positions of the players, also read once per refresh, to check if teammates met.
+     */
+    private volatile PlayerPositions positions = PlayerPositions.EMPTY;
 
 
     public GameSidebar()
@@ -100,6 +139,8 @@ public class GameSidebar extends Sidebar
         TEAMS_IN_SIDEBAR = UHConfig.SCOREBOARD.TEAMS.get();
         BORDER_IN_SIDEBAR = UHConfig.SCOREBOARD.BORDER.DISPLAYED.get();
         KILLS_IN_SIDEBAR = UHConfig.SCOREBOARD.KILLS.get();
+        LEADERBOARD_IN_SIDEBAR = UHConfig.SCOREBOARD.LEADERBOARD.DISPLAYED.get();
+        LEADERBOARD_SIZE = UHConfig.SCOREBOARD.LEADERBOARD.SIZE.get();
         TIMER_IN_SIDEBAR = UHConfig.SCOREBOARD.TIMER.get();
         FREEZE_STATUS_IN_SIDEBAR = UHConfig.SCOREBOARD.FREEZE_STATUS.get();
 
@@ -128,165 +169,102 @@ public class GameSidebar extends Sidebar
     @Override
     public void preRender()
     {
-        sidebarTop.clear();
-        sidebarBorder.clear();
-        sidebarTimers.clear();
+        final GameState state = gameManager.getState();
+        this.state = state;
+        this.positions = gameManager.getPlayerPositions();
 
-        // Top sidebar
+        // The rosters of the teams without any player online (or deleted) are forgotten.
+        final long previousRefresh = refresh++;
+        rosters.values().removeIf(roster -> roster.refresh < previousRefresh);
 
-        if (EPISODES_ENABLED && EPISODES_IN_SIDEBAR)
+        // Deaths, episodes, start of the game… all change the state, and therefore its version.
+        if (state.getVersion() != renderedStateVersion)
         {
-            /// Current episode in the sidebar
-            sidebarTop.add(I.t("{gray}Episode {white}{0}",
-                    String.valueOf(gameManager.isGameStarted() ? gameManager.getEpisode() : 0)
-            ));
+            renderedStateVersion = state.getVersion();
+
+            sidebarTop.invalidate();
+            sidebarBorder.invalidate();
+            sidebarLeaderboard.invalidate();
+            sidebarTimers.invalidate();
         }
 
-        if (!gameManager.isGameStarted())
+        // The values changing without a new state are checked directly.
+        if (!state.isStarted() && PLAYERS_IN_SIDEBAR && Bukkit.getOnlinePlayers().size() != renderedOnlinePlayers)
         {
-            if (PLAYERS_IN_SIDEBAR)
-                /// Players alive in the sidebar
-                sidebarTop.add(I.tn("{white}{0}{gray} player", "{white}{0}{gray} players", Bukkit.getOnlinePlayers().size(), Bukkit.getOnlinePlayers().size()));
+            renderedOnlinePlayers = Bukkit.getOnlinePlayers().size();
+            sidebarTop.invalidate();
         }
-        else
-        {
-            if (gameManager.isGameWithTeams() && EPISODES_ENABLED && EPISODES_IN_SIDEBAR)
-                sidebarTop.add("");
 
-            if (PLAYERS_IN_SIDEBAR)
-                /// Players alive in the sidebar
-                sidebarTop.add(I.tn("{white}{0}{gray} player", "{white}{0}{gray} players", gameManager.getAlivePlayersCount(), gameManager.getAlivePlayersCount()));
+        if (state.isStarted() && BORDER_IN_SIDEBAR)
+        {
+            final int diameter = (int) Math.ceil(border.getDiameter());
+            final MapShape shape = border.getShape();
 
-            if (gameManager.isGameWithTeams() && TEAMS_IN_SIDEBAR)
-                /// Teams alive in the sidebar
-                sidebarTop.add(I.tn("{white}{0}{gray} team", "{white}{0}{gray} teams", gameManager.getAliveTeamsCount(), gameManager.getAliveTeamsCount()));
+            if (diameter != renderedBorderDiameter || shape != renderedBorderShape)
+            {
+                renderedBorderDiameter = diameter;
+                renderedBorderShape = shape;
+                sidebarBorder.invalidate();
+            }
         }
 
-
-        // Border part of the sidebar
-
-        if (gameManager.isGameStarted())
+        if (state.isStarted() && LEADERBOARD_IN_SIDEBAR && gameManager.getKillsLeaderboard().getVersion() != renderedLeaderboardVersion)
         {
-            insertBorder(sidebarBorder);
+            renderedLeaderboardVersion = gameManager.getKillsLeaderboard().getVersion();
+            sidebarLeaderboard.invalidate();
         }
 
+        // The timers tick every second: they are always rendered, but their version only changes
+        // if the displayed time changed (i.e. not while they are paused or stopped).
+        sidebarTimers.invalidate();
 
-        // Timers part of the sidebar
-
-        insertTimers(sidebarTimers);
-
-        if (TIMER_IN_SIDEBAR)
-        {
-            if (!gameManager.isGameStarted())
-                sidebarTimers.add(FROOZEN_NULL_TIMER_TEXT);
-            else
-            {
-                final UHTimer mainTimer = UHCReloaded.get().getTimerManager().getMainTimer();
-                if (mainTimer != null) sidebarTimers.add(mainTimer.toString());
-            }
-        }
+        sidebarTop.render(this::renderTop);
+        sidebarBorder.render(lines -> { if (state.isStarted()) insertBorder(lines); });
+        sidebarLeaderboard.render(this::renderLeaderboard);
+        sidebarTimers.render(this::renderTimers);
     }
 
     @Override
     public List<String> getContent(Player player)
     {
+        final GameState state = this.state != null ? this.state : gameManager.getState();
+        final ViewerContent viewer = viewers.computeIfAbsent(player.getUniqueId(), id -> new ViewerContent());
 
-        List<String> sidebar = new ArrayList<>(sidebarTop);
-        sidebar.add("");
-
-        if (OWN_TEAM_IN_SIDEBAR && gameManager.isGameStarted() && gameManager.isGameWithTeams())
-        {
-            UHTeam team = UHCReloaded.get().getTeamManager().getTeamForPlayer(player);
-
-            if (team != null)
-            {
-                sidebar.add(
-                          (OWN_TEAM_TITLE_COLOR.isEmpty() ? team.getColorOrWhite().toChatColor() : OWN_TEAM_TITLE_COLOR)
-                          /// Title of the team section in the sidebar
-                        + (OWN_TEAM_TITLE_IS_NAME ? ChatColor.BOLD + team.getName() : I.t("{bold}Your team"))
-                );
+        final long sharedVersion = sidebarTop.getVersion() + sidebarBorder.getVersion() + sidebarLeaderboard.getVersion() + sidebarTimers.getVersion();
 
-                Location playerLocation = player.getLocation();
+        boolean changed = viewer.content == null || viewer.sharedVersion != sharedVersion;
+        viewer.sharedVersion = sharedVersion;
 
-                for (UUID teamMember : team.getPlayersUUID())
-                {
-                    SidebarPlayerCache cache = UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(teamMember);
-
-                    // If enabled, we check if the player was already met or is close to this player.
-                    // Only if the damages are on (= 30 seconds after the game start) to avoid false close while
-                    // teleporting.
-                    if(OWN_TEAM_DISPLAY_MET_PLAYERS_ONLY)
-                    {
-                        if(!(teamMember.equals(player.getUniqueId()) || cache.getTeammatesDisplayed().contains(teamMember)))
-                        {
-                            if (gameManager.isGameStarted() && gameManager.isTakingDamage())
-                            {
-                                if (gameManager.isPlayerDead(teamMember))
-                                    continue; // dead (spectators don't have to be displayed in the sidebar).
-
-                                Player teammate = Sidebar.getPlayerAsync(teamMember);
-                                if (teammate == null)
-                                    continue; // offline
-
-
-                                Location teammateLocation = teammate.getLocation();
-
-                                // Check if the players are close
-                                if (teammateLocation.getWorld().equals(playerLocation.getWorld()))
-                                {
-                                    final double distanceSquared = teammateLocation.distanceSquared(playerLocation);
-                                    if (distanceSquared <= OWN_TEAM_DISPLAY_MET_PLAYERS_MIN_DISTANCE_SQUARED)
-                                        cache.getTeammatesDisplayed().add(teamMember);
-                                    else
-                                        continue; // Too far, skipped
-                                }
-                                else
-                                {
-                                    continue; // Too far, skipped
-                                }
-                            }
-                            else
-                            {
-                                continue;
-                            }
-                        }
-                    }
-
-                    final String strike = OWN_TEAM_STRIKE_DEAD_PLAYERS && !cache.isAlive() ? ChatColor.STRIKETHROUGH.toString() : "";
-                    final ChatColor aliveColor = cache.isAlive() ? ChatColor.WHITE : ChatColor.GRAY;
-
-                    final String heart = OWN_TEAM_DISPLAY_HEARTS ? cache.getHealthColor() + strike + HEART + " " : "";
-                    final String name = (OWN_TEAM_COLOR_WHOLE_NAME ? cache.getHealthColor() : aliveColor)
-                            + strike
-                            + (OWN_TEAM_DISPLAY_LOGIN_STATE_ITALIC && !cache.isOnline() ? ChatColor.ITALIC : "")
-                            + cache.getPlayerName()
-                            + (!cache.isOnline() ? ChatColor.RESET + "" + (OWN_TEAM_COLOR_WHOLE_NAME ? cache.getHealthColor() : aliveColor) + " " + OWN_TEAM_DISPLAY_LOGIN_STATE_SUFFIX : "");
-
-                    sidebar.add(heart + name);
-                }
+        if (updateOwnTeam(viewer, player, state)) changed = true;
+        if (updateKills(viewer, player, state)) changed = true;
 
-                sidebar.add("");
-            }
+        final boolean frozen = FREEZE_STATUS_IN_SIDEBAR && isFrozen(player);
+        if (frozen != viewer.frozen)
+        {
+            viewer.frozen = frozen;
+            changed = true;
         }
 
-        sidebar.addAll(sidebarBorder);
+        // Nothing changed for this player: the same lines are sent again.
+        if (!changed) return viewer.content;
 
-        if (KILLS_IN_SIDEBAR && gameManager.isGameStarted())
-        {
-            SidebarPlayerCache cache = UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(player.getUniqueId());
-
-            /// Kills count in the sidebar
-            sidebar.add(I.tn("{white}{0}{gray} player killed", "{white}{0}{gray} players killed", cache.getPlayersKilled().size(), cache.getPlayersKilled().size()));
-            sidebar.add("");
-        }
+        final List<String> sidebar = new ArrayList<>(sidebarTop.getLines());
+        sidebar.add("");
 
-        sidebar.addAll(sidebarTimers);
+        sidebar.addAll(viewer.ownTeam);
+        sidebar.addAll(sidebarBorder.getLines());
+        sidebar.addAll(viewer.kills);
+        sidebar.addAll(sidebarLeaderboard.getLines());
+        sidebar.addAll(sidebarTimers.getLines());
 
-        if (FREEZE_STATUS_IN_SIDEBAR)
+        if (frozen)
         {
-            insertFreezeStatus(sidebar, player);
+            sidebar.add("");
+            /// Notice displayed at the bottom of the sidebar if the game is paused (/uh freeze all).
+            sidebar.add(I.t("{darkaqua}Game frozen"));
         }
 
+        viewer.content = sidebar;
         return sidebar;
     }
 
@@ -297,6 +275,44 @@ public class GameSidebar extends Sidebar
     }
 
 
+    /**
+     * Renders the top of the sidebar: episode, players and teams alive.
+     *
+     * @param sidebar The list representing the section's content.
+     */
+    private void renderTop(List<String> sidebar)
+    {
+        final GameState state = this.state;
+
+        if (EPISODES_ENABLED && EPISODES_IN_SIDEBAR)
+        {
+            /// Current episode in the sidebar
+            sidebar.add(I.t("{gray}Episode {white}{0}",
+                    String.valueOf(state.isStarted() ? state.getEpisode() : 0)
+            ));
+        }
+
+        if (!state.isStarted())
+        {
+            if (PLAYERS_IN_SIDEBAR)
+                /// Players alive in the sidebar
+                sidebar.add(I.tn("{white}{0}{gray} player", "{white}{0}{gray} players", renderedOnlinePlayers, renderedOnlinePlayers));
+        }
+        else
+        {
+            if (state.isWithTeams() && EPISODES_ENABLED && EPISODES_IN_SIDEBAR)
+                sidebar.add("");
+
+            if (PLAYERS_IN_SIDEBAR)
+                /// Players alive in the sidebar
+                sidebar.add(I.tn("{white}{0}{gray} player", "{white}{0}{gray} players", state.getAlivePlayersCount(), state.getAlivePlayersCount()));
+
+            if (state.isWithTeams() && TEAMS_IN_SIDEBAR)
+                /// Teams alive in the sidebar
+                sidebar.add(I.tn("{white}{0}{gray} team", "{white}{0}{gray} teams", state.getAliveTeamsCount(), state.getAliveTeamsCount()));
+        }
+    }
+
     /**
      * Inserts the border status in the given list, to be displayed in the sidebar.
      *
@@ -350,35 +366,284 @@ public class GameSidebar extends Sidebar
     }
 
     /**
-     * Inserts the timers in the given list, to be displayed in the sidebar, at the bottom of the
-     * list.
+     * Renders the players who killed the most players.
      *
-     * @param sidebar The list representing the sidebar's content.
+     * @param sidebar The list representing the section's content.
+     */
+    private void renderLeaderboard(List<String> sidebar)
+    {
+        if (!LEADERBOARD_IN_SIDEBAR || !state.isStarted()) return;
+
+        final List<Leaderboard.Entry> top = gameManager.getKillsLeaderboard().getTop(LEADERBOARD_SIZE);
+        if (top.isEmpty()) return;
+
+        /// Title of the kills leaderboard section in the sidebar
+        sidebar.add(I.t("{gold}{bold}Top killers"));
+
+        for (final Leaderboard.Entry entry : top)
+        {
+            final String name = UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(entry.getPlayer()).getPlayerName();
+
+            /// Player in the kills leaderboard in the sidebar. {0} = player name, {1} = kills count.
+            sidebar.add(I.t("{white}{0} {gray}{1}", name, (int) entry.getScore()));
+        }
+
+        sidebar.add("");
+    }
+
+    /**
+     * Renders the timers, to be displayed at the bottom of the sidebar.
+     *
+     * @param sidebar The list representing the section's content.
      */
-    private void insertTimers(List<String> sidebar)
+    private void renderTimers(List<String> sidebar)
     {
         UHCReloaded.get().getTimerManager().getTimers().stream().filter(UHTimer::isDisplayed).forEach(timer -> {
             sidebar.add(timer.getDisplayName());
             sidebar.add(timer.toString());
             sidebar.add("");
         });
+
+        if (TIMER_IN_SIDEBAR)
+        {
+            if (!state.isStarted())
+                sidebar.add(FROOZEN_NULL_TIMER_TEXT);
+            else
+            {
+                final UHTimer mainTimer = UHCReloaded.get().getTimerManager().getMainTimer();
+                if (mainTimer != null) sidebar.add(mainTimer.toString());
+            }
+        }
     }
 
     /**
-     * Inserts the « frozen » text at the bottom of the list, if active globally or for the given
-     * player.
+     * Updates the team section of the given player, if something changed in the team or if a
+     * teammate may have been met.
      *
-     * @param sidebar The list representing the sidebar's content.
+     * @return {@code true} if the lines of the team section changed.
+     */
+    private boolean updateOwnTeam(ViewerContent viewer, Player player, GameState state)
+    {
+        final UHTeam team = OWN_TEAM_IN_SIDEBAR && state.isStarted() && state.isWithTeams()
+                ? UHCReloaded.get().getTeamManager().getTeamForPlayer(player)
+                : null;
+
+        if (team == null)
+        {
+            viewer.roster = null;
+
+            if (viewer.ownTeam.isEmpty()) return false;
+
+            viewer.ownTeam = Collections.emptyList();
+            return true;
+        }
+
+        final TeamRoster roster = getRoster(team, state);
+
+        if (roster == viewer.roster && !roster.meetingsPossible) return false;
+        viewer.roster = roster;
+
+        // The roster is shared by the whole team; only the teammates not met yet are filtered
+        // for this player, from the sampled positions.
+        final int viewerIndex = roster.indexOf(player.getUniqueId());
+        final PlayerPositions positions = this.positions;
+        final int viewerPosition = roster.meetingsPossible ? positions.indexOf(player.getUniqueId()) : -1;
+        final List<String> sidebar = new ArrayList<>(roster.lines.length + 2);
+
+        sidebar.add(roster.title);
+
+        for (int i = 0; i < roster.lines.length; i++)
+        {
+            if (!roster.displayed[i] && i != viewerIndex)
+            {
+                final int teammatePosition = viewerPosition >= 0 ? positions.indexOf(roster.members[i]) : -1;
+
+                if (teammatePosition < 0 || positions.getDistanceSquared(viewerPosition, teammatePosition) > OWN_TEAM_DISPLAY_MET_PLAYERS_MIN_DISTANCE_SQUARED)
+                    continue;
+
+                UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(roster.members[i]).addTeammateDisplayed(roster.members[i]);
+            }
+
+            sidebar.add(roster.lines[i]);
+        }
+
+        sidebar.add("");
+
+        if (sidebar.equals(viewer.ownTeam)) return false;
+
+        viewer.ownTeam = sidebar;
+        return true;
+    }
+
+    /**
+     * Returns the roster of the given team, rendered at most once per refresh, and only if
+     * something changed in the team.
      */
-    private void insertFreezeStatus(List<String> sidebar, Player player)
+    private TeamRoster getRoster(UHTeam team, GameState state)
+    {
+        final TeamRoster previous = rosters.get(team);
+        if (previous != null && previous.refresh == refresh) return previous;
+
+        // Any change in the team or in one of its members changes this stamp.
+        long teamVersion = team.getVersion();
+        for (UUID teamMember : team.getPlayersUUID())
+            teamVersion += UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(teamMember).getVersion();
+
+        if (previous != null && previous.teamVersion == teamVersion && previous.stateVersion == state.getVersion())
+        {
+            previous.refresh = refresh;
+            return previous;
+        }
+
+        final TeamRoster roster = new TeamRoster(refresh, teamVersion, state.getVersion(), team.getSize());
+
+        roster.title = (OWN_TEAM_TITLE_COLOR.isEmpty() ? team.getColorOrWhite().toChatColor() : OWN_TEAM_TITLE_COLOR)
+                /// Title of the team section in the sidebar
+                + (OWN_TEAM_TITLE_IS_NAME ? ChatColor.BOLD + team.getName() : I.t("{bold}Your team"));
+
+        // The teammates are only checked for meetings if the damages are on (= 30 seconds after
+        // the game start) to avoid false close while teleporting.
+        final boolean checkMeetings = OWN_TEAM_DISPLAY_MET_PLAYERS_ONLY && state.isStarted() && state.isTakingDamage();
+
+        int i = 0;
+        for (UUID teamMember : team.getPlayersUUID())
+        {
+            if (i >= roster.members.length) break; // Joined meanwhile
+
+            final SidebarPlayerCache cache = UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(teamMember);
+
+            roster.members[i] = teamMember;
+            roster.displayed[i] = !OWN_TEAM_DISPLAY_MET_PLAYERS_ONLY || cache.getTeammatesDisplayed().contains(teamMember);
+
+            final String strike = OWN_TEAM_STRIKE_DEAD_PLAYERS && !cache.isAlive() ? ChatColor.STRIKETHROUGH.toString() : "";
+            final ChatColor aliveColor = cache.isAlive() ? ChatColor.WHITE : ChatColor.GRAY;
+
+            final String heart = OWN_TEAM_DISPLAY_HEARTS ? cache.getHealthColor() + strike + HEART + " " : "";
+            final String name = (OWN_TEAM_COLOR_WHOLE_NAME ? cache.getHealthColor() : aliveColor)
+                    + strike
+                    + (OWN_TEAM_DISPLAY_LOGIN_STATE_ITALIC && !cache.isOnline() ? ChatColor.ITALIC : "")
+                    + cache.getPlayerName()
+                    + (!cache.isOnline() ? ChatColor.RESET + "" + (OWN_TEAM_COLOR_WHOLE_NAME ? cache.getHealthColor() : aliveColor) + " " + OWN_TEAM_DISPLAY_LOGIN_STATE_SUFFIX : "");
+
+            roster.lines[i] = heart + name;
+
+            // Dead players cannot be met: spectators don't have to be displayed in the sidebar.
+            if (checkMeetings && !roster.displayed[i] && !state.isPlayerDead(teamMember))
+                roster.meetingsPossible = true;
+
+            i++;
+        }
+
+        roster.truncate(i);
+        rosters.put(team, roster);
+
+        return roster;
+    }
+
+    /**
+     * Renders the kills count of the given player again, if it changed.
+     *
+     * @return {@code true} if the lines of the kills section changed.
+     */
+    private boolean updateKills(ViewerContent viewer, Player player, GameState state)
+    {
+        final int kills = KILLS_IN_SIDEBAR && state.isStarted()
+                ? UHCReloaded.get().getGameManager().getKillLedger().getKillsCount(player.getUniqueId())
+                : -1;
+
+        if (kills == viewer.killsCount) return false;
+        viewer.killsCount = kills;
+
+        if (kills < 0)
+        {
+            viewer.kills = Collections.emptyList();
+        }
+        else
+        {
+            /// Kills count in the sidebar
+            viewer.kills = Arrays.asList(I.tn("{white}{0}{gray} player killed", "{white}{0}{gray} players killed", kills, kills), "");
+        }
+
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the « frozen » text has to be displayed to the given player, i.e. if
+     * the game is frozen globally or for this player.
+     */
+    private boolean isFrozen(Player player)
     {
         final Freezer freezer = UHCReloaded.get().getFreezer();
+        return (freezer.getGlobalFreezeState() && !freezer.isHiddenFreeze()) || freezer.isPlayerFrozen(player);
+    }
 
-        if ((freezer.getGlobalFreezeState() && !freezer.isHiddenFreeze()) || freezer.isPlayerFrozen(player))
+
+    /**
+     * The content of the sidebar of a player, with the versions of what it was built from.
+     */
+    private static final class ViewerContent
+    {
+        private List<String> content = null;
+        private long sharedVersion = -1L;
+
+        private TeamRoster roster = null;
+        private List<String> ownTeam = Collections.emptyList();
+
+        private int killsCount = -1;
+        private List<String> kills = Collections.emptyList();
+
+        private boolean frozen = false;
+    }
+
+    /**
+     * The members of a team as displayed in the sidebar, rendered once for the whole team.
+     */
+    private static final class TeamRoster
+    {
+        private long refresh;
+        private final long teamVersion;
+        private final long stateVersion;
+
+        private String title;
+        private UUID[] members;
+        private String[] lines;
+        private boolean[] displayed;
+
+        /**
+         * {@code true} if at least one teammate is alive and not met yet, so it may be met by one
+         * of its teammates.
+         */
+        private boolean meetingsPossible = false;
+
+        private TeamRoster(long refresh, long teamVersion, long stateVersion, int size)
         {
-            sidebar.add("");
-            /// Notice displayed at the bottom of the sidebar if the game is paused (/uh freeze all).
-            sidebar.add(I.t("{darkaqua}Game frozen"));
+            this.refresh = refresh;
+            this.teamVersion = teamVersion;
+            this.stateVersion = stateVersion;
+
+            members = new UUID[size];
+            lines = new String[size];
+            displayed = new boolean[size];
+        }
+
+        /**
+         * Shrinks the arrays, if some members left while the roster was built.
+         */
+        private void truncate(int size)
+        {
+            if (size == members.length) return;
+
+            members = Arrays.copyOf(members, size);
+            lines = Arrays.copyOf(lines, size);
+            displayed = Arrays.copyOf(displayed, size);
+        }
+
+        private int indexOf(UUID member)
+        {
+            for (int i = 0; i < members.length; i++)
+                if (members[i].equals(member)) return i;
+
+            return -1;
         }
     }
 }
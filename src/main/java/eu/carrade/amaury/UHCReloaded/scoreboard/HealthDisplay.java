@@ -0,0 +1,159 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.scoreboard;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import fr.zcraft.zlib.tools.PluginLogger;
+import org.bukkit.entity.Player;
+import org.bukkit.scoreboard.Objective;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+
+/**
+ * Displays the health of the players in the players list, writing the scores of a dummy objective
+ * directly.
+ *
+ * <p>The health changes are coalesced by the {@link ScoreboardListener}, which updates the players
+ * once per tick; a score is only sent if the displayed (integer) value changed.</p>
+ *
+ * <p>The scores are sent through ProtocolLib if available, without being stored in the server
+ * scoreboard; else, through the Bukkit scoreboard API.</p>
+ */
+public class HealthDisplay
+{
+    private final ScoreWriter writer;
+
+    private final Map<UUID, Integer> displayed = new HashMap<>();
+
+
+    /**
+     * @param objective The objective displayed in the players list. It must be a dummy objective,
+     *                  as the scores are written by this display.
+     */
+    public HealthDisplay(Objective objective)
+    {
+        ScoreWriter packetsWriter = null;
+
+        if (UHCReloaded.get().getProtocolLibIntegrationWrapper().isProtocolLibIntegrationEnabled())
+        {
+            try
+            {
+                packetsWriter = new ProtocolLibScoreWriter(objective);
+            }
+            catch (NoClassDefFoundError e)
+            {
+                PluginLogger.warning("Unable to send the health scores through ProtocolLib, falling back to the scoreboard API.");
+            }
+        }
+
+        writer = packetsWriter != null ? packetsWriter : new ObjectiveScoreWriter(objective);
+    }
+
+    /**
+     * Updates the health displayed for the given player, if the displayed value changed.
+     *
+     * @param player The player.
+     */
+    public void update(Player player)
+    {
+        final int health = (int) Math.ceil(player.getHealth());
+        final Integer previous = displayed.put(player.getUniqueId(), health);
+
+        if (previous == null || previous != health)
+            writer.write(player.getName(), health);
+    }
+
+    /**
+     * Sends the health of all the players to the given player, who just received the scoreboard.
+     * Its own health is sent again to everyone too, as it may have been offline when its health
+     * changed.
+     *
+     * @param receiver The player.
+     */
+    public void sendAll(Player receiver)
+    {
+        displayed.remove(receiver.getUniqueId());
+        update(receiver);
+
+        writer.sendAll(receiver, displayed);
+    }
+
+
+    /**
+     * Writes the scores of the objective.
+     */
+    interface ScoreWriter
+    {
+        /**
+         * Writes a score, for all the players using the scoreboard.
+         *
+         * @param entry The score entry (the name of the player).
+         * @param score The score.
+         */
+        void write(String entry, int score);
+
+        /**
+         * Sends the scores to a player who just received the scoreboard, if they are not stored
+         * in the scoreboard.
+         *
+         * @param receiver The player.
+         * @param scores   The scores, by player.
+         */
+        void sendAll(Player receiver, Map<UUID, Integer> scores);
+    }
+
+    /**
+     * Writes the scores through the Bukkit scoreboard API. The scores are stored in the scoreboard,
+     * so they are sent by the server to the players receiving it.
+     */
+    private static final class ObjectiveScoreWriter implements ScoreWriter
+    {
+        private final Objective objective;
+
+        private ObjectiveScoreWriter(Objective objective)
+        {
+            this.objective = objective;
+        }
+
+        @Override
+        public void write(String entry, int score)
+        {
+            objective.getScore(entry).setScore(score);
+        }
+
+        @Override
+        public void sendAll(Player receiver, Map<UUID, Integer> scores) {}
+    }
+}
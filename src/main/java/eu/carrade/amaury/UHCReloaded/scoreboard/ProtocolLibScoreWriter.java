@@ -0,0 +1,109 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.scoreboard;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import fr.zcraft.zlib.tools.PluginLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.scoreboard.Objective;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.UUID;
+
+
+/**
+ * Writes the health scores with score packets sent directly to the players using the scoreboard,
+ * without going through the server scoreboard.
+ *
+ * <p>Only loaded if ProtocolLib is available.</p>
+ */
+class ProtocolLibScoreWriter implements HealthDisplay.ScoreWriter
+{
+    private final ProtocolManager pm = ProtocolLibrary.getProtocolManager();
+    private final Objective objective;
+
+
+    ProtocolLibScoreWriter(Objective objective)
+    {
+        this.objective = objective;
+    }
+
+    @Override
+    public void write(String entry, int score)
+    {
+        final PacketContainer packet = createPacket(entry, score);
+
+        for (Player receiver : Bukkit.getOnlinePlayers())
+            if (receiver.getScoreboard() == objective.getScoreboard())
+                send(receiver, packet);
+    }
+
+    @Override
+    public void sendAll(Player receiver, Map<UUID, Integer> scores)
+    {
+        scores.forEach((id, score) ->
+        {
+            final OfflinePlayer player = Bukkit.getOfflinePlayer(id);
+            if (player.isOnline()) send(receiver, createPacket(player.getName(), score));
+        });
+    }
+
+    private PacketContainer createPacket(String entry, int score)
+    {
+        final PacketContainer packet = pm.createPacket(PacketType.Play.Server.SCOREBOARD_SCORE);
+
+        packet.getStrings().write(0, entry).write(1, objective.getName());
+        packet.getIntegers().write(0, score);
+        packet.getScoreboardActions().write(0, EnumWrappers.ScoreboardAction.CHANGE);
+
+        return packet;
+    }
+
+    private void send(Player receiver, PacketContainer packet)
+    {
+        try
+        {
+            pm.sendServerPacket(receiver, packet);
+        }
+        catch (InvocationTargetException e)
+        {
+            PluginLogger.error("Unable to send a health score to {0}", e, receiver.getName());
+        }
+    }
+}
@@ -32,9 +32,12 @@
 package eu.carrade.amaury.UHCReloaded.scoreboard;
 
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.events.UHGameEndsEvent;
 import eu.carrade.amaury.UHCReloaded.events.UHPlayerDeathEvent;
 import eu.carrade.amaury.UHCReloaded.events.UHPlayerResurrectedEvent;
+import fr.zcraft.zlib.tools.PluginLogger;
 import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -44,10 +47,32 @@ import org.bukkit.event.entity.EntityRegainHealthEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerKickEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
 
+
+/**
+ * Keeps the sidebar cache and the health scores up-to-date.
+ *
+ * <p>The players whose health changed are collected in a set during the tick, and updated once,
+ * at the beginning of the next tick (so the updated health is used), by a single task.</p>
+ */
 public class ScoreboardListener implements Listener
 {
+    private final Set<UUID> healthChanged = new LinkedHashSet<>();
+
+    private long healthEvents = 0L;
+    private long healthUpdates = 0L;
+
+
+    public ScoreboardListener()
+    {
+        RunTask.timer(this::updateHealth, 1L, 1L);
+    }
+
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent ev)
     {
@@ -55,6 +80,14 @@ public class ScoreboardListener implements Listener
 
         cache.updateName(ev.getPlayer().getName());
         cache.updateOnlineStatus(true);
+
+        onPlayerHealthChange(ev.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent ev)
+    {
+        onPlayerHealthChange(ev.getPlayer());
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
@@ -87,38 +120,72 @@ public class ScoreboardListener implements Listener
     public void onPlayerDeath(UHPlayerDeathEvent ev)
     {
         onPlayerHealthChange(ev.getPlayer());
-
-        if (ev.getPlayerDeathEvent().getEntity().getKiller() != null)
-        {
-            UHCReloaded.get().getScoreboardManager()
-                    .getSidebarPlayerCache(ev.getPlayerDeathEvent().getEntity().getKiller().getUniqueId())
-                    .getPlayersKilled().add(ev.getPlayer().getUniqueId());
-        }
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerResurrect(UHPlayerResurrectedEvent ev)
     {
         onPlayerHealthChange(ev.getPlayer());
+    }
 
-        for (SidebarPlayerCache cache : UHCReloaded.get().getScoreboardManager().getAllSidebarPlayerCache().values())
+    private void onPlayerQuit(Player player)
+    {
+        UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(player.getUniqueId()).updateOnlineStatus(false);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onGameEnds(UHGameEndsEvent ev)
+    {
+        PluginLogger.info("Health updates: {0} changes coalesced into {1} updates", healthEvents, healthUpdates);
+    }
+
+    /**
+     * Schedules an update of the health of the given player (sidebar and players list), at the
+     * beginning of the next tick. Multiple changes during the same tick are only updated once.
+     *
+     * @param player The player.
+     */
+    void onPlayerHealthChange(final Player player)
+    {
+        healthEvents++;
+        healthChanged.add(player.getUniqueId());
+    }
+
+    private void updateHealth()
+    {
+        if (healthChanged.isEmpty()) return;
+
+        final ScoreboardManager scoreboardManager = UHCReloaded.get().getScoreboardManager();
+
+        for (UUID id : healthChanged)
         {
-            if (cache.getPlayersKilled().remove(ev.getPlayer().getUniqueId()))
-                break;
+            final Player player = Bukkit.getPlayer(id);
+            if (player == null) continue;
+
+            scoreboardManager.getSidebarPlayerCache(id).updateHealth(UHCReloaded.get().getGameManager().isPlayerDead(id) ? 0d : player.getHealth());
+            scoreboardManager.writeHealthScore(player);
+
+            healthUpdates++;
         }
+
+        healthChanged.clear();
     }
 
-    private void onPlayerQuit(Player player)
+    /**
+     * @return The number of health changes received (damages, heals, deaths…) since the start of
+     * the server.
+     */
+    public long getHealthEvents()
     {
-        UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(player.getUniqueId()).updateOnlineStatus(false);
+        return healthEvents;
     }
 
-    private void onPlayerHealthChange(final Player player)
+    /**
+     * @return The number of health updates done since the start of the server; lower than
+     * {@link #getHealthEvents()}, as the changes of a player during a tick are only updated once.
+     */
+    public long getHealthUpdates()
     {
-        // One tick later to use the updated health value.
-        RunTask.nextTick(() -> {
-            final SidebarPlayerCache cache = UHCReloaded.get().getScoreboardManager().getSidebarPlayerCache(player.getUniqueId());
-            cache.updateHealth(UHCReloaded.get().getGameManager().isPlayerDead(player.getUniqueId()) ? 0d : player.getHealth());
-        });
+        return healthUpdates;
     }
 }
@@ -34,12 +34,10 @@ package eu.carrade.amaury.UHCReloaded.scoreboard;
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.UHConfig;
 import fr.zcraft.zlib.components.scoreboard.Sidebar;
-import fr.zcraft.zlib.tools.runners.RunTask;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.scoreboard.Criterias;
 import org.bukkit.scoreboard.DisplaySlot;
 import org.bukkit.scoreboard.Objective;
 import org.bukkit.scoreboard.Scoreboard;
@@ -56,7 +54,9 @@ public class ScoreboardManager
     private Map<UUID, SidebarPlayerCache> sidebarCache = new ConcurrentHashMap<>();
 
     private final Scoreboard sb;
+    private final ScoreboardListener listener;
     private Sidebar sidebar = null;
+    private HealthDisplay healthDisplay = null;
 
 
     public ScoreboardManager(UHCReloaded p)
@@ -64,7 +64,8 @@ public class ScoreboardManager
         this.p = p;
         this.sb = Bukkit.getServer().getScoreboardManager().getNewScoreboard();
 
-        UHCReloaded.get().getServer().getPluginManager().registerEvents(new ScoreboardListener(), UHCReloaded.get());
+        listener = new ScoreboardListener();
+        UHCReloaded.get().getServer().getPluginManager().registerEvents(listener, UHCReloaded.get());
 
 
         // Initialization of the scoreboard (match info in the sidebar)
@@ -80,11 +81,12 @@ public class ScoreboardManager
         // Initialization of the scoreboard (health in players' list)
         if (UHConfig.SCOREBOARD.HEALTH.get())
         {
-            final Objective healthObjective = sb.registerNewObjective("Health", Criterias.HEALTH);
+            // A dummy objective, as the scores are written by the health display.
+            final Objective healthObjective = sb.registerNewObjective("Health", "dummy");
             healthObjective.setDisplayName("Health");
             healthObjective.setDisplaySlot(DisplaySlot.PLAYER_LIST);
 
-            // Sometimes, the health is initialized to 0. This is used to fix this.
+            healthDisplay = new HealthDisplay(healthObjective);
             updateHealthScore();
         }
         else
@@ -99,7 +101,7 @@ public class ScoreboardManager
 
 
     /**
-     * Updates the health score for all players.
+     * Updates the health score for all players, at the beginning of the next tick.
      */
     public void updateHealthScore()
     {
@@ -107,24 +109,24 @@ public class ScoreboardManager
     }
 
     /**
-     * Updates the health score for the given player.
+     * Updates the health score for the given player, at the beginning of the next tick.
      *
      * @param player The player to update.
      */
     public void updateHealthScore(final Player player)
     {
-        if (player.getHealth() != 1d) // Prevents killing the player
-        {
-            player.setHealth(player.getHealth() - 1);
-
-            RunTask.later(() ->
-            {
-                if (player.getHealth() <= 19d) // Avoids an IllegalArgumentException
-                {
-                    player.setHealth(player.getHealth() + 1);
-                }
-            }, 3L);
-        }
+        listener.onPlayerHealthChange(player);
+    }
+
+    /**
+     * Writes the health score of the given player now, if it changed.
+     *
+     * @param player The player.
+     */
+    void writeHealthScore(Player player)
+    {
+        if (healthDisplay != null)
+            healthDisplay.update(player);
     }
 
     /**
@@ -136,6 +138,9 @@ public class ScoreboardManager
     {
         p.setScoreboard(sb);
         sidebar.addRecipient(p);
+
+        if (healthDisplay != null)
+            healthDisplay.sendAll(p);
     }
 
     /**
@@ -170,6 +175,24 @@ public class ScoreboardManager
         return sidebarCache.computeIfAbsent(id, SidebarPlayerCache::new);
     }
 
+    /**
+     * @return The number of health changes received (damages, heals, deaths…) since the start of
+     * the server.
+     */
+    public long getHealthEvents()
+    {
+        return listener.getHealthEvents();
+    }
+
+    /**
+     * @return The number of health updates done since the start of the server; lower than
+     * {@link #getHealthEvents()}, as the changes of a player during a tick are only updated once.
+     */
+    public long getHealthUpdates()
+    {
+        return listener.getHealthUpdates();
+    }
+
     public Map<UUID, SidebarPlayerCache> getAllSidebarPlayerCache()
     {
         return sidebarCache;
@@ -38,6 +38,7 @@ import org.bukkit.ChatColor;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
+import java.util.Collections;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -56,9 +57,13 @@ public class SidebarPlayerCache
     private boolean isOnline;
     private boolean isAlive;
 
-    private Set<UUID> playersKilled      = new CopyOnWriteArraySet<>();
     private Set<UUID> teammatesDisplayed = new CopyOnWriteArraySet<>();
 
+    /**
+     * Increased each time something displayed in the sidebar changes for this player.
+     */
+    private volatile long version = 0L;
+
 
     public SidebarPlayerCache(UUID id)
     {
@@ -81,35 +86,51 @@ public class SidebarPlayerCache
 
     public void updateName(String name)
     {
+        if (name != null && name.equals(playerName)) return;
+
         playerName = name;
+        version++;
     }
 
     public void updateHealth(double health)
     {
+        final ChatColor color;
+
         if (health <= 0)
-            healthColor = ChatColor.GRAY;
+            color = ChatColor.GRAY;
         else if (health <= 4.1)
-            healthColor = ChatColor.DARK_RED;
+            color = ChatColor.DARK_RED;
         else if (health <= 8.1)
-            healthColor = ChatColor.RED;
+            color = ChatColor.RED;
         else if (health <= 12.1)
-            healthColor = ChatColor.YELLOW;
+            color = ChatColor.YELLOW;
         else if (health <= 16.1)
-            healthColor = ChatColor.GREEN;
+            color = ChatColor.GREEN;
         else
-            healthColor = ChatColor.DARK_GREEN;
+            color = ChatColor.DARK_GREEN;
+
+        if (color == healthColor && isAlive == (health > 0)) return;
 
+        healthColor = color;
         isAlive = (health > 0);
+        version++;
     }
 
     public void updateOnlineStatus(boolean isOnline)
     {
+        if (this.isOnline == isOnline) return;
+
         this.isOnline = isOnline;
+        version++;
     }
 
-    public void addKill(UUID id)
+    /**
+     * @return A number increased each time something displayed in the sidebar changes for this
+     * player (name, health color, online status, met teammates).
+     */
+    public long getVersion()
     {
-        playersKilled.add(id);
+        return version;
     }
 
     public UUID getPlayerId()
@@ -148,13 +169,19 @@ public class SidebarPlayerCache
         return isAlive;
     }
 
-    public Set<UUID> getTeammatesDisplayed()
+    /**
+     * Marks a teammate as met, so it is now displayed in the sidebar.
+     *
+     * @param id The teammate.
+     */
+    public void addTeammateDisplayed(UUID id)
     {
-        return teammatesDisplayed;
+        if (teammatesDisplayed.add(id))
+            version++;
     }
 
-    public Set<UUID> getPlayersKilled()
+    public Set<UUID> getTeammatesDisplayed()
     {
-        return playersKilled;
+        return Collections.unmodifiableSet(teammatesDisplayed);
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.scoreboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * A part of the sidebar shared by all the players.
+ *
+ * <p>The section is only rendered again after being {@linkplain #invalidate() invalidated}, and
+ * its version is only increased if its lines actually changed.</p>
+ */
+final class SidebarSection
+{
+    private volatile boolean invalidated = true;
+
+    private List<String> lines = Collections.emptyList();
+    private long version = 0L;
+
+
+    /**
+     * Marks this section as to be rendered again during the next refresh.
+     */
+    void invalidate()
+    {
+        invalidated = true;
+    }
+
+    /**
+     * Renders this section again, if it was invalidated.
+     *
+     * @param renderer Fills the given list with the lines of this section.
+     *
+     * @return {@code true} if the lines of this section changed.
+     */
+    boolean render(Consumer<List<String>> renderer)
+    {
+        if (!invalidated) return false;
+        invalidated = false;
+
+        final List<String> rendered = new ArrayList<>(lines.size());
+        renderer.accept(rendered);
+
+        if (rendered.equals(lines)) return false;
+
+        lines = Collections.unmodifiableList(rendered);
+        version++;
+
+        return true;
+    }
+
+    /**
+     * @return The lines of this section, as of the last rendering.
+     */
+    List<String> getLines()
+    {
+        return lines;
+    }
+
+    /**
+     * @return The version of this section, increased each time its lines change.
+     */
+    long getVersion()
+    {
+        return version;
+    }
+}
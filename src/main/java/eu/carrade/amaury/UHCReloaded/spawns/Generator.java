@@ -35,6 +35,7 @@ package eu.carrade.amaury.UHCReloaded.spawns;
 
 import eu.carrade.amaury.UHCReloaded.spawns.generators.CircularSpawnPointsGenerator;
 import eu.carrade.amaury.UHCReloaded.spawns.generators.GridSpawnPointsGenerator;
+import eu.carrade.amaury.UHCReloaded.spawns.generators.PoissonDiskSpawnPointsGenerator;
 import eu.carrade.amaury.UHCReloaded.spawns.generators.RandomSpawnPointsGenerator;
 import eu.carrade.amaury.UHCReloaded.spawns.generators.SpawnPointsGenerator;
 import fr.zcraft.zlib.tools.PluginLogger;
@@ -61,7 +62,13 @@ public enum Generator
      * Spawn points generated on concentric circles (starting from the
      * largest circle).
      */
-    CIRCULAR(CircularSpawnPointsGenerator.class);
+    CIRCULAR(CircularSpawnPointsGenerator.class),
+
+    /**
+     * Spawn points generated randomly but evenly spread on the whole
+     * region (Poisson-disk sampling).
+     */
+    POISSON(PoissonDiskSpawnPointsGenerator.class);
 
 
     private Class<? extends SpawnPointsGenerator> generatorClass;
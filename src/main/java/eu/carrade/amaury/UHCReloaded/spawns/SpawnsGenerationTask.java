@@ -0,0 +1,447 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.spawns;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.spawns.exceptions.CannotGenerateSpawnPointsException;
+import eu.carrade.amaury.UHCReloaded.spawns.generators.SpawnPointsGenerator;
+import eu.carrade.amaury.UHCReloaded.spawns.generators.SpawnSpotEvaluator;
+import eu.carrade.amaury.UHCReloaded.task.ScheduledJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkJob;
+import eu.carrade.amaury.UHCReloaded.task.WorkPriority;
+import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import fr.zcraft.zlib.tools.Callback;
+import fr.zcraft.zlib.tools.PluginLogger;
+import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+
+/**
+ * Generates spawn points outside of the main thread.
+ *
+ * <p>The generator runs on a worker thread. The chunks of the spots it will check are requested
+ * ahead to the main thread, which loads the requested chunks through the {@linkplain
+ * eu.carrade.amaury.UHCReloaded.task.WorkScheduler work scheduler}, as many per tick as its share
+ * allows, and sends back a {@link ChunkSnapshot} of them. The safety of the spots is then
+ * evaluated from the snapshots, on the worker thread.</p>
+ *
+ * <p>All the callbacks are called from the main thread.</p>
+ */
+public class SpawnsGenerationTask
+{
+    /**
+     * The number of chunk snapshots kept in memory by the worker thread.
+     */
+    private static final int SNAPSHOTS_CACHE_SIZE = 256;
+
+    /**
+     * The maximal number of chunks requested ahead by the worker thread. The oldest requests are
+     * cancelled beyond that.
+     */
+    private static final int MAX_PENDING_REQUESTS = 64;
+
+    private final SpawnPointsGenerator generator;
+    private final World world;
+    private final int spawnCount;
+    private final int regionDiameter;
+    private final int minimalDistanceBetweenTwoPoints;
+    private final double xCenter;
+    private final double zCenter;
+    private final boolean avoidWater;
+
+    private Callback<SpawnsGenerationTask> onProgress = null;
+    private Callback<Set<SpawnPoint>> onSuccess = null;
+    private Callback<Exception> onFailure = null;
+
+    private final Queue<SnapshotRequest> requests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The height of the surface of the safe spots evaluated, by column.
+     */
+    private final Map<Long, Integer> surfaces = new ConcurrentHashMap<>();
+
+    private Thread worker = null;
+    private ScheduledJob loader = null;
+    private volatile boolean running = false;
+
+    private volatile int chunksLoaded = 0;
+    private volatile int spotsEvaluated = 0;
+    private int ticks = 0;
+
+
+    SpawnsGenerationTask(SpawnPointsGenerator generator, World world, int spawnCount, int regionDiameter, int minimalDistanceBetweenTwoPoints, double xCenter, double zCenter, boolean avoidWater)
+    {
+        this.generator = generator;
+        this.world = world;
+        this.spawnCount = spawnCount;
+        this.regionDiameter = regionDiameter;
+        this.minimalDistanceBetweenTwoPoints = minimalDistanceBetweenTwoPoints;
+        this.xCenter = xCenter;
+        this.zCenter = zCenter;
+        this.avoidWater = avoidWater;
+    }
+
+    /**
+     * Registers a callback called every second while the generation runs.
+     *
+     * @param callback The callback. Argument: this task.
+     *
+     * @return Same instance for chaining.
+     */
+    public SpawnsGenerationTask whenProgresses(Callback<SpawnsGenerationTask> callback)
+    {
+        onProgress = callback;
+        return this;
+    }
+
+    /**
+     * Registers a callback called when the spawn points are generated.
+     *
+     * @param callback The callback. Argument: the generated spawn points.
+     *
+     * @return Same instance for chaining.
+     */
+    SpawnsGenerationTask whenSucceeds(Callback<Set<SpawnPoint>> callback)
+    {
+        onSuccess = callback;
+        return this;
+    }
+
+    /**
+     * Registers a callback called if the spawn points cannot be generated.
+     *
+     * @param callback The callback. Argument: the reason; a {@link CannotGenerateSpawnPointsException}
+     *                 if the points cannot fit in the region, else the error, already logged.
+     *
+     * @return Same instance for chaining.
+     */
+    public SpawnsGenerationTask whenFails(Callback<Exception> callback)
+    {
+        onFailure = callback;
+        return this;
+    }
+
+
+    /**
+     * Starts the generation.
+     */
+    void start()
+    {
+        if (running) return;
+        running = true;
+
+        // Never finishes by itself: stopped when the worker thread is done.
+        loader = UHCReloaded.get().getWorkScheduler().submit("spawn points generation", WorkPriority.NORMAL, new WorkJob()
+        {
+            @Override
+            public Status step()
+            {
+                final SnapshotRequest request = requests.poll();
+
+                // Waiting for the worker thread.
+                if (request == null) return Status.WAIT;
+
+                // Requested ahead, but no longer needed.
+                if (request.snapshot.isDone()) return Status.CONTINUE;
+
+                request.snapshot.complete(world.getChunkAt(request.x, request.z).getChunkSnapshot(true, false, false));
+                chunksLoaded++;
+
+                return Status.CONTINUE;
+            }
+
+            @Override
+            public void tickEnded(long tickDuration, long timeSpent, int units)
+            {
+                if (++ticks % 20 == 0)
+                    UHUtils.callIfDefined(onProgress, SpawnsGenerationTask.this);
+            }
+
+            @Override
+            public void failed(Throwable e)
+            {
+                finish(() -> UHUtils.callIfDefined(onFailure, e instanceof Exception ? (Exception) e : new RuntimeException(e)));
+
+                // The worker thread may be waiting for the snapshot that failed.
+                if (worker != null) worker.interrupt();
+            }
+        });
+
+        worker = new Thread(() ->
+        {
+            try
+            {
+                final Set<Location> points = generator.generate(world, spawnCount, regionDiameter, minimalDistanceBetweenTwoPoints, xCenter, zCenter, avoidWater, new SnapshotSpotEvaluator());
+                final Set<SpawnPoint> spawnPoints = new HashSet<>();
+
+                points.forEach(point -> spawnPoints.add(new SpawnPoint(point, surfaces.get(columnKey(point.getBlockX(), point.getBlockZ())))));
+
+                RunTask.nextTick(() -> finish(() -> UHUtils.callIfDefined(onSuccess, spawnPoints)));
+            }
+            catch (CannotGenerateSpawnPointsException e)
+            {
+                RunTask.nextTick(() -> finish(() -> UHUtils.callIfDefined(onFailure, e)));
+            }
+            catch (CancellationException ignored) {}
+            catch (RuntimeException e)
+            {
+                PluginLogger.error("Error while generating the spawn points", e);
+                RunTask.nextTick(() -> finish(() -> UHUtils.callIfDefined(onFailure, e)));
+            }
+        }, "UHC spawn points generation");
+
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Cancels the generation. No callback will be called.
+     */
+    public void cancel()
+    {
+        if (!running) return;
+
+        stop();
+
+        if (worker != null) worker.interrupt();
+    }
+
+    /**
+     * @return {@code true} if the generation is running.
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * @return The number of chunks loaded so far.
+     */
+    public int getChunksLoaded()
+    {
+        return chunksLoaded;
+    }
+
+    /**
+     * @return The number of spots evaluated so far.
+     */
+    public int getSpotsEvaluated()
+    {
+        return spotsEvaluated;
+    }
+
+
+    private void finish(Runnable callback)
+    {
+        if (!running) return; // Cancelled
+
+        stop();
+        callback.run();
+    }
+
+    private void stop()
+    {
+        running = false;
+
+        if (loader != null)
+        {
+            loader.cancel();
+            loader = null;
+        }
+
+        SnapshotRequest request;
+        while ((request = requests.poll()) != null)
+            request.snapshot.cancel(false);
+    }
+
+    private static long columnKey(int x, int z)
+    {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * Evaluates the spots from chunk snapshots, requested to the main thread when needed.
+     * Used from the worker thread only.
+     */
+    private class SnapshotSpotEvaluator implements SpawnSpotEvaluator
+    {
+        private final Map<Long, ChunkSnapshot> snapshots = new LinkedHashMap<Long, ChunkSnapshot>(SNAPSHOTS_CACHE_SIZE, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ChunkSnapshot> eldest)
+            {
+                return size() > SNAPSHOTS_CACHE_SIZE;
+            }
+        };
+
+        @Override
+        @SuppressWarnings ("deprecation")
+        public SpotStatus evaluate(World world, int x, int z)
+        {
+            final ChunkSnapshot snapshot = getSnapshot(x >> 4, z >> 4);
+            final int blockX = x & 0xF;
+            final int blockZ = z & 0xF;
+
+            spotsEvaluated++;
+
+            final int y = snapshot.getHighestBlockYAt(blockX, blockZ);
+
+            final Material center = getType(snapshot, blockX, y, blockZ);
+            final Material above = getType(snapshot, blockX, y + 1, blockZ);
+            final Material below = getType(snapshot, blockX, y - 1, blockZ);
+
+            if (!UHUtils.isSafeSpot(center, above, below))
+                return SpotStatus.UNSAFE;
+
+            surfaces.put(columnKey(x, z), y);
+
+            if (below == Material.WATER || below == Material.STATIONARY_WATER)
+                return SpotStatus.ABOVE_WATER;
+
+            return SpotStatus.SAFE;
+        }
+
+        /**
+         * The chunks requested ahead, not used yet.
+         */
+        private final Map<Long, SnapshotRequest> pending = new LinkedHashMap<Long, SnapshotRequest>(MAX_PENDING_REQUESTS, 0.75f, false)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SnapshotRequest> eldest)
+            {
+                if (size() <= MAX_PENDING_REQUESTS) return false;
+
+                eldest.getValue().snapshot.cancel(false);
+                return true;
+            }
+        };
+
+        @Override
+        public void prefetch(World world, int x, int z)
+        {
+            final long key = columnKey(x >> 4, z >> 4);
+
+            if (!snapshots.containsKey(key) && !pending.containsKey(key))
+                pending.put(key, request(x >> 4, z >> 4));
+        }
+
+        private ChunkSnapshot getSnapshot(int chunkX, int chunkZ)
+        {
+            final long key = columnKey(chunkX, chunkZ);
+
+            ChunkSnapshot snapshot = snapshots.get(key);
+            if (snapshot != null) return snapshot;
+
+            SnapshotRequest request = pending.remove(key);
+            if (request == null || request.snapshot.isCancelled())
+                request = request(chunkX, chunkZ);
+
+            try
+            {
+                snapshot = request.snapshot.get();
+            }
+            catch (InterruptedException e)
+            {
+                throw new CancellationException();
+            }
+            catch (ExecutionException e)
+            {
+                throw new RuntimeException(e.getCause());
+            }
+
+            snapshots.put(key, snapshot);
+            return snapshot;
+        }
+
+        private SnapshotRequest request(int chunkX, int chunkZ)
+        {
+            if (!running) throw new CancellationException();
+
+            final SnapshotRequest request = new SnapshotRequest(chunkX, chunkZ);
+            requests.add(request);
+
+            return request;
+        }
+
+        @SuppressWarnings ("deprecation")
+        private Material getType(ChunkSnapshot snapshot, int x, int y, int z)
+        {
+            if (y < 0 || y > 255) return Material.AIR;
+
+            final Material type = Material.getMaterial(snapshot.getBlockTypeId(x, y, z));
+            return type != null ? type : Material.AIR;
+        }
+    }
+
+    private static final class SnapshotRequest
+    {
+        private final int x;
+        private final int z;
+        private final CompletableFuture<ChunkSnapshot> snapshot = new CompletableFuture<>();
+
+        private SnapshotRequest(int x, int z)
+        {
+            this.x = x;
+            this.z = z;
+        }
+    }
+
+    /**
+     * A generated spawn point, with the height of its surface if known.
+     */
+    static final class SpawnPoint
+    {
+        final Location location;
+        final Integer surface;
+
+        private SpawnPoint(Location location, Integer surface)
+        {
+            this.location = location;
+            this.surface = surface;
+        }
+    }
+}
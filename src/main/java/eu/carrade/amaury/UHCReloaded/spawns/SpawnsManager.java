@@ -38,6 +38,7 @@ import eu.carrade.amaury.UHCReloaded.spawns.exceptions.CannotGenerateSpawnPoints
 import eu.carrade.amaury.UHCReloaded.spawns.exceptions.UnknownGeneratorException;
 import eu.carrade.amaury.UHCReloaded.spawns.generators.SpawnPointsGenerator;
 import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
+import fr.zcraft.zlib.tools.Callback;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.World.Environment;
@@ -56,6 +57,8 @@ public class SpawnsManager
     private UHCReloaded p;
     private LinkedList<Location> spawnPoints = new LinkedList<>();
 
+    private SpawnsGenerationTask currentGeneration = null;
+
 
     public SpawnsManager(UHCReloaded plugin)
     {
@@ -108,13 +111,29 @@ public class SpawnsManager
      * @throws IllegalArgumentException If the spawn point is out of the current border.
      */
     public void addSpawnPoint(final Location location)
+    {
+        addSpawnPoint(location, null);
+    }
+
+    /**
+     * Adds a spawn point from a location.
+     *
+     * @param location The location. Cloned.
+     * @param surface  The height of the surface at this location, if already known (to avoid a
+     *                 chunk load), or {@code null}.
+     *
+     * @throws RuntimeException         If the spawn point is in the Nether and no safe spot was
+     *                                  found.
+     * @throws IllegalArgumentException If the spawn point is out of the current border.
+     */
+    private void addSpawnPoint(final Location location, final Integer surface)
     {
         Location spawnPoint = location.clone();
 
         // Initial fall, except in the nether.
         if (!(spawnPoint.getWorld().getEnvironment() == Environment.NETHER))
         {
-            spawnPoint.setY(location.getWorld().getHighestBlockYAt(location.getBlockX(), location.getBlockZ()) + 120);
+            spawnPoint.setY((surface != null ? surface : p.getSurfaceCache().getHighestBlockYAt(location.getWorld(), location.getBlockX(), location.getBlockZ())) + 120);
         }
         else
         {
@@ -288,4 +307,70 @@ public class SpawnsManager
 
         spawnPoints.forEach(this::addSpawnPoint);
     }
+
+    /**
+     * Generates spawn points with the given generator, in the background.
+     *
+     * <p>The chunks are loaded progressively, and the spots are checked outside of the main
+     * thread. The generated spawn points are registered when the generation ends, before the
+     * success callback is called.</p>
+     *
+     * @param generator                       The generator to use.
+     * @param world                           The world where the spawn points will be generated.
+     * @param spawnCount                      The number of spawn points to generate.
+     * @param regionDiameter                  The diameter of the region where the spawn points will
+     *                                        be generated.<br> This is limited by the size of the
+     *                                        map. This will be seen as the diameter of a circular
+     *                                        or of a squared map, following the shape of the world
+     *                                        set in the configuration.
+     * @param minimalDistanceBetweenTwoPoints The minimal distance between two points.
+     * @param xCenter                         The x coordinate of the point in the center of the
+     *                                        region where the points will be generated.
+     * @param zCenter                         The z coordinate of the point in the center of the
+     *                                        region where the points will be generated.
+     * @param onSuccess                       Called when the spawn points are generated and
+     *                                        registered. Argument: their locations.
+     *
+     * @return The generation task, to register the progress and failure callbacks. They can be
+     * registered after this call, as the callbacks are always called from a later tick.
+     *
+     * @throws IllegalStateException If a generation is already running.
+     */
+    public SpawnsGenerationTask generateSpawnPointsAsync(SpawnPointsGenerator generator, World world, int spawnCount, int regionDiameter, int minimalDistanceBetweenTwoPoints, double xCenter, double zCenter, final Callback<Set<Location>> onSuccess)
+    {
+        if (isGenerating())
+            throw new IllegalStateException("A spawn points generation is already running");
+
+        currentGeneration = new SpawnsGenerationTask(generator, world, spawnCount, regionDiameter, minimalDistanceBetweenTwoPoints, xCenter, zCenter, AVOID_WATER);
+        currentGeneration.whenSucceeds(points ->
+        {
+            points.forEach(point -> addSpawnPoint(point.location, point.surface));
+            UHUtils.callIfDefined(onSuccess, points.stream().map(point -> point.location).collect(Collectors.toSet()));
+        });
+
+        currentGeneration.start();
+
+        return currentGeneration;
+    }
+
+    /**
+     * @return {@code true} if a spawn points generation is running in the background.
+     */
+    public boolean isGenerating()
+    {
+        return currentGeneration != null && currentGeneration.isRunning();
+    }
+
+    /**
+     * Cancels the spawn points generation running in the background, if any. Nothing is
+     * registered.
+     */
+    public void cancelGeneration()
+    {
+        if (currentGeneration != null)
+        {
+            currentGeneration.cancel();
+            currentGeneration = null;
+        }
+    }
 }
@@ -34,14 +34,12 @@ package eu.carrade.amaury.UHCReloaded.spawns.generators;
 
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.spawns.exceptions.CannotGenerateSpawnPointsException;
-import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
-import org.bukkit.block.BlockFace;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
@@ -62,19 +60,23 @@ public class CircularSpawnPointsGenerator implements SpawnPointsGenerator
      * @param xCenter                         The x coordinate of the point in the center of the region where the points will be generated.
      * @param zCenter                         The z coordinate of the point in the center of the region where the points will be generated.
      * @param avoidWater                      True if the generation have to avoid the water.
+     * @param evaluator                       The evaluator used to check the safety of the spots.
      *
      * @return The spawn points generated.
      *
      * @throws CannotGenerateSpawnPointsException In case of fail.
      */
     @Override
-    public Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater) throws CannotGenerateSpawnPointsException
+    public Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater, final SpawnSpotEvaluator evaluator) throws CannotGenerateSpawnPointsException
     {
         // We starts the generation on a smaller grid, to avoid false outside tests if the point is on the edge
         final int usedRegionDiameter = regionDiameter - 1;
 
         int countGeneratedPoints = 0;
         final Set<Location> generatedPoints = new HashSet<>();
+        final Location borderCenter = world.getSpawnLocation();
+        final double borderCenterX = borderCenter.getX();
+        final double borderCenterZ = borderCenter.getZ();
 
         int currentCircleDiameter = usedRegionDiameter;
 
@@ -113,30 +115,46 @@ public class CircularSpawnPointsGenerator implements SpawnPointsGenerator
             final double startAngle = (new Random()).nextDouble() * 2 * Math.PI;
             double currentAngle = startAngle;
 
+            final List<Location> circlePoints = new ArrayList<>();
+
             while (currentAngle <= 2 * Math.PI - angleBetweenTwoPoints + startAngle)
             {
                 // The coordinates of a point in the circle.
                 // Cf. your trigonometry! ;)
-                Location point = new Location(
-                        world,
-                        (currentCircleDiameter / 2) * Math.cos(currentAngle) + xCenter,
-                        0,
-                        (currentCircleDiameter / 2) * Math.sin(currentAngle) + zCenter
-                );
+                final double x = (currentCircleDiameter / 2) * Math.cos(currentAngle) + xCenter;
+                final double z = (currentCircleDiameter / 2) * Math.sin(currentAngle) + zCenter;
 
                 currentAngle += angleBetweenTwoPoints;
 
                 // Just in case
-                if (!p.getBorderManager().isInsideBorder(point, regionDiameter))
+                if (!p.getBorderManager().isInsideBorder(world, x, z, borderCenterX, borderCenterZ, regionDiameter))
                 {
                     continue;
                 }
 
-                final Block surfaceAirBlock = world.getHighestBlockAt(point);
-                final Block surfaceBlock = surfaceAirBlock.getRelative(BlockFace.DOWN);
+                circlePoints.add(new Location(world, x, 0, z));
+            }
+
+            // The chunks of the next points are requested ahead, so they are loaded in batches.
+            for (int i = 0; i < circlePoints.size() && i < SpawnSpotEvaluator.PREFETCH_DISTANCE; i++)
+            {
+                evaluator.prefetch(world, circlePoints.get(i).getBlockX(), circlePoints.get(i).getBlockZ());
+            }
+
+            for (int i = 0; i < circlePoints.size(); i++)
+            {
+                final Location point = circlePoints.get(i);
+
+                if (i + SpawnSpotEvaluator.PREFETCH_DISTANCE < circlePoints.size())
+                {
+                    final Location ahead = circlePoints.get(i + SpawnSpotEvaluator.PREFETCH_DISTANCE);
+                    evaluator.prefetch(world, ahead.getBlockX(), ahead.getBlockZ());
+                }
+
+                final SpawnSpotEvaluator.SpotStatus spot = evaluator.evaluate(world, point.getBlockX(), point.getBlockZ());
 
                 // Safe spot available?
-                if (!UHUtils.isSafeSpot(surfaceAirBlock.getLocation()))
+                if (spot == SpawnSpotEvaluator.SpotStatus.UNSAFE)
                 {
                     continue; // not safe: nope
                 }
@@ -144,7 +162,7 @@ public class CircularSpawnPointsGenerator implements SpawnPointsGenerator
                 // Not above the water?
                 if (avoidWater)
                 {
-                    if (surfaceBlock.getType() == Material.WATER || surfaceBlock.getType() == Material.STATIONARY_WATER)
+                    if (spot == SpawnSpotEvaluator.SpotStatus.ABOVE_WATER)
                     {
                         continue;
                     }
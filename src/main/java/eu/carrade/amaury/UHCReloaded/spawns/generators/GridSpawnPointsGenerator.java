@@ -34,14 +34,12 @@ package eu.carrade.amaury.UHCReloaded.spawns.generators;
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.borders.MapShape;
 import eu.carrade.amaury.UHCReloaded.spawns.exceptions.CannotGenerateSpawnPointsException;
-import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
-import org.bukkit.block.BlockFace;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 
@@ -65,12 +63,13 @@ public class GridSpawnPointsGenerator implements SpawnPointsGenerator
      * @param zCenter                         The z coordinate of the point in the center of the
      *                                        region where the points will be generated.
      * @param avoidWater                      True if the generation have to avoid the water.
+     * @param evaluator                       The evaluator used to check the safety of the spots.
      *
      * @return The spawn points generated.
      * @throws CannotGenerateSpawnPointsException In case of fail.
      */
     @Override
-    public Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater) throws CannotGenerateSpawnPointsException
+    public Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater, final SpawnSpotEvaluator evaluator) throws CannotGenerateSpawnPointsException
     {
         // We starts the generation on a smaller grid, to avoid false outside tests if the point is on the edge
         final int usedRegionDiameter = regionDiameter - 1;
@@ -112,6 +111,9 @@ public class GridSpawnPointsGenerator implements SpawnPointsGenerator
 
         int countGeneratedPoints = 0;
         final HashSet<Location> generatedPoints = new HashSet<>();
+        final Location borderCenter = world.getSpawnLocation();
+        final double borderCenterX = borderCenter.getX();
+        final double borderCenterZ = borderCenter.getZ();
 
         final int halfDiameter = (int) Math.floor(usedRegionDiameter / 2);
 
@@ -133,16 +135,13 @@ public class GridSpawnPointsGenerator implements SpawnPointsGenerator
         {
             currentPoint = currentSquareStartPoint.clone();
 
-            // First point
-            if (p.getBorderManager().isInsideBorder(currentPoint, regionDiameter) && UHUtils.searchSafeSpot(currentPoint) != null)
-            {
-                generatedPoints.add(currentPoint.clone());
-                countGeneratedPoints++;
+            // The points of this square inside the border, starting by the first point.
+            final List<Location> squarePoints = new ArrayList<>();
+            final Location firstPoint = currentPoint.clone();
 
-                if (countGeneratedPoints >= spawnCount)
-                {
-                    break;
-                }
+            if (p.getBorderManager().isInsideBorder(world, currentPoint.getX(), currentPoint.getZ(), borderCenterX, borderCenterZ, regionDiameter))
+            {
+                squarePoints.add(firstPoint);
             }
 
             // A step for each side, j is the side (see addOnSide).
@@ -156,37 +155,53 @@ public class GridSpawnPointsGenerator implements SpawnPointsGenerator
                     plottedSize += distanceBetweenTwoPoints;
 
                     // Inside the border?
-                    if (!p.getBorderManager().isInsideBorder(currentPoint, regionDiameter))
+                    if (p.getBorderManager().isInsideBorder(world, currentPoint.getX(), currentPoint.getZ(), borderCenterX, borderCenterZ, regionDiameter))
                     {
-                        continue;
+                        squarePoints.add(currentPoint.clone());
                     }
+                }
+            }
 
-                    final Block surfaceAirBlock = world.getHighestBlockAt(currentPoint);
-                    final Block surfaceBlock = surfaceAirBlock.getRelative(BlockFace.DOWN);
+            // The chunks of the next points are requested ahead, so they are loaded in batches.
+            for (int i = 0; i < squarePoints.size() && i < SpawnSpotEvaluator.PREFETCH_DISTANCE; i++)
+            {
+                evaluator.prefetch(world, squarePoints.get(i).getBlockX(), squarePoints.get(i).getBlockZ());
+            }
 
-                    // Safe spot available?
-                    if (!UHUtils.isSafeSpot(surfaceAirBlock.getLocation()))
-                    {
-                        continue; // not safe: nope
-                    }
+            for (int i = 0; i < squarePoints.size(); i++)
+            {
+                final Location point = squarePoints.get(i);
 
-                    // Not above the water?
-                    if (avoidWater)
-                    {
-                        if (surfaceBlock.getType() == Material.WATER || surfaceBlock.getType() == Material.STATIONARY_WATER)
-                        {
-                            continue;
-                        }
-                    }
+                if (i + SpawnSpotEvaluator.PREFETCH_DISTANCE < squarePoints.size())
+                {
+                    final Location ahead = squarePoints.get(i + SpawnSpotEvaluator.PREFETCH_DISTANCE);
+                    evaluator.prefetch(world, ahead.getBlockX(), ahead.getBlockZ());
+                }
 
-                    generatedPoints.add(currentPoint.clone());
-                    countGeneratedPoints++;
+                final SpawnSpotEvaluator.SpotStatus spot = evaluator.evaluate(world, point.getBlockX(), point.getBlockZ());
 
-                    if (countGeneratedPoints >= spawnCount)
+                // Safe spot available?
+                if (spot == SpawnSpotEvaluator.SpotStatus.UNSAFE)
+                {
+                    continue; // not safe: nope
+                }
+
+                // Not above the water? (Not checked for the first point.)
+                if (avoidWater && point != firstPoint)
+                {
+                    if (spot == SpawnSpotEvaluator.SpotStatus.ABOVE_WATER)
                     {
-                        break generationLoop;
+                        continue;
                     }
                 }
+
+                generatedPoints.add(point);
+                countGeneratedPoints++;
+
+                if (countGeneratedPoints >= spawnCount)
+                {
+                    break generationLoop;
+                }
             }
 
             // This square is complete; preparing the next one...
@@ -0,0 +1,242 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.spawns.generators;
+
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.borders.MapShape;
+import eu.carrade.amaury.UHCReloaded.spawns.exceptions.CannotGenerateSpawnPointsException;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+
+/**
+ * Generates the spawn points using a Poisson-disk sampling (Bridson's algorithm).
+ *
+ * <p>The whole region is filled with points evenly spread, at a distance from each other chosen
+ * to get a few more points than requested; the spawn points are then randomly picked among the
+ * safe ones. If there are not enough safe points, the distance is reduced, down to the minimal
+ * distance requested.</p>
+ */
+public class PoissonDiskSpawnPointsGenerator implements SpawnPointsGenerator
+{
+    /**
+     * The number of candidates tried around each point before it is considered complete.
+     */
+    private static final int CANDIDATES_PER_POINT = 30;
+
+    /**
+     * Approximate density of a maximal Poisson-disk sampling with the distance r: this number of
+     * points per r² of surface.
+     */
+    private static final double SAMPLING_DENSITY = 0.64;
+
+    /**
+     * The sampling tries to get this many times the requested count of points, to have some margin
+     * for the unsafe ones.
+     */
+    private static final double SAMPLING_MARGIN = 1.5;
+
+    private final Random random = new Random();
+    private final UHCReloaded p = UHCReloaded.get();
+
+
+    /**
+     * Generates some spawn points in the map, with a minimal distance, evenly spread.
+     *
+     * @param world                           The world where the spawn points will be generated.
+     * @param spawnCount                      The number of spawn points to generate.
+     * @param regionDiameter                  The diameter of the region where the spawn points will be generated.<br>
+     *                                        This is limited by the size of the map. This will be seen as the diameter of a circular or
+     *                                        of a squared map, following the shape of the world set in the configuration.
+     * @param minimalDistanceBetweenTwoPoints The minimal distance between two points.
+     * @param xCenter                         The x coordinate of the point in the center of the region where the points will be generated.
+     * @param zCenter                         The z coordinate of the point in the center of the region where the points will be generated.
+     * @param avoidWater                      True if the generation have to avoid the water.
+     * @param evaluator                       The evaluator used to check the safety of the spots.
+     *
+     * @return The spawn points generated.
+     *
+     * @throws CannotGenerateSpawnPointsException In case of fail
+     */
+    @Override
+    public Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater, final SpawnSpotEvaluator evaluator) throws CannotGenerateSpawnPointsException
+    {
+        final Set<Location> spawnPoints = new HashSet<>();
+        if (spawnCount <= 0) return spawnPoints;
+
+        final double surfaceRegion;
+
+        if (p.getBorderManager().getMapShape() == MapShape.CIRCULAR)
+        {
+            surfaceRegion = (Math.PI * Math.pow(regionDiameter, 2)) / 4;
+        }
+        else
+        {
+            surfaceRegion = Math.pow(regionDiameter, 2);
+        }
+
+        final double minimalDistance = Math.max(1, minimalDistanceBetweenTwoPoints);
+        double distance = Math.max(minimalDistance, Math.sqrt(SAMPLING_DENSITY * surfaceRegion / (SAMPLING_MARGIN * spawnCount)));
+
+        while (true)
+        {
+            final List<Location> candidates = sample(world, regionDiameter, distance, xCenter, zCenter);
+            Collections.shuffle(candidates, random);
+
+            // The safety is only checked for the points we need, as it requires the chunks.
+            int pointsAboveWater = 0;
+
+            // The chunks of the next candidates are requested ahead, so they are loaded in batches.
+            for (int i = 0; i < candidates.size() && i < SpawnSpotEvaluator.PREFETCH_DISTANCE; i++)
+                evaluator.prefetch(world, candidates.get(i).getBlockX(), candidates.get(i).getBlockZ());
+
+            for (int i = 0; i < candidates.size(); i++)
+            {
+                final Location candidate = candidates.get(i);
+
+                if (i + SpawnSpotEvaluator.PREFETCH_DISTANCE < candidates.size())
+                {
+                    final Location ahead = candidates.get(i + SpawnSpotEvaluator.PREFETCH_DISTANCE);
+                    evaluator.prefetch(world, ahead.getBlockX(), ahead.getBlockZ());
+                }
+
+                final SpawnSpotEvaluator.SpotStatus spot = evaluator.evaluate(world, candidate.getBlockX(), candidate.getBlockZ());
+
+                if (spot == SpawnSpotEvaluator.SpotStatus.UNSAFE)
+                    continue;
+
+                if (avoidWater && spot == SpawnSpotEvaluator.SpotStatus.ABOVE_WATER)
+                {
+                    pointsAboveWater++;
+                    continue;
+                }
+
+                spawnPoints.add(candidate);
+                if (spawnPoints.size() == spawnCount) return spawnPoints;
+            }
+
+            if (distance <= minimalDistance)
+            {
+                if (pointsAboveWater > 0)
+                    throw new CannotGenerateSpawnPointsException("Too many spawn points above the water.");
+                else
+                    throw new CannotGenerateSpawnPointsException("Unable to generate spawn points: not enough space for the minimal distance requested.");
+            }
+
+            // Not enough safe points: we try again with closer points.
+            spawnPoints.clear();
+            distance = Math.max(minimalDistance, distance * 0.85);
+        }
+    }
+
+    /**
+     * Fills the region with points, at least at the given distance from each other, using
+     * Bridson's algorithm.
+     *
+     * @return The points, inside the region.
+     */
+    private List<Location> sample(final World world, final int regionDiameter, final double distance, final double xCenter, final double zCenter)
+    {
+        final List<Location> points = new ArrayList<>();
+        final List<Location> active = new ArrayList<>();
+        final SpawnPointsGrid grid = new SpawnPointsGrid(distance);
+
+        final double radius = Math.floor(regionDiameter / 2);
+
+        final Location borderCenter = world.getSpawnLocation();
+        final double borderCenterX = borderCenter.getX();
+        final double borderCenterZ = borderCenter.getZ();
+
+        // The first point; as the region may be circular, a few tries may be needed.
+        for (int i = 0; i < 64 && points.isEmpty(); i++)
+        {
+            final double x = Math.floor(xCenter - radius + random.nextDouble() * 2 * radius);
+            final double z = Math.floor(zCenter - radius + random.nextDouble() * 2 * radius);
+
+            if (p.getBorderManager().isInsideBorder(world, x, z, borderCenterX, borderCenterZ, regionDiameter))
+            {
+                final Location seed = new Location(world, x, 0, z);
+                points.add(seed);
+                active.add(seed);
+                grid.add(seed.getX(), seed.getZ());
+            }
+        }
+
+        while (!active.isEmpty())
+        {
+            final int index = random.nextInt(active.size());
+            final Location point = active.get(index);
+
+            boolean found = false;
+
+            for (int i = 0; i < CANDIDATES_PER_POINT; i++)
+            {
+                // Uniformly in the annulus between distance and 2 × distance around the point
+                final double angle = random.nextDouble() * 2 * Math.PI;
+                final double candidateDistance = distance * Math.sqrt(1 + 3 * random.nextDouble());
+
+                final double x = Math.floor(point.getX() + candidateDistance * Math.cos(angle));
+                final double z = Math.floor(point.getZ() + candidateDistance * Math.sin(angle));
+
+                if (Math.abs(x - xCenter) > radius || Math.abs(z - zCenter) > radius) continue;
+                if (!grid.isFarEnough(x, z)) continue;
+
+                if (!p.getBorderManager().isInsideBorder(world, x, z, borderCenterX, borderCenterZ, regionDiameter)) continue;
+
+                final Location candidate = new Location(world, x, 0, z);
+
+                points.add(candidate);
+                active.add(candidate);
+                grid.add(x, z);
+
+                found = true;
+                break;
+            }
+
+            if (!found)
+            {
+                // Swap-remove, the order of the active points doesn't matter
+                active.set(index, active.get(active.size() - 1));
+                active.remove(active.size() - 1);
+            }
+        }
+
+        return points;
+    }
+}
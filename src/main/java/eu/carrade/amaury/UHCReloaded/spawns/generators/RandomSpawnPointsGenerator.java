@@ -35,13 +35,11 @@ package eu.carrade.amaury.UHCReloaded.spawns.generators;
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
 import eu.carrade.amaury.UHCReloaded.borders.MapShape;
 import eu.carrade.amaury.UHCReloaded.spawns.exceptions.CannotGenerateSpawnPointsException;
-import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
-import org.bukkit.block.BlockFace;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
@@ -67,13 +65,14 @@ public class RandomSpawnPointsGenerator implements SpawnPointsGenerator
      * @param xCenter                         The x coordinate of the point in the center of the region where the points will be generated.
      * @param zCenter                         The z coordinate of the point in the center of the region where the points will be generated.
      * @param avoidWater                      True if the generation have to avoid the water.
+     * @param evaluator                       The evaluator used to check the safety of the spots.
      *
      * @return The spawn points generated.
      *
      * @throws CannotGenerateSpawnPointsException In case of fail
      */
     @Override
-    public Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater) throws CannotGenerateSpawnPointsException
+    public Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater, final SpawnSpotEvaluator evaluator) throws CannotGenerateSpawnPointsException
     {
         final double minimalDistanceBetweenTwoPointsSquared = Math.pow(minimalDistanceBetweenTwoPoints, 2);
 
@@ -110,6 +109,10 @@ public class RandomSpawnPointsGenerator implements SpawnPointsGenerator
         /* *** Generation *** */
 
         final Set<Location> randomSpawnPoints = new HashSet<>();
+        final Location borderCenter = world.getSpawnLocation();
+        final double borderCenterX = borderCenter.getX();
+        final double borderCenterZ = borderCenter.getZ();
+        final SpawnPointsGrid grid = new SpawnPointsGrid(minimalDistanceBetweenTwoPoints);
         int generatedSpawnPoints = 0;
 
         // If the first points are badly located, and if the density is high, the generation may
@@ -123,13 +126,16 @@ public class RandomSpawnPointsGenerator implements SpawnPointsGenerator
         // So, after 2*{points requested} points above the water, we cancels the generation.
         int pointsAboveWater = 0;
 
-        generationLoop:
+        // The candidates are drawn ahead, so their chunks can be requested in batches.
+        final Deque<int[]> candidates = new ArrayDeque<>();
+
         while (generatedSpawnPoints != spawnCount)
         {
             // "Too many fails" test
             if (currentErrorCount >= 16) // restart
             {
                 randomSpawnPoints.clear();
+                grid.clear();
                 generatedSpawnPoints = 0;
                 currentErrorCount = 0;
             }
@@ -141,26 +147,39 @@ public class RandomSpawnPointsGenerator implements SpawnPointsGenerator
             }
 
 
-            // We generates a point in the square of side regionDiameter.
-            // In case of a circular world, if the point was generated out of the circle, it will be
-            // excluded when his presence inside the region will be checked.
+            // We generates points in the square of side regionDiameter.
+            // In case of a circular world, if a point was generated out of the circle, it is
+            // excluded when his presence inside the region is checked.
+            while (candidates.size() < SpawnSpotEvaluator.PREFETCH_DISTANCE)
+            {
+                final int x = random((int) (xCenter - Math.floor(regionDiameter / 2)), (int) (xCenter + (int) Math.floor(regionDiameter / 2)));
+                final int z = random((int) (zCenter - Math.floor(regionDiameter / 2)), (int) (zCenter + (int) Math.floor(regionDiameter / 2)));
+
+                // Inside the region?
+                if (p.getBorderManager().isInsideBorder(world, x, z, borderCenterX, borderCenterZ, regionDiameter))
+                {
+                    candidates.add(new int[] {x, z});
+
+                    // The distance is checked again when the candidate is used, as other points may be added.
+                    if (grid.isFarEnough(x, z)) evaluator.prefetch(world, x, z);
+                }
+            }
 
-            Location randomPoint = new Location(world,
-                    random((int) (xCenter - Math.floor(regionDiameter / 2)), (int) (xCenter + (int) Math.floor(regionDiameter / 2))),
-                    0,
-                    random((int) (zCenter - Math.floor(regionDiameter / 2)), (int) (zCenter + (int) Math.floor(regionDiameter / 2))));
+            final int[] candidate = candidates.poll();
+            final int x = candidate[0];
+            final int z = candidate[1];
 
-            // Inside the region?
-            if (!p.getBorderManager().isInsideBorder(randomPoint, regionDiameter))
+            // Is that point at a correct distance of the other ones? (Checked first, as it's cheap.)
+            if (!grid.isFarEnough(x, z))
             {
-                continue; // outside: nope
+                currentErrorCount++;
+                continue; // too close: nope
             }
 
-            final Block surfaceAirBlock = world.getHighestBlockAt(randomPoint);
-            final Block surfaceBlock = surfaceAirBlock.getRelative(BlockFace.DOWN);
+            final SpawnSpotEvaluator.SpotStatus spot = evaluator.evaluate(world, x, z);
 
             // Safe spot available?
-            if (!UHUtils.isSafeSpot(surfaceAirBlock.getLocation()))
+            if (spot == SpawnSpotEvaluator.SpotStatus.UNSAFE)
             {
                 continue; // not safe: nope
             }
@@ -168,25 +187,16 @@ public class RandomSpawnPointsGenerator implements SpawnPointsGenerator
             // Not above the water?
             if (avoidWater)
             {
-                if (surfaceBlock.getType() == Material.WATER || surfaceBlock.getType() == Material.STATIONARY_WATER)
+                if (spot == SpawnSpotEvaluator.SpotStatus.ABOVE_WATER)
                 {
                     pointsAboveWater++;
                     continue;
                 }
             }
 
-            // Is that point at a correct distance of the other ones?
-            for (Location spawn : randomSpawnPoints)
-            {
-                if (spawn.distanceSquared(randomPoint) < minimalDistanceBetweenTwoPointsSquared)
-                {
-                    currentErrorCount++;
-                    continue generationLoop; // too close: nope
-                }
-            }
-
             // Well, all done.
-            randomSpawnPoints.add(randomPoint);
+            randomSpawnPoints.add(new Location(world, x, 0, z));
+            grid.add(x, z);
             generatedSpawnPoints++;
             currentErrorCount = 0;
         }
@@ -50,6 +50,31 @@ public interface SpawnPointsGenerator
     /**
      * Generates the spawn points.
      *
+     * <p>The safety of the spots must only be checked through the given evaluator, and the world
+     * must not be accessed directly: this may be called outside of the main thread.</p>
+     *
+     * @param world                           The world where the spawn points will be generated.
+     * @param spawnCount                      The number of spawn points to generate.
+     * @param regionDiameter                  The diameter of the region where the spawn points will be generated.<br>
+     *                                        This is limited by the size of the map. This will be seen as the diameter of a circular or
+     *                                        of a squared map, following the shape of the world set in the configuration.
+     * @param minimalDistanceBetweenTwoPoints The minimal distance between two points.
+     * @param xCenter                         The x coordinate of the point in the center of the region where the points will be generated.
+     * @param zCenter                         The z coordinate of the point in the center of the region where the points will be generated.
+     * @param avoidWater                      True if the generation have to avoid the water.
+     * @param evaluator                       The evaluator used to check the safety of the spots.
+     *
+     * @return The spawn points generated.
+     *
+     * @throws CannotGenerateSpawnPointsException In case of fail.
+     */
+    Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater, final SpawnSpotEvaluator evaluator) throws CannotGenerateSpawnPointsException;
+
+    /**
+     * Generates the spawn points, checking the spots directly in the world.
+     *
+     * <p>Must be called from the main thread.</p>
+     *
      * @param world                           The world where the spawn points will be generated.
      * @param spawnCount                      The number of spawn points to generate.
      * @param regionDiameter                  The diameter of the region where the spawn points will be generated.<br>
@@ -64,5 +89,8 @@ public interface SpawnPointsGenerator
      *
      * @throws CannotGenerateSpawnPointsException In case of fail.
      */
-    Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater) throws CannotGenerateSpawnPointsException;
+    default Set<Location> generate(final World world, final int spawnCount, final int regionDiameter, final int minimalDistanceBetweenTwoPoints, final double xCenter, final double zCenter, final boolean avoidWater) throws CannotGenerateSpawnPointsException
+    {
+        return generate(world, spawnCount, regionDiameter, minimalDistanceBetweenTwoPoints, xCenter, zCenter, avoidWater, new WorldSpawnSpotEvaluator());
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.spawns.generators;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * A background grid used to check in constant time if a point is far enough from all the points
+ * already accepted.
+ *
+ * <p>The cells are sized so that each one can contain at most one point at the minimal distance
+ * from the others; only the 5×5 cells around a point have to be checked.</p>
+ */
+class SpawnPointsGrid
+{
+    private final double minimalDistanceSquared;
+    private final double cellSize;
+
+    private final Map<Long, double[]> cells = new HashMap<>();
+
+
+    /**
+     * @param minimalDistance The minimal distance between two points.
+     */
+    SpawnPointsGrid(double minimalDistance)
+    {
+        this.minimalDistanceSquared = minimalDistance * minimalDistance;
+        this.cellSize = minimalDistance / Math.sqrt(2);
+    }
+
+    /**
+     * Checks if a point is at least at the minimal distance of every point in the grid.
+     *
+     * @param x The x coordinate of the point.
+     * @param z The z coordinate of the point.
+     *
+     * @return {@code true} if the point is far enough from the others.
+     */
+    boolean isFarEnough(double x, double z)
+    {
+        if (cellSize <= 0) return true;
+
+        final int cellX = cell(x);
+        final int cellZ = cell(z);
+
+        for (int i = cellX - 2; i <= cellX + 2; i++)
+        {
+            for (int j = cellZ - 2; j <= cellZ + 2; j++)
+            {
+                final double[] point = cells.get(key(i, j));
+                if (point == null) continue;
+
+                final double dx = point[0] - x;
+                final double dz = point[1] - z;
+
+                if (dx * dx + dz * dz < minimalDistanceSquared)
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds a point to the grid. The point must be far enough from the other ones.
+     *
+     * @param x The x coordinate of the point.
+     * @param z The z coordinate of the point.
+     */
+    void add(double x, double z)
+    {
+        if (cellSize <= 0) return;
+        cells.put(key(cell(x), cell(z)), new double[] {x, z});
+    }
+
+    /**
+     * Removes all the points of the grid.
+     */
+    void clear()
+    {
+        cells.clear();
+    }
+
+
+    private int cell(double coordinate)
+    {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cellX, int cellZ)
+    {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.spawns.generators;
+
+import org.bukkit.World;
+
+
+/**
+ * Evaluates if a column of the world is a good place for a spawn point.
+ *
+ * @see SpawnPointsGenerator
+ */
+public interface SpawnSpotEvaluator
+{
+    /**
+     * The number of columns the generators announce ahead of their evaluation, with
+     * {@link #prefetch(World, int, int)}.
+     */
+    int PREFETCH_DISTANCE = 32;
+
+    /**
+     * Evaluates the surface of the given column.
+     *
+     * @param world The world.
+     * @param x     The x coordinate of the column.
+     * @param z     The z coordinate of the column.
+     *
+     * @return The status of the spot at the surface of this column.
+     */
+    SpotStatus evaluate(World world, int x, int z);
+
+    /**
+     * Announces that the given column will probably be evaluated soon, so the evaluators loading
+     * the chunks asynchronously can request it ahead.
+     *
+     * @param world The world.
+     * @param x     The x coordinate of the column.
+     * @param z     The z coordinate of the column.
+     */
+    default void prefetch(World world, int x, int z) {}
+
+
+    enum SpotStatus
+    {
+        /**
+         * The surface is safe.
+         */
+        SAFE,
+
+        /**
+         * The surface is safe, but above the water.
+         */
+        ABOVE_WATER,
+
+        /**
+         * The surface is not safe (lava, no room to breathe...).
+         */
+        UNSAFE
+    }
+}
@@ -37,29 +37,28 @@ import eu.carrade.amaury.UHCReloaded.utils.UHUtils;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.Random;
 import java.util.Set;
 
 
-public class FireworksOnWinnersTask extends BukkitRunnable
+/**
+ * Launches fireworks around the winners; executed periodically by the match timeline for the
+ * configured duration.
+ */
+public class FireworksOnWinnersTask implements Runnable
 {
     private final Set<OfflinePlayer> winners;
 
     private Double areaSize;
     private Random rand;
 
-    private long startTime;
-
     public FireworksOnWinnersTask(final Set<OfflinePlayer> listWinners)
     {
         this.winners = listWinners;
 
         this.areaSize = UHConfig.FINISH.FIREWORKS.AREA_SIZE.get();
         this.rand = new Random();
-
-        this.startTime = System.currentTimeMillis();
     }
 
     @Override
@@ -82,10 +81,5 @@ public class FireworksOnWinnersTask extends BukkitRunnable
                 UHUtils.generateRandomFirework(fireworkLocation.add(-0.2, 0d, 0.2), 5, 15);
             }
         }
-
-        if ((System.currentTimeMillis() - startTime) / 1000 > UHConfig.FINISH.FIREWORKS.DURATION.get())
-        {
-            this.cancel();
-        }
     }
 }
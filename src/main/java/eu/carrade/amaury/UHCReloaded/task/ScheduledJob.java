@@ -0,0 +1,200 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.task;
+
+import fr.zcraft.zlib.tools.PluginLogger;
+
+
+/**
+ * A job submitted to the {@link WorkScheduler}.
+ */
+public class ScheduledJob
+{
+    private final String name;
+    private final WorkPriority priority;
+    private final WorkJob job;
+
+    private boolean running = true;
+    private WorkJob.Status status = WorkJob.Status.CONTINUE;
+
+    private int units = 0;
+    private long timeSpent = 0L;
+
+    private int tickUnits = 0;
+    private long tickTimeSpent = 0L;
+
+
+    ScheduledJob(String name, WorkPriority priority, WorkJob job)
+    {
+        this.name = name;
+        this.priority = priority;
+        this.job = job;
+    }
+
+    /**
+     * Executes units of this job until the given time is spent, the job waits or the job is
+     * finished. At least one unit is executed.
+     *
+     * @param share The time this job can use, in nanoseconds.
+     */
+    void run(long share)
+    {
+        final long start = System.nanoTime();
+        long now = start;
+
+        try
+        {
+            do
+            {
+                status = job.step();
+                tickUnits++;
+
+                now = System.nanoTime();
+            }
+            while (running && status == WorkJob.Status.CONTINUE && now - start < share);
+        }
+        catch (Throwable e)
+        {
+            PluginLogger.error("Exception caught in the job {0}, cancelling it", e, name);
+            // If the job was cancelled while running this unit, its owner already knows it stopped.
+            if (running)
+            {
+                running = false;
+
+                try
+                {
+                    job.failed(e);
+                }
+                catch (Throwable e2)
+                {
+                    PluginLogger.error("Exception caught while cleaning up the failed job {0}", e2, name);
+                }
+            }
+
+            now = System.nanoTime();
+        }
+
+        tickTimeSpent += now - start;
+    }
+
+    /**
+     * Called at the end of each tick by the scheduler.
+     *
+     * @param tickDuration The duration of the server tick before this one, in nanoseconds.
+     */
+    void endTick(long tickDuration)
+    {
+        if (tickUnits == 0) return;
+
+        units += tickUnits;
+        timeSpent += tickTimeSpent;
+
+        if (running)
+        {
+            job.tickEnded(tickDuration, tickTimeSpent, tickUnits);
+
+            if (status == WorkJob.Status.DONE)
+            {
+                running = false;
+                job.done();
+            }
+        }
+
+        tickUnits = 0;
+        tickTimeSpent = 0L;
+    }
+
+    /**
+     * @return {@code true} if this job can still use some time in the current tick.
+     */
+    boolean wantsMore()
+    {
+        return running && status == WorkJob.Status.CONTINUE;
+    }
+
+    /**
+     * Cancels this job. The unit being executed, if any, is finished, and neither {@link
+     * WorkJob#done()} nor {@link WorkJob#failed(Throwable)} will be called.
+     */
+    public void cancel()
+    {
+        running = false;
+    }
+
+    /**
+     * @return {@code true} if this job is neither finished nor cancelled.
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * @return The name of this job.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return The priority of this job.
+     */
+    public WorkPriority getPriority()
+    {
+        return priority;
+    }
+
+    /**
+     * @return The number of units executed so far.
+     */
+    public int getUnits()
+    {
+        return units;
+    }
+
+    /**
+     * @return The time spent executing this job so far, in nanoseconds.
+     */
+    public long getTimeSpent()
+    {
+        return timeSpent;
+    }
+
+    /**
+     * @return The progress of this job, between 0 and 1, or -1 if unknown.
+     */
+    public double getProgress()
+    {
+        return job.getProgress();
+    }
+}
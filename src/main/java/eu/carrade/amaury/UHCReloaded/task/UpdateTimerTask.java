@@ -32,7 +32,6 @@
 package eu.carrade.amaury.UHCReloaded.task;
 
 import eu.carrade.amaury.UHCReloaded.UHCReloaded;
-import eu.carrade.amaury.UHCReloaded.timers.UHTimer;
 import org.bukkit.scheduler.BukkitRunnable;
 
 
@@ -41,9 +40,6 @@ public class UpdateTimerTask extends BukkitRunnable
     @Override
     public void run()
     {
-        for (UHTimer timer : UHCReloaded.get().getTimerManager().getRunningTimers())
-        {
-            timer.update();
-        }
+        UHCReloaded.get().getTimerManager().update();
     }
 }
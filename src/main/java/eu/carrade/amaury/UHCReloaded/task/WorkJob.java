@@ -0,0 +1,106 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.task;
+
+
+/**
+ * A resumable job run by the {@link WorkScheduler}, one small unit of work at a time.
+ *
+ * <p>Each call to {@link #step()} must do a small and bounded amount of work (a column of a wall,
+ * a player to teleport, a section to restore…), so the scheduler can stop between two units as
+ * soon as the tick budget is spent.</p>
+ *
+ * <p>All the methods are called from the main thread.</p>
+ */
+public interface WorkJob
+{
+    enum Status
+    {
+        /**
+         * There is more work to do, and it can be done in this tick.
+         */
+        CONTINUE,
+
+        /**
+         * There is more work to do, but not in this tick (e.g. the job waits for some data from
+         * another thread). The job will be called again next tick.
+         */
+        WAIT,
+
+        /**
+         * The job is finished.
+         */
+        DONE
+    }
+
+
+    /**
+     * Executes the next unit of work.
+     *
+     * @return The status of the job after this unit.
+     */
+    Status step();
+
+    /**
+     * Called at the end of each tick where the job was executed, before {@link #done()} if the job
+     * finished in this tick.
+     *
+     * @param tickDuration The duration of the whole server tick before this one, in nanoseconds,
+     *                     or 0 if unknown.
+     * @param timeSpent    The time spent executing this job in this tick, in nanoseconds.
+     * @param units        The number of units executed in this tick.
+     */
+    default void tickEnded(long tickDuration, long timeSpent, int units) {}
+
+    /**
+     * Called once the job is finished. Not called if the job is cancelled.
+     */
+    default void done() {}
+
+    /**
+     * Called once if {@link #step()} throws. The job is then cancelled: neither {@link
+     * #tickEnded(long, long, int)} nor {@link #done()} will be called.
+     *
+     * <p>The job must release its resources here, as it will never finish.</p>
+     *
+     * @param e The exception thrown (already logged).
+     */
+    default void failed(Throwable e) {}
+
+    /**
+     * @return The progress of the job, between 0 and 1, or -1 if unknown.
+     */
+    default double getProgress()
+    {
+        return -1;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.task;
+
+
+/**
+ * The priority of a job run by the {@link WorkScheduler}. Each tick, the budget is shared between
+ * the jobs proportionally to the weight of their priority, and the time left is given to the jobs
+ * of higher priority first.
+ */
+public enum WorkPriority
+{
+    /**
+     * For the jobs the players are waiting for, like the teleportation at the start of the game.
+     */
+    HIGH(4),
+
+    NORMAL(2),
+
+    /**
+     * For the background jobs, like the generation of the walls or a rollback.
+     */
+    LOW(1);
+
+
+    private final int weight;
+
+    WorkPriority(int weight)
+    {
+        this.weight = weight;
+    }
+
+    /**
+     * @return The weight of this priority in the share of the tick budget.
+     */
+    public int getWeight()
+    {
+        return weight;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.task;
+
+import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Runs the heavy jobs of the plugin (walls, cages, teleportation, rollbacks…) cooperatively, a
+ * few units each tick, within a global time budget shared by all the jobs.
+ *
+ * <p>The budget is adapted to the server load: it is halved when a tick takes longer than
+ * expected, and slowly restored when the server keeps up.</p>
+ *
+ * <p>Each tick, every job runs at least one unit, then the budget is shared between the jobs
+ * proportionally to their {@linkplain WorkPriority priority}; the time left by the jobs waiting or
+ * finished is then given to the others, the highest priorities first.</p>
+ *
+ * <p>The scheduler only ticks while there are jobs to run.</p>
+ */
+public class WorkScheduler
+{
+    /**
+     * The expected duration of a tick, in nanoseconds.
+     */
+    private static final long TICK_DURATION = 50_000_000L;
+
+    /**
+     * A tick is considered late if it lasted longer than that, in nanoseconds.
+     */
+    private static final long LATE_TICK_DURATION = 60_000_000L;
+
+    private final List<ScheduledJob> jobs = new ArrayList<>();
+    private final List<ScheduledJob> submitted = new ArrayList<>();
+
+    private final long budget;
+    private long allowance;
+    private long lastRun = 0L;
+
+    private BukkitTask task = null;
+    private boolean ticking = false;
+
+
+    /**
+     * @param budget The maximal time spent running the jobs each tick, in milliseconds.
+     */
+    public WorkScheduler(long budget)
+    {
+        this.budget = Math.max(1L, Math.min(budget, TICK_DURATION / 1_000_000L)) * 1_000_000L;
+        this.allowance = this.budget;
+    }
+
+    /**
+     * Submits a job. It will be started next tick.
+     *
+     * @param name     The name of the job, used in the logs.
+     * @param priority The priority of the job.
+     * @param job      The job.
+     *
+     * @return The scheduled job, to follow or cancel it.
+     */
+    public ScheduledJob submit(String name, WorkPriority priority, WorkJob job)
+    {
+        final ScheduledJob scheduledJob = new ScheduledJob(name, priority, job);
+
+        // Jobs submitted by a job are kept aside until the end of the tick.
+        if (ticking) submitted.add(scheduledJob);
+        else addJob(scheduledJob);
+
+        if (task == null)
+        {
+            lastRun = 0L;
+            allowance = budget;
+            task = RunTask.timer(this::tick, 1L, 1L);
+        }
+
+        return scheduledJob;
+    }
+
+    private void addJob(ScheduledJob job)
+    {
+        jobs.add(job);
+
+        // Stable sort: the jobs of the same priority are run in their submission order.
+        Collections.sort(jobs, Comparator.comparing(ScheduledJob::getPriority));
+    }
+
+    private void tick()
+    {
+        final long tickStart = System.nanoTime();
+        final long tickDuration = lastRun != 0L ? tickStart - lastRun : 0L;
+        lastRun = tickStart;
+
+        // The server is late: we leave it some room. Else, the budget is restored progressively.
+        if (tickDuration > LATE_TICK_DURATION)
+            allowance = Math.max(budget / 8, allowance / 2);
+        else
+            allowance = Math.min(budget, allowance + budget / 4);
+
+        ticking = true;
+
+        try
+        {
+            jobs.removeIf(job -> !job.isRunning());
+
+            int totalWeight = 0;
+            for (ScheduledJob job : jobs)
+                totalWeight += job.getPriority().getWeight();
+
+            // Each job runs within its share of the budget…
+            for (ScheduledJob job : jobs)
+                if (job.isRunning())
+                    job.run(allowance * job.getPriority().getWeight() / totalWeight);
+
+            // …then the time left is given to the jobs still having work to do.
+            for (ScheduledJob job : jobs)
+            {
+                final long left = allowance - (System.nanoTime() - tickStart);
+                if (left <= 0) break;
+
+                if (job.wantsMore())
+                    job.run(left);
+            }
+
+            for (ScheduledJob job : jobs)
+                job.endTick(tickDuration);
+        }
+        finally
+        {
+            ticking = false;
+        }
+
+        jobs.removeIf(job -> !job.isRunning());
+        submitted.forEach(this::addJob);
+        submitted.clear();
+
+        if (jobs.isEmpty() && task != null)
+        {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * @return The jobs running, by priority.
+     */
+    public List<ScheduledJob> getJobs()
+    {
+        final List<ScheduledJob> running = new ArrayList<>(jobs.size() + submitted.size());
+
+        for (ScheduledJob job : jobs)
+            if (job.isRunning()) running.add(job);
+
+        for (ScheduledJob job : submitted)
+            if (job.isRunning()) running.add(job);
+
+        return Collections.unmodifiableList(running);
+    }
+
+    /**
+     * Cancels all the jobs and stops the scheduler.
+     */
+    public void shutdown()
+    {
+        jobs.forEach(ScheduledJob::cancel);
+        submitted.forEach(ScheduledJob::cancel);
+
+        jobs.clear();
+        submitted.clear();
+
+        if (task != null)
+        {
+            task.cancel();
+            task = null;
+        }
+    }
+}
@@ -39,20 +39,20 @@ import fr.zcraft.zlib.tools.runners.RunTask;
 import fr.zcraft.zlib.tools.text.MessageSender;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class TeamChatManager
 {
     private final UHCReloaded p;
 
-    private final Set<UUID> teamChatLocked = new HashSet<>();
-    private final Map<UUID, UHTeam> otherTeamChatLocked = new HashMap<>();
-    private final Set<UUID> globalSpies = new HashSet<>();
+    // Updated from the commands, but read from the asynchronous chat events.
+    private final Set<UUID> teamChatLocked = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, UHTeam> otherTeamChatLocked = new ConcurrentHashMap<>();
+    private final Set<UUID> globalSpies = ConcurrentHashMap.newKeySet();
 
     public TeamChatManager(UHCReloaded p)
     {
@@ -133,8 +133,9 @@ public class TeamChatManager
         if (otherTeamChatLocked.containsValue(team))
         {
             // The message is only sent to the spies not in the team, to avoid double messages
-            otherTeamChatLocked.keySet().stream()
-                    .filter(playerId -> otherTeamChatLocked.get(playerId).equals(team))
+            otherTeamChatLocked.entrySet().stream()
+                    .filter(spy -> team.equals(spy.getValue()))
+                    .map(Map.Entry::getKey)
                     .filter(playerId -> !team.containsPlayer(playerId))
                     .forEach(playerId -> MessageSender.sendChatMessage(p.getServer().getPlayer(playerId), rawMessage));
         }
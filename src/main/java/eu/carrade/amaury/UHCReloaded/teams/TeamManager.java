@@ -57,6 +57,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class TeamManager
@@ -64,7 +66,8 @@ public class TeamManager
     private final int MAX_PLAYERS_PER_TEAM;
 
     private final UHCReloaded p;
-    private final HashSet<UHTeam> teams = new HashSet<>();
+    private final Set<UHTeam> teams = ConcurrentHashMap.newKeySet();
+    private final TeamsIndex index = new TeamsIndex();
 
 
     public TeamManager()
@@ -115,7 +118,7 @@ public class TeamManager
         }
 
         final UHTeam team = new UHTeam(name, generateColor(color));
-        teams.add(team);
+        registerTeam(team);
 
         updateGUIs();
 
@@ -146,7 +149,7 @@ public class TeamManager
         }
 
         final UHTeam team = new UHTeam(teamName, color);
-        teams.add(team);
+        registerTeam(team);
 
         updateGUIs();
 
@@ -168,13 +171,13 @@ public class TeamManager
             throw new IllegalArgumentException("There is already a team named " + team.getName() + " registered!");
         }
 
-        teams.add(team);
+        registerTeam(team);
 
         updateGUIs();
 
         return team;
     }
-    
+
     /**
      * Deletes a team.
      *
@@ -194,7 +197,11 @@ public class TeamManager
             team.deleteTeam();
         }
 
-        final boolean removed = teams.remove(team);
+        final boolean removed = team != null && teams.remove(team);
+        if (removed)
+        {
+            index.unindexTeam(team);
+        }
 
         updateGUIs();
 
@@ -292,6 +299,7 @@ public class TeamManager
 
         // 2: internal list reset
         teams.clear();
+        index.clear();
 
         updateGUIs();
     }
@@ -363,7 +371,7 @@ public class TeamManager
      */
     public UHTeam getTeam(String name)
     {
-        return teams.stream().filter(t -> t.getName().equalsIgnoreCase(name)).findFirst().orElse(null);
+        return name != null ? index.getTeam(name) : null;
     }
 
     /**
@@ -374,7 +382,18 @@ public class TeamManager
      */
     public UHTeam getTeamForPlayer(OfflinePlayer player)
     {
-        return teams.stream().filter(t -> t.containsPlayer(player.getUniqueId())).findFirst().orElse(null);
+        return getTeamForPlayer(player.getUniqueId());
+    }
+
+    /**
+     * Gets a player's team.
+     *
+     * @param id The UUID of the player.
+     * @return The team of this player, or {@code null} if he is not in a team.
+     */
+    public UHTeam getTeamForPlayer(UUID id)
+    {
+        return id != null ? index.getTeamForPlayer(id) : null;
     }
 
     /**
@@ -382,11 +401,13 @@ public class TeamManager
      *
      * @param player1 The first player.
      * @param player2 The second player
-     * @return True if the players are in the same team, false else.
+     * @return True if the players are in the same team, false else (including if the
+     * first player is not in a team).
      */
     public boolean inSameTeam(Player player1, Player player2)
     {
-        return (getTeamForPlayer(player1).equals(getTeamForPlayer(player2)));
+        final UHTeam team = getTeamForPlayer(player1);
+        return team != null && team.equals(getTeamForPlayer(player2));
     }
 
     /**
@@ -587,6 +608,60 @@ public class TeamManager
             ActionBar.sendPermanentMessage(player, I.t("{gold}Your team: {0}", team.getDisplayName()));
     }
 
+    /**
+     * Registers a team and indexes it.
+     *
+     * @param team The team.
+     */
+    private void registerTeam(UHTeam team)
+    {
+        teams.add(team);
+        index.indexTeam(team);
+    }
+
+    /**
+     * Returns the teams index, to be kept up-to-date by the teams themselves.
+     *
+     * @return The index.
+     */
+    TeamsIndex getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Takes a team out of the registered teams before a rename, as the teams are hashed by name.
+     *
+     * @param team The team about to be renamed.
+     * @param newName The new name of the team.
+     * @return {@code true} if the team was registered, and has to be given back to
+     * {@link #afterTeamRename(UHTeam, String)}.
+     *
+     * @throws IllegalArgumentException if another team is already registered with this name.
+     */
+    boolean beforeTeamRename(UHTeam team, String newName)
+    {
+        final UHTeam namesake = getTeam(newName);
+        if (namesake != null && namesake != team)
+        {
+            throw new IllegalArgumentException("There is already a team named " + newName + " registered!");
+        }
+
+        return teams.remove(team);
+    }
+
+    /**
+     * Registers back a renamed team, and updates the index.
+     *
+     * @param team The renamed team.
+     * @param oldName The name of the team before the change.
+     */
+    void afterTeamRename(UHTeam team, String oldName)
+    {
+        teams.add(team);
+        index.renameTeam(team, oldName);
+    }
+
     /**
      * Updates the teams GUIs. Called when a team is created, deleted, or updated,
      * so the GUIs update in real time.
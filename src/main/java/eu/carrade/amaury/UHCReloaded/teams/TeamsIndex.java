@@ -0,0 +1,140 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.teams;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Indexes the registered teams by (case-insensitive) name and by player.
+ * <p>
+ * Kept in sync by the {@link TeamManager} and the {@link UHTeam}s, so the lookups are
+ * constant-time and can be done from any thread (async chat, sidebars...).
+ */
+final class TeamsIndex
+{
+    private final Map<String, UHTeam> teamsByName = new ConcurrentHashMap<>();
+    private final Map<UUID, UHTeam> teamsByPlayer = new ConcurrentHashMap<>();
+
+
+    /**
+     * Indexes a newly registered team, with the players already inside.
+     *
+     * @param team The team.
+     */
+    void indexTeam(UHTeam team)
+    {
+        teamsByName.put(key(team.getName()), team);
+        team.getPlayersUUID().forEach(id -> teamsByPlayer.put(id, team));
+    }
+
+    /**
+     * Removes a team and its players from the index.
+     *
+     * @param team The team.
+     */
+    void unindexTeam(UHTeam team)
+    {
+        teamsByName.remove(key(team.getName()), team);
+        team.getPlayersUUID().forEach(id -> teamsByPlayer.remove(id, team));
+    }
+
+    /**
+     * Moves a team to its new name in the index.
+     *
+     * @param team The renamed team.
+     * @param oldName The name of the team before the change.
+     */
+    void renameTeam(UHTeam team, String oldName)
+    {
+        teamsByName.remove(key(oldName), team);
+        teamsByName.put(key(team.getName()), team);
+    }
+
+    /**
+     * Records a player as a member of the given team.
+     *
+     * @param id The UUID of the player.
+     * @param team The team.
+     */
+    void indexPlayer(UUID id, UHTeam team)
+    {
+        teamsByPlayer.put(id, team);
+    }
+
+    /**
+     * Forgets a player, if he is still recorded as a member of the given team.
+     *
+     * @param id The UUID of the player.
+     * @param team The team the player left.
+     */
+    void unindexPlayer(UUID id, UHTeam team)
+    {
+        teamsByPlayer.remove(id, team);
+    }
+
+    /**
+     * @param name The name of the team, case-insensitive.
+     * @return The team, or {@code null} if there isn't any team with this name.
+     */
+    UHTeam getTeam(String name)
+    {
+        return teamsByName.get(key(name));
+    }
+
+    /**
+     * @param id The UUID of a player.
+     * @return The team of this player, or {@code null} if he is not in a team.
+     */
+    UHTeam getTeamForPlayer(UUID id)
+    {
+        return teamsByPlayer.get(id);
+    }
+
+    /**
+     * Empties the index.
+     */
+    void clear()
+    {
+        teamsByName.clear();
+        teamsByPlayer.clear();
+    }
+
+
+    private static String key(String name)
+    {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -59,6 +59,7 @@ import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class UHTeam
@@ -77,7 +78,9 @@ public class UHTeam
     private ItemStack defaultBanner = null;
     private ItemStack banner = null;
 
-    private HashSet<UUID> players = new HashSet<>();
+    private final Set<UUID> players = ConcurrentHashMap.newKeySet();
+
+    private volatile long version = 0L;
 
 
     public UHTeam(String name, TeamColor color)
@@ -131,14 +134,23 @@ public class UHTeam
      *
      * @param name The new name.
      * @param silent if {@code true}, the players will not be notified.
+     *
+     * @throws IllegalArgumentException if another team is already registered with this name.
      */
     public void setName(String name, boolean silent)
     {
         if (name == null || (this.name != null && this.name.equals(name)))
             return;
 
+        final TeamManager tm = plugin.getTeamManager();
+        final String oldName = this.name;
+        final boolean registered = oldName != null && tm.beforeTeamRename(this, name);
+
         this.name = name;
 
+        if (registered)
+            tm.afterTeamRename(this, oldName);
+
         updateDisplayName();
         updateDefaultBanner();
 
@@ -173,12 +185,23 @@ public class UHTeam
     private void updateDisplayName()
     {
         displayName = (color != null) ? color.toChatColor() + name + ChatColor.RESET : name;
+        version++;
 
         final Team t = plugin.getScoreboardManager().getScoreboard().getTeam(internalName);
         if (t != null)
             t.setDisplayName(displayName.substring(0, Math.min(displayName.length(), 32)));
     }
 
+    /**
+     * Returns the version of this team, increased each time its name, color or members change.
+     *
+     * @return The version.
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
     /**
      * Returns the players inside this team.
      *
@@ -316,6 +339,11 @@ public class UHTeam
         plugin.getTeamManager().removePlayerFromTeam(player, true);
 
         players.add(player.getUniqueId());
+        version++;
+
+        if (plugin.getTeamManager().isTeamRegistered(this))
+            plugin.getTeamManager().getIndex().indexPlayer(player.getUniqueId(), this);
+
         plugin.getScoreboardManager().getScoreboard().getTeam(this.internalName).addPlayer(player);
 
         plugin.getTeamManager().colorizePlayer(player);
@@ -357,6 +385,10 @@ public class UHTeam
         Validate.notNull(player, "The player cannot be null.");
 
         players.remove(player.getUniqueId());
+        version++;
+
+        plugin.getTeamManager().getIndex().unindexPlayer(player.getUniqueId(), this);
+
         unregisterPlayer(player, silent);
 
         plugin.getTeamManager().updateGUIs();
@@ -393,9 +425,14 @@ public class UHTeam
     public void deleteTeam()
     {
         // We removes the players from the team (scoreboard team too)
-        players.forEach(id -> unregisterPlayer(plugin.getServer().getOfflinePlayer(id), false));
+        players.forEach(id ->
+        {
+            plugin.getTeamManager().getIndex().unindexPlayer(id, this);
+            unregisterPlayer(plugin.getServer().getOfflinePlayer(id), false);
+        });
 
         players.clear();
+        version++;
 
         // Then the scoreboard team is deleted.
         plugin.getScoreboardManager().getScoreboard().getTeam(this.internalName).unregister();
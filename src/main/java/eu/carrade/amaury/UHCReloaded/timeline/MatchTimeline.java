@@ -0,0 +1,246 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.timeline;
+
+import fr.zcraft.zlib.tools.PluginLogger;
+import fr.zcraft.zlib.tools.runners.RunTask;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+
+/**
+ * The timeline of the match: the actions scheduled during the game (end of the grace period,
+ * PvP, border shrinking, scheduled commands…) are stored in a priority queue, executed by a single
+ * task ticking the timeline.
+ *
+ * <p>The timeline has its own clock, in ticks, which stops while the timeline is paused (when the
+ * game is frozen): the delays are in timeline ticks, not in server ticks. Actions can be listed,
+ * rescheduled and cancelled at any time.</p>
+ */
+public class MatchTimeline
+{
+    private final PriorityQueue<TimelineAction> actions = new PriorityQueue<>();
+
+    private final BukkitTask task;
+    private long currentTick = 0;
+    private boolean paused = false;
+
+    private int nextId = 1;
+
+
+    public MatchTimeline()
+    {
+        task = RunTask.timer(this::tick, 1L, 1L);
+    }
+
+    /**
+     * Executes the actions due.
+     */
+    private void tick()
+    {
+        if (paused) return;
+
+        currentTick++;
+
+        while (!actions.isEmpty() && actions.peek().getDueTick() <= currentTick)
+        {
+            final TimelineAction action = actions.poll();
+
+            if (action.isRepeating() && (action.getLastTick() < 0 || action.getDueTick() + action.getPeriod() <= action.getLastTick()))
+            {
+                action.setDueTick(action.getDueTick() + action.getPeriod());
+                actions.add(action);
+            }
+            else
+            {
+                action.setCancelled();
+            }
+
+            try
+            {
+                action.run();
+            }
+            catch (Throwable e)
+            {
+                PluginLogger.error("Exception while executing the timeline action {0}", e, action.getName());
+            }
+        }
+    }
+
+    /**
+     * Schedules an action executed once.
+     *
+     * @param name   The name of the action, displayed in {@code /uh timeline}.
+     * @param delay  The delay before the execution, in ticks.
+     * @param action The action.
+     *
+     * @return The scheduled action.
+     */
+    public TimelineAction schedule(String name, long delay, Runnable action)
+    {
+        return schedule(name, delay, 0L, -1L, action);
+    }
+
+    /**
+     * Schedules an action executed periodically.
+     *
+     * @param name     The name of the action, displayed in {@code /uh timeline}.
+     * @param delay    The delay before the first execution, in ticks.
+     * @param period   The delay between two executions, in ticks.
+     * @param duration After this number of ticks from now, the action is no longer executed; -1
+     *                 to repeat it until cancelled.
+     * @param action   The action.
+     *
+     * @return The scheduled action.
+     */
+    public TimelineAction schedule(String name, long delay, long period, long duration, Runnable action)
+    {
+        final TimelineAction scheduled = new TimelineAction(nextId++, name, action, currentTick + Math.max(1L, delay), Math.max(0L, period), duration >= 0 ? currentTick + duration : -1L);
+        actions.add(scheduled);
+
+        return scheduled;
+    }
+
+    /**
+     * Reschedules an action.
+     *
+     * @param action The action.
+     * @param delay  The new delay before the (next) execution, in ticks from now.
+     *
+     * @return {@code false} if the action was already executed or cancelled.
+     */
+    public boolean reschedule(TimelineAction action, long delay)
+    {
+        if (!actions.remove(action)) return false;
+
+        action.setDueTick(currentTick + Math.max(1L, delay));
+        actions.add(action);
+
+        return true;
+    }
+
+    /**
+     * Cancels an action.
+     *
+     * @param action The action.
+     *
+     * @return {@code false} if the action was already executed or cancelled.
+     */
+    public boolean cancel(TimelineAction action)
+    {
+        if (!actions.remove(action)) return false;
+
+        action.setCancelled();
+        return true;
+    }
+
+    /**
+     * @param action An action.
+     *
+     * @return The number of ticks before the (next) execution of this action; -1 if it will not
+     * be executed.
+     */
+    public long getRemainingTicks(TimelineAction action)
+    {
+        return action.isCancelled() ? -1L : Math.max(0L, action.getDueTick() - currentTick);
+    }
+
+    /**
+     * @param id The identifier of an action.
+     *
+     * @return The scheduled action with this identifier, or {@code null} if there isn't any (or
+     * if it was already executed).
+     */
+    public TimelineAction getAction(int id)
+    {
+        for (final TimelineAction action : actions)
+            if (action.getId() == id)
+                return action;
+
+        return null;
+    }
+
+    /**
+     * @return The scheduled actions, in execution order.
+     */
+    public List<TimelineAction> getActions()
+    {
+        final List<TimelineAction> sorted = new ArrayList<>(actions);
+        Collections.sort(sorted);
+
+        return sorted;
+    }
+
+    /**
+     * Pauses or resumes the timeline. While paused, the clock of the timeline is stopped, so the
+     * actions are delayed by the duration of the pause.
+     *
+     * @param paused {@code true} to pause.
+     */
+    public void setPaused(boolean paused)
+    {
+        this.paused = paused;
+    }
+
+    /**
+     * @return {@code true} if the timeline is paused.
+     */
+    public boolean isPaused()
+    {
+        return paused;
+    }
+
+    /**
+     * @return The current tick of the timeline (the number of ticks elapsed since the plugin was
+     * enabled, pauses excluded).
+     */
+    public long getCurrentTick()
+    {
+        return currentTick;
+    }
+
+    /**
+     * Cancels all the actions and stops the timeline.
+     */
+    public void shutdown()
+    {
+        for (final TimelineAction action : actions)
+            action.setCancelled();
+
+        actions.clear();
+        task.cancel();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.timeline;
+
+
+/**
+ * An action scheduled in the {@link MatchTimeline}.
+ */
+public class TimelineAction implements Comparable<TimelineAction>
+{
+    private final int id;
+    private final String name;
+    private final Runnable action;
+
+    private long dueTick;
+    private final long period;
+    private final long lastTick;
+
+    private boolean cancelled = false;
+
+
+    TimelineAction(int id, String name, Runnable action, long dueTick, long period, long lastTick)
+    {
+        this.id = id;
+        this.name = name;
+        this.action = action;
+        this.dueTick = dueTick;
+        this.period = period;
+        this.lastTick = lastTick;
+    }
+
+    /**
+     * @return The identifier of this action, unique for the whole server session.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return The name of this action, displayed in {@code /uh timeline}.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return {@code true} if this action is executed periodically.
+     */
+    public boolean isRepeating()
+    {
+        return period > 0;
+    }
+
+    /**
+     * @return The period of this action, in ticks; 0 if executed once.
+     */
+    public long getPeriod()
+    {
+        return period;
+    }
+
+    /**
+     * @return {@code true} if this action was cancelled (or executed for the last time).
+     */
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    long getDueTick()
+    {
+        return dueTick;
+    }
+
+    void setDueTick(long dueTick)
+    {
+        this.dueTick = dueTick;
+    }
+
+    long getLastTick()
+    {
+        return lastTick;
+    }
+
+    void setCancelled()
+    {
+        this.cancelled = true;
+    }
+
+    void run()
+    {
+        action.run();
+    }
+
+    @Override
+    public int compareTo(TimelineAction other)
+    {
+        // Actions due at the same tick are executed in the order they were scheduled.
+        final int byTick = Long.compare(dueTick, other.dueTick);
+        return byTick != 0 ? byTick : Integer.compare(id, other.id);
+    }
+}
@@ -33,7 +33,6 @@
 package eu.carrade.amaury.UHCReloaded.timers;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -57,6 +56,11 @@ public class TimerManager
      */
     private Set<UHTimer> timersToResume = new CopyOnWriteArraySet<>();
 
+    /**
+     * Schedules the end of the running timers.
+     */
+    private final TimerWheel wheel = new TimerWheel();
+
 
     /**
      * Registers the main timer, used to display the episodes countdown.
@@ -65,8 +69,16 @@ public class TimerManager
      */
     public void registerMainTimer(UHTimer timer)
     {
+        if (this.mainTimer != null && this.mainTimer != timer)
+        {
+            this.mainTimer.setManager(null);
+            runningTimers.remove(this.mainTimer.getName());
+        }
+
         this.mainTimer = timer;
-        timer.setRegistered(true);
+        timer.setManager(this);
+
+        if (timer.isRunning()) timerStarted(timer);
     }
 
     /**
@@ -94,7 +106,9 @@ public class TimerManager
 
         timers.put(timer.getName(), timer);
 
-        timer.setRegistered(true);
+        timer.setManager(this);
+
+        if (timer.isRunning()) timerStarted(timer);
     }
 
     /**
@@ -109,24 +123,51 @@ public class TimerManager
         timers.remove(timer.getName());
         runningTimers.remove(timer.getName());
 
-        timer.setRegistered(false);
+        timer.setManager(null);
     }
 
     /**
-     * Updates the internal list of started timers.
+     * Ends the timers whose time is up. Must be called every tick.
      */
-    public void updateStartedTimersList()
+    public void update()
     {
-        runningTimers = new HashMap<>();
-
-        if (getMainTimer() != null && getMainTimer().isRunning())
+        for (final UHTimer timer : wheel.advance(System.nanoTime()))
         {
-            runningTimers.put(getMainTimer().getName(), getMainTimer());
+            timer.end();
         }
+    }
+
+    /**
+     * Schedules the end of a running timer.
+     *
+     * @param timer    The timer.
+     * @param deadline The {@link System#nanoTime()} time at which the timer ends.
+     *
+     * @return The scheduled end, to be cancelled if the timer is stopped or paused.
+     */
+    TimerWheel.Entry scheduleEnd(UHTimer timer, long deadline)
+    {
+        return wheel.schedule(timer, deadline);
+    }
 
-        timers.values().stream()
-                .filter(UHTimer::isRunning)
-                .forEach(timer -> runningTimers.put(timer.getName(), timer));
+    /**
+     * Updates the internal list of running timers when a registered timer starts.
+     *
+     * @param timer The timer.
+     */
+    void timerStarted(UHTimer timer)
+    {
+        runningTimers.put(timer.getName(), timer);
+    }
+
+    /**
+     * Updates the internal list of running timers when a registered timer stops.
+     *
+     * @param timer The timer.
+     */
+    void timerStopped(UHTimer timer)
+    {
+        runningTimers.remove(timer.getName());
     }
 
     /**
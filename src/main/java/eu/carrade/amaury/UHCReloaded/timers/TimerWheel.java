@@ -0,0 +1,181 @@
+/*
+ * Copyright or © or Copr. Amaury Carrade (2014 - 2016)
+ *
+ * http://amaury.carrade.eu
+ *
+ * This software is governed by the CeCILL-B license under French law and
+ * abiding by the rules of distribution of free software.  You can  use,
+ * modify and/ or redistribute the software under the terms of the CeCILL-B
+ * license as circulated by CEA, CNRS and INRIA at the following URL
+ * "http://www.cecill.info".
+ *
+ * As a counterpart to the access to the source code and  rights to copy,
+ * modify and redistribute granted by the license, users are provided only
+ * with a limited warranty  and the software's author,  the holder of the
+ * economic rights,  and the successive licensors  have only  limited
+ * liability.
+ *
+ * In this respect, the user's attention is drawn to the risks associated
+ * with loading,  using,  modifying and/or developing or reproducing the
+ * software by the user in light of its specific status of free software,
+ * that may mean  that it is complicated to manipulate,  and  that  also
+ * therefore means  that it is reserved for developers  and  experienced
+ * professionals having in-depth computer knowledge. Users are therefore
+ * encouraged to load and test the software's suitability as regards their
+ * requirements in conditions enabling the security of their systems and/or
+ * data to be ensured and,  more generally, to use and operate it in the
+ * same conditions as regards security.
+ *
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-B license and that you accept its terms.
+ */
+package eu.carrade.amaury.UHCReloaded.timers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A hashed timer wheel, scheduling the end of the running timers.
+ *
+ * <p>The time is split in slots of one server tick (50 ms), measured with {@link
+ * System#nanoTime()}; each slot of the wheel holds the timers ending during this slot (modulo the
+ * wheel size, with a number of remaining rounds for the timers ending later). Scheduling and
+ * cancelling are O(1), and only the timers of the elapsed slots are looked at on each tick.</p>
+ *
+ * <p>Not thread-safe: to be used from the main thread only.</p>
+ */
+class TimerWheel
+{
+    private static final long SLOT_DURATION = 50_000_000L; // ns
+    private static final int WHEEL_SIZE = 512; // power of two
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final List<List<Entry>> slots = new ArrayList<>(WHEEL_SIZE);
+    private final long origin;
+
+    /**
+     * The last slot processed.
+     */
+    private long currentSlot = 0;
+
+    private final List<Entry> carried = new ArrayList<>();
+    private final List<UHTimer> expired = new ArrayList<>();
+
+
+    TimerWheel()
+    {
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            slots.add(new ArrayList<>());
+
+        origin = System.nanoTime();
+    }
+
+    /**
+     * Schedules the end of a timer.
+     *
+     * @param timer    The timer.
+     * @param deadline The {@link System#nanoTime()} time at which the timer ends.
+     *
+     * @return The entry of the timer in the wheel, to cancel it.
+     */
+    Entry schedule(UHTimer timer, long deadline)
+    {
+        final Entry entry = new Entry(timer, deadline);
+        insert(entry, Math.max((deadline - origin) / SLOT_DURATION, currentSlot + 1));
+
+        return entry;
+    }
+
+    private void insert(Entry entry, long slot)
+    {
+        entry.rounds = (slot - currentSlot - 1) / WHEEL_SIZE;
+        slots.get((int) (slot & WHEEL_MASK)).add(entry);
+    }
+
+    /**
+     * Processes the slots elapsed since the last call.
+     *
+     * @param now The current {@link System#nanoTime()} time.
+     *
+     * @return The timers ended, in the order of their slots. The list is reused by the next call.
+     */
+    List<UHTimer> advance(long now)
+    {
+        expired.clear();
+
+        final long target = (now - origin) / SLOT_DURATION;
+
+        while (currentSlot < target)
+        {
+            currentSlot++;
+
+            final List<Entry> slot = slots.get((int) (currentSlot & WHEEL_MASK));
+            int kept = 0;
+
+            for (int i = 0; i < slot.size(); i++)
+            {
+                final Entry entry = slot.get(i);
+
+                if (entry.cancelled)
+                    continue;
+
+                if (entry.rounds > 0)
+                {
+                    entry.rounds--;
+                    slot.set(kept++, entry);
+                }
+
+                // Ends later during this slot (only possible for the last one).
+                else if (entry.deadline > now)
+                {
+                    carried.add(entry);
+                }
+
+                else
+                {
+                    entry.cancelled = true;
+                    expired.add(entry.timer);
+                }
+            }
+
+            while (slot.size() > kept)
+                slot.remove(slot.size() - 1);
+        }
+
+        for (final Entry entry : carried)
+            insert(entry, currentSlot + 1);
+
+        carried.clear();
+
+        return expired;
+    }
+
+
+    /**
+     * A timer scheduled in the wheel.
+     */
+    static class Entry
+    {
+        private final UHTimer timer;
+        private final long deadline;
+
+        private long rounds = 0;
+        private boolean cancelled = false;
+
+        private Entry(UHTimer timer, long deadline)
+        {
+            this.timer = timer;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this entry; the timer will not be returned as ended. O(1): the entry is removed
+         * from the wheel when its slot is processed.
+         */
+        void cancel()
+        {
+            cancelled = true;
+        }
+    }
+}
@@ -39,46 +39,42 @@ import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.util.UUID;
 
 
 /**
  * Represents a timer.
  *
+ * <p>The time is measured with {@link System#nanoTime()}, and the end of the registered timers
+ * is scheduled by the {@link TimerManager}. The time left is computed when requested, so it can
+ * be read (and displayed) from any thread.</p>
+ *
  * @author Amaury Carrade
  */
 public class UHTimer
 {
-    private static final NumberFormat formatter = new DecimalFormat("00");
-
     private UUID id;
     private String name;
-    private Boolean registered = false;
-    private Boolean running = false;
+    private TimerManager manager = null;
+    private volatile Boolean running = false;
     private Boolean displayed = false;
 
-    private Long startTime = 0L;
-    private Integer duration = 0; // seconds
+    private volatile long startTime = 0L; // ns
+    private volatile Integer duration = 0; // seconds
 
-    // Cached values
-    private Integer hoursLeft = 0;
-    private Integer minutesLeft = 0;
-    private Integer secondsLeft = 0;
-
-    // Old values, used by the scoreboard to reset the scores.
-    private Integer oldHoursLeft = -1;
-    private Integer oldMinutesLeft = -1;
-    private Integer oldSecondsLeft = -1;
+    // Seconds left while not running: the full duration before the start, 0 after the end.
+    private volatile int idleSecondsLeft = 0;
 
     // Pause
-    private Boolean paused = false;
-    private Long pauseTime = 0L;
+    private volatile Boolean paused = false;
+    private volatile long pauseTime = 0L; // ns
 
     // Display this timer following the format "hh:mm:ss"?
     private Boolean displayHoursInTimer = false;
 
+    // The scheduled end of this timer, if running
+    private TimerWheel.Entry wheelEntry = null;
+
 
     public UHTimer(String name)
     {
@@ -96,12 +92,11 @@ public class UHTimer
     public void setDuration(int seconds)
     {
         this.duration = seconds;
+        this.idleSecondsLeft = seconds;
 
-        this.hoursLeft = (int) Math.floor(this.duration / 3600);
-        this.minutesLeft = (int) (Math.floor(this.duration / 60) - (this.hoursLeft * 60));
-        this.secondsLeft = this.duration - (this.minutesLeft * 60 + this.hoursLeft * 3600);
+        this.displayHoursInTimer = (seconds / 3600 != 0);
 
-        this.displayHoursInTimer = (this.hoursLeft != 0);
+        scheduleEnd();
     }
 
     /**
@@ -111,8 +106,27 @@ public class UHTimer
      */
     public void start()
     {
+        start(0L);
+    }
+
+    /**
+     * Starts this timer, as if it was started some time ago.
+     *
+     * If this is called while the timer is running, the timer is restarted.
+     *
+     * @param elapsed The time already elapsed, in milliseconds.
+     */
+    public void start(long elapsed)
+    {
+        this.paused = false;
+        this.pauseTime = 0L;
+        this.startTime = System.nanoTime() - elapsed * 1_000_000L;
         this.running = true;
-        this.startTime = System.currentTimeMillis();
+
+        if (manager != null)
+            manager.timerStarted(this);
+
+        scheduleEnd();
 
         Bukkit.getServer().getPluginManager().callEvent(new TimerStartsEvent(this));
     }
@@ -145,43 +159,40 @@ public class UHTimer
             {
                 this.running = false;
                 this.startTime = 0L;
+                this.idleSecondsLeft = 0;
 
-                this.hoursLeft = 0;
-                this.minutesLeft = 0;
-                this.secondsLeft = 0;
-
-                this.oldHoursLeft = 0;
-                this.oldMinutesLeft = 0;
-                this.oldSecondsLeft = 0;
+                cancelEnd();
+                manager.timerStopped(this);
             }
         }
     }
 
     /**
-     * Updates the timer.
+     * Called by the {@link TimerManager} when the time is up.
      */
-    public void update()
+    void end()
     {
-        if (running && !paused)
-        {
-            oldHoursLeft = hoursLeft;
-            oldMinutesLeft = minutesLeft;
-            oldSecondsLeft = secondsLeft;
+        wheelEntry = null;
+        stop(true);
+    }
 
-            long timeSinceStart = System.currentTimeMillis() - this.startTime; // ms
+    /**
+     * Schedules the end of this timer, if it is registered and running.
+     */
+    private void scheduleEnd()
+    {
+        cancelEnd();
 
-            if (timeSinceStart >= getDuration() * 1000)
-            {
-                stop(true);
-            }
-            else
-            {
-                int countSecondsLeft = (int) (getDuration() - Math.floor(timeSinceStart / 1000));
+        if (manager != null && running && !paused)
+            wheelEntry = manager.scheduleEnd(this, startTime + duration * 1_000_000_000L);
+    }
 
-                secondsLeft = countSecondsLeft % 60;
-                minutesLeft = (countSecondsLeft % 3600) / 60;
-                hoursLeft = (int) Math.floor(countSecondsLeft / 3600);
-            }
+    private void cancelEnd()
+    {
+        if (wheelEntry != null)
+        {
+            wheelEntry.cancel();
+            wheelEntry = null;
         }
     }
 
@@ -199,22 +210,50 @@ public class UHTimer
             // The pause is only set once (as example if the user executes /uh freeze all twice).
             if (pause && !this.paused)
             {
+                this.pauseTime = System.nanoTime();
                 this.paused = true;
-                this.pauseTime = System.currentTimeMillis();
+
+                cancelEnd();
             }
 
             if (!pause && this.paused)
             {
                 // We have to add to the time of the start of the episode the elapsed time
                 // during the pause.
-                this.startTime += (System.currentTimeMillis() - this.pauseTime);
-                this.pauseTime = 0l;
+                this.startTime += (System.nanoTime() - this.pauseTime);
+                this.pauseTime = 0L;
 
                 this.paused = false;
+
+                scheduleEnd();
             }
         }
     }
 
+    /**
+     * Returns the time elapsed since the start of this timer, pauses excluded.
+     *
+     * @return The elapsed time, in milliseconds; 0 if the timer is not running.
+     */
+    public long getElapsed()
+    {
+        if (!running)
+            return 0L;
+
+        return ((paused ? pauseTime : System.nanoTime()) - startTime) / 1_000_000L;
+    }
+
+    /**
+     * @return The number of seconds left until the end of this countdown.
+     */
+    private int getTotalSecondsLeft()
+    {
+        if (!running)
+            return idleSecondsLeft;
+
+        return (int) Math.max(0L, duration - getElapsed() / 1000L);
+    }
+
     /**
      * Checks if the timer is registered in the TimerManager.
      *
@@ -222,17 +261,21 @@ public class UHTimer
      */
     public Boolean isRegistered()
     {
-        return registered;
+        return manager != null;
     }
 
     /**
-     * Marks a timer as registered, or not.
+     * Marks a timer as registered in the given manager, or not.
      *
-     * @param registered true if the timer is now registered.
+     * @param manager The manager this timer is now registered in, or {@code null} if unregistered.
      */
-    protected void setRegistered(Boolean registered)
+    protected void setManager(TimerManager manager)
     {
-        this.registered = registered;
+        cancelEnd();
+
+        this.manager = manager;
+
+        scheduleEnd();
     }
 
     /**
@@ -305,7 +348,7 @@ public class UHTimer
      */
     public Integer getHoursLeft()
     {
-        return hoursLeft;
+        return getTotalSecondsLeft() / 3600;
     }
 
     /**
@@ -315,7 +358,7 @@ public class UHTimer
      */
     public Integer getMinutesLeft()
     {
-        return minutesLeft;
+        return (getTotalSecondsLeft() % 3600) / 60;
     }
 
     /**
@@ -325,43 +368,48 @@ public class UHTimer
      */
     public Integer getSecondsLeft()
     {
-        return secondsLeft;
+        return getTotalSecondsLeft() % 60;
     }
 
     /**
-     * Returns the number of hours left until the end of this countdown, before the last update.
+     * Returns the number of hours left until the end of this countdown, one second ago.
      * <p>
      * Used by the scoreboard, to remove the old score.
      *
-     * @return The old number of hours left, or -1 if the timer was never updated.
+     * @return The old number of hours left.
      */
     public Integer getOldHoursLeft()
     {
-        return oldHoursLeft;
+        return getOldTotalSecondsLeft() / 3600;
     }
 
     /**
-     * Returns the number of minutes left until the end of this countdown, before the last update.
+     * Returns the number of minutes left until the end of this countdown, one second ago.
      * <p>
      * Used by the scoreboard, to remove the old score.
      *
-     * @return The old number of minutes left, or -1 if the timer was never updated.
+     * @return The old number of minutes left.
      */
     public Integer getOldMinutesLeft()
     {
-        return oldMinutesLeft;
+        return (getOldTotalSecondsLeft() % 3600) / 60;
     }
 
     /**
-     * Returns the number of seconds left until the end of this countdown, before the last update.
+     * Returns the number of seconds left until the end of this countdown, one second ago.
      * <p>
      * Used by the scoreboard, to remove the old score.
      *
-     * @return The old number of seconds left, or -1 if the timer was never updated.
+     * @return The old number of seconds left.
      */
     public Integer getOldSecondsLeft()
     {
-        return oldSecondsLeft;
+        return getOldTotalSecondsLeft() % 60;
+    }
+
+    private int getOldTotalSecondsLeft()
+    {
+        return running ? Math.min(duration, getTotalSecondsLeft() + 1) : getTotalSecondsLeft();
     }
 
     /**
@@ -398,18 +446,32 @@ public class UHTimer
 
     public String toString(boolean displayHours)
     {
+        // Read once, so the three parts are consistent (the sidebar is rendered asynchronously).
+        final int secondsLeft = getTotalSecondsLeft();
+
         if (displayHours)
         {
             /// Timer. {0} = hours; {1} = minutes; {2} = seconds.
-            return I.t("{0}{gray}:{white}{1}{gray}:{white}{2}", formatter.format(hoursLeft), formatter.format(minutesLeft), formatter.format(secondsLeft));
+            return I.t("{0}{gray}:{white}{1}{gray}:{white}{2}", twoDigits(secondsLeft / 3600), twoDigits((secondsLeft % 3600) / 60), twoDigits(secondsLeft % 60));
         }
         else
         {
             /// Timer. {0} = minutes; {1} = seconds.
-            return I.t("{white}{0}{gray}:{white}{1}", formatter.format(minutesLeft), formatter.format(secondsLeft));
+            return I.t("{white}{0}{gray}:{white}{1}", twoDigits((secondsLeft % 3600) / 60), twoDigits(secondsLeft % 60));
         }
     }
 
+    /**
+     * Formats a number with at least two digits. Thread-safe, unlike the {@link java.text.NumberFormat}s.
+     *
+     * @param number The number (positive).
+     * @return The formatted number.
+     */
+    private static String twoDigits(int number)
+    {
+        return number < 10 ? "0" + number : String.valueOf(number);
+    }
+
     @Override
     public int hashCode()
     {
@@ -32,6 +32,8 @@
 
 package eu.carrade.amaury.UHCReloaded.utils;
 
+import eu.carrade.amaury.UHCReloaded.UHCReloaded;
+import eu.carrade.amaury.UHCReloaded.misc.SurfaceCache;
 import fr.zcraft.zlib.tools.Callback;
 import fr.zcraft.zlib.tools.PluginLogger;
 import org.bukkit.Bukkit;
@@ -298,17 +300,41 @@ public class UHUtils
      */
     public static boolean isSafeSpot(Location location)
     {
+        // The surface is cached: no need to look at the blocks if this is the surface spot.
+        final SurfaceCache surface = UHCReloaded.get().getSurfaceCache();
+        if (surface != null && location.getBlockY() == surface.getHighestBlockYAt(location.getWorld(), location.getBlockX(), location.getBlockZ()))
+        {
+            return surface.isSafeSurface(location.getWorld(), location.getBlockX(), location.getBlockZ());
+        }
+
         Block blockCenter = location.getWorld().getBlockAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
         Block blockAbove = location.getWorld().getBlockAt(location.getBlockX(), location.getBlockY() + 1, location.getBlockZ());
         Block blockBelow = location.getWorld().getBlockAt(location.getBlockX(), location.getBlockY() - 1, location.getBlockZ());
 
-        if ((blockCenter.getType().isTransparent() || (blockCenter.isLiquid() && !blockCenter.getType().equals(Material.LAVA) && !blockCenter.getType().equals(Material.STATIONARY_LAVA)))
-                && (blockAbove.getType().isTransparent() || (blockAbove.isLiquid() && !blockAbove.getType().equals(Material.LAVA) && !blockCenter.getType().equals(Material.STATIONARY_LAVA))))
+        return isSafeSpot(blockCenter.getType(), blockAbove.getType(), blockBelow.getType());
+    }
+
+    /**
+     * Checks if a spot is safe, from the type of its blocks.
+     * A safe spot is made of two breathable blocks (aka transparent block or water) over
+     * something solid (or water).
+     *
+     * <p>Doesn't need any access to the world, so it can be used from any thread (e.g. with the
+     * content of a {@link org.bukkit.ChunkSnapshot}).</p>
+     *
+     * @param center The type of the block where the feet would be.
+     * @param above  The type of the block where the head would be.
+     * @param below  The type of the block under the feet.
+     * @return true if the spot is safe.
+     */
+    public static boolean isSafeSpot(Material center, Material above, Material below)
+    {
+        if ((center.isTransparent() || isBreathableLiquid(center)) && (above.isTransparent() || isBreathableLiquid(above)))
         {
             // two breathable blocks: ok
 
             // The block below is solid, or liquid (but not lava)
-            return blockBelow.getType().isSolid() || blockBelow.getType().equals(Material.WATER) || blockBelow.getType().equals(Material.STATIONARY_WATER);
+            return below.isSolid() || below == Material.WATER || below == Material.STATIONARY_WATER;
         }
         else
         {
@@ -316,6 +342,11 @@ public class UHUtils
         }
     }
 
+    private static boolean isBreathableLiquid(Material material)
+    {
+        return material == Material.WATER || material == Material.STATIONARY_WATER;
+    }
+
 
     /**
      * Spawns a random firework at the given location.